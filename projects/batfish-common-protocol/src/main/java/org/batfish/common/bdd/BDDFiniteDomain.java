@@ -86,6 +86,11 @@ public final class BDDFiniteDomain<V> {
     return _varBits == null ? bdd : bdd.exist(_varBits);
   }
 
+  /** Equivalent to {@code existsValue(bdd.and(constraint))}, but in a single pass. */
+  public BDD andExistsValue(BDD bdd, BDD constraint) {
+    return _varBits == null ? bdd.and(constraint) : bdd.relprod(constraint, _varBits);
+  }
+
   public BDD getConstraintForValue(V value) {
     return checkNotNull(_valueToBdd.get(value), "value not in domain");
   }
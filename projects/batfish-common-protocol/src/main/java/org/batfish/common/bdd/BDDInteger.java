@@ -138,11 +138,9 @@ public class BDDInteger {
     BDD bdd = _factory.one();
     for (int i = this._bitvec.length - 1; i >= 0; i--) {
       BDD b = this._bitvec[i];
-      if ((currentVal & 1) != 0) {
-        bdd = bdd.and(b);
-      } else {
-        bdd = bdd.diff(b);
-      }
+      BDD next = (currentVal & 1) != 0 ? bdd.and(b) : bdd.diff(b);
+      bdd.free();
+      bdd = next;
       currentVal >>= 1;
     }
     return bdd;
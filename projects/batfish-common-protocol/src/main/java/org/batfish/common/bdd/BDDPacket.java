@@ -11,7 +11,10 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Random;
 import java.util.function.Supplier;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 import javax.annotation.Nonnull;
 import net.sf.javabdd.BDD;
 import net.sf.javabdd.BDDFactory;
@@ -66,6 +69,7 @@ public class BDDPacket {
   private static final int PORT_LENGTH = 16;
   private static final int STATE_LENGTH = 2;
   private static final int TCP_FLAG_LENGTH = 1;
+  private static final int QUERY_ID_LENGTH = 8;
 
   private final Map<Integer, String> _bitNames;
   private final BDDFactory _factory;
@@ -91,12 +95,17 @@ public class BDDPacket {
   private final @Nonnull BDD _tcpRst;
   private final @Nonnull BDD _tcpSyn;
   private final @Nonnull BDD _tcpUrg;
+  private final @Nonnull BDD _headerVars;
 
   private final BDDPairing _pairing;
   private final BDDPairing _swapSourceAndDestinationPairing;
   private final IpSpaceToBDD _dstIpSpaceToBDD;
   private final IpSpaceToBDD _srcIpSpaceToBDD;
 
+  // Tags queries answered together. Allocated on first use, since most packets never need it.
+  private final Supplier<BDDInteger> _queryIdSupplier =
+      Suppliers.memoize(() -> allocateBDDInteger("queryId", QUERY_ID_LENGTH, false));
+
   // Generating flow preference for representative flow picking
   private final Supplier<BDDFlowConstraintGenerator> _flowConstraintGeneratorSupplier =
       Suppliers.memoize(() -> new BDDFlowConstraintGenerator(this));
@@ -168,6 +177,7 @@ public class BDDPacket {
 
     _dstIpSpaceToBDD = new MemoizedIpSpaceToBDD(_dstIp, ImmutableMap.of());
     _srcIpSpaceToBDD = new MemoizedIpSpaceToBDD(_srcIp, ImmutableMap.of());
+    _headerVars = _factory.makeSet(IntStream.range(FIRST_PACKET_VAR, _nextFreeBDDVarIdx).toArray());
   }
 
   /*
@@ -218,6 +228,16 @@ public class BDDPacket {
     return var;
   }
 
+  /**
+   * Returns a variable for telling apart queries that are answered together, e.g. by a single
+   * reachability fixpoint. No packet field or transformation refers to it. It is allocated the
+   * first time it is requested and then shared, so answering many batches of queries with the same
+   * packet does not keep adding variables.
+   */
+  public BDDInteger getQueryId() {
+    return _queryIdSupplier.get();
+  }
+
   public IpSpaceToBDD getDstIpSpaceToBDD() {
     return _dstIpSpaceToBDD;
   }
@@ -261,6 +281,25 @@ public class BDDPacket {
     return getFlow(bdd, FlowPreference.DEBUGGING);
   }
 
+  /**
+   * Lazily enumerate distinct flows in a BDD, each chosen uniformly at random from those not yet
+   * returned. Each flow also differs from all previous ones in each of {@code distinctFields}, e.g.
+   * {@link #getDstIp()}. Use {@link Stream#limit(long)} to take the first N.
+   *
+   * <p>Much cheaper than calling {@link #getFlow(BDD)} repeatedly on a shrinking BDD, since the BDD
+   * is only walked once. See {@link BDDSampler}, including for when to close the stream.
+   */
+  public Stream<Flow.Builder> sampleFlows(BDD bdd, Random random, BDDInteger... distinctFields) {
+    return new BDDSampler(_headerVars, random)
+        .sample(bdd, distinctFields)
+        .map(
+            assignment -> {
+              Flow.Builder flow = getFlowFromAssignment(assignment);
+              assignment.free();
+              return flow;
+            });
+  }
+
   public Flow.Builder getFlowFromAssignment(BDD satAssignment) {
     checkArgument(isAssignment(satAssignment));
 
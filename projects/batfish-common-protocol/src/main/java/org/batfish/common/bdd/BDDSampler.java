@@ -0,0 +1,175 @@
+package org.batfish.common.bdd;
+
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Streams;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import net.sf.javabdd.BDD;
+import net.sf.javabdd.BDDFactory;
+
+/**
+ * Draws many satisfying assignments of a {@link BDD}, uniformly at random and without repetition.
+ *
+ * <p>Unlike calling {@link BDDRepresentativePicker} once per assignment, the BDD is only walked
+ * once: the fraction of assignments satisfying each node is memoized, and each sample is then a
+ * single descent from the root that takes each branch with probability proportional to its
+ * fraction. Variables that are not on the path are chosen uniformly.
+ *
+ * <p>Not thread-safe, like the {@link BDDFactory} it uses.
+ */
+@ParametersAreNonnullByDefault
+public final class BDDSampler {
+  private final BDDFactory _factory;
+  private final int[] _vars;
+  private final Random _random;
+
+  /**
+   * Create a sampler whose samples assign exactly the variables in {@code vars}, a variable set as
+   * returned by {@link BDDFactory#makeSet(int[])}. All other variables are existentially quantified
+   * out of the sampled BDDs.
+   */
+  public BDDSampler(BDD vars, Random random) {
+    _factory = vars.getFactory();
+    _vars = vars.scanSet();
+    Arrays.sort(_vars);
+    _random = random;
+  }
+
+  /**
+   * Lazily enumerate distinct satisfying assignments of {@code bdd}, each chosen uniformly at
+   * random from the assignments not yet returned. Each assignment also differs from all previous
+   * ones in the value of each of {@code distinctFields}, whose variables must be among those
+   * sampled. The stream ends when no such assignment remains, so use {@link Stream#limit(long)} to
+   * take the first N.
+   *
+   * <p>The returned assignments are owned by the caller. The BDDs used internally are freed once
+   * the stream is exhausted, or when it is closed, so close streams that are not consumed to the
+   * end.
+   */
+  public Stream<BDD> sample(BDD bdd, BDDInteger... distinctFields) {
+    BDD otherVars =
+        _factory.makeSet(
+            IntStream.range(0, _factory.varNum())
+                .filter(var -> Arrays.binarySearch(_vars, var) < 0)
+                .toArray());
+    Sampling sampling = new Sampling(bdd.exist(otherVars), ImmutableList.copyOf(distinctFields));
+    otherVars.free();
+    return Streams.stream(sampling).onClose(sampling::free);
+  }
+
+  /** The state of one {@link #sample(BDD, BDDInteger...) sample} stream. */
+  private final class Sampling extends AbstractIterator<BDD> {
+    private final List<BDDInteger> _fields;
+
+    /**
+     * The fraction of all assignments that satisfy each node seen so far. The keys are owned by
+     * this map, which keeps their nodes alive and so valid as keys after {@link #_remaining}
+     * changes.
+     */
+    private final Map<BDD, Double> _satFractions;
+
+    /** The assignments not yet returned, or null once freed. */
+    private @Nullable BDD _remaining;
+
+    private Sampling(BDD remaining, List<BDDInteger> fields) {
+      _fields = fields;
+      _satFractions = new HashMap<>();
+      _remaining = remaining;
+    }
+
+    @Override
+    protected BDD computeNext() {
+      if (_remaining == null) {
+        return endOfData();
+      } else if (_remaining.isZero()) {
+        free();
+        return endOfData();
+      }
+      BDD assignment = sampleOne(_remaining);
+      BDD remaining = _remaining.diff(assignment);
+      for (BDDInteger field : _fields) {
+        remaining.diffWith(field.value(field.satAssignmentToLong(assignment)));
+      }
+      _remaining.free();
+      _remaining = remaining;
+      return assignment;
+    }
+
+    private void free() {
+      if (_remaining != null) {
+        _remaining.free();
+        _remaining = null;
+      }
+      _satFractions.keySet().forEach(BDD::free);
+      _satFractions.clear();
+    }
+
+    /** Return a satisfying assignment of {@code bdd}, which must not be zero. */
+    private BDD sampleOne(BDD bdd) {
+      int numVars = _factory.varNum();
+      boolean[] onPath = new boolean[numVars];
+      boolean[] values = new boolean[numVars];
+      BDD node = bdd;
+      while (!node.isOne()) {
+        BDD low = node.low();
+        BDD high = node.high();
+        double lowFraction = satFraction(low);
+        double highFraction = satFraction(high);
+        boolean value = _random.nextDouble() * (lowFraction + highFraction) < highFraction;
+        onPath[node.var()] = true;
+        values[node.var()] = value;
+        if (node != bdd) {
+          node.free();
+        }
+        if (value) {
+          low.free();
+          node = high;
+        } else {
+          high.free();
+          node = low;
+        }
+      }
+      if (node != bdd) {
+        node.free();
+      }
+
+      // Build the assignment bottom-up, so that each conjunction only adds a node above the rest.
+      int[] levels = Arrays.stream(_vars).map(_factory::var2Level).sorted().toArray();
+      BDD assignment = _factory.one();
+      for (int i = levels.length - 1; i >= 0; i--) {
+        int var = _factory.level2Var(levels[i]);
+        boolean value = onPath[var] ? values[var] : _random.nextBoolean();
+        assignment = (value ? _factory.ithVar(var) : _factory.nithVar(var)).andWith(assignment);
+      }
+      return assignment;
+    }
+
+    /** The fraction of all assignments that satisfy {@code bdd}, which the caller still owns. */
+    private double satFraction(BDD bdd) {
+      if (bdd.isZero()) {
+        return 0;
+      } else if (bdd.isOne()) {
+        return 1;
+      }
+      Double cached = _satFractions.get(bdd);
+      if (cached != null) {
+        return cached;
+      }
+      BDD low = bdd.low();
+      BDD high = bdd.high();
+      double fraction = (satFraction(low) + satFraction(high)) / 2;
+      low.free();
+      high.free();
+      _satFractions.put(bdd.id(), fraction);
+      return fraction;
+    }
+  }
+}
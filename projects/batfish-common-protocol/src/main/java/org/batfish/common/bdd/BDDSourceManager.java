@@ -335,6 +335,11 @@ public final class BDDSourceManager {
     return _finiteDomain.existsValue(bdd);
   }
 
+  /** Existentially quantify the source variable from {@code bdd AND constraint}. */
+  public BDD andExistsSource(BDD bdd, BDD constraint) {
+    return _finiteDomain.andExistsValue(bdd, constraint);
+  }
+
   /**
    * Test if a {@link BDD} includes the constraint that the source variable has a valid value (or a
    * stronger one that implies it).
@@ -96,15 +96,23 @@ public class IpSpaceToBDD implements GenericIpSpaceVisitor<BDD> {
     BDD[] bitBDDs = _bddInteger.getBitvec();
     for (int i = length - 1; i >= 0; i--) {
       boolean bitValue = Ip.getBitAtPosition(b, i);
-      if (bitValue) {
-        acc = acc.and(bitBDDs[i]);
-      } else {
-        acc = acc.diff(bitBDDs[i]);
-      }
+      acc = constrainBit(acc, bitBDDs[i], bitValue);
     }
     return acc;
   }
 
+  /**
+   * Constrain {@code acc} to the given value of {@code bit}. Frees {@code acc}, which is an
+   * intermediate result of the caller, unless it is the shared {@link #_one}.
+   */
+  private BDD constrainBit(BDD acc, BDD bit, boolean bitValue) {
+    BDD result = bitValue ? acc.and(bit) : acc.diff(bit);
+    if (acc != _one) {
+      acc.free();
+    }
+    return result;
+  }
+
   /*
    * Does the 32 bit integer match the prefix using lpm?
    */
@@ -125,11 +133,7 @@ public class IpSpaceToBDD implements GenericIpSpaceVisitor<BDD> {
       boolean significant = !Ip.getBitAtPosition(wildcard, i);
       if (significant) {
         boolean bitValue = Ip.getBitAtPosition(ip, i);
-        if (bitValue) {
-          acc = acc.and(bitBDDs[i]);
-        } else {
-          acc = acc.diff(bitBDDs[i]);
-        }
+        acc = constrainBit(acc, bitBDDs[i], bitValue);
       }
     }
     return acc;
@@ -187,7 +191,10 @@ public class IpSpaceToBDD implements GenericIpSpaceVisitor<BDD> {
                 .map((IpWildcard wc) -> this.visit(wc.toIpSpace()))
                 .collect(Collectors.toList()));
 
-    return whitelist.diff(blacklist);
+    BDD result = whitelist.diff(blacklist);
+    whitelist.free();
+    blacklist.free();
+    return result;
   }
 
   @Override
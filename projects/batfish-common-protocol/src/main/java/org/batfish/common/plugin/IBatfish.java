@@ -112,6 +112,23 @@ public interface IBatfish extends IPluginConsumer {
   String getSnapshotInputObject(NetworkSnapshot snapshot, String key)
       throws FileNotFoundException, IOException;
 
+  /**
+   * Get the network-scoped blob for the given key, e.g. an analysis result stored while answering a
+   * question on another snapshot of the same network.
+   *
+   * @throws FileNotFoundException if the blob for the given key does not exist
+   * @throws IOException if there is an error reading the blob
+   */
+  @Nonnull
+  byte[] loadNetworkBlob(String key) throws FileNotFoundException, IOException;
+
+  /**
+   * Store a network-scoped blob for the given key, replacing any existing blob for that key.
+   *
+   * @throws IOException if there is an error writing the blob
+   */
+  void storeNetworkBlob(String key, byte[] blob) throws IOException;
+
   String getTaskId();
 
   InitInfoAnswerElement initInfo(NetworkSnapshot snapshot, boolean summary, boolean verboseError);
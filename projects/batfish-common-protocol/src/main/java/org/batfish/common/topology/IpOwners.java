@@ -12,15 +12,19 @@ import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Table;
 import io.opentracing.ActiveSpan;
 import io.opentracing.util.GlobalTracer;
+import java.io.Serializable;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.stream.Collectors;
+import javax.annotation.Nullable;
+import org.batfish.common.topology.IpOwnershipIndex.InterfaceSubnets;
 import org.batfish.datamodel.AclIpSpace;
 import org.batfish.datamodel.ConcreteInterfaceAddress;
 import org.batfish.datamodel.Configuration;
@@ -31,7 +35,7 @@ import org.batfish.datamodel.IpSpace;
 import org.batfish.datamodel.Prefix;
 
 /** A utility class for working with IPs owned by network devices. */
-public final class IpOwners {
+public final class IpOwners implements Serializable {
 
   /**
    * Mapping from a IP to hostname to set of interfaces that own that IP (including inactive
@@ -67,6 +71,15 @@ public final class IpOwners {
 
   private final Map<String, Map<String, IpSpace>> _vrfOwnedIpSpaces;
 
+  /** The subnets of each interface, from which the ownership indexes are built on first use */
+  private final List<InterfaceSubnets> _interfaceSubnets;
+
+  /** Index of the IPs and subnets owned by all interfaces (including inactive interfaces) */
+  private transient @Nullable IpOwnershipIndex _allIpOwnershipIndex;
+
+  /** Index of the IPs and subnets owned by active interfaces */
+  private transient @Nullable IpOwnershipIndex _activeIpOwnershipIndex;
+
   public IpOwners(Map<String, Configuration> configurations) {
     /* Mapping from a hostname to a set of all (including inactive) interfaces that node owns */
     Map<String, Set<Interface>> allInterfaces =
@@ -88,6 +101,8 @@ public final class IpOwners {
       _ipVrfOwners = computeIpVrfOwners(allInterfaces, _activeDeviceOwnedIps);
       _vrfOwnedIpSpaces = computeVrfOwnedIpSpaces(_ipVrfOwners);
     }
+
+    _interfaceSubnets = IpOwnershipIndex.interfaceSubnets(allInterfaces);
   }
 
   /**
@@ -412,4 +427,23 @@ public final class IpOwners {
   public Map<String, Map<String, IpSpace>> getVrfOwnedIpSpaces() {
     return _vrfOwnedIpSpaces;
   }
+
+  /**
+   * Returns an index of the IPs and subnets owned by all interfaces, including inactive interfaces.
+   */
+  public synchronized IpOwnershipIndex getAllIpOwnershipIndex() {
+    if (_allIpOwnershipIndex == null) {
+      _allIpOwnershipIndex = IpOwnershipIndex.create(_allDeviceOwnedIps, _interfaceSubnets, false);
+    }
+    return _allIpOwnershipIndex;
+  }
+
+  /** Returns an index of the IPs and subnets owned by active interfaces. */
+  public synchronized IpOwnershipIndex getActiveIpOwnershipIndex() {
+    if (_activeIpOwnershipIndex == null) {
+      _activeIpOwnershipIndex =
+          IpOwnershipIndex.create(_activeDeviceOwnedIps, _interfaceSubnets, true);
+    }
+    return _activeIpOwnershipIndex;
+  }
 }
@@ -0,0 +1,270 @@
+package org.batfish.common.topology;
+
+import static com.google.common.base.MoreObjects.firstNonNull;
+import static com.google.common.base.MoreObjects.toStringHelper;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import org.batfish.datamodel.AclIpSpace;
+import org.batfish.datamodel.ConcreteInterfaceAddress;
+import org.batfish.datamodel.EmptyIpSpace;
+import org.batfish.datamodel.Interface;
+import org.batfish.datamodel.Ip;
+import org.batfish.datamodel.IpRange;
+import org.batfish.datamodel.IpSpace;
+import org.batfish.datamodel.Prefix;
+
+/**
+ * Immutable index of the IPs and subnets owned by the interfaces of a snapshot, answering which
+ * interfaces own an IP, any IP of a prefix, or a subnet containing an IP, each with a single binary
+ * search per prefix length.
+ *
+ * <p>Rather than a trie of linked nodes, owned IPs are kept in one sorted array, and owned subnets
+ * in one sorted array of network addresses per prefix length. This keeps the index compact and
+ * cheap to serialize along with the rest of {@link IpOwners}.
+ */
+@ParametersAreNonnullByDefault
+public final class IpOwnershipIndex implements Serializable {
+
+  /** An interface owning IPs, identified by its node, VRF, and name. */
+  public static final class Owner implements Serializable {
+    private final @Nonnull String _hostname;
+    private final @Nonnull String _vrf;
+    private final @Nonnull String _interface;
+
+    public Owner(String hostname, String vrf, String iface) {
+      _hostname = hostname;
+      _vrf = vrf;
+      _interface = iface;
+    }
+
+    public @Nonnull String getHostname() {
+      return _hostname;
+    }
+
+    public @Nonnull String getVrf() {
+      return _vrf;
+    }
+
+    public @Nonnull String getInterface() {
+      return _interface;
+    }
+
+    @Override
+    public boolean equals(@Nullable Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof Owner)) {
+        return false;
+      }
+      Owner owner = (Owner) o;
+      return _hostname.equals(owner._hostname)
+          && _vrf.equals(owner._vrf)
+          && _interface.equals(owner._interface);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(_hostname, _vrf, _interface);
+    }
+
+    @Override
+    public String toString() {
+      return toStringHelper(this)
+          .add("hostname", _hostname)
+          .add("vrf", _vrf)
+          .add("interface", _interface)
+          .toString();
+    }
+  }
+
+  /** The subnets of one interface: all an index needs to know about the interface itself. */
+  static final class InterfaceSubnets implements Serializable {
+    private final @Nonnull Owner _owner;
+    private final boolean _active;
+    private final @Nonnull Prefix[] _subnets;
+
+    private InterfaceSubnets(Owner owner, boolean active, Prefix[] subnets) {
+      _owner = owner;
+      _active = active;
+      _subnets = subnets;
+    }
+  }
+
+  /** Extract the {@link InterfaceSubnets} of the {@code interfaces} (hostname -&gt; interfaces). */
+  static @Nonnull List<InterfaceSubnets> interfaceSubnets(Map<String, Set<Interface>> interfaces) {
+    ImmutableList.Builder<InterfaceSubnets> subnets = ImmutableList.builder();
+    interfaces.forEach(
+        (hostname, nodeInterfaces) -> {
+          for (Interface iface : nodeInterfaces) {
+            subnets.add(
+                new InterfaceSubnets(
+                    new Owner(hostname, iface.getVrfName(), iface.getName()),
+                    iface.getActive() && !iface.getBlacklisted(),
+                    iface.getAllConcreteAddresses().stream()
+                        .map(ConcreteInterfaceAddress::getPrefix)
+                        .toArray(Prefix[]::new)));
+          }
+        });
+    return subnets.build();
+  }
+
+  /** Keys in ascending order, and the owners of each key. */
+  private static final class Entries implements Serializable {
+    private static final Entries EMPTY = new Entries(new long[0], new Owner[0][]);
+
+    private final @Nonnull long[] _keys;
+    private final @Nonnull Owner[][] _owners;
+
+    private Entries(long[] keys, Owner[][] owners) {
+      _keys = keys;
+      _owners = owners;
+    }
+
+    private static @Nonnull Entries of(TreeMap<Long, Set<Owner>> ownersByKey) {
+      if (ownersByKey.isEmpty()) {
+        return EMPTY;
+      }
+      long[] keys = new long[ownersByKey.size()];
+      Owner[][] owners = new Owner[ownersByKey.size()][];
+      int i = 0;
+      for (Map.Entry<Long, Set<Owner>> entry : ownersByKey.entrySet()) {
+        keys[i] = entry.getKey();
+        owners[i] = entry.getValue().toArray(new Owner[0]);
+        i++;
+      }
+      return new Entries(keys, owners);
+    }
+
+    /** Index of the first key that is at least {@code key}. */
+    private int lowerBound(long key) {
+      int i = Arrays.binarySearch(_keys, key);
+      return i >= 0 ? i : -i - 1;
+    }
+
+    private void addOwners(long low, long high, ImmutableSet.Builder<Owner> owners) {
+      for (int i = lowerBound(low); i < _keys.length && _keys[i] <= high; i++) {
+        owners.add(_owners[i]);
+      }
+    }
+  }
+
+  private final @Nonnull Entries _ips;
+
+  /** Owned subnets by prefix length, keyed by network address */
+  private final @Nonnull Entries[] _subnets;
+
+  private IpOwnershipIndex(Entries ips, Entries[] subnets) {
+    _ips = ips;
+    _subnets = subnets;
+  }
+
+  /**
+   * Create an index of the IPs owned according to {@code ipInterfaceOwners} (IP -&gt; hostname
+   * -&gt; interface names), and of the subnets of the interfaces described by {@code
+   * interfaceSubnets}.
+   */
+  static @Nonnull IpOwnershipIndex create(
+      Map<Ip, Map<String, Set<String>>> ipInterfaceOwners,
+      List<InterfaceSubnets> interfaceSubnets,
+      boolean excludeInactive) {
+    // share one owner per interface
+    Map<String, Map<String, Owner>> owners = new HashMap<>();
+    List<TreeMap<Long, Set<Owner>>> subnetsByLength = new ArrayList<>();
+    for (int i = 0; i <= Prefix.MAX_PREFIX_LENGTH; i++) {
+      subnetsByLength.add(new TreeMap<>());
+    }
+    for (InterfaceSubnets iface : interfaceSubnets) {
+      Owner owner = iface._owner;
+      owners
+          .computeIfAbsent(owner.getHostname(), k -> new HashMap<>())
+          .put(owner.getInterface(), owner);
+      if (excludeInactive && !iface._active) {
+        continue;
+      }
+      for (Prefix subnet : iface._subnets) {
+        subnetsByLength
+            .get(subnet.getPrefixLength())
+            .computeIfAbsent(subnet.getStartIp().asLong(), k -> new HashSet<>())
+            .add(owner);
+      }
+    }
+
+    TreeMap<Long, Set<Owner>> ips = new TreeMap<>();
+    ipInterfaceOwners.forEach(
+        (ip, ipOwners) ->
+            ipOwners.forEach(
+                (hostname, ifaces) ->
+                    ifaces.forEach(
+                        iface ->
+                            ips.computeIfAbsent(ip.asLong(), k -> new HashSet<>())
+                                .add(owners.get(hostname).get(iface)))));
+
+    return new IpOwnershipIndex(
+        Entries.of(ips), subnetsByLength.stream().map(Entries::of).toArray(Entries[]::new));
+  }
+
+  /** Returns the interfaces owning {@code ip}. */
+  public @Nonnull Set<Owner> getOwners(Ip ip) {
+    ImmutableSet.Builder<Owner> owners = ImmutableSet.builder();
+    _ips.addOwners(ip.asLong(), ip.asLong(), owners);
+    return owners.build();
+  }
+
+  /** Returns the interfaces owning any IP in {@code prefix}. */
+  public @Nonnull Set<Owner> getOwners(Prefix prefix) {
+    ImmutableSet.Builder<Owner> owners = ImmutableSet.builder();
+    _ips.addOwners(prefix.getStartIp().asLong(), prefix.getEndIp().asLong(), owners);
+    return owners.build();
+  }
+
+  /** Returns the interfaces with a subnet containing {@code ip}. */
+  public @Nonnull Set<Owner> getSubnetOwners(Ip ip) {
+    ImmutableSet.Builder<Owner> owners = ImmutableSet.builder();
+    for (int length = 0; length <= Prefix.MAX_PREFIX_LENGTH; length++) {
+      Entries subnets = _subnets[length];
+      if (subnets._keys.length > 0) {
+        long network = Prefix.create(ip, length).getStartIp().asLong();
+        subnets.addOwners(network, network, owners);
+      }
+    }
+    return owners.build();
+  }
+
+  /** Returns whether {@code ip} is owned by an interface in VRF {@code vrf} of {@code hostname}. */
+  public boolean isOwnedBy(Ip ip, String hostname, String vrf) {
+    return getOwners(ip).stream()
+        .anyMatch(owner -> owner.getHostname().equals(hostname) && owner.getVrf().equals(vrf));
+  }
+
+  /** Returns the space of all owned IPs, with runs of consecutive IPs merged into ranges. */
+  public @Nonnull IpSpace getOwnedIpSpace() {
+    long[] ips = _ips._keys;
+    ImmutableList.Builder<IpSpace> ranges = ImmutableList.builder();
+    int start = 0;
+    for (int i = 1; i <= ips.length; i++) {
+      if (i == ips.length || ips[i] != ips[i - 1] + 1) {
+        ranges.add(
+            i - 1 == start
+                ? Ip.create(ips[start]).toIpSpace()
+                : IpRange.range(Ip.create(ips[start]), Ip.create(ips[i - 1])));
+        start = i;
+      }
+    }
+    return firstNonNull(AclIpSpace.union(ranges.build()), EmptyIpSpace.INSTANCE);
+  }
+}
@@ -6,19 +6,21 @@ import static com.google.common.base.Preconditions.checkArgument;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
-import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.function.Function;
+import java.util.function.Predicate;
 import java.util.stream.Stream;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -131,13 +133,79 @@ public final class Layer2Topology {
             .collect(ImmutableMap.toImmutableMap(Entry::getKey, Entry::getValue)));
   }
 
-  @VisibleForTesting
-  static @Nonnull Layer2Topology fromEdges(Set<Layer2Edge> edges) {
+  public static @Nonnull Layer2Topology fromEdges(Set<Layer2Edge> edges) {
     Builder builder = builder();
     edges.forEach(builder::addEdge);
     return builder.build();
   }
 
+  /**
+   * Return the layer-2 topology with edges {@code newEdges}, given that this topology was computed
+   * from edges {@code oldEdges}.
+   *
+   * <p>Only the broadcast domains touched by the difference between the two sets of edges are
+   * recomputed: each domain with an endpoint of a removed edge is split into the domains of the
+   * remaining edges between its nodes, and domains are merged along the added edges. Other domains
+   * are kept as they are, so e.g. shutting down one interface costs a pass over the edges rather
+   * than rebuilding every domain of the network.
+   */
+  public @Nonnull Layer2Topology updateEdges(Set<Layer2Edge> oldEdges, Set<Layer2Edge> newEdges) {
+    Set<Layer2Edge> addedEdges = Sets.difference(newEdges, oldEdges);
+    Set<Layer2Edge> removedEdges = Sets.difference(oldEdges, newEdges);
+    if (addedEdges.isEmpty() && removedEdges.isEmpty()) {
+      return this;
+    }
+    Set<Layer2Node> splitDomains =
+        removedEdges.stream()
+            .flatMap(edge -> Stream.of(edge.getNode1(), edge.getNode2()))
+            .map(_representativeByNode::get)
+            .filter(Objects::nonNull)
+            .collect(ImmutableSet.toImmutableSet());
+
+    // Each intact domain is a single element, its representative. Each node of a split domain, and
+    // each node new to the topology, is an element of its own.
+    Predicate<Layer2Node> inIntactDomain =
+        node -> {
+          Layer2Node representative = _representativeByNode.get(node);
+          return representative != null && !splitDomains.contains(representative);
+        };
+    Function<Layer2Node, Layer2Node> element =
+        node -> inIntactDomain.test(node) ? _representativeByNode.get(node) : node;
+    Set<Layer2Node> elements = new HashSet<>();
+    UnionFind<Layer2Node> domains = new UnionFind<>(ImmutableSet.of());
+    for (Layer2Edge edge : newEdges) {
+      Layer2Node node1 = edge.getNode1();
+      Layer2Node node2 = edge.getNode2();
+      if (inIntactDomain.test(node1) && inIntactDomain.test(node2) && !addedEdges.contains(edge)) {
+        // already accounted for by its domain
+        continue;
+      }
+      Layer2Node element1 = element.apply(node1);
+      Layer2Node element2 = element.apply(node2);
+      if (elements.add(element1)) {
+        domains.addElement(element1);
+      }
+      if (elements.add(element2)) {
+        domains.addElement(element2);
+      }
+      domains.union(element1, element2);
+    }
+
+    ImmutableMap.Builder<Layer2Node, Layer2Node> representativeByNode = ImmutableMap.builder();
+    _representativeByNode.forEach(
+        (node, representative) -> {
+          if (!splitDomains.contains(representative)) {
+            representativeByNode.put(
+                node,
+                elements.contains(representative) ? domains.find(representative) : representative);
+          }
+        });
+    elements.stream()
+        .filter(node -> !inIntactDomain.test(node))
+        .forEach(node -> representativeByNode.put(node, domains.find(node)));
+    return new Layer2Topology(representativeByNode.build());
+  }
+
   /**
    * Return the representative of the broadcast domain of {@code layer2Node}, or {@link
    * Optional#empty} if not represented in the layer-2 topology.
@@ -184,6 +252,12 @@ public final class Layer2Topology {
     return _representativeByNode.isEmpty();
   }
 
+  /** Return the number of layer-2 nodes in this topology. */
+  @JsonIgnore
+  public int getNodeCount() {
+    return _representativeByNode.size();
+  }
+
   @JsonProperty(PROP_REPRESENTATIVE_BY_NODE)
   private @Nonnull List<Layer2RepresentativeEntry> getRepresentativeByNode() {
     return _representativeByNode.entrySet().stream()
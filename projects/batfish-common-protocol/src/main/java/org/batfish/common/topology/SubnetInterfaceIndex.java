@@ -0,0 +1,140 @@
+package org.batfish.common.topology;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Sets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.Nonnull;
+import javax.annotation.ParametersAreNonnullByDefault;
+import org.batfish.datamodel.ConcreteInterfaceAddress;
+import org.batfish.datamodel.Configuration;
+import org.batfish.datamodel.Interface;
+import org.batfish.datamodel.Prefix;
+
+/**
+ * Index of the active, non-loopback {@link Interface interfaces} of a network by the subnets of
+ * their {@link ConcreteInterfaceAddress addresses}, for finding interfaces that may be layer-3
+ * adjacent.
+ *
+ * <p>Interfaces are bucketed by the prefix of each of their addresses shorter than /32. Each bucket
+ * also lists its interfaces sorted by each of their IPs, so the interfaces of a bucket with an IP
+ * in a given prefix are found by binary search rather than by scanning the whole bucket.
+ */
+@ParametersAreNonnullByDefault
+final class SubnetInterfaceIndex {
+
+  /** The interfaces with an address in a subnet, and the same interfaces sorted by their IPs. */
+  private static final class Bucket {
+    private final @Nonnull List<Interface> _interfaces;
+    private final @Nonnull long[] _ips;
+    private final @Nonnull Interface[] _ipInterfaces;
+
+    private Bucket(List<Interface> interfaces) {
+      _interfaces = interfaces;
+      List<IpAndInterface> ips = new ArrayList<>();
+      for (Interface iface : interfaces) {
+        for (ConcreteInterfaceAddress address : iface.getAllConcreteAddresses()) {
+          ips.add(new IpAndInterface(address.getIp().asLong(), iface));
+        }
+      }
+      ips.sort(Comparator.comparingLong(ipAndInterface -> ipAndInterface._ip));
+      _ips = new long[ips.size()];
+      _ipInterfaces = new Interface[ips.size()];
+      for (int i = 0; i < ips.size(); i++) {
+        _ips[i] = ips.get(i)._ip;
+        _ipInterfaces[i] = ips.get(i)._iface;
+      }
+    }
+
+    /** Add the interfaces with an IP in {@code prefix} to {@code interfaces}. */
+    private void addInterfacesWithIpIn(Prefix prefix, Set<Interface> interfaces) {
+      long start = prefix.getStartIp().asLong();
+      long end = prefix.getEndIp().asLong();
+      // index of the first IP that is at least start
+      int lo = 0;
+      int hi = _ips.length;
+      while (lo < hi) {
+        int mid = (lo + hi) >>> 1;
+        if (_ips[mid] < start) {
+          lo = mid + 1;
+        } else {
+          hi = mid;
+        }
+      }
+      for (int i = lo; i < _ips.length && _ips[i] <= end; i++) {
+        interfaces.add(_ipInterfaces[i]);
+      }
+    }
+  }
+
+  private static final class IpAndInterface {
+    private final long _ip;
+    private final @Nonnull Interface _iface;
+
+    private IpAndInterface(long ip, Interface iface) {
+      _ip = ip;
+      _iface = iface;
+    }
+  }
+
+  private final @Nonnull Map<Prefix, Bucket> _buckets;
+
+  private SubnetInterfaceIndex(Map<Prefix, Bucket> buckets) {
+    _buckets = buckets;
+  }
+
+  @Nonnull
+  static SubnetInterfaceIndex create(Map<String, Configuration> configurations) {
+    Map<Prefix, List<Interface>> prefixInterfaces = new HashMap<>();
+    configurations.forEach(
+        (nodeName, node) -> {
+          for (Interface iface : node.getAllInterfaces().values()) {
+            if (iface.isLoopback() || !iface.getActive()) {
+              continue;
+            }
+            // Look at all allocated addresses to determine subnet buckets
+            for (ConcreteInterfaceAddress address : iface.getAllConcreteAddresses()) {
+              Prefix prefix = address.getPrefix();
+              if (prefix.getPrefixLength() < Prefix.MAX_PREFIX_LENGTH) {
+                prefixInterfaces.computeIfAbsent(prefix, k -> new ArrayList<>()).add(iface);
+              }
+            }
+          }
+        });
+    ImmutableMap.Builder<Prefix, Bucket> buckets = ImmutableMap.builder();
+    prefixInterfaces.forEach((prefix, interfaces) -> buckets.put(prefix, new Bucket(interfaces)));
+    return new SubnetInterfaceIndex(buckets.build());
+  }
+
+  /** The subnets of all indexed interface addresses. */
+  @Nonnull
+  Set<Prefix> getSubnets() {
+    return _buckets.keySet();
+  }
+
+  /** The interfaces with an address in {@code subnet}, one of {@link #getSubnets()}. */
+  @Nonnull
+  List<Interface> getInterfaces(Prefix subnet) {
+    return _buckets.get(subnet)._interfaces;
+  }
+
+  /**
+   * Collect all interfaces that have subnets overlapping {@code subnet} iff they have an IP address
+   * in {@code subnet}. Use an IdentityHashSet to prevent duplicates.
+   */
+  @Nonnull
+  Set<Interface> getCandidateInterfaces(Prefix subnet) {
+    Set<Interface> candidateInterfaces = Sets.newIdentityHashSet();
+    for (int i = 0; i < Prefix.MAX_PREFIX_LENGTH; i++) {
+      Bucket bucket = _buckets.get(Prefix.create(subnet.getStartIp(), i));
+      if (bucket != null) {
+        bucket.addInterfacesWithIpIn(subnet, candidateInterfaces);
+      }
+    }
+    return candidateInterfaces;
+  }
+}
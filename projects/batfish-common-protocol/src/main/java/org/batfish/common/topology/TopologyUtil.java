@@ -13,10 +13,8 @@ import com.google.common.collect.ImmutableSortedSet;
 import com.google.common.collect.Sets;
 import com.google.common.collect.Streams;
 import com.google.common.graph.EndpointPair;
-import java.util.Collection;
 import java.util.Comparator;
 import java.util.HashMap;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -26,7 +24,6 @@ import java.util.Set;
 import java.util.SortedMap;
 import java.util.function.Consumer;
 import java.util.function.Function;
-import java.util.stream.IntStream;
 import java.util.stream.Stream;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -328,7 +325,29 @@ public final class TopologyUtil {
       VxlanTopology vxlanTopology,
       @Nonnull Map<String, Configuration> configurations) {
     Layer2Topology.Builder l2TopologyBuilder = Layer2Topology.builder();
+    forEachLayer2Edge(
+        layer1LogicalTopology, vxlanTopology, configurations, l2TopologyBuilder::addEdge);
+    return l2TopologyBuilder.build();
+  }
 
+  /**
+   * Compute the edges of the layer-2 topology computed by {@link #computeLayer2Topology}, e.g. to
+   * later {@link Layer2Topology#updateEdges update} it incrementally.
+   */
+  public static @Nonnull Set<Layer2Edge> computeLayer2Edges(
+      @Nonnull Layer1Topology layer1LogicalTopology,
+      VxlanTopology vxlanTopology,
+      @Nonnull Map<String, Configuration> configurations) {
+    ImmutableSet.Builder<Layer2Edge> edges = ImmutableSet.builder();
+    forEachLayer2Edge(layer1LogicalTopology, vxlanTopology, configurations, edges::add);
+    return edges.build();
+  }
+
+  private static void forEachLayer2Edge(
+      Layer1Topology layer1LogicalTopology,
+      VxlanTopology vxlanTopology,
+      Map<String, Configuration> configurations,
+      Consumer<Layer2Edge> edges) {
     // Compute mapping from parent interface -> child interfaces
     Map<Layer1Node, Set<Layer1Node>> parentChildrenMap = computeParentChildrenMap(configurations);
 
@@ -339,15 +358,13 @@ public final class TopologyUtil {
         .forEach(
             layer1Edge ->
                 computeLayer2EdgesForLayer1Edge(
-                    layer1Edge, configurations, l2TopologyBuilder::addEdge, parentChildrenMap));
+                    layer1Edge, configurations, edges, parentChildrenMap));
 
     // Then add edges within each node to connect switchports and VNIs on the same VLAN(s).
-    configurations.values().forEach(c -> computeLayer2SelfEdges(c, l2TopologyBuilder::addEdge));
+    configurations.values().forEach(c -> computeLayer2SelfEdges(c, edges));
 
     // Finally add edges between connected VNIs on different nodes
-    computeVniInterNodeEdges(vxlanTopology).forEach(l2TopologyBuilder::addEdge);
-
-    return l2TopologyBuilder.build();
+    computeVniInterNodeEdges(vxlanTopology).forEach(edges);
   }
 
   /**
@@ -585,23 +602,21 @@ public final class TopologyUtil {
    * <p>Ignores {@code Loopback} interfaces and inactive interfaces.
    */
   public static Topology synthesizeL3Topology(Map<String, Configuration> configurations) {
-    Map<Prefix, List<Interface>> prefixInterfaces = computeInterfacesBucketByPrefix(configurations);
+    SubnetInterfaceIndex index = SubnetInterfaceIndex.create(configurations);
 
     ImmutableSortedSet.Builder<Edge> edges = ImmutableSortedSet.naturalOrder();
-    for (Entry<Prefix, List<Interface>> bucketEntry : prefixInterfaces.entrySet()) {
-      Prefix p = bucketEntry.getKey();
-      Set<Interface> candidateInterfaces = candidateInterfacesForPrefix(prefixInterfaces, p);
+    for (Prefix p : index.getSubnets()) {
+      Set<Interface> candidateInterfaces = index.getCandidateInterfaces(p);
 
-      for (Interface iface1 : bucketEntry.getValue()) {
+      for (Interface iface1 : index.getInterfaces(p)) {
+        // Don't connect if either endpoint interface has a Tunnel or VPN interfaceType
+        if (TUNNEL_INTERFACE_TYPES.contains(iface1.getInterfaceType())) {
+          continue;
+        }
         for (Interface iface2 : candidateInterfaces) {
-          // No device self-adjacencies in the same VRF.
-          if (!isValidLayer3Adjacency(iface1, iface2)) {
-            continue;
-          }
-          // Additionally, don't connect if any of the two endpoint interfaces have Tunnel or VPN
-          // interfaceTypes
-          if (TUNNEL_INTERFACE_TYPES.contains(iface1.getInterfaceType())
-              || TUNNEL_INTERFACE_TYPES.contains(iface2.getInterfaceType())) {
+          // No tunnel endpoints, and no device self-adjacencies in the same VRF.
+          if (TUNNEL_INTERFACE_TYPES.contains(iface2.getInterfaceType())
+              || !isValidLayer3Adjacency(iface1, iface2)) {
             continue;
           }
           edges.add(new Edge(iface1, iface2));
@@ -611,50 +626,6 @@ public final class TopologyUtil {
     return new Topology(edges.build());
   }
 
-  /**
-   * Collect all interfaces that have subnets overlapping P iff they have an IP address in P. Use an
-   * IdentityHashSet to prevent duplicates.
-   */
-  @Nonnull
-  private static Set<Interface> candidateInterfacesForPrefix(
-      Map<Prefix, List<Interface>> prefixBuckets, Prefix p) {
-    Set<Interface> candidateInterfaces = Sets.newIdentityHashSet();
-    IntStream.range(0, Prefix.MAX_PREFIX_LENGTH)
-        .mapToObj(
-            i -> prefixBuckets.getOrDefault(Prefix.create(p.getStartIp(), i), ImmutableList.of()))
-        .flatMap(Collection::stream)
-        .filter(
-            iface ->
-                iface.getAllConcreteAddresses().stream().anyMatch(ia -> p.containsIp(ia.getIp())))
-        .forEach(candidateInterfaces::add);
-    return candidateInterfaces;
-  }
-
-  /** Bucket Interfaces that are not loopbacks and not /32s by their prefix */
-  @Nonnull
-  private static Map<Prefix, List<Interface>> computeInterfacesBucketByPrefix(
-      Map<String, Configuration> configurations) {
-    Map<Prefix, List<Interface>> prefixInterfaces = new HashMap<>();
-    configurations.forEach(
-        (nodeName, node) -> {
-          for (Interface iface : node.getAllInterfaces().values()) {
-            if (iface.isLoopback() || !iface.getActive()) {
-              continue;
-            }
-            // Look at all allocated addresses to determine subnet buckets
-            for (ConcreteInterfaceAddress address : iface.getAllConcreteAddresses()) {
-              Prefix prefix = address.getPrefix();
-              if (prefix.getPrefixLength() < Prefix.MAX_PREFIX_LENGTH) {
-                List<Interface> interfaceBucket =
-                    prefixInterfaces.computeIfAbsent(prefix, k -> new LinkedList<>());
-                interfaceBucket.add(iface);
-              }
-            }
-          }
-        });
-    return prefixInterfaces;
-  }
-
   /**
    * Check if the link between two given interfaces is a valid layer 3 edge (e.g., not a self loop,
    * doesn't have overlapping IPs)
@@ -685,13 +656,12 @@ public final class TopologyUtil {
   @Nonnull
   public static TunnelTopology computeInitialTunnelTopology(
       Map<String, Configuration> configurations) {
-    Map<Prefix, List<Interface>> prefixInterfaces = computeInterfacesBucketByPrefix(configurations);
+    SubnetInterfaceIndex index = SubnetInterfaceIndex.create(configurations);
     TunnelTopology.Builder builder = TunnelTopology.builder();
-    for (Entry<Prefix, List<Interface>> bucketEntry : prefixInterfaces.entrySet()) {
-      Prefix p = bucketEntry.getKey();
-      Set<Interface> candidateInterfaces = candidateInterfacesForPrefix(prefixInterfaces, p);
+    for (Prefix p : index.getSubnets()) {
+      Set<Interface> candidateInterfaces = index.getCandidateInterfaces(p);
 
-      for (Interface iface1 : bucketEntry.getValue()) {
+      for (Interface iface1 : index.getInterfaces(p)) {
         for (Interface iface2 : candidateInterfaces) {
           if (!isValidLayer3Adjacency(iface1, iface2)) {
             continue;
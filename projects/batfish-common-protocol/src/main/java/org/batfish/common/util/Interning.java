@@ -0,0 +1,201 @@
+package org.batfish.common.util;
+
+import static com.google.common.base.Preconditions.checkState;
+
+import com.google.common.base.Equivalence;
+import com.google.common.base.MoreObjects;
+import com.google.common.collect.ImmutableSortedMap;
+import com.google.common.collect.Interner;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+
+/**
+ * Process-wide interning of immutable values, such as route attributes, that are created many times
+ * over during data plane computation.
+ *
+ * <p>All interners are weak: an interned value is kept only while something else references it, so
+ * interning never pins memory and does not produce the GC churn of soft-valued caches. Interners
+ * are backed by a {@link ConcurrentHashMap}, so concurrent callers (e.g., parallel route
+ * propagation) rarely contend.
+ *
+ * <p>Every interner is registered under a unique name and tracks request counts and the number of
+ * values it currently holds, available via {@link #getStats()}.
+ */
+@ParametersAreNonnullByDefault
+public final class Interning {
+
+  private static final Map<String, MeteredInterner<?>> INTERNERS = new ConcurrentHashMap<>();
+
+  /**
+   * Create and register a new weak interner.
+   *
+   * @param name unique name used to report statistics for this interner
+   * @throws IllegalStateException if an interner with the same name is already registered
+   */
+  public static @Nonnull <T> Interner<T> newWeakInterner(String name) {
+    return newWeakInterner(name, Equivalence.equals());
+  }
+
+  /**
+   * Create and register a new weak interner that treats values as duplicates when they are
+   * equivalent under {@code equivalence} rather than equal, e.g. to also compare fields that {@link
+   * Object#equals(Object)} ignores.
+   *
+   * @param name unique name used to report statistics for this interner
+   * @throws IllegalStateException if an interner with the same name is already registered
+   */
+  public static @Nonnull <T> Interner<T> newWeakInterner(
+      String name, Equivalence<? super T> equivalence) {
+    MeteredInterner<T> interner = new MeteredInterner<>(equivalence);
+    checkState(INTERNERS.putIfAbsent(name, interner) == null, "Duplicate interner name: %s", name);
+    return interner;
+  }
+
+  /** Returns a snapshot of the statistics of all registered interners, keyed by name. */
+  public static @Nonnull SortedMap<String, InternerStats> getStats() {
+    return INTERNERS.entrySet().stream()
+        .collect(
+            ImmutableSortedMap.toImmutableSortedMap(
+                String::compareTo, Map.Entry::getKey, e -> e.getValue().getStats()));
+  }
+
+  /** Statistics of a single interner. */
+  public static final class InternerStats {
+    private final long _requests;
+    private final long _deduplicated;
+    private final long _size;
+
+    private InternerStats(long requests, long deduplicated, long size) {
+      _requests = requests;
+      _deduplicated = deduplicated;
+      _size = size;
+    }
+
+    /** Number of calls to {@link Interner#intern(Object)}. */
+    public long getRequests() {
+      return _requests;
+    }
+
+    /**
+     * Number of requests that returned a previously interned instance instead of the argument, i.e.
+     * that avoided retaining a duplicate.
+     */
+    public long getDeduplicated() {
+      return _deduplicated;
+    }
+
+    /**
+     * Number of distinct values held by the interner, i.e. still referenced elsewhere, when the
+     * statistics were taken.
+     */
+    public long getSize() {
+      return _size;
+    }
+
+    @Override
+    public String toString() {
+      return MoreObjects.toStringHelper(this)
+          .add("requests", _requests)
+          .add("deduplicated", _deduplicated)
+          .add("size", _size)
+          .toString();
+    }
+  }
+
+  /**
+   * A weak interner that counts its requests and reports its size.
+   *
+   * <p>Each interned value is held by a {@link WeakKey} that is both key and value of the map. Keys
+   * of collected values are enqueued and removed on later calls.
+   */
+  private static final class MeteredInterner<T> implements Interner<T> {
+    private final ConcurrentHashMap<WeakKey<T>, WeakKey<T>> _map = new ConcurrentHashMap<>();
+    private final ReferenceQueue<T> _collected = new ReferenceQueue<>();
+    private final Equivalence<? super T> _equivalence;
+    private final LongAdder _requests = new LongAdder();
+    private final LongAdder _deduplicated = new LongAdder();
+
+    private MeteredInterner(Equivalence<? super T> equivalence) {
+      _equivalence = equivalence;
+    }
+
+    @Override
+    public T intern(T sample) {
+      _requests.increment();
+      removeCollected();
+      WeakKey<T> key = new WeakKey<>(sample, _equivalence, _collected);
+      while (true) {
+        WeakKey<T> existing = _map.putIfAbsent(key, key);
+        if (existing == null) {
+          return sample;
+        }
+        T canonical = existing.get();
+        if (canonical != null) {
+          if (canonical != sample) {
+            _deduplicated.increment();
+          }
+          return canonical;
+        }
+        // Collected, but not yet removed
+        _map.remove(existing, existing);
+      }
+    }
+
+    private void removeCollected() {
+      Reference<? extends T> ref;
+      while ((ref = _collected.poll()) != null) {
+        _map.remove(ref, ref);
+      }
+    }
+
+    private InternerStats getStats() {
+      removeCollected();
+      return new InternerStats(_requests.sum(), _deduplicated.sum(), _map.size());
+    }
+  }
+
+  /**
+   * A weak reference that compares equal to another one of the same interner whose value is
+   * equivalent. Once its value is collected, it is only equal to itself.
+   */
+  private static final class WeakKey<T> extends WeakReference<T> {
+    private final Equivalence<? super T> _equivalence;
+    private final int _hashCode;
+
+    private WeakKey(T value, Equivalence<? super T> equivalence, ReferenceQueue<T> queue) {
+      super(value, queue);
+      _equivalence = equivalence;
+      _hashCode = equivalence.hash(value);
+    }
+
+    @Override
+    public boolean equals(@Nullable Object obj) {
+      if (this == obj) {
+        return true;
+      }
+      if (!(obj instanceof WeakKey) || _hashCode != ((WeakKey<?>) obj)._hashCode) {
+        return false;
+      }
+      // Keys are only compared with keys of the same interner, so they hold values of the same type
+      @SuppressWarnings("unchecked")
+      T other = ((WeakKey<T>) obj).get();
+      T value = get();
+      return value != null && other != null && _equivalence.equivalent(value, other);
+    }
+
+    @Override
+    public int hashCode() {
+      return _hashCode;
+    }
+  }
+
+  private Interning() {}
+}
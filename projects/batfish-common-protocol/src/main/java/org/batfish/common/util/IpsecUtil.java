@@ -9,21 +9,27 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ImmutableSetMultimap;
+import com.google.common.collect.Maps;
 import com.google.common.collect.SetMultimap;
 import com.google.common.collect.Streams;
 import com.google.common.graph.EndpointPair;
 import com.google.common.graph.MutableValueGraph;
 import com.google.common.graph.ValueGraph;
 import com.google.common.graph.ValueGraphBuilder;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import javax.annotation.ParametersAreNonnullByDefault;
@@ -53,6 +59,7 @@ import org.batfish.datamodel.IpsecStaticPeerConfig;
 import org.batfish.datamodel.NamedPort;
 import org.batfish.datamodel.NetworkConfigurations;
 import org.batfish.datamodel.collections.NodeInterfacePair;
+import org.batfish.datamodel.flow.FirewallSessionTraceInfo;
 import org.batfish.datamodel.flow.Hop;
 import org.batfish.datamodel.flow.Trace;
 import org.batfish.datamodel.flow.TraceAndReverseFlow;
@@ -89,54 +96,93 @@ public class IpsecUtil {
       }
     }
 
-    // populating the graph
-    for (IpsecPeerConfigId ipsecPeerConfigId : graph.nodes()) {
-      IpsecPeerConfig ipsecPeerConfig = networkConfigurations.getIpsecPeerConfig(ipsecPeerConfigId);
-      if (ipsecPeerConfig == null || ipsecPeerConfig instanceof IpsecDynamicPeerConfig) {
-        continue;
-      }
-      // IPSec peer should be static
-      IpsecStaticPeerConfig ipsecStaticPeerConfig = (IpsecStaticPeerConfig) ipsecPeerConfig;
+    // negotiating the sessions of all initiators in parallel
+    ProposalNegotiations negotiations = new ProposalNegotiations();
+    List<Entry<EndpointPair<IpsecPeerConfigId>, IpsecSession>> sessions =
+        graph
+            .nodes()
+            .parallelStream()
+            .flatMap(
+                ipsecPeerConfigId ->
+                    negotiateSessions(
+                        ipsecPeerConfigId,
+                        configurations,
+                        networkConfigurations,
+                        privateIpsByPublicIp,
+                        localIpIpsecPeerConfigIds,
+                        negotiations))
+            .collect(ImmutableList.toImmutableList());
 
-      if (ipsecStaticPeerConfig.getDestinationAddress() == null) {
-        continue;
-      }
-      Configuration initiatorOwner = configurations.get(ipsecPeerConfigId.getHostName());
+    // populating the graph
+    for (Entry<EndpointPair<IpsecPeerConfigId>, IpsecSession> session : sessions) {
+      graph.putEdgeValue(session.getKey().source(), session.getKey().target(), session.getValue());
+    }
 
-      Ip destinationIp = ipsecStaticPeerConfig.getDestinationAddress();
+    return new IpsecTopology(graph);
+  }
 
-      // adding the possible IPsec peers which may peer through NAT
-      // also adding the possible IPsec peers which may peer directly (No NAT involved)
-      Streams.concat(
-              getCandidatePeersBehindNat(
-                  destinationIp, privateIpsByPublicIp, localIpIpsecPeerConfigIds)
-                  .stream(),
-              localIpIpsecPeerConfigIds.getOrDefault(destinationIp, ImmutableSet.of()).stream())
-          .forEach(
-              candidateIpsecPeerConfigId -> {
-                IpsecPeerConfig candidateIpsecPeer =
-                    networkConfigurations.getIpsecPeerConfig(candidateIpsecPeerConfigId);
-                if (candidateIpsecPeer == null) {
-                  return;
-                }
-                // skip if an IPSec peer is a crypto map based vpn and other is a tunnel interface
-                // based vpn
-                if (ipsecStaticPeerConfig.getTunnelInterface() == null
-                    ^ candidateIpsecPeer.getTunnelInterface() == null) {
-                  return;
-                }
-                Configuration candidateOwner =
-                    configurations.get(candidateIpsecPeerConfigId.getHostName());
-
-                IpsecSession ipsecSession =
-                    getIpsecSession(
-                        initiatorOwner, candidateOwner, ipsecStaticPeerConfig, candidateIpsecPeer);
-
-                graph.putEdgeValue(ipsecPeerConfigId, candidateIpsecPeerConfigId, ipsecSession);
-              });
+  /**
+   * Returns the {@link IpsecSession}s negotiated by the IPsec peer with the given ID with each of
+   * its candidate peers, keyed by the session's (initiator, responder) pair. Only {@link
+   * IpsecStaticPeerConfig}s with a destination address initiate sessions.
+   */
+  private static Stream<Entry<EndpointPair<IpsecPeerConfigId>, IpsecSession>> negotiateSessions(
+      IpsecPeerConfigId ipsecPeerConfigId,
+      Map<String, Configuration> configurations,
+      NetworkConfigurations networkConfigurations,
+      SetMultimap<Ip, IpWildcardSetIpSpace> privateIpsByPublicIp,
+      Map<Ip, Set<IpsecPeerConfigId>> localIpIpsecPeerConfigIds,
+      ProposalNegotiations negotiations) {
+    IpsecPeerConfig ipsecPeerConfig = networkConfigurations.getIpsecPeerConfig(ipsecPeerConfigId);
+    if (ipsecPeerConfig == null || ipsecPeerConfig instanceof IpsecDynamicPeerConfig) {
+      return Stream.of();
     }
+    // IPSec peer should be static
+    IpsecStaticPeerConfig ipsecStaticPeerConfig = (IpsecStaticPeerConfig) ipsecPeerConfig;
 
-    return new IpsecTopology(graph);
+    if (ipsecStaticPeerConfig.getDestinationAddress() == null) {
+      return Stream.of();
+    }
+    Configuration initiatorOwner = configurations.get(ipsecPeerConfigId.getHostName());
+
+    Ip destinationIp = ipsecStaticPeerConfig.getDestinationAddress();
+
+    // adding the possible IPsec peers which may peer through NAT
+    // also adding the possible IPsec peers which may peer directly (No NAT involved)
+    return Streams.concat(
+            getCandidatePeersBehindNat(
+                destinationIp, privateIpsByPublicIp, localIpIpsecPeerConfigIds)
+                .stream(),
+            localIpIpsecPeerConfigIds.getOrDefault(destinationIp, ImmutableSet.of()).stream())
+        .flatMap(
+            candidateIpsecPeerConfigId -> {
+              IpsecPeerConfig candidateIpsecPeer =
+                  networkConfigurations.getIpsecPeerConfig(candidateIpsecPeerConfigId);
+              if (candidateIpsecPeer == null) {
+                return Stream.of();
+              }
+              // skip if an IPSec peer is a crypto map based vpn and other is a tunnel interface
+              // based vpn
+              if (ipsecStaticPeerConfig.getTunnelInterface() == null
+                  ^ candidateIpsecPeer.getTunnelInterface() == null) {
+                return Stream.of();
+              }
+              Configuration candidateOwner =
+                  configurations.get(candidateIpsecPeerConfigId.getHostName());
+
+              IpsecSession ipsecSession =
+                  getIpsecSession(
+                      initiatorOwner,
+                      candidateOwner,
+                      ipsecStaticPeerConfig,
+                      candidateIpsecPeer,
+                      negotiations);
+
+              return Stream.of(
+                  Maps.immutableEntry(
+                      EndpointPair.ordered(ipsecPeerConfigId, candidateIpsecPeerConfigId),
+                      ipsecSession));
+            });
   }
 
   /**
@@ -176,19 +222,32 @@ public class IpsecUtil {
       Configuration peerOwner,
       IpsecStaticPeerConfig initiator,
       IpsecPeerConfig candidatePeer) {
+    return getIpsecSession(
+        initiatorOwner, peerOwner, initiator, candidatePeer, new ProposalNegotiations());
+  }
+
+  @Nonnull
+  private static IpsecSession getIpsecSession(
+      Configuration initiatorOwner,
+      Configuration peerOwner,
+      IpsecStaticPeerConfig initiator,
+      IpsecPeerConfig candidatePeer,
+      ProposalNegotiations negotiations) {
     IpsecSession.Builder ipsecSessionBuilder = IpsecSession.builder();
 
     ipsecSessionBuilder.setCloud(
         IpsecSession.isCloudConfig(initiatorOwner) || IpsecSession.isCloudConfig(peerOwner));
 
-    negotiateIkeP1(initiatorOwner, peerOwner, initiator, candidatePeer, ipsecSessionBuilder);
+    negotiateIkeP1(
+        initiatorOwner, peerOwner, initiator, candidatePeer, ipsecSessionBuilder, negotiations);
 
     if (ipsecSessionBuilder.getNegotiatedIkeP1Proposal() == null
         || ipsecSessionBuilder.getNegotiatedIkeP1Key() == null) {
       return ipsecSessionBuilder.build();
     }
 
-    negotiateIpsecP2(initiatorOwner, peerOwner, initiator, candidatePeer, ipsecSessionBuilder);
+    negotiateIpsecP2(
+        initiatorOwner, peerOwner, initiator, candidatePeer, ipsecSessionBuilder, negotiations);
 
     return ipsecSessionBuilder.build();
   }
@@ -203,7 +262,8 @@ public class IpsecUtil {
       Configuration responderOwner,
       IpsecStaticPeerConfig initiator,
       IpsecPeerConfig responder,
-      IpsecSession.Builder ipsecSessionBuilder) {
+      IpsecSession.Builder ipsecSessionBuilder,
+      ProposalNegotiations negotiations) {
     IkePhase1Policy initiatorIkePhase1Policy =
         initiator.getIkePhase1Policy() == null
             ? null
@@ -236,7 +296,8 @@ public class IpsecUtil {
             initiatorOwner,
             responderOwner,
             initiatorIkePhase1Policy.getIkePhase1Proposals(),
-            responderIkeP1Policy.getIkePhase1Proposals());
+            responderIkeP1Policy.getIkePhase1Proposals(),
+            negotiations);
 
     ipsecSessionBuilder.setNegotiatedIkeP1Proposal(negotiatedIkePhase1Proposal);
 
@@ -287,7 +348,8 @@ public class IpsecUtil {
       Configuration responderOwner,
       IpsecStaticPeerConfig initiator,
       IpsecPeerConfig responder,
-      IpsecSession.Builder ipsecSessionBuilder) {
+      IpsecSession.Builder ipsecSessionBuilder,
+      ProposalNegotiations negotiations) {
     IpsecPhase2Policy initiatorIpsecP2policy =
         initiator.getIpsecPolicy() == null
             ? null
@@ -311,7 +373,8 @@ public class IpsecUtil {
             initiatorOwner,
             responderOwner,
             initiatorIpsecP2policy.getProposals(),
-            responderIpsecP2Policy.getProposals());
+            responderIpsecP2Policy.getProposals(),
+            negotiations);
 
     ipsecSessionBuilder.setNegotiatedIpsecP2Proposal(negotiatedIpsecPhase2Proposal);
   }
@@ -326,18 +389,31 @@ public class IpsecUtil {
       Configuration initiatorOwner,
       Configuration responderOwner,
       List<String> initiatorProposals,
-      List<String> responderProposals) {
+      List<String> responderProposals,
+      ProposalNegotiations negotiations) {
     List<IkePhase1Proposal> initiatorIkeProposalList =
         initiatorProposals.stream()
             .map(ikeProposalName -> initiatorOwner.getIkePhase1Proposals().get(ikeProposalName))
             .filter(Objects::nonNull)
-            .collect(Collectors.toList());
+            .collect(ImmutableList.toImmutableList());
     List<IkePhase1Proposal> responderProposalList =
         responderProposals.stream()
             .map(ikeProposalName -> responderOwner.getIkePhase1Proposals().get(ikeProposalName))
             .filter(Objects::nonNull)
-            .collect(Collectors.toList());
+            .collect(ImmutableList.toImmutableList());
 
+    return negotiations.negotiateIkeP1Proposal(initiatorIkeProposalList, responderProposalList);
+  }
+
+  /**
+   * Returns the {@link IkePhase1Proposal} negotiated from the first of {@code
+   * initiatorIkeProposalList} compatible with any of {@code responderProposalList}, or null if
+   * there is none
+   */
+  @Nullable
+  private static IkePhase1Proposal matchIkeP1Proposals(
+      List<IkePhase1Proposal> initiatorIkeProposalList,
+      List<IkePhase1Proposal> responderProposalList) {
     for (IkePhase1Proposal initiatorProposal : initiatorIkeProposalList) {
       for (IkePhase1Proposal responderProposal : responderProposalList) {
         if (initiatorProposal.isCompatibleWith(responderProposal)) {
@@ -372,22 +448,34 @@ public class IpsecUtil {
       Configuration initiatorOwner,
       Configuration responderOwner,
       List<String> initiatorProposals,
-      List<String> responderProposals) {
+      List<String> responderProposals,
+      ProposalNegotiations negotiations) {
     List<IpsecPhase2Proposal> initiatorIpsecProposalList =
         initiatorProposals.stream()
             .map(
                 ipsecP2ProposalName ->
                     initiatorOwner.getIpsecPhase2Proposals().get(ipsecP2ProposalName))
             .filter(Objects::nonNull)
-            .collect(Collectors.toList());
+            .collect(ImmutableList.toImmutableList());
     List<IpsecPhase2Proposal> responderProposalList =
         responderProposals.stream()
             .map(
                 ipsecP2ProposalName ->
                     responderOwner.getIpsecPhase2Proposals().get(ipsecP2ProposalName))
             .filter(Objects::nonNull)
-            .collect(Collectors.toList());
+            .collect(ImmutableList.toImmutableList());
+
+    return negotiations.negotiateIpsecP2Proposal(initiatorIpsecProposalList, responderProposalList);
+  }
 
+  /**
+   * Returns the first of {@code initiatorIpsecProposalList} equal to any of {@code
+   * responderProposalList}, or null if there is none
+   */
+  @Nullable
+  private static IpsecPhase2Proposal matchIpsecP2Proposals(
+      List<IpsecPhase2Proposal> initiatorIpsecProposalList,
+      List<IpsecPhase2Proposal> responderProposalList) {
     for (IpsecPhase2Proposal initiatorProposal : initiatorIpsecProposalList) {
       for (IpsecPhase2Proposal responderProposal : responderProposalList) {
         if (initiatorProposal.equals(responderProposal)) {
@@ -399,6 +487,58 @@ public class IpsecUtil {
     return null;
   }
 
+  /**
+   * Memoized negotiation of IKE phase 1 and IPsec phase 2 proposals, so that peer pairs offering
+   * the same proposals (e.g. the spokes of a hub) are negotiated once. Thread-safe.
+   */
+  private static final class ProposalNegotiations {
+    private final Map<List<?>, Optional<IkePhase1Proposal>> _ikeP1Proposals =
+        new ConcurrentHashMap<>();
+    private final Map<List<?>, Optional<IpsecPhase2Proposal>> _ipsecP2Proposals =
+        new ConcurrentHashMap<>();
+
+    @Nullable
+    IkePhase1Proposal negotiateIkeP1Proposal(
+        List<IkePhase1Proposal> initiatorProposals, List<IkePhase1Proposal> responderProposals) {
+      // IKE phase 1 proposals are equal iff their names are, so key them by what they are
+      // negotiated on
+      List<?> key =
+          ImmutableList.of(
+              negotiationParameters(initiatorProposals), negotiationParameters(responderProposals));
+      return _ikeP1Proposals
+          .computeIfAbsent(
+              key,
+              k -> Optional.ofNullable(matchIkeP1Proposals(initiatorProposals, responderProposals)))
+          .orElse(null);
+    }
+
+    @Nullable
+    IpsecPhase2Proposal negotiateIpsecP2Proposal(
+        List<IpsecPhase2Proposal> initiatorProposals,
+        List<IpsecPhase2Proposal> responderProposals) {
+      return _ipsecP2Proposals
+          .computeIfAbsent(
+              ImmutableList.of(initiatorProposals, responderProposals),
+              k ->
+                  Optional.ofNullable(
+                      matchIpsecP2Proposals(initiatorProposals, responderProposals)))
+          .orElse(null);
+    }
+
+    private static List<List<Object>> negotiationParameters(List<IkePhase1Proposal> proposals) {
+      return proposals.stream()
+          .map(
+              proposal ->
+                  Arrays.<Object>asList(
+                      proposal.getAuthenticationMethod(),
+                      proposal.getDiffieHellmanGroup(),
+                      proposal.getEncryptionAlgorithm(),
+                      proposal.getHashingAlgorithm(),
+                      proposal.getLifetimeSeconds()))
+          .collect(ImmutableList.toImmutableList());
+    }
+  }
+
   /**
    * Searches and returns the {@link IkePhase1Policy} which can be used for peering with the
    * initiator on the responder. Returns null if no such {@link IkePhase1Policy} could be found.
@@ -547,6 +687,10 @@ public class IpsecUtil {
    * Prunes the given {@link IpsecTopology} to retain only the edges which allow traffic needed to
    * negotiate IPsec parameters and which also allow the actual IPsec encrypted packets
    *
+   * <p>The flows of all edges are traced together, in one forward call to the {@code
+   * tracerouteEngine} and one reverse call per set of firewall sessions they set up, rather than in
+   * two calls per flow of each edge.
+   *
    * @param ipsecTopology {@link IpsecTopology} to be pruned
    * @param configurations {@link Map} of configurations
    * @param tracerouteEngine {@link TracerouteEngine} to be used to checking connectivity
@@ -556,10 +700,11 @@ public class IpsecUtil {
       IpsecTopology ipsecTopology,
       Map<String, Configuration> configurations,
       TracerouteEngine tracerouteEngine) {
-    MutableValueGraph<IpsecPeerConfigId, IpsecSession> reachableIpsecTopology =
-        ValueGraphBuilder.directed().allowsSelfLoops(false).build();
     NetworkConfigurations nf = NetworkConfigurations.of(configurations);
 
+    // the sessions of the edges to check, and the flows each edge needs in both directions
+    Map<EndpointPair<IpsecPeerConfigId>, IpsecSession> sessions = new LinkedHashMap<>();
+    Map<EndpointPair<IpsecPeerConfigId>, List<Flow>> edgeFlows = new HashMap<>();
     for (EndpointPair<IpsecPeerConfigId> endpointPair : ipsecTopology.getGraph().edges()) {
       IpsecPeerConfigId peerIdU = endpointPair.nodeU();
       IpsecPeerConfigId peerIdV = endpointPair.nodeV();
@@ -578,142 +723,163 @@ public class IpsecUtil {
       if (ipsecPhase2Proposal == null) {
         continue;
       }
+      sessions.put(endpointPair, ipsecSession);
 
       // not checking reachability for cloud type IPsec sessions, it is a workaround till we are
       // confident that ISP modeling will let us do traceroutes properly between cloud type
       // networks
-      if (ipsecSession.isCloud()
-          || isIpsecPeerReachable(
-              peerIdU.getHostName(),
-              peerU,
-              peerIdV.getHostName(),
-              peerV,
-              ipsecPhase2Proposal.getProtocols().contains(IpsecProtocol.AH)
-                  ? IpProtocol.AHP
-                  : IpProtocol.ESP,
-              configurations,
-              tracerouteEngine)) {
-        reachableIpsecTopology.putEdgeValue(peerIdU, peerIdV, ipsecSession);
+      if (ipsecSession.isCloud()) {
+        continue;
       }
+      IpProtocol ipsecProtocol =
+          ipsecPhase2Proposal.getProtocols().contains(IpsecProtocol.AH)
+              ? IpProtocol.AHP
+              : IpProtocol.ESP;
+      edgeFlows.put(
+          endpointPair,
+          ImmutableList.<Flow>builder()
+              .addAll(
+                  ipsecFlows(peerIdU.getHostName(), peerU, peerV, ipsecProtocol, configurations))
+              .addAll(
+                  ipsecFlows(peerIdV.getHostName(), peerV, peerU, ipsecProtocol, configurations))
+              .build());
     }
-    return new IpsecTopology(reachableIpsecTopology);
-  }
 
-  /**
-   * Returns true if the edge between peerU and peerV can be established and also can carry actual
-   * IPsec encrypted data
-   */
-  private static boolean isIpsecPeerReachable(
-      String hostnameU,
-      IpsecPeerConfig peerU,
-      String hostnameV,
-      IpsecPeerConfig peerV,
-      IpProtocol ipsecProtocol,
-      Map<String, Configuration> configurations,
-      TracerouteEngine tracerouteEngine) {
-    String vrfU =
-        configurations
-            .get(hostnameU)
-            .getAllInterfaces()
-            .get(peerU.getSourceInterface())
-            .getVrfName();
-    String vrfV =
-        configurations
-            .get(hostnameV)
-            .getAllInterfaces()
-            .get(peerV.getSourceInterface())
-            .getVrfName();
+    BiTraces biTraces =
+        BiTraces.compute(
+            edgeFlows.values().stream()
+                .flatMap(List::stream)
+                .collect(ImmutableSet.toImmutableSet()),
+            tracerouteEngine);
 
-    return canInitiateIpsecSessionAndTraffic(
-            hostnameU,
-            vrfU,
-            peerU.getLocalAddress(),
-            hostnameV,
-            peerV.getLocalAddress(),
-            tracerouteEngine,
-            ipsecProtocol)
-        && canInitiateIpsecSessionAndTraffic(
-            hostnameV,
-            vrfV,
-            peerV.getLocalAddress(),
-            hostnameU,
-            peerU.getLocalAddress(),
-            tracerouteEngine,
-            ipsecProtocol);
+    MutableValueGraph<IpsecPeerConfigId, IpsecSession> reachableIpsecTopology =
+        ValueGraphBuilder.directed().allowsSelfLoops(false).build();
+    sessions.forEach(
+        (endpointPair, ipsecSession) -> {
+          List<Flow> flows = edgeFlows.get(endpointPair);
+          if (flows == null
+              || flows.stream()
+                  .allMatch(
+                      flow -> {
+                        String sender = flow.getIngressNode();
+                        String receiver =
+                            endpointPair.nodeU().getHostName().equals(sender)
+                                ? endpointPair.nodeV().getHostName()
+                                : endpointPair.nodeU().getHostName();
+                        return biTraces.isSuccessful(flow, sender, receiver);
+                      })) {
+            reachableIpsecTopology.putEdgeValue(
+                endpointPair.nodeU(), endpointPair.nodeV(), ipsecSession);
+          }
+        });
+    return new IpsecTopology(reachableIpsecTopology);
   }
 
   /**
-   * Returns true if IPsec negotiation data can flow from the sender to the receiver and also the
-   * actual IPsec encrypted data can also flow from the sender to the receiver
+   * Returns the flows which must succeed bi-directionally for the sender to initiate an IPsec
+   * session to the receiver: the flow for IPsec negotiation and the flow for the actual IPsec
+   * encrypted data
    */
-  private static boolean canInitiateIpsecSessionAndTraffic(
+  private static List<Flow> ipsecFlows(
       String sender,
-      String senderVrf,
-      Ip srcIp,
-      String receiver,
-      Ip dstIp,
-      TracerouteEngine tracerouteEngine,
-      IpProtocol ipSecProtocol) {
+      IpsecPeerConfig senderPeer,
+      IpsecPeerConfig receiverPeer,
+      IpProtocol ipsecProtocol,
+      Map<String, Configuration> configurations) {
     checkArgument(
-        ImmutableSet.of(IpProtocol.AHP, IpProtocol.ESP).contains(ipSecProtocol),
+        ImmutableSet.of(IpProtocol.AHP, IpProtocol.ESP).contains(ipsecProtocol),
         "IPsec reachability can be checked only for AH or ESP");
+    String senderVrf =
+        configurations
+            .get(sender)
+            .getAllInterfaces()
+            .get(senderPeer.getSourceInterface())
+            .getVrfName();
 
     Flow.Builder flowBuilder =
         Flow.builder()
             .setIngressNode(sender)
             .setIngressVrf(senderVrf)
-            .setSrcIp(srcIp)
-            .setDstIp(dstIp)
+            .setSrcIp(senderPeer.getLocalAddress())
+            .setDstIp(receiverPeer.getLocalAddress())
             .setSrcPort(NamedPort.EPHEMERAL_LOWEST.number());
+    return ImmutableList.of(
+        flowBuilder.setIpProtocol(IpProtocol.UDP).setDstPort(IpsecSession.IPSEC_UDP_PORT).build(),
+        flowBuilder.setIpProtocol(ipsecProtocol).build());
+  }
 
-    Flow flowForIpsecNegotiation =
-        flowBuilder.setIpProtocol(IpProtocol.UDP).setDstPort(IpsecSession.IPSEC_UDP_PORT).build();
-    if (!isSuccessfulBiTraceroute(flowForIpsecNegotiation, sender, receiver, tracerouteEngine)) {
-      return false;
+  /** Bi-directional traces of a set of flows, computed in batches. */
+  private static final class BiTraces {
+    private final @Nonnull Map<Flow, List<TraceAndReverseFlow>> _forwardTraces;
+    private final @Nonnull Map<Set<FirewallSessionTraceInfo>, Map<Flow, List<TraceAndReverseFlow>>>
+        _reverseTraces;
+
+    private BiTraces(
+        Map<Flow, List<TraceAndReverseFlow>> forwardTraces,
+        Map<Set<FirewallSessionTraceInfo>, Map<Flow, List<TraceAndReverseFlow>>> reverseTraces) {
+      _forwardTraces = forwardTraces;
+      _reverseTraces = reverseTraces;
     }
 
-    Flow flowForActualIpsecTraffic = flowBuilder.setIpProtocol(ipSecProtocol).build();
-    return isSuccessfulBiTraceroute(flowForActualIpsecTraffic, sender, receiver, tracerouteEngine);
-  }
-
-  /**
-   * Returns true if a bi-directional Traceroute succeeds from the sourceNode to the destinationNode
-   */
-  private static boolean isSuccessfulBiTraceroute(
-      Flow flow, String sourceNode, String destinationNode, TracerouteEngine tracerouteEngine) {
-    List<TraceAndReverseFlow> forwardTracesAndReverseFlows =
-        tracerouteEngine.computeTracesAndReverseFlows(ImmutableSet.of(flow), false).get(flow);
-
-    List<TraceAndReverseFlow> reverseTraces =
-        forwardTracesAndReverseFlows.stream()
-            .filter(
-                traceAndReverseFlow ->
-                    traceAndReverseFlow.getTrace().getDisposition() == FlowDisposition.ACCEPTED)
-            .filter(
-                traceAndReverseFlow ->
-                    traceAndReverseFlow.getReverseFlow() != null
-                        && traceAndReverseFlow
-                            .getReverseFlow()
-                            .getIngressNode()
-                            .equals(destinationNode))
-            .flatMap(
-                traceAndReverseFlow ->
-                    tracerouteEngine
-                        .computeTracesAndReverseFlows(
-                            ImmutableSet.of(traceAndReverseFlow.getReverseFlow()),
-                            traceAndReverseFlow.getNewFirewallSessions(),
-                            false)
-                        .get(traceAndReverseFlow.getReverseFlow()).stream())
-            .collect(ImmutableList.toImmutableList());
+    static @Nonnull BiTraces compute(Set<Flow> flows, TracerouteEngine tracerouteEngine) {
+      if (flows.isEmpty()) {
+        return new BiTraces(ImmutableMap.of(), ImmutableMap.of());
+      }
+      Map<Flow, List<TraceAndReverseFlow>> forwardTraces =
+          tracerouteEngine.computeTracesAndReverseFlows(flows, false);
+
+      // reverse flows are traced with the sessions set up by their forward flows
+      Map<Set<FirewallSessionTraceInfo>, Set<Flow>> reverseFlowsBySessions = new HashMap<>();
+      forwardTraces.values().stream()
+          .flatMap(List::stream)
+          .filter(
+              traceAndReverseFlow ->
+                  traceAndReverseFlow.getTrace().getDisposition() == FlowDisposition.ACCEPTED
+                      && traceAndReverseFlow.getReverseFlow() != null)
+          .forEach(
+              traceAndReverseFlow ->
+                  reverseFlowsBySessions
+                      .computeIfAbsent(
+                          traceAndReverseFlow.getNewFirewallSessions(), k -> new HashSet<>())
+                      .add(traceAndReverseFlow.getReverseFlow()));
+      ImmutableMap.Builder<Set<FirewallSessionTraceInfo>, Map<Flow, List<TraceAndReverseFlow>>>
+          reverseTraces = ImmutableMap.builder();
+      reverseFlowsBySessions.forEach(
+          (sessions, reverseFlows) ->
+              reverseTraces.put(
+                  sessions,
+                  tracerouteEngine.computeTracesAndReverseFlows(reverseFlows, sessions, false)));
+      return new BiTraces(forwardTraces, reverseTraces.build());
+    }
 
-    return reverseTraces.stream()
-        .anyMatch(
-            traceAndReverseFlow -> {
-              Trace reverseTrace = traceAndReverseFlow.getTrace();
-              List<Hop> hops = reverseTrace.getHops();
-              return !hops.isEmpty()
-                  && hops.get(hops.size() - 1).getNode().getName().equals(sourceNode)
-                  && reverseTrace.getDisposition() == FlowDisposition.ACCEPTED;
-            });
+    /**
+     * Returns true if a bi-directional Traceroute of {@code flow} succeeds from the sourceNode to
+     * the destinationNode
+     */
+    boolean isSuccessful(Flow flow, String sourceNode, String destinationNode) {
+      return _forwardTraces.getOrDefault(flow, ImmutableList.of()).stream()
+          .filter(
+              traceAndReverseFlow ->
+                  traceAndReverseFlow.getTrace().getDisposition() == FlowDisposition.ACCEPTED)
+          .filter(
+              traceAndReverseFlow ->
+                  traceAndReverseFlow.getReverseFlow() != null
+                      && traceAndReverseFlow
+                          .getReverseFlow()
+                          .getIngressNode()
+                          .equals(destinationNode))
+          .flatMap(
+              traceAndReverseFlow ->
+                  _reverseTraces.get(traceAndReverseFlow.getNewFirewallSessions())
+                      .get(traceAndReverseFlow.getReverseFlow()).stream())
+          .anyMatch(
+              traceAndReverseFlow -> {
+                Trace reverseTrace = traceAndReverseFlow.getTrace();
+                List<Hop> hops = reverseTrace.getHops();
+                return !hops.isEmpty()
+                    && hops.get(hops.size() - 1).getNode().getName().equals(sourceNode)
+                    && reverseTrace.getDisposition() == FlowDisposition.ACCEPTED;
+              });
+    }
   }
 }
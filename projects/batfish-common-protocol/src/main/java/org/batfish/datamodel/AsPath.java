@@ -5,11 +5,9 @@ import static com.google.common.base.MoreObjects.firstNonNull;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonValue;
 import com.google.common.base.Predicates;
-import com.google.common.cache.CacheBuilder;
-import com.google.common.cache.CacheLoader;
-import com.google.common.cache.LoadingCache;
 import com.google.common.collect.Comparators;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Interner;
 import com.google.common.collect.Ordering;
 import java.io.Serializable;
 import java.util.Arrays;
@@ -17,6 +15,7 @@ import java.util.List;
 import javax.annotation.Nullable;
 import javax.annotation.ParametersAreNonnullByDefault;
 import org.apache.commons.lang3.StringUtils;
+import org.batfish.common.util.Interning;
 
 @ParametersAreNonnullByDefault
 public final class AsPath implements Serializable, Comparable<AsPath> {
@@ -41,14 +40,7 @@ public final class AsPath implements Serializable, Comparable<AsPath> {
 
   private final List<AsSet> _asSets;
 
-  // Soft values: let it be garbage collected in times of pressure.
-  // Maximum size 2^16: Just some upper bound on cache size, well less than GiB.
-  //   (24 bytes seems smallest possible entry (list(set(long)), would be 1.5 MiB total).
-  private static final LoadingCache<ImmutableList<AsSet>, AsPath> CACHE =
-      CacheBuilder.newBuilder()
-          .softValues()
-          .maximumSize(1 << 16)
-          .build(CacheLoader.from(AsPath::new));
+  private static final Interner<AsPath> INTERNER = Interning.newWeakInterner("AsPath");
 
   private AsPath(ImmutableList<AsSet> asSets) {
     _asSets = asSets;
@@ -74,8 +66,12 @@ public final class AsPath implements Serializable, Comparable<AsPath> {
     if (asSets.isEmpty()) {
       return empty();
     }
-    ImmutableList<AsSet> immutableValue = ImmutableList.copyOf(asSets);
-    return CACHE.getUnchecked(immutableValue);
+    return INTERNER.intern(new AsPath(ImmutableList.copyOf(asSets)));
+  }
+
+  /** Share instances with the rest of the JVM when deserializing. */
+  private Object readResolve() {
+    return of(_asSets);
   }
 
   /**
@@ -5,10 +5,8 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.google.common.annotations.VisibleForTesting;
-import com.google.common.cache.CacheBuilder;
-import com.google.common.cache.CacheLoader;
-import com.google.common.cache.LoadingCache;
 import com.google.common.collect.ImmutableSortedSet;
+import com.google.common.collect.Interner;
 import com.google.common.collect.Ordering;
 import com.google.common.primitives.Longs;
 import java.io.Serializable;
@@ -18,15 +16,12 @@ import java.util.SortedSet;
 import javax.annotation.Nullable;
 import javax.annotation.ParametersAreNonnullByDefault;
 import org.apache.commons.lang3.StringUtils;
+import org.batfish.common.util.Interning;
 
 /** An immutable class representing a set of AS numbers. */
 @ParametersAreNonnullByDefault
 public class AsSet implements Serializable, Comparable<AsSet> {
-  // Soft values: let it be garbage collected in times of pressure.
-  // Maximum size 2^16: Just some upper bound on cache size, well less than GiB.
-  //   (8 bytes seems smallest possible entry (set(long)), would be 1 MiB total).
-  private static final LoadingCache<AsSet, AsSet> CACHE =
-      CacheBuilder.newBuilder().softValues().maximumSize(1 << 16).build(CacheLoader.from(x -> x));
+  private static final Interner<AsSet> INTERNER = Interning.newWeakInterner("AsSet");
   private static final String PROP_ASNS = "asns";
   private static final String PROP_CONFEDERATION = "confederation";
 
@@ -56,7 +51,7 @@ public class AsSet implements Serializable, Comparable<AsSet> {
    */
   public static AsSet of(long... value) {
     AsSet set = new AsSet(value, false);
-    return CACHE.getUnchecked(set);
+    return INTERNER.intern(set);
   }
 
   /** Create a new empty confederation {@link AsSet}. */
@@ -67,7 +62,12 @@ public class AsSet implements Serializable, Comparable<AsSet> {
   /** Create a new confederation {@link AsSet} that is an immutable copy of {@code value}. */
   public static AsSet confed(long... value) {
     AsSet set = new AsSet(value, true);
-    return CACHE.getUnchecked(set);
+    return INTERNER.intern(set);
+  }
+
+  /** Share instances with the rest of the JVM when deserializing. */
+  private Object readResolve() {
+    return INTERNER.intern(this);
   }
 
   @JsonCreator
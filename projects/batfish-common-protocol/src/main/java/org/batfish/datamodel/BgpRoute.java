@@ -5,11 +5,9 @@ import static com.google.common.base.Preconditions.checkArgument;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
-import com.google.common.cache.CacheBuilder;
-import com.google.common.cache.CacheLoader;
-import com.google.common.cache.LoadingCache;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ImmutableSortedSet;
+import com.google.common.collect.Interner;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Set;
@@ -18,6 +16,7 @@ import java.util.TreeSet;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import javax.annotation.ParametersAreNonnullByDefault;
+import org.batfish.common.util.Interning;
 import org.batfish.datamodel.BgpRoute.Builder;
 import org.batfish.datamodel.bgp.community.Community;
 import org.batfish.datamodel.bgp.community.ExtendedCommunity;
@@ -28,22 +27,10 @@ import org.batfish.datamodel.bgp.community.StandardCommunity;
 public abstract class BgpRoute<B extends Builder<B, R>, R extends BgpRoute<B, R>>
     extends AbstractRoute {
 
-  // Soft values: let it be garbage collected in times of pressure.
-  // Maximum size 2^16: Just some upper bound on cache size, well less than GiB.
-  //   (8 bytes seems smallest possible entry (set(long)), would be 1 MiB total).
-  private static final LoadingCache<SortedSet<Community>, SortedSet<Community>> COMMUNITY_CACHE =
-      CacheBuilder.newBuilder()
-          .softValues()
-          .maximumSize(1 << 16)
-          .build(CacheLoader.from(ImmutableSortedSet::copyOf));
-  // Soft values: let it be garbage collected in times of pressure.
-  // Maximum size 2^16: Just some upper bound on cache size, well less than GiB.
-  //   (8 bytes seems smallest possible entry (set(long)), would be 1 MiB total).
-  private static final LoadingCache<SortedSet<Long>, SortedSet<Long>> CLUSTER_CACHE =
-      CacheBuilder.newBuilder()
-          .softValues()
-          .maximumSize(1 << 16)
-          .build(CacheLoader.from(ImmutableSortedSet::copyOf));
+  private static final Interner<SortedSet<Community>> COMMUNITIES_INTERNER =
+      Interning.newWeakInterner("BgpRoute.communities");
+  private static final Interner<SortedSet<Long>> CLUSTER_LIST_INTERNER =
+      Interning.newWeakInterner("BgpRoute.clusterList");
 
   /** Builder for {@link BgpRoute} */
   @ParametersAreNonnullByDefault
@@ -327,9 +314,13 @@ public abstract class BgpRoute<B extends Builder<B, R>, R extends BgpRoute<B, R>
         "Invalid BgpRoute protocol");
     _asPath = firstNonNull(asPath, AsPath.empty());
     _clusterList =
-        clusterList == null ? ImmutableSortedSet.of() : CLUSTER_CACHE.getUnchecked(clusterList);
+        clusterList == null
+            ? ImmutableSortedSet.of()
+            : CLUSTER_LIST_INTERNER.intern(ImmutableSortedSet.copyOf(clusterList));
     _communities =
-        communities == null ? ImmutableSortedSet.of() : COMMUNITY_CACHE.getUnchecked(communities);
+        communities == null
+            ? ImmutableSortedSet.of()
+            : COMMUNITIES_INTERNER.intern(ImmutableSortedSet.copyOf(communities));
     _discard = discard;
     _localPreference = localPreference;
     _med = med;
@@ -276,6 +276,21 @@ public final class ForwardingAnalysisImpl implements ForwardingAnalysis {
     }
   }
 
+  /**
+   * Build an immutable map with the same keys as {@code byNode}, computing the value for each node
+   * in parallel. The per-node computations of this analysis are independent of each other, so this
+   * is used at the outermost (node) level of each component.
+   *
+   * <p>{@code valueFunction} must be thread-safe. In particular, it must not use BDDs.
+   */
+  private static <V1, V2> Map<String, V2> toImmutableMapByNode(
+      Map<String, V1> byNode, Function<Entry<String, V1>, V2> valueFunction) {
+    return byNode
+        .entrySet()
+        .parallelStream()
+        .collect(ImmutableMap.toImmutableMap(Entry::getKey, valueFunction));
+  }
+
   /**
    * Compute the space of IPs accepted by a VRF<br>
    * Mapping: hostname -&gt; vrf name -&gt; space of IPs
@@ -305,9 +320,8 @@ public final class ForwardingAnalysisImpl implements ForwardingAnalysis {
     try (ActiveSpan span =
         GlobalTracer.get().buildSpan("ForwardingAnalysisImpl.computeArpReplies").startActive()) {
       assert span != null; // avoid unused warning
-      return toImmutableMap(
+      return toImmutableMapByNode(
           configurations,
-          Entry::getKey,
           nodeEntry -> {
             String hostname = nodeEntry.getKey();
             return computeArpRepliesByInterface(
@@ -350,9 +364,8 @@ public final class ForwardingAnalysisImpl implements ForwardingAnalysis {
     try (ActiveSpan span =
         GlobalTracer.get().buildSpan("ForwardingAnalysisImpl.computeArpTrueEdge").startActive()) {
       assert span != null; // avoid unused warning
-      return toImmutableMap(
+      return toImmutableMapByNode(
           arpTrueEdgeDestIp,
-          Entry::getKey, // node
           nodeEntry ->
               toImmutableMap(
                   nodeEntry.getValue(),
@@ -380,9 +393,8 @@ public final class ForwardingAnalysisImpl implements ForwardingAnalysis {
             .buildSpan("ForwardingAnalysisImpl.computeArpTrueEdgeDestIp")
             .startActive()) {
       assert span != null; // avoid unused warning
-      return toImmutableMap(
+      return toImmutableMapByNode(
           routesWithDestIpEdge,
-          Entry::getKey, // node
           nodeEntry ->
               toImmutableMap(
                   nodeEntry.getValue(),
@@ -418,9 +430,8 @@ public final class ForwardingAnalysisImpl implements ForwardingAnalysis {
             .buildSpan("ForwardingAnalysisImpl.computeArpTrueEdgeNextHopIp")
             .startActive()) {
       assert span != null; // avoid unused warning
-      return toImmutableMap(
+      return toImmutableMapByNode(
           routesWithNextHopIpArpTrue,
-          Entry::getKey, // node
           nodeEntry ->
               toImmutableMap(
                   nodeEntry.getValue(),
@@ -506,9 +517,8 @@ public final class ForwardingAnalysisImpl implements ForwardingAnalysis {
             .buildSpan("ForwardingAnalysisImpl.computeIpsRoutedOutInterfaces")
             .startActive()) {
       assert span != null; // avoid unused warning
-      return toImmutableMap(
+      return toImmutableMapByNode(
           routesWithNextHop,
-          Entry::getKey /* hostname */,
           nodeEntry -> {
             String hostname = nodeEntry.getKey();
             return toImmutableMap(
@@ -547,9 +557,8 @@ public final class ForwardingAnalysisImpl implements ForwardingAnalysis {
             .buildSpan("ForwardingAnalysisImpl.computeArpFalseDestIp")
             .startActive()) {
       assert span != null; // avoid unused warning
-      return toImmutableMap(
+      return toImmutableMapByNode(
           routesWhereDstIpCanBeArpIp,
-          Entry::getKey /* hostname */,
           nodeEntry -> {
             String hostname = nodeEntry.getKey();
             Map<String, IpSpace> someoneRepliesNode =
@@ -592,7 +601,9 @@ public final class ForwardingAnalysisImpl implements ForwardingAnalysis {
             .buildSpan("ForwardingAnalysisImpl.computeArpFalseNextHopIp")
             .startActive()) {
       assert span != null; // avoid unused warning
-      return routesWithNextHopIpArpFalse.entrySet().stream()
+      return routesWithNextHopIpArpFalse
+          .entrySet()
+          .parallelStream()
           .collect(
               ImmutableMap.toImmutableMap(
                   Entry::getKey /* hostname */,
@@ -630,7 +641,8 @@ public final class ForwardingAnalysisImpl implements ForwardingAnalysis {
     try (ActiveSpan span =
         GlobalTracer.get().buildSpan("ForwardingAnalysisImpl.computeNullRoutedIps").startActive()) {
       assert span != null; // avoid unused warning
-      return fibs.entrySet().stream()
+      return fibs.entrySet()
+          .parallelStream()
           .collect(
               ImmutableMap.toImmutableMap(
                   Entry::getKey /* hostname */,
@@ -665,7 +677,8 @@ public final class ForwardingAnalysisImpl implements ForwardingAnalysis {
     try (ActiveSpan span =
         GlobalTracer.get().buildSpan("ForwardingAnalysisImpl.computeNextVrfIps").startActive()) {
       assert span != null; // avoid unused warning
-      return fibs.entrySet().stream()
+      return fibs.entrySet()
+          .parallelStream()
           .collect(
               ImmutableMap.toImmutableMap(
                   Entry::getKey /* hostname */,
@@ -707,9 +720,8 @@ public final class ForwardingAnalysisImpl implements ForwardingAnalysis {
     try (ActiveSpan span =
         GlobalTracer.get().buildSpan("ForwardingAnalysisImpl.computeRoutableIps").startActive()) {
       assert span != null; // avoid unused warning
-      return toImmutableMap(
+      return toImmutableMapByNode(
           fibs,
-          Entry::getKey, // node
           nodeEntry ->
               toImmutableMap(
                   nodeEntry.getValue(),
@@ -731,9 +743,8 @@ public final class ForwardingAnalysisImpl implements ForwardingAnalysis {
     try (ActiveSpan span =
         GlobalTracer.get().buildSpan("ForwardingAnalysisImpl.computeMatchingIps").startActive()) {
       assert span != null; // avoid unused warning
-      return toImmutableMap(
+      return toImmutableMapByNode(
           fibs,
-          Entry::getKey, // node
           nodeEntry ->
               toImmutableMap(
                   nodeEntry.getValue(),
@@ -771,9 +782,8 @@ public final class ForwardingAnalysisImpl implements ForwardingAnalysis {
             .buildSpan("ForwardingAnalysisImpl.computeRoutesWhereDstIpCanBeArpIp")
             .startActive()) {
       assert span != null; // avoid unused warning
-      return toImmutableMap(
+      return toImmutableMapByNode(
           routesWithNextHop,
-          Entry::getKey /* hostname */,
           nodeEntry -> {
             String hostname = nodeEntry.getKey();
             return toImmutableMap(
@@ -817,9 +827,8 @@ public final class ForwardingAnalysisImpl implements ForwardingAnalysis {
             .startActive()) {
       assert span != null; // avoid unused warning
 
-      return toImmutableMap(
+      return toImmutableMapByNode(
           routesWhereDstIpCanBeArpIp,
-          Entry::getKey, // node
           nodeEntry ->
               toImmutableMap(
                   nodeEntry.getValue(),
@@ -850,9 +859,8 @@ public final class ForwardingAnalysisImpl implements ForwardingAnalysis {
             .buildSpan("ForwardingAnalysisImpl.computeRoutesWithNextHop")
             .startActive()) {
       assert span != null; // avoid unused warning
-      return toImmutableMap(
+      return toImmutableMapByNode(
           fibs,
-          Entry::getKey,
           nodeEntry ->
               toImmutableMap(
                   nodeEntry.getValue(),
@@ -908,9 +916,8 @@ public final class ForwardingAnalysisImpl implements ForwardingAnalysis {
             .buildSpan("ForwardingAnalysisImpl.computeRoutesWithNextHopIpArpFalse")
             .startActive()) {
       assert span != null; // avoid unused warning
-      return toImmutableMap(
+      return toImmutableMapByNode(
           routesWithNextHop,
-          Entry::getKey /* hostname */,
           nodeEntry -> {
             String hostname = nodeEntry.getKey();
             Map<String, IpSpace> nodeSomeoneReplies =
@@ -965,9 +972,8 @@ public final class ForwardingAnalysisImpl implements ForwardingAnalysis {
             .buildSpan("ForwardingAnalysisImpl.computeRoutesWithNextHopIpArpTrue")
             .startActive()) {
       assert span != null; // avoid unused warning
-      return toImmutableMap(
+      return toImmutableMapByNode(
           routesWithNextHop,
-          Entry::getKey, // node
           nodeEntry ->
               toImmutableMap(
                   nodeEntry.getValue(),
@@ -1119,9 +1125,8 @@ public final class ForwardingAnalysisImpl implements ForwardingAnalysis {
           ipSpaces1.keySet(),
           ipSpaces2.keySet());
 
-      return toImmutableMap(
+      return toImmutableMapByNode(
           ipSpaces1,
-          Entry::getKey, /* hostname */
           nodeEntry -> {
             Map<String, Map<String, IpSpace>> nodeIpSpace2 = ipSpaces2.get(nodeEntry.getKey());
             checkArgument(
@@ -1181,9 +1186,8 @@ public final class ForwardingAnalysisImpl implements ForwardingAnalysis {
             .buildSpan("ForwardingAnalysisImpl.computeDeliveredToSubnet")
             .startActive()) {
       assert span != null; // avoid unused warning
-      return toImmutableMap(
+      return toImmutableMapByNode(
           arpFalseDestIp,
-          Entry::getKey,
           nodeEntry ->
               toImmutableMap(
                   nodeEntry.getValue(),
@@ -1220,9 +1224,8 @@ public final class ForwardingAnalysisImpl implements ForwardingAnalysis {
     try (ActiveSpan span =
         GlobalTracer.get().buildSpan("ForwardingAnalysisImpl.computeExitsNetwork").startActive()) {
       assert span != null; // avoid unused warning
-      return toImmutableMap(
+      return toImmutableMapByNode(
           dstIpsWithUnownedNextHopIpArpFalse,
-          Entry::getKey,
           nodeEntry -> {
             String hostname = nodeEntry.getKey();
             Set<String> interfacesWithMissingDevicesNode =
@@ -1289,9 +1292,8 @@ public final class ForwardingAnalysisImpl implements ForwardingAnalysis {
             .startActive()) {
       assert span != null; // avoid unused warning
 
-      return toImmutableMap(
+      return toImmutableMapByNode(
           arpFalseDestIp,
-          Entry::getKey,
           nodeEntry ->
               toImmutableMap(
                   nodeEntry.getValue(),
@@ -1366,9 +1368,8 @@ public final class ForwardingAnalysisImpl implements ForwardingAnalysis {
             .buildSpan("ForwardingAnalysisImpl.computeNeighborUnreachable")
             .startActive()) {
       assert span != null; // avoid unused warning
-      return toImmutableMap(
+      return toImmutableMapByNode(
           arpFalse,
-          Entry::getKey,
           nodeEntry ->
               toImmutableMap(
                   nodeEntry.getValue(),
@@ -1433,9 +1434,8 @@ public final class ForwardingAnalysisImpl implements ForwardingAnalysis {
             .buildSpan("ForwardingAnalysisImpl.computeDstIpsWithOwnedNextHopIpArpFalse")
             .startActive()) {
       assert span != null; // avoid unused warning
-      return toImmutableMap(
+      return toImmutableMapByNode(
           routesWithOwnedNextHopIpArpFalse,
-          Entry::getKey,
           nodeEntry ->
               toImmutableMap(
                   nodeEntry.getValue(),
@@ -1462,9 +1462,8 @@ public final class ForwardingAnalysisImpl implements ForwardingAnalysis {
             .buildSpan("ForwardingAnalysisImpl.computeDstIpsWithUnownedNextHopIpArpFalse")
             .startActive()) {
       assert span != null; // avoid unused warning
-      return toImmutableMap(
+      return toImmutableMapByNode(
           routesWithUnownedNextHopIpArpFalse,
-          Entry::getKey,
           nodeEntry ->
               toImmutableMap(
                   nodeEntry.getValue(),
@@ -1642,9 +1641,8 @@ public final class ForwardingAnalysisImpl implements ForwardingAnalysis {
             .buildSpan("ForwardingAnalysisImpl.computeNextHopInterfacesByNodeVrf")
             .startActive()) {
       assert span != null; // avoid unused warning
-      return toImmutableMap(
+      return toImmutableMapByNode(
           fibsByNode,
-          Entry::getKey,
           fibsByNodeEntry ->
               toImmutableMap(
                   fibsByNodeEntry.getValue(),
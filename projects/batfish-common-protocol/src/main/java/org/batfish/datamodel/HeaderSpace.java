@@ -1,8 +1,10 @@
 package org.batfish.datamodel;
 
+import static com.google.common.base.MoreObjects.firstNonNull;
 import static java.util.Comparator.naturalOrder;
 import static java.util.Comparator.nullsFirst;
 
+import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.common.base.MoreObjects;
 import com.google.common.collect.Comparators;
@@ -12,7 +14,6 @@ import com.google.common.collect.Ordering;
 import java.io.Serializable;
 import java.util.Arrays;
 import java.util.Collection;
-import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
@@ -20,7 +21,11 @@ import java.util.Objects;
 import java.util.SortedSet;
 import javax.annotation.Nullable;
 
-public class HeaderSpace implements Serializable, Comparable<HeaderSpace> {
+/**
+ * Constraints on the headers of a packet. Instances are immutable, so they may be shared; use
+ * {@link #toBuilder()} to derive a modified copy.
+ */
+public final class HeaderSpace implements Serializable, Comparable<HeaderSpace> {
 
   private static <C extends Collection<?>> C nullIfEmpty(C collection) {
     return collection == null ? null : collection.isEmpty() ? null : collection;
@@ -551,66 +556,108 @@ public class HeaderSpace implements Serializable, Comparable<HeaderSpace> {
     return new Builder();
   }
 
-  private SortedSet<Integer> _dscps;
-  private IpSpace _dstIps;
-  private SortedSet<SubRange> _dstPorts;
-  private SortedSet<Protocol> _dstProtocols;
-  private SortedSet<Integer> _ecns;
-  private SortedSet<SubRange> _fragmentOffsets;
-  private SortedSet<SubRange> _icmpCodes;
-  private SortedSet<SubRange> _icmpTypes;
-  private SortedSet<IpProtocol> _ipProtocols;
-  private boolean _negate;
-  private SortedSet<Integer> _notDscps;
-  private IpSpace _notDstIps;
-  private SortedSet<SubRange> _notDstPorts;
-  private SortedSet<Protocol> _notDstProtocols;
-  private SortedSet<Integer> _notEcns;
-  private SortedSet<SubRange> _notFragmentOffsets;
-  private SortedSet<SubRange> _notIcmpCodes;
-  private SortedSet<SubRange> _notIcmpTypes;
-  private SortedSet<IpProtocol> _notIpProtocols;
-  private SortedSet<SubRange> _notPacketLengths;
-  private IpSpace _notSrcIps;
-  private SortedSet<SubRange> _notSrcPorts;
-  private SortedSet<Protocol> _notSrcProtocols;
-  private SortedSet<SubRange> _packetLengths;
-  private IpSpace _srcIps;
-  private IpSpace _srcOrDstIps;
-  private SortedSet<SubRange> _srcOrDstPorts;
-  private SortedSet<Protocol> _srcOrDstProtocols;
-  private SortedSet<SubRange> _srcPorts;
-  private SortedSet<Protocol> _srcProtocols;
-  private SortedSet<FlowState> _states;
-  private List<TcpFlagsMatchConditions> _tcpFlags;
-
-  public HeaderSpace() {
-    _dscps = Collections.emptySortedSet();
-    _dstPorts = Collections.emptySortedSet();
-    _dstProtocols = Collections.emptySortedSet();
-    _ecns = Collections.emptySortedSet();
-    _fragmentOffsets = Collections.emptySortedSet();
-    _icmpCodes = Collections.emptySortedSet();
-    _icmpTypes = Collections.emptySortedSet();
-    _ipProtocols = Collections.emptySortedSet();
-    _packetLengths = Collections.emptySortedSet();
-    _srcOrDstPorts = Collections.emptySortedSet();
-    _srcOrDstProtocols = Collections.emptySortedSet();
-    _srcPorts = Collections.emptySortedSet();
-    _srcProtocols = Collections.emptySortedSet();
-    _states = Collections.emptySortedSet();
-    _tcpFlags = Collections.emptyList();
-    _notDscps = Collections.emptySortedSet();
-    _notDstPorts = Collections.emptySortedSet();
-    _notDstProtocols = Collections.emptySortedSet();
-    _notEcns = Collections.emptySortedSet();
-    _notFragmentOffsets = Collections.emptySortedSet();
-    _notIcmpCodes = Collections.emptySortedSet();
-    _notIcmpTypes = Collections.emptySortedSet();
-    _notIpProtocols = Collections.emptySortedSet();
-    _notPacketLengths = Collections.emptySortedSet();
-    _notSrcPorts = Collections.emptySortedSet();
-    _notSrcProtocols = Collections.emptySortedSet();
+  private final SortedSet<Integer> _dscps;
+  private final IpSpace _dstIps;
+  private final SortedSet<SubRange> _dstPorts;
+  private final SortedSet<Protocol> _dstProtocols;
+  private final SortedSet<Integer> _ecns;
+  private final SortedSet<SubRange> _fragmentOffsets;
+  private final SortedSet<SubRange> _icmpCodes;
+  private final SortedSet<SubRange> _icmpTypes;
+  private final SortedSet<IpProtocol> _ipProtocols;
+  private final boolean _negate;
+  private final SortedSet<Integer> _notDscps;
+  private final IpSpace _notDstIps;
+  private final SortedSet<SubRange> _notDstPorts;
+  private final SortedSet<Protocol> _notDstProtocols;
+  private final SortedSet<Integer> _notEcns;
+  private final SortedSet<SubRange> _notFragmentOffsets;
+  private final SortedSet<SubRange> _notIcmpCodes;
+  private final SortedSet<SubRange> _notIcmpTypes;
+  private final SortedSet<IpProtocol> _notIpProtocols;
+  private final SortedSet<SubRange> _notPacketLengths;
+  private final IpSpace _notSrcIps;
+  private final SortedSet<SubRange> _notSrcPorts;
+  private final SortedSet<Protocol> _notSrcProtocols;
+  private final SortedSet<SubRange> _packetLengths;
+  private final IpSpace _srcIps;
+  private final IpSpace _srcOrDstIps;
+  private final SortedSet<SubRange> _srcOrDstPorts;
+  private final SortedSet<Protocol> _srcOrDstProtocols;
+  private final SortedSet<SubRange> _srcPorts;
+  private final SortedSet<Protocol> _srcProtocols;
+  private final SortedSet<FlowState> _states;
+  private final List<TcpFlagsMatchConditions> _tcpFlags;
+
+  @JsonCreator
+  private static HeaderSpace create(
+      @Nullable @JsonProperty(PROP_DSCPS) List<Integer> dscps,
+      @Nullable @JsonProperty(PROP_DST_IPS) IpSpace dstIps,
+      @Nullable @JsonProperty(PROP_DST_PORTS) List<SubRange> dstPorts,
+      @Nullable @JsonProperty(PROP_DST_PROTOCOLS) List<Protocol> dstProtocols,
+      @Nullable @JsonProperty(PROP_ECNS) List<Integer> ecns,
+      @Nullable @JsonProperty(PROP_FRAGMENT_OFFSETS) List<SubRange> fragmentOffsets,
+      @Nullable @JsonProperty(PROP_ICMP_CODES) List<SubRange> icmpCodes,
+      @Nullable @JsonProperty(PROP_ICMP_TYPES) List<SubRange> icmpTypes,
+      @Nullable @JsonProperty(PROP_IP_PROTOCOLS) List<IpProtocol> ipProtocols,
+      @Nullable @JsonProperty(PROP_NEGATE) Boolean negate,
+      @Nullable @JsonProperty(PROP_NOT_DSCPS) List<Integer> notDscps,
+      @Nullable @JsonProperty(PROP_NOT_DST_IPS) IpSpace notDstIps,
+      @Nullable @JsonProperty(PROP_NOT_DST_PORTS) List<SubRange> notDstPorts,
+      @Nullable @JsonProperty(PROP_NOT_DST_PROTOCOLS) List<Protocol> notDstProtocols,
+      @Nullable @JsonProperty(PROP_NOT_ECNS) List<Integer> notEcns,
+      @Nullable @JsonProperty(PROP_NOT_FRAGMENT_OFFSETS) List<SubRange> notFragmentOffsets,
+      @Nullable @JsonProperty(PROP_NOT_ICMP_CODES) List<SubRange> notIcmpCodes,
+      @Nullable @JsonProperty(PROP_NOT_ICMP_TYPES) List<SubRange> notIcmpTypes,
+      @Nullable @JsonProperty(PROP_NOT_IP_PROTOCOLS) List<IpProtocol> notIpProtocols,
+      @Nullable @JsonProperty(PROP_NOT_PACKET_LENGTHS) List<SubRange> notPacketLengths,
+      @Nullable @JsonProperty(PROP_NOT_SRC_IPS) IpSpace notSrcIps,
+      @Nullable @JsonProperty(PROP_NOT_SRC_PORTS) List<SubRange> notSrcPorts,
+      @Nullable @JsonProperty(PROP_NOT_SRC_PROTOCOLS) List<Protocol> notSrcProtocols,
+      @Nullable @JsonProperty(PROP_PACKET_LENGTHS) List<SubRange> packetLengths,
+      @Nullable @JsonProperty(PROP_SRC_IPS) IpSpace srcIps,
+      @Nullable @JsonProperty(PROP_SRC_OR_DST_IPS) IpSpace srcOrDstIps,
+      @Nullable @JsonProperty(PROP_SRC_OR_DST_PORTS) List<SubRange> srcOrDstPorts,
+      @Nullable @JsonProperty(PROP_SRC_OR_DST_PROTOCOLS) List<Protocol> srcOrDstProtocols,
+      @Nullable @JsonProperty(PROP_SRC_PORTS) List<SubRange> srcPorts,
+      @Nullable @JsonProperty(PROP_SRC_PROTOCOLS) List<Protocol> srcProtocols,
+      @Nullable @JsonProperty(PROP_STATES) List<FlowState> states,
+      @Nullable @JsonProperty(PROP_TCP_FLAGS_MATCH_CONDITIONS)
+          List<TcpFlagsMatchConditions> tcpFlags) {
+    return builder()
+        .setDscps(firstNonNull(dscps, ImmutableList.of()))
+        .setDstIps(dstIps)
+        .setDstPorts(firstNonNull(dstPorts, ImmutableList.of()))
+        .setDstProtocols(firstNonNull(dstProtocols, ImmutableList.of()))
+        .setEcns(firstNonNull(ecns, ImmutableList.of()))
+        .setFragmentOffsets(firstNonNull(fragmentOffsets, ImmutableList.of()))
+        .setIcmpCodes(firstNonNull(icmpCodes, ImmutableList.of()))
+        .setIcmpTypes(firstNonNull(icmpTypes, ImmutableList.of()))
+        .setIpProtocols(firstNonNull(ipProtocols, ImmutableList.of()))
+        .setNegate(firstNonNull(negate, false))
+        .setNotDscps(firstNonNull(notDscps, ImmutableList.of()))
+        .setNotDstIps(notDstIps)
+        .setNotDstPorts(firstNonNull(notDstPorts, ImmutableList.of()))
+        .setNotDstProtocols(firstNonNull(notDstProtocols, ImmutableList.of()))
+        .setNotEcns(firstNonNull(notEcns, ImmutableList.of()))
+        .setNotFragmentOffsets(firstNonNull(notFragmentOffsets, ImmutableList.of()))
+        .setNotIcmpCodes(firstNonNull(notIcmpCodes, ImmutableList.of()))
+        .setNotIcmpTypes(firstNonNull(notIcmpTypes, ImmutableList.of()))
+        .setNotIpProtocols(firstNonNull(notIpProtocols, ImmutableList.of()))
+        .setNotPacketLengths(firstNonNull(notPacketLengths, ImmutableList.of()))
+        .setNotSrcIps(notSrcIps)
+        .setNotSrcPorts(firstNonNull(notSrcPorts, ImmutableList.of()))
+        .setNotSrcProtocols(firstNonNull(notSrcProtocols, ImmutableList.of()))
+        .setPacketLengths(firstNonNull(packetLengths, ImmutableList.of()))
+        .setSrcIps(srcIps)
+        .setSrcOrDstIps(srcOrDstIps)
+        .setSrcOrDstPorts(firstNonNull(srcOrDstPorts, ImmutableList.of()))
+        .setSrcOrDstProtocols(firstNonNull(srcOrDstProtocols, ImmutableList.of()))
+        .setSrcPorts(firstNonNull(srcPorts, ImmutableList.of()))
+        .setSrcProtocols(firstNonNull(srcProtocols, ImmutableList.of()))
+        .setStates(firstNonNull(states, ImmutableList.of()))
+        .setTcpFlags(firstNonNull(tcpFlags, ImmutableList.of()))
+        .build();
   }
 
   private HeaderSpace(Builder builder) {
@@ -1062,186 +1109,6 @@ public class HeaderSpace implements Serializable, Comparable<HeaderSpace> {
     return true;
   }
 
-  @JsonProperty(PROP_DSCPS)
-  public void setDscps(Iterable<Integer> dscps) {
-    _dscps = ImmutableSortedSet.copyOf(dscps);
-  }
-
-  @JsonProperty(PROP_DST_IPS)
-  public void setDstIps(IpSpace dstIps) {
-    _dstIps = dstIps;
-  }
-
-  public void setDstIps(Iterable<IpWildcard> dstIps) {
-    _dstIps = IpWildcardSetIpSpace.builder().including(dstIps).build();
-  }
-
-  @JsonProperty(PROP_DST_PORTS)
-  public void setDstPorts(Iterable<SubRange> dstPorts) {
-    _dstPorts = ImmutableSortedSet.copyOf(dstPorts);
-  }
-
-  @JsonProperty(PROP_DST_PROTOCOLS)
-  public void setDstProtocols(Iterable<Protocol> dstProtocols) {
-    _dstProtocols = ImmutableSortedSet.copyOf(dstProtocols);
-  }
-
-  @JsonProperty(PROP_ECNS)
-  public void setEcns(Iterable<Integer> ecns) {
-    _ecns = ImmutableSortedSet.copyOf(ecns);
-  }
-
-  @JsonProperty(PROP_FRAGMENT_OFFSETS)
-  public void setFragmentOffsets(Iterable<SubRange> fragmentOffsets) {
-    _fragmentOffsets = ImmutableSortedSet.copyOf(fragmentOffsets);
-  }
-
-  @JsonProperty(PROP_ICMP_CODES)
-  public void setIcmpCodes(Iterable<SubRange> icmpCodes) {
-    _icmpCodes = ImmutableSortedSet.copyOf(icmpCodes);
-  }
-
-  @JsonProperty(PROP_ICMP_TYPES)
-  public void setIcmpTypes(Iterable<SubRange> icmpTypes) {
-    _icmpTypes = ImmutableSortedSet.copyOf(icmpTypes);
-  }
-
-  @JsonProperty(PROP_IP_PROTOCOLS)
-  public void setIpProtocols(Iterable<IpProtocol> ipProtocols) {
-    _ipProtocols = ImmutableSortedSet.copyOf(ipProtocols);
-  }
-
-  @JsonProperty(PROP_NEGATE)
-  public void setNegate(boolean negate) {
-    _negate = negate;
-  }
-
-  @JsonProperty(PROP_NOT_DSCPS)
-  public void setNotDscps(Iterable<Integer> notDscps) {
-    _notDscps = ImmutableSortedSet.copyOf(notDscps);
-  }
-
-  @JsonProperty(PROP_NOT_DST_IPS)
-  public void setNotDstIps(IpSpace notDstIps) {
-    _notDstIps = notDstIps;
-  }
-
-  public void setNotDstIps(Iterable<IpWildcard> notDstIps) {
-    _notDstIps = IpWildcardSetIpSpace.builder().including(notDstIps).build();
-  }
-
-  @JsonProperty(PROP_NOT_DST_PORTS)
-  public void setNotDstPorts(Iterable<SubRange> notDstPorts) {
-    _notDstPorts = ImmutableSortedSet.copyOf(notDstPorts);
-  }
-
-  @JsonProperty(PROP_NOT_DST_PROTOCOLS)
-  public void setNotDstProtocols(Iterable<Protocol> notDstProtocols) {
-    _notDstProtocols = ImmutableSortedSet.copyOf(notDstProtocols);
-  }
-
-  @JsonProperty(PROP_NOT_ECNS)
-  public void setNotEcns(Iterable<Integer> notEcns) {
-    _notEcns = ImmutableSortedSet.copyOf(notEcns);
-  }
-
-  @JsonProperty(PROP_NOT_FRAGMENT_OFFSETS)
-  public void setNotFragmentOffsets(Iterable<SubRange> notFragmentOffsets) {
-    _notFragmentOffsets = ImmutableSortedSet.copyOf(notFragmentOffsets);
-  }
-
-  @JsonProperty(PROP_NOT_ICMP_CODES)
-  public void setNotIcmpCodes(Iterable<SubRange> notIcmpCodes) {
-    _notIcmpCodes = ImmutableSortedSet.copyOf(notIcmpCodes);
-  }
-
-  @JsonProperty(PROP_NOT_ICMP_TYPES)
-  public void setNotIcmpTypes(Iterable<SubRange> notIcmpTypes) {
-    _notIcmpTypes = ImmutableSortedSet.copyOf(notIcmpTypes);
-  }
-
-  @JsonProperty(PROP_NOT_IP_PROTOCOLS)
-  public void setNotIpProtocols(Iterable<IpProtocol> notIpProtocols) {
-    _notIpProtocols = ImmutableSortedSet.copyOf(notIpProtocols);
-  }
-
-  @JsonProperty(PROP_NOT_PACKET_LENGTHS)
-  public void setNotPacketLengths(Iterable<SubRange> notPacketLengths) {
-    _notPacketLengths = ImmutableSortedSet.copyOf(notPacketLengths);
-  }
-
-  @JsonProperty(PROP_NOT_SRC_IPS)
-  public void setNotSrcIps(IpSpace notSrcIps) {
-    _notSrcIps = notSrcIps;
-  }
-
-  public void setNotSrcIps(Iterable<IpWildcard> notSrcIps) {
-    _notSrcIps = IpWildcardSetIpSpace.builder().including(notSrcIps).build();
-  }
-
-  @JsonProperty(PROP_NOT_SRC_PORTS)
-  public void setNotSrcPorts(Iterable<SubRange> notSrcPorts) {
-    _notSrcPorts = ImmutableSortedSet.copyOf(notSrcPorts);
-  }
-
-  @JsonProperty(PROP_NOT_SRC_PROTOCOLS)
-  public void setNotSrcProtocols(Iterable<Protocol> notSrcProtocols) {
-    _notSrcProtocols = ImmutableSortedSet.copyOf(notSrcProtocols);
-  }
-
-  @JsonProperty(PROP_PACKET_LENGTHS)
-  public void setPacketLengths(Iterable<SubRange> packetLengths) {
-    _packetLengths = ImmutableSortedSet.copyOf(packetLengths);
-  }
-
-  @JsonProperty(PROP_SRC_IPS)
-  public void setSrcIps(IpSpace srcIps) {
-    _srcIps = srcIps;
-  }
-
-  public void setSrcIps(Iterable<IpWildcard> srcIps) {
-    _srcIps = IpWildcardSetIpSpace.builder().including(srcIps).build();
-  }
-
-  @JsonProperty(PROP_SRC_OR_DST_IPS)
-  public void setSrcOrDstIps(IpSpace srcOrDstIps) {
-    _srcOrDstIps = srcOrDstIps;
-  }
-
-  public void setSrcOrDstIps(Iterable<IpWildcard> srcOrDstIps) {
-    _srcOrDstIps = IpWildcardSetIpSpace.builder().including(srcOrDstIps).build();
-  }
-
-  @JsonProperty(PROP_SRC_OR_DST_PORTS)
-  public void setSrcOrDstPorts(Iterable<SubRange> srcOrDstPorts) {
-    _srcOrDstPorts = ImmutableSortedSet.copyOf(srcOrDstPorts);
-  }
-
-  @JsonProperty(PROP_SRC_OR_DST_PROTOCOLS)
-  public void setSrcOrDstProtocols(Iterable<Protocol> srcOrDstProtocols) {
-    _srcOrDstProtocols = ImmutableSortedSet.copyOf(srcOrDstProtocols);
-  }
-
-  @JsonProperty(PROP_SRC_PORTS)
-  public void setSrcPorts(Iterable<SubRange> srcPorts) {
-    _srcPorts = ImmutableSortedSet.copyOf(srcPorts);
-  }
-
-  @JsonProperty(PROP_SRC_PROTOCOLS)
-  public void setSrcProtocols(Iterable<Protocol> srcProtocols) {
-    _srcProtocols = ImmutableSortedSet.copyOf(srcProtocols);
-  }
-
-  @JsonProperty(PROP_STATES)
-  public void setStates(Iterable<FlowState> states) {
-    _states = ImmutableSortedSet.copyOf(states);
-  }
-
-  @JsonProperty(PROP_TCP_FLAGS_MATCH_CONDITIONS)
-  public void setTcpFlags(Iterable<TcpFlagsMatchConditions> tcpFlags) {
-    _tcpFlags = ImmutableList.copyOf(tcpFlags);
-  }
-
   public Builder toBuilder() {
     return builder()
         .setDscps(_dscps)
@@ -4,22 +4,17 @@ import static com.google.common.base.Preconditions.checkArgument;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonValue;
-import com.google.common.cache.CacheBuilder;
-import com.google.common.cache.CacheLoader;
-import com.google.common.cache.LoadingCache;
+import com.google.common.collect.Interner;
 import java.io.Serializable;
 import java.util.Optional;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import org.batfish.common.util.Interning;
 
 /** An IPv4 address */
 public class Ip implements Comparable<Ip>, Serializable {
 
-  // Soft values: let it be garbage collected in times of pressure.
-  // Maximum size 2^20: Just some upper bound on cache size, well less than GiB.
-  //   (8 bytes seems smallest possible entry (long), would be 8 MiB total).
-  private static final LoadingCache<Ip, Ip> CACHE =
-      CacheBuilder.newBuilder().softValues().maximumSize(1 << 20).build(CacheLoader.from(x -> x));
+  private static final Interner<Ip> INTERNER = Interning.newWeakInterner("Ip");
 
   public static final Ip AUTO = create(-1L);
 
@@ -132,7 +127,12 @@ public class Ip implements Comparable<Ip>, Serializable {
   public static Ip create(long ipAsLong) {
     checkArgument(ipAsLong <= 0xFFFFFFFFL, "Invalid IP value: %d", ipAsLong);
     Ip ip = new Ip(ipAsLong);
-    return CACHE.getUnchecked(ip);
+    return INTERNER.intern(ip);
+  }
+
+  /** Share instances with the rest of the JVM when deserializing. */
+  private Object readResolve() {
+    return INTERNER.intern(this);
   }
 
   public long asLong() {
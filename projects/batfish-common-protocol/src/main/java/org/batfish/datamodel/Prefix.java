@@ -4,24 +4,19 @@ import static com.google.common.base.Preconditions.checkArgument;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonValue;
-import com.google.common.cache.CacheBuilder;
-import com.google.common.cache.CacheLoader;
-import com.google.common.cache.LoadingCache;
+import com.google.common.collect.Interner;
 import java.io.Serializable;
 import java.util.Optional;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import javax.annotation.ParametersAreNonnullByDefault;
+import org.batfish.common.util.Interning;
 
 /** An IPv4 Prefix */
 @ParametersAreNonnullByDefault
 public final class Prefix implements Comparable<Prefix>, Serializable {
 
-  // Soft values: let it be garbage collected in times of pressure.
-  // Maximum size 2^20: Just some upper bound on cache size, well less than GiB.
-  //   (12 bytes seems smallest possible entry (long + int), would be 12 MiB total).
-  private static final LoadingCache<Prefix, Prefix> CACHE =
-      CacheBuilder.newBuilder().softValues().maximumSize(1 << 20).build(CacheLoader.from(x -> x));
+  private static final Interner<Prefix> INTERNER = Interning.newWeakInterner("Prefix");
 
   /** Maximum prefix length (number of bits) for a IPv4 address, which is 32 */
   public static final int MAX_PREFIX_LENGTH = 32;
@@ -98,7 +93,12 @@ public final class Prefix implements Comparable<Prefix>, Serializable {
 
   public static Prefix create(Ip ip, int prefixLength) {
     Prefix p = new Prefix(ip, prefixLength);
-    return CACHE.getUnchecked(p);
+    return INTERNER.intern(p);
+  }
+
+  /** Share instances with the rest of the JVM when deserializing. */
+  private Object readResolve() {
+    return INTERNER.intern(this);
   }
 
   public static Prefix create(Ip address, Ip mask) {
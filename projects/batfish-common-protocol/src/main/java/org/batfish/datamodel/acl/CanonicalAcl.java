@@ -1,12 +1,22 @@
 package org.batfish.datamodel.acl;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.hash.Hashing;
+import java.io.UncheckedIOException;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
 import java.util.stream.Collectors;
+import javax.annotation.Nonnull;
+import org.batfish.common.util.BatfishObjectMapper;
+import org.batfish.datamodel.AclLine;
 import org.batfish.datamodel.IpAccessList;
 
 /** Represents an ACL with all its dependencies for the purpose of detecting identical ACLs. */
@@ -82,6 +92,31 @@ public final class CanonicalAcl {
     return _linesWithUndefinedReferences.contains(lineNum);
   }
 
+  /**
+   * Returns a hash of the sanitized lines of this ACL, its dependencies, and the interfaces it
+   * references, i.e. everything that determines which packets each sanitized line matches. Unlike
+   * {@link #hashCode()}, the result does not depend on the JVM, so it can be used to key analysis
+   * results persisted across snapshots.
+   *
+   * <p>The hash is computed over the JSON encoding of the lines, whose properties are sorted and
+   * which omits transient state such as lazily cached hash codes.
+   */
+  public @Nonnull String getContentHash() {
+    Map<String, List<AclLine>> dependencyLines = new TreeMap<>();
+    _dependencies.forEach((name, acl) -> dependencyLines.put(name, acl.getLines()));
+    try {
+      return Hashing.murmur3_128()
+          .hashBytes(
+              BatfishObjectMapper.writer()
+                  .writeValueAsBytes(
+                      ImmutableList.of(
+                          _sanitizedAcl.getLines(), dependencyLines, new TreeSet<>(_interfaces))))
+          .toString();
+    } catch (JsonProcessingException e) {
+      throw new UncheckedIOException("Failed to hash canonical ACL " + getAclName(), e);
+    }
+  }
+
   @Override
   public boolean equals(Object o) {
     if (o == this) {
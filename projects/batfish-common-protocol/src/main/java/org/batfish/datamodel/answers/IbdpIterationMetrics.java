@@ -0,0 +1,190 @@
+package org.batfish.datamodel.answers;
+
+import static com.google.common.base.MoreObjects.firstNonNull;
+import static com.google.common.base.MoreObjects.toStringHelper;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.collect.ImmutableSortedMap;
+import java.io.Serializable;
+import java.util.Map;
+import java.util.Objects;
+import java.util.SortedMap;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * Metrics of a single iteration of the dependent-routes portion of the incremental data plane
+ * computation. Collected without a tracing backend when enabled by the data plane settings, and
+ * logged as JSON. Since they include wall time, they are not part of the serialized {@link
+ * IncrementalBdpAnswerElement}.
+ */
+public final class IbdpIterationMetrics implements Serializable {
+
+  private static final String PROP_ESTIMATED_RIB_BYTES = "estimatedRibBytes";
+  private static final String PROP_MAIN_RIB_CHANGES_BY_PROTOCOL = "mainRibChangesByProtocol";
+  private static final String PROP_PHASE_NANOS = "phaseNanos";
+  private static final String PROP_POLICY_EVALUATIONS = "policyEvaluations";
+  private static final String PROP_QUEUED_MESSAGES = "queuedMessages";
+
+  public static final class Builder {
+    private SortedMap<String, Long> _estimatedRibBytes;
+    private SortedMap<String, Integer> _mainRibChangesByProtocol;
+    private SortedMap<String, Long> _phaseNanos;
+    private long _policyEvaluations;
+    private long _queuedMessages;
+
+    private Builder() {
+      _estimatedRibBytes = ImmutableSortedMap.of();
+      _mainRibChangesByProtocol = ImmutableSortedMap.of();
+      _phaseNanos = ImmutableSortedMap.of();
+    }
+
+    public @Nonnull IbdpIterationMetrics build() {
+      return new IbdpIterationMetrics(
+          _estimatedRibBytes,
+          _mainRibChangesByProtocol,
+          _phaseNanos,
+          _policyEvaluations,
+          _queuedMessages);
+    }
+
+    public @Nonnull Builder setEstimatedRibBytes(@Nonnull Map<String, Long> estimatedRibBytes) {
+      _estimatedRibBytes = ImmutableSortedMap.copyOf(estimatedRibBytes);
+      return this;
+    }
+
+    public @Nonnull Builder setMainRibChangesByProtocol(
+        @Nonnull Map<String, Integer> mainRibChangesByProtocol) {
+      _mainRibChangesByProtocol = ImmutableSortedMap.copyOf(mainRibChangesByProtocol);
+      return this;
+    }
+
+    public @Nonnull Builder setPhaseNanos(@Nonnull Map<String, Long> phaseNanos) {
+      _phaseNanos = ImmutableSortedMap.copyOf(phaseNanos);
+      return this;
+    }
+
+    public @Nonnull Builder setPolicyEvaluations(long policyEvaluations) {
+      _policyEvaluations = policyEvaluations;
+      return this;
+    }
+
+    public @Nonnull Builder setQueuedMessages(long queuedMessages) {
+      _queuedMessages = queuedMessages;
+      return this;
+    }
+  }
+
+  public static @Nonnull Builder builder() {
+    return new Builder();
+  }
+
+  @JsonCreator
+  private static @Nonnull IbdpIterationMetrics create(
+      @JsonProperty(PROP_ESTIMATED_RIB_BYTES) @Nullable Map<String, Long> estimatedRibBytes,
+      @JsonProperty(PROP_MAIN_RIB_CHANGES_BY_PROTOCOL) @Nullable
+          Map<String, Integer> mainRibChangesByProtocol,
+      @JsonProperty(PROP_PHASE_NANOS) @Nullable Map<String, Long> phaseNanos,
+      @JsonProperty(PROP_POLICY_EVALUATIONS) long policyEvaluations,
+      @JsonProperty(PROP_QUEUED_MESSAGES) long queuedMessages) {
+    return new IbdpIterationMetrics(
+        ImmutableSortedMap.copyOf(firstNonNull(estimatedRibBytes, ImmutableSortedMap.of())),
+        ImmutableSortedMap.copyOf(firstNonNull(mainRibChangesByProtocol, ImmutableSortedMap.of())),
+        ImmutableSortedMap.copyOf(firstNonNull(phaseNanos, ImmutableSortedMap.of())),
+        policyEvaluations,
+        queuedMessages);
+  }
+
+  @Nonnull private final SortedMap<String, Long> _estimatedRibBytes;
+  @Nonnull private final SortedMap<String, Integer> _mainRibChangesByProtocol;
+  @Nonnull private final SortedMap<String, Long> _phaseNanos;
+  private final long _policyEvaluations;
+  private final long _queuedMessages;
+
+  private IbdpIterationMetrics(
+      SortedMap<String, Long> estimatedRibBytes,
+      SortedMap<String, Integer> mainRibChangesByProtocol,
+      SortedMap<String, Long> phaseNanos,
+      long policyEvaluations,
+      long queuedMessages) {
+    _estimatedRibBytes = estimatedRibBytes;
+    _mainRibChangesByProtocol = mainRibChangesByProtocol;
+    _phaseNanos = phaseNanos;
+    _policyEvaluations = policyEvaluations;
+    _queuedMessages = queuedMessages;
+  }
+
+  /**
+   * RIB type -&gt; rough estimate of the bytes retained by all RIBs of that type at the end of the
+   * iteration. Meant for comparing iterations and RIB types, not as an exact heap measurement.
+   */
+  @JsonProperty(PROP_ESTIMATED_RIB_BYTES)
+  @Nonnull
+  public SortedMap<String, Long> getEstimatedRibBytes() {
+    return _estimatedRibBytes;
+  }
+
+  /** Protocol -&gt; number of routes added to or removed from main RIBs during the iteration */
+  @JsonProperty(PROP_MAIN_RIB_CHANGES_BY_PROTOCOL)
+  @Nonnull
+  public SortedMap<String, Integer> getMainRibChangesByProtocol() {
+    return _mainRibChangesByProtocol;
+  }
+
+  /** Phase name -&gt; wall time spent in that phase during the iteration, in nanoseconds */
+  @JsonProperty(PROP_PHASE_NANOS)
+  @Nonnull
+  public SortedMap<String, Long> getPhaseNanos() {
+    return _phaseNanos;
+  }
+
+  /** Number of routing policy evaluations during the iteration */
+  @JsonProperty(PROP_POLICY_EVALUATIONS)
+  public long getPolicyEvaluations() {
+    return _policyEvaluations;
+  }
+
+  /** Number of route advertisements waiting in message queues at the end of the iteration */
+  @JsonProperty(PROP_QUEUED_MESSAGES)
+  public long getQueuedMessages() {
+    return _queuedMessages;
+  }
+
+  @Override
+  public boolean equals(@Nullable Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (!(obj instanceof IbdpIterationMetrics)) {
+      return false;
+    }
+    IbdpIterationMetrics rhs = (IbdpIterationMetrics) obj;
+    return _estimatedRibBytes.equals(rhs._estimatedRibBytes)
+        && _mainRibChangesByProtocol.equals(rhs._mainRibChangesByProtocol)
+        && _phaseNanos.equals(rhs._phaseNanos)
+        && _policyEvaluations == rhs._policyEvaluations
+        && _queuedMessages == rhs._queuedMessages;
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(
+        _estimatedRibBytes,
+        _mainRibChangesByProtocol,
+        _phaseNanos,
+        _policyEvaluations,
+        _queuedMessages);
+  }
+
+  @Override
+  public String toString() {
+    return toStringHelper(getClass())
+        .add(PROP_ESTIMATED_RIB_BYTES, _estimatedRibBytes)
+        .add(PROP_MAIN_RIB_CHANGES_BY_PROTOCOL, _mainRibChangesByProtocol)
+        .add(PROP_PHASE_NANOS, _phaseNanos)
+        .add(PROP_POLICY_EVALUATIONS, _policyEvaluations)
+        .add(PROP_QUEUED_MESSAGES, _queuedMessages)
+        .toString();
+  }
+}
@@ -1,5 +1,6 @@
 package org.batfish.datamodel.answers;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import java.util.SortedMap;
 import java.util.TreeMap;
@@ -20,6 +21,7 @@ public class IncrementalBdpAnswerElement extends DataPlaneAnswerElement {
   private SortedMap<Integer, Integer> _bgpBestPathRibRoutesByIteration;
   private SortedMap<Integer, Integer> _bgpMultipathRibRoutesByIteration;
   private int _dependentRoutesIterations;
+  private SortedMap<Integer, IbdpIterationMetrics> _iterationMetrics;
   private SortedMap<Integer, Integer> _mainRibRoutesByIteration;
   private int _ospfInternalIterations;
   private String _version;
@@ -28,6 +30,7 @@ public class IncrementalBdpAnswerElement extends DataPlaneAnswerElement {
   public IncrementalBdpAnswerElement() {
     _bgpBestPathRibRoutesByIteration = new TreeMap<>();
     _bgpMultipathRibRoutesByIteration = new TreeMap<>();
+    _iterationMetrics = new TreeMap<>();
     _mainRibRoutesByIteration = new TreeMap<>();
     _warnings = new Warnings();
   }
@@ -47,6 +50,15 @@ public class IncrementalBdpAnswerElement extends DataPlaneAnswerElement {
     return _dependentRoutesIterations;
   }
 
+  /**
+   * Dependent-routes iteration -&gt; metrics of that iteration, if enabled by the data plane
+   * settings. Not serialized, since the metrics include wall time.
+   */
+  @JsonIgnore
+  public SortedMap<Integer, IbdpIterationMetrics> getIterationMetrics() {
+    return _iterationMetrics;
+  }
+
   @JsonProperty(MAIN_RIB_ROUTES_BY_ITERATION)
   public SortedMap<Integer, Integer> getMainRibRoutesByIteration() {
     return _mainRibRoutesByIteration;
@@ -85,6 +97,11 @@ public class IncrementalBdpAnswerElement extends DataPlaneAnswerElement {
     _dependentRoutesIterations = dependentRoutesIterations;
   }
 
+  @JsonIgnore
+  public void setIterationMetrics(SortedMap<Integer, IbdpIterationMetrics> iterationMetrics) {
+    _iterationMetrics = iterationMetrics;
+  }
+
   @JsonProperty(MAIN_RIB_ROUTES_BY_ITERATION)
   public void setMainRibRoutesByIteration(SortedMap<Integer, Integer> mainRibRoutesByIteration) {
     _mainRibRoutesByIteration = mainRibRoutesByIteration;
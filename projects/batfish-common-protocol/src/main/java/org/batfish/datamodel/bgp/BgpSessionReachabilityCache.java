@@ -0,0 +1,132 @@
+package org.batfish.datamodel.bgp;
+
+import static com.google.common.collect.ImmutableMap.toImmutableMap;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableSortedSet;
+import com.google.common.collect.Sets;
+import com.google.common.graph.EndpointPair;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import javax.annotation.ParametersAreNonnullByDefault;
+import org.batfish.datamodel.BgpPeerConfigId;
+import org.batfish.datamodel.Edge;
+import org.batfish.datamodel.Fib;
+import org.batfish.datamodel.FibEntry;
+import org.batfish.datamodel.Topology;
+
+/**
+ * Caches whether BGP sessions pass the reachability checks of {@link
+ * BgpTopologyUtils#initBgpTopology}, so that the topology fixpoint of a data plane computation only
+ * re-checks sessions whose forwarding path could have changed.
+ *
+ * <p>Each verdict depends on the nodes traversed by the session's forward and reverse traces, and
+ * on their Layer-3 neighbors, which answer their ARP requests. {@link #update(Map, Topology...)}
+ * evicts the verdicts depending on a node whose FIBs changed, and all verdicts if the Layer-3
+ * topology changed.
+ *
+ * <p>Not thread-safe.
+ */
+@ParametersAreNonnullByDefault
+public final class BgpSessionReachabilityCache {
+
+  private static final class Verdict {
+    private final boolean _reachable;
+    private final Set<String> _dependencies;
+
+    private Verdict(boolean reachable, Set<String> dependencies) {
+      _reachable = reachable;
+      _dependencies = dependencies;
+    }
+  }
+
+  private final Map<EndpointPair<BgpPeerConfigId>, Verdict> _verdicts;
+  private Map<String, Map<String, Set<FibEntry>>> _fibEntries;
+  private List<Topology> _layer3Topologies;
+
+  public BgpSessionReachabilityCache() {
+    _verdicts = new HashMap<>();
+    _fibEntries = Collections.emptyMap();
+    _layer3Topologies = ImmutableList.of();
+  }
+
+  /**
+   * Update the cache for a new data plane with the given {@code fibs} (keyed by hostname, then VRF
+   * name), and the Layer-3 topologies its reachability checks are based on.
+   */
+  public void update(Map<String, Map<String, Fib>> fibs, Topology... layer3Topologies) {
+    List<Topology> topologies = ImmutableList.copyOf(layer3Topologies);
+    if (!topologies.equals(_layer3Topologies)) {
+      _verdicts.clear();
+      _layer3Topologies = topologies;
+    }
+
+    Map<String, Map<String, Set<FibEntry>>> fibEntries =
+        fibs.entrySet().stream()
+            .collect(
+                toImmutableMap(
+                    Entry::getKey,
+                    nodeEntry ->
+                        nodeEntry.getValue().entrySet().stream()
+                            .collect(
+                                toImmutableMap(
+                                    Entry::getKey, vrfEntry -> vrfEntry.getValue().allEntries()))));
+    Set<String> changedNodes = new HashSet<>();
+    for (String node : Sets.union(fibEntries.keySet(), _fibEntries.keySet())) {
+      if (!Objects.equals(fibEntries.get(node), _fibEntries.get(node))) {
+        changedNodes.add(node);
+      }
+    }
+    _fibEntries = fibEntries;
+    if (!changedNodes.isEmpty()) {
+      _verdicts
+          .values()
+          .removeIf(verdict -> !Collections.disjoint(verdict._dependencies, changedNodes));
+    }
+  }
+
+  /**
+   * Return whether {@code initiator} can establish a session with {@code listener}, or {@link
+   * Optional#empty()} if that has not been checked since the last relevant change.
+   */
+  public Optional<Boolean> getReachability(BgpPeerConfigId initiator, BgpPeerConfigId listener) {
+    return Optional.ofNullable(_verdicts.get(EndpointPair.ordered(initiator, listener)))
+        .map(verdict -> verdict._reachable);
+  }
+
+  /**
+   * Record whether {@code initiator} can establish a session with {@code listener}, according to
+   * traces that traversed {@code traversedNodes}.
+   */
+  void put(
+      BgpPeerConfigId initiator,
+      BgpPeerConfigId listener,
+      boolean reachable,
+      Set<String> traversedNodes) {
+    ImmutableSet.Builder<String> dependencies = ImmutableSet.builder();
+    dependencies.addAll(traversedNodes);
+    for (Topology topology : _layer3Topologies) {
+      for (String node : traversedNodes) {
+        for (Edge edge : topology.getNodeEdges().getOrDefault(node, ImmutableSortedSet.of())) {
+          dependencies.add(edge.getNode1()).add(edge.getNode2());
+        }
+      }
+    }
+    _verdicts.put(
+        EndpointPair.ordered(initiator, listener), new Verdict(reachable, dependencies.build()));
+  }
+
+  @VisibleForTesting
+  int size() {
+    return _verdicts.size();
+  }
+}
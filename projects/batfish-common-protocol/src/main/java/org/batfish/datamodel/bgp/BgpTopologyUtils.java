@@ -5,18 +5,25 @@ import static com.google.common.base.Preconditions.checkArgument;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.MoreObjects;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
+import com.google.common.graph.EndpointPair;
 import com.google.common.graph.MutableValueGraph;
 import com.google.common.graph.Network;
 import com.google.common.graph.ValueGraphBuilder;
 import io.opentracing.ActiveSpan;
 import io.opentracing.util.GlobalTracer;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.Set;
+import java.util.SortedMap;
+import java.util.stream.Stream;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import org.batfish.common.plugin.TracerouteEngine;
@@ -42,6 +49,7 @@ import org.batfish.datamodel.NetworkConfigurations;
 import org.batfish.datamodel.Prefix;
 import org.batfish.datamodel.Vrf;
 import org.batfish.datamodel.collections.NodeInterfacePair;
+import org.batfish.datamodel.flow.FirewallSessionTraceInfo;
 import org.batfish.datamodel.flow.Hop;
 import org.batfish.datamodel.flow.Trace;
 import org.batfish.datamodel.flow.TraceAndReverseFlow;
@@ -94,6 +102,36 @@ public final class BgpTopologyUtils {
       boolean checkReachability,
       @Nullable TracerouteEngine tracerouteEngine,
       @Nullable Layer2Topology layer2Topology) {
+    return initBgpTopology(
+        configurations,
+        ipVrfOwners,
+        keepInvalid,
+        checkReachability,
+        tracerouteEngine,
+        layer2Topology,
+        null);
+  }
+
+  /**
+   * Compute the BGP topology -- a network of {@link BgpPeerConfigId}s connected by {@link
+   * BgpSessionProperties}. See {@link #initBgpTopology(Map, Map, boolean, boolean,
+   * TracerouteEngine, Layer2Topology)} for more details.
+   *
+   * <p>If checking reachability, the flows of all candidate sessions are traced together, and the
+   * verdicts are stored in {@code reachabilityCache}. Sessions it already has a verdict for are not
+   * traced again.
+   *
+   * @param reachabilityCache a {@link BgpSessionReachabilityCache} kept up to date with the data
+   *     plane of {@code tracerouteEngine}, or {@code null} to check all sessions.
+   */
+  public static @Nonnull BgpTopology initBgpTopology(
+      Map<String, Configuration> configurations,
+      Map<Ip, Map<String, Set<String>>> ipVrfOwners,
+      boolean keepInvalid,
+      boolean checkReachability,
+      @Nullable TracerouteEngine tracerouteEngine,
+      @Nullable Layer2Topology layer2Topology,
+      @Nullable BgpSessionReachabilityCache reachabilityCache) {
     checkArgument(
         !checkReachability || tracerouteEngine != null,
         "Cannot check reachability without a traceroute engine");
@@ -150,6 +188,15 @@ public final class BgpTopologyUtils {
         }
       }
 
+      // Check reachability of all candidate sessions at once, so their flows are traced together
+      BgpSessionReachabilityCache reachability = null;
+      if (checkReachability) {
+        reachability =
+            reachabilityCache != null ? reachabilityCache : new BgpSessionReachabilityCache();
+        checkActivePeerReachability(
+            graph.nodes(), networkConfigurations, ipVrfOwners, tracerouteEngine, reachability);
+      }
+
       // Second pass: add edges to the graph. Note, these are directed edges.
       for (BgpPeerConfigId neighborId : graph.nodes()) {
         switch (neighborId.getType()) {
@@ -157,13 +204,7 @@ public final class BgpTopologyUtils {
             // Passive end of the peering cannot initiate a connection
             continue;
           case ACTIVE:
-            addActivePeerEdges(
-                neighborId,
-                graph,
-                networkConfigurations,
-                ipVrfOwners,
-                checkReachability,
-                tracerouteEngine);
+            addActivePeerEdges(neighborId, graph, networkConfigurations, ipVrfOwners, reachability);
             break;
           case UNNUMBERED:
             // Can't infer BGP unnumbered connectivity without layer 2 topology
@@ -180,41 +221,159 @@ public final class BgpTopologyUtils {
     }
   }
 
+  /**
+   * Add edges for the sessions active peer {@code neighborId} can initiate. If {@code reachability}
+   * is not {@code null}, only sessions it has found reachable are added.
+   */
   private static void addActivePeerEdges(
       BgpPeerConfigId neighborId,
       MutableValueGraph<BgpPeerConfigId, BgpSessionProperties> graph,
       NetworkConfigurations nc,
       Map<Ip, Map<String, Set<String>>> ipOwners,
-      boolean checkReachability,
-      TracerouteEngine tracerouteEngine) {
+      @Nullable BgpSessionReachabilityCache reachability) {
+    BgpActivePeerConfig neighbor = nc.getBgpPointToPointPeerConfig(neighborId);
+    Set<BgpPeerConfigId> alreadyEstablished = graph.adjacentNodes(neighborId);
+    activePeerCandidates(neighborId, graph.nodes(), nc, ipOwners)
+        .filter(
+            candidateId ->
+                // If edge is already established (i.e., we already found that candidate can
+                // initiate the session), don't bother checking in this direction
+                !alreadyEstablished.contains(candidateId)
+                    // If checking reachability, ensure candidate is reachable
+                    && (reachability == null
+                        || reachability
+                            .getReachability(neighborId, candidateId)
+                            .orElseThrow(IllegalStateException::new)))
+        .forEach(remoteId -> addEdges(neighbor, neighborId, remoteId, graph, nc));
+  }
+
+  /**
+   * Return the peers among {@code nodes} with a compatible configuration to peer with active peer
+   * {@code neighborId}.
+   */
+  private static Stream<BgpPeerConfigId> activePeerCandidates(
+      BgpPeerConfigId neighborId,
+      Set<BgpPeerConfigId> nodes,
+      NetworkConfigurations nc,
+      Map<Ip, Map<String, Set<String>>> ipOwners) {
     BgpActivePeerConfig neighbor = nc.getBgpPointToPointPeerConfig(neighborId);
     if (neighbor == null
         || neighbor.getLocalIp() == null
         || neighbor.getLocalAs() == null
         || neighbor.getPeerAddress() == null
         || neighbor.getRemoteAsns().isEmpty()) {
-      return;
+      return Stream.of();
     }
     // Find nodes that own the neighbor's peer address
     Map<String, Set<String>> possibleVrfs = ipOwners.get(neighbor.getPeerAddress());
     if (possibleVrfs == null) {
+      return Stream.of();
+    }
+    // Ensure candidate has compatible local/remote IP, AS, & hostname
+    return nodes.stream()
+        .filter(
+            candidateId -> bgpCandidatePassesSanityChecks(neighbor, candidateId, possibleVrfs, nc));
+  }
+
+  /**
+   * Check whether each active peer among {@code nodes} can establish a session with each of its
+   * candidates, unless {@code reachability} already knows, and record the results in {@code
+   * reachability}.
+   *
+   * <p>The flows of all sessions are traced in one call to {@code tracerouteEngine}, and their
+   * reverse flows in one call per set of firewall sessions set up by the forward traces.
+   */
+  private static void checkActivePeerReachability(
+      Set<BgpPeerConfigId> nodes,
+      NetworkConfigurations nc,
+      Map<Ip, Map<String, Set<String>>> ipOwners,
+      TracerouteEngine tracerouteEngine,
+      BgpSessionReachabilityCache reachability) {
+    // Forward flow of each session to check
+    Map<EndpointPair<BgpPeerConfigId>, Flow> sessionFlows = new LinkedHashMap<>();
+    for (BgpPeerConfigId initiatorId : nodes) {
+      if (initiatorId.getType() != BgpPeerConfigType.ACTIVE) {
+        continue;
+      }
+      BgpActivePeerConfig initiator = nc.getBgpPointToPointPeerConfig(initiatorId);
+      activePeerCandidates(initiatorId, nodes, nc, ipOwners)
+          .filter(listenerId -> !reachability.getReachability(initiatorId, listenerId).isPresent())
+          .forEach(
+              listenerId ->
+                  sessionFlows.put(
+                      EndpointPair.ordered(initiatorId, listenerId),
+                      bgpSessionFlow(
+                          initiatorId.getHostname(),
+                          initiatorId.getVrfName(),
+                          initiator.getLocalIp(),
+                          initiator.getPeerAddress())));
+    }
+    if (sessionFlows.isEmpty()) {
       return;
     }
 
-    Set<BgpPeerConfigId> alreadyEstablished = graph.adjacentNodes(neighborId);
-    graph.nodes().stream()
-        .filter(
-            candidateId ->
-                // If edge is already established (i.e., we already found that candidate can
-                // initiate the session), don't bother checking in this direction
-                !alreadyEstablished.contains(candidateId)
-                    // Ensure candidate has compatible local/remote IP, AS, & hostname
-                    && bgpCandidatePassesSanityChecks(neighbor, candidateId, possibleVrfs, nc)
-                    // If checking reachability, ensure candidate is reachable
-                    && (!checkReachability
-                        || isReachableBgpNeighbor(
-                            neighborId, candidateId, neighbor, tracerouteEngine)))
-        .forEach(remoteId -> addEdges(neighbor, neighborId, remoteId, graph, nc));
+    SortedMap<Flow, List<TraceAndReverseFlow>> forwardTraces =
+        tracerouteEngine.computeTracesAndReverseFlows(
+            ImmutableSet.copyOf(sessionFlows.values()), false);
+
+    // The forward traces reaching the listener of each session, and the reverse flows to trace
+    // grouped by the firewall sessions they are traced with
+    Map<EndpointPair<BgpPeerConfigId>, List<TraceAndReverseFlow>> acceptedForwardTraces =
+        new HashMap<>();
+    Map<Set<FirewallSessionTraceInfo>, Set<Flow>> reverseFlows = new HashMap<>();
+    sessionFlows.forEach(
+        (session, flow) -> {
+          BgpActivePeerConfig initiator = nc.getBgpPointToPointPeerConfig(session.source());
+          boolean bgpSingleHop =
+              BgpSessionProperties.getSessionType(initiator) == SessionType.EBGP_SINGLEHOP;
+          List<TraceAndReverseFlow> accepted =
+              forwardTraces.get(flow).stream()
+                  .filter(
+                      traceAndReverseFlow ->
+                          forwardTraceReachesListener(
+                              traceAndReverseFlow,
+                              session.target().getHostname(),
+                              session.target().getVrfName(),
+                              bgpSingleHop))
+                  .collect(ImmutableList.toImmutableList());
+          acceptedForwardTraces.put(session, accepted);
+          accepted.forEach(
+              traceAndReverseFlow ->
+                  reverseFlows
+                      .computeIfAbsent(
+                          traceAndReverseFlow.getNewFirewallSessions(), k -> new HashSet<>())
+                      .add(traceAndReverseFlow.getReverseFlow()));
+        });
+    Map<Set<FirewallSessionTraceInfo>, SortedMap<Flow, List<TraceAndReverseFlow>>> reverseTraces =
+        reverseFlows.entrySet().stream()
+            .collect(
+                ImmutableMap.toImmutableMap(
+                    Entry::getKey,
+                    entry ->
+                        tracerouteEngine.computeTracesAndReverseFlows(
+                            entry.getValue(), entry.getKey(), false)));
+
+    sessionFlows.forEach(
+        (session, flow) -> {
+          String initiatorNode = session.source().getHostname();
+          Set<String> traversedNodes = new HashSet<>();
+          traversedNodes.add(initiatorNode);
+          traversedNodes.add(session.target().getHostname());
+          forwardTraces.get(flow).forEach(tr -> addTraversedNodes(tr.getTrace(), traversedNodes));
+          boolean reachable = false;
+          for (TraceAndReverseFlow forward : acceptedForwardTraces.get(session)) {
+            for (TraceAndReverseFlow reverse :
+                reverseTraces.get(forward.getNewFirewallSessions()).get(forward.getReverseFlow())) {
+              addTraversedNodes(reverse.getTrace(), traversedNodes);
+              reachable |= reverseTraceReachesInitiator(reverse.getTrace(), initiatorNode);
+            }
+          }
+          reachability.put(session.source(), session.target(), reachable, traversedNodes);
+        });
+  }
+
+  private static void addTraversedNodes(Trace trace, Set<String> traversedNodes) {
+    trace.getHops().forEach(hop -> traversedNodes.add(hop.getNode().getName()));
   }
 
   private static void addUnnumberedPeerEdges(
@@ -425,17 +584,7 @@ public final class BgpTopologyUtils {
       boolean bgpSingleHop,
       @Nonnull TracerouteEngine tracerouteEngine) {
 
-    Flow flowFromSrc =
-        Flow.builder()
-            .setIpProtocol(IpProtocol.TCP)
-            .setTcpFlagsSyn(1)
-            .setIngressNode(initiatorNode)
-            .setIngressVrf(initiatorVrf)
-            .setSrcIp(initiatorIp)
-            .setDstIp(listenerIp)
-            .setSrcPort(NamedPort.EPHEMERAL_LOWEST.number())
-            .setDstPort(NamedPort.BGP.number())
-            .build();
+    Flow flowFromSrc = bgpSessionFlow(initiatorNode, initiatorVrf, initiatorIp, listenerIp);
 
     List<TraceAndReverseFlow> forwardTracesAndReverseFlows =
         tracerouteEngine
@@ -444,20 +593,10 @@ public final class BgpTopologyUtils {
 
     List<TraceAndReverseFlow> reverseTraces =
         forwardTracesAndReverseFlows.stream()
-            .filter(
-                traceAndReverseFlow -> {
-                  Trace forwardTrace = traceAndReverseFlow.getTrace();
-                  return forwardTrace.getDisposition() == FlowDisposition.ACCEPTED
-                      && (!bgpSingleHop || forwardTrace.getHops().size() <= 2);
-                })
             .filter(
                 traceAndReverseFlow ->
-                    traceAndReverseFlow.getReverseFlow() != null
-                        && traceAndReverseFlow
-                            .getReverseFlow()
-                            .getIngressNode()
-                            .equals(listenerNode)
-                        && traceAndReverseFlow.getReverseFlow().getIngressVrf().equals(listenerVrf))
+                    forwardTraceReachesListener(
+                        traceAndReverseFlow, listenerNode, listenerVrf, bgpSingleHop))
             .flatMap(
                 traceAndReverseFlow ->
                     tracerouteEngine
@@ -470,13 +609,49 @@ public final class BgpTopologyUtils {
 
     return reverseTraces.stream()
         .anyMatch(
-            traceAndReverseFlow -> {
-              Trace reverseTrace = traceAndReverseFlow.getTrace();
-              List<Hop> hops = reverseTrace.getHops();
-              return !hops.isEmpty()
-                  && hops.get(hops.size() - 1).getNode().getName().equals(initiatorNode)
-                  && reverseTrace.getDisposition() == FlowDisposition.ACCEPTED;
-            });
+            traceAndReverseFlow ->
+                reverseTraceReachesInitiator(traceAndReverseFlow.getTrace(), initiatorNode));
+  }
+
+  /** The TCP SYN sent by a BGP peer to initiate a session. */
+  private static @Nonnull Flow bgpSessionFlow(
+      String initiatorNode, String initiatorVrf, Ip initiatorIp, Ip listenerIp) {
+    return Flow.builder()
+        .setIpProtocol(IpProtocol.TCP)
+        .setTcpFlagsSyn(1)
+        .setIngressNode(initiatorNode)
+        .setIngressVrf(initiatorVrf)
+        .setSrcIp(initiatorIp)
+        .setDstIp(listenerIp)
+        .setSrcPort(NamedPort.EPHEMERAL_LOWEST.number())
+        .setDstPort(NamedPort.BGP.number())
+        .build();
+  }
+
+  /**
+   * Whether the forward trace of a {@link #bgpSessionFlow} is accepted by the listener, so that its
+   * reverse flow starts there.
+   */
+  private static boolean forwardTraceReachesListener(
+      TraceAndReverseFlow traceAndReverseFlow,
+      String listenerNode,
+      String listenerVrf,
+      boolean bgpSingleHop) {
+    Trace forwardTrace = traceAndReverseFlow.getTrace();
+    Flow reverseFlow = traceAndReverseFlow.getReverseFlow();
+    return forwardTrace.getDisposition() == FlowDisposition.ACCEPTED
+        && (!bgpSingleHop || forwardTrace.getHops().size() <= 2)
+        && reverseFlow != null
+        && reverseFlow.getIngressNode().equals(listenerNode)
+        && reverseFlow.getIngressVrf().equals(listenerVrf);
+  }
+
+  /** Whether a reverse trace is accepted back at the initiator. */
+  private static boolean reverseTraceReachesInitiator(Trace reverseTrace, String initiatorNode) {
+    List<Hop> hops = reverseTrace.getHops();
+    return !hops.isEmpty()
+        && hops.get(hops.size() - 1).getNode().getName().equals(initiatorNode)
+        && reverseTrace.getDisposition() == FlowDisposition.ACCEPTED;
   }
 
   @Nullable
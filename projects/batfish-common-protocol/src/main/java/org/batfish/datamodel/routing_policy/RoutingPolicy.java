@@ -16,6 +16,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import org.batfish.common.Warnings;
@@ -84,6 +85,12 @@ public class RoutingPolicy implements Serializable {
   private static final String PROP_NAME = "name";
   private static final String PROP_STATEMENTS = "statements";
 
+  private static final AtomicLongFieldUpdater<RoutingPolicy> EVALUATIONS =
+      AtomicLongFieldUpdater.newUpdater(RoutingPolicy.class, "_evaluations");
+
+  /** Number of routes processed by this policy. Not part of its identity, and not serialized. */
+  private transient volatile long _evaluations;
+
   @Nonnull private final String _name;
   @Nullable private Configuration _owner;
   @Nullable private transient Set<String> _sources;
@@ -109,6 +116,15 @@ public class RoutingPolicy implements Serializable {
     return new Builder(null);
   }
 
+  /**
+   * Return the number of routes processed by this policy so far. Intended for metrics: take the
+   * difference between two calls to count the evaluations in between.
+   */
+  @JsonIgnore
+  public long getEvaluationCount() {
+    return _evaluations;
+  }
+
   public static boolean isGenerated(String s) {
     return s.startsWith("~");
   }
@@ -230,6 +246,7 @@ public class RoutingPolicy implements Serializable {
       @Nullable EigrpProcess eigrpProcess,
       Direction direction) {
     checkState(_owner != null, "Cannot evaluate routing policy without a Configuration");
+    EVALUATIONS.incrementAndGet(this);
     Environment environment =
         Environment.builder(_owner)
             .setBgpSessionProperties(bgpSessionProperties)
@@ -4,17 +4,16 @@ import static com.google.common.base.MoreObjects.toStringHelper;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonValue;
-import com.google.common.cache.CacheBuilder;
-import com.google.common.cache.CacheLoader;
-import com.google.common.cache.LoadingCache;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ImmutableSortedSet;
+import com.google.common.collect.Interner;
 import java.io.Serializable;
 import java.util.Arrays;
 import java.util.Set;
 import java.util.SortedSet;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import org.batfish.common.util.Interning;
 import org.batfish.datamodel.bgp.community.Community;
 
 /** A set of {@link Community} objects. */
@@ -36,8 +35,7 @@ public final class CommunitySet implements Serializable {
     if (communities.isEmpty()) {
       return empty();
     }
-    ImmutableSet<Community> immutableValue = ImmutableSet.copyOf(communities);
-    return CACHE.getUnchecked(immutableValue);
+    return INTERNER.intern(new CommunitySet(ImmutableSet.copyOf(communities)));
   }
 
   public @Nonnull Set<Community> getCommunities() {
@@ -89,13 +87,12 @@ public final class CommunitySet implements Serializable {
     return ImmutableSortedSet.copyOf(_communities);
   }
 
-  // Soft values: let it be garbage collected in times of pressure.
-  // Maximum size 2^16: Just some upper bound on cache size, well less than GiB.
-  private static final LoadingCache<ImmutableSet<Community>, CommunitySet> CACHE =
-      CacheBuilder.newBuilder()
-          .softValues()
-          .maximumSize(1 << 16)
-          .build(CacheLoader.from(CommunitySet::new));
+  private static final Interner<CommunitySet> INTERNER = Interning.newWeakInterner("CommunitySet");
+
+  /** Share instances with the rest of the JVM when deserializing. */
+  private Object readResolve() {
+    return of(_communities);
+  }
 
   /* Cache the hashcode */
   private transient int _hashCode = 0;
@@ -1,18 +1,12 @@
 package org.batfish.specifier;
 
-import static com.google.common.base.MoreObjects.firstNonNull;
-
 import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Collectors;
 import javax.annotation.Nonnull;
 import org.batfish.common.NetworkSnapshot;
 import org.batfish.common.plugin.IBatfish;
 import org.batfish.common.topology.IpOwners;
-import org.batfish.datamodel.AclIpSpace;
 import org.batfish.datamodel.Configuration;
-import org.batfish.datamodel.EmptyIpSpace;
-import org.batfish.datamodel.Ip;
 import org.batfish.datamodel.IpSpace;
 import org.batfish.referencelibrary.ReferenceBook;
 import org.batfish.role.NodeRoleDimension;
@@ -36,13 +30,7 @@ public class SpecifierContextImpl implements SpecifierContext {
      * they are unreachable). This means when ARP fails for those IPs we'll use NEIGHBOR_UNREACHABLE
      * or INSUFFICIENT_INFO dispositions rather than DELIVERED_TO_SUBNET or EXITS_NETWORK.
      */
-    _snapshotDeviceOwnedIps =
-        firstNonNull(
-            AclIpSpace.union(
-                ipOwners.getAllDeviceOwnedIps().keySet().stream()
-                    .map(Ip::toIpSpace)
-                    .collect(Collectors.toList())),
-            EmptyIpSpace.INSTANCE);
+    _snapshotDeviceOwnedIps = ipOwners.getAllIpOwnershipIndex().getOwnedIpSpace();
 
     _interfaceOwnedIps = ipOwners.getInterfaceOwnedIpSpaces();
   }
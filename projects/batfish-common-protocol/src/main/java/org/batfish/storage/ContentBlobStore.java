@@ -0,0 +1,103 @@
+package org.batfish.storage;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.hash.Hashing;
+import com.google.common.io.MoreFiles;
+import java.io.IOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import javax.annotation.Nonnull;
+import javax.annotation.ParametersAreNonnullByDefault;
+
+/**
+ * Content-addressed store of the files of a network, shared by all its snapshots.
+ *
+ * <p>Each distinct file content is stored once, as a blob named by its SHA-256 hash. Snapshot files
+ * with that content are hard links to the blob, so they are read like any other file, and sharing a
+ * blob with another snapshot costs a directory entry rather than a copy. Since all links to a blob
+ * are the same file, files in the store must be replaced rather than modified in place.
+ *
+ * <p>Where hard links are not supported, e.g. across file systems, files are simply not shared.
+ */
+@ParametersAreNonnullByDefault
+final class ContentBlobStore {
+
+  private final @Nonnull Path _dir;
+
+  ContentBlobStore(Path dir) {
+    _dir = dir;
+  }
+
+  /** Returns the SHA-256 hash of the content of {@code file}. */
+  static @Nonnull String hash(Path file) throws IOException {
+    return MoreFiles.asByteSource(file).hash(Hashing.sha256()).toString();
+  }
+
+  @VisibleForTesting
+  @Nonnull
+  Path getBlobPath(String hash) {
+    return _dir.resolve(hash.substring(0, 2)).resolve(hash);
+  }
+
+  /**
+   * Shares the content of {@code file} with other files of the store, making {@code file} a link to
+   * the blob with its content. Returns the hash of the content.
+   */
+  @Nonnull
+  String adopt(Path file) throws IOException {
+    String hash = hash(file);
+    Path blob = getBlobPath(hash);
+    Files.createDirectories(blob.getParent());
+    try {
+      // New content: the file becomes the blob
+      Files.createLink(blob, file);
+      return hash;
+    } catch (FileAlreadyExistsException e) {
+      // Known content: replace the file below
+    } catch (FileSystemException | UnsupportedOperationException e) {
+      return hash;
+    }
+    Path link = file.resolveSibling(file.getFileName() + ".blob");
+    try {
+      Files.createLink(link, blob);
+      Files.move(link, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (FileSystemException | UnsupportedOperationException e) {
+      // Blob removed meanwhile, or links unsupported: keep the file as is
+      Files.deleteIfExists(link);
+    }
+    return hash;
+  }
+
+  /**
+   * Returns whether {@code file} is a link to the blob with the given hash, i.e., it is already
+   * shared and has that content.
+   */
+  boolean isBlob(Path file, String hash) throws IOException {
+    Path blob = getBlobPath(hash);
+    try {
+      return Files.isSameFile(file, blob);
+    } catch (NoSuchFileException e) {
+      return false;
+    }
+  }
+
+  /**
+   * Creates {@code file} as a link to the blob with the given hash. Returns {@code false} if that
+   * is not possible, in which case {@code file} is not created.
+   */
+  boolean link(String hash, Path file) throws IOException {
+    try {
+      Files.createLink(file, getBlobPath(hash));
+      return true;
+    } catch (FileAlreadyExistsException e) {
+      throw e;
+    } catch (FileSystemException | UnsupportedOperationException e) {
+      // Blob removed meanwhile, or links unsupported
+      return false;
+    }
+  }
+}
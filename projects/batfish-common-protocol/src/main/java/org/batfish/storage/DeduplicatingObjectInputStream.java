@@ -0,0 +1,101 @@
+package org.batfish.storage;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Equivalence;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Interner;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.util.List;
+import java.util.Objects;
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import org.batfish.common.util.Interning;
+import org.batfish.datamodel.AclLine;
+import org.batfish.datamodel.HeaderSpace;
+import org.batfish.datamodel.IpAccessList;
+import org.batfish.datamodel.IpSpace;
+import org.batfish.datamodel.IpWildcard;
+import org.batfish.datamodel.PrefixRange;
+import org.batfish.datamodel.RouteFilterLine;
+import org.batfish.datamodel.SubRange;
+import org.batfish.datamodel.acl.AclLineMatchExpr;
+
+/**
+ * An {@link ObjectInputStream} that replaces each deserialized immutable configuration structure
+ * with an equal instance deserialized earlier, if that one is still in use.
+ *
+ * <p>Snapshots of the same network, such as the two snapshots of a differential question or a
+ * snapshot and its forks, mostly contain identical ACLs, IP spaces, and route filters. Loading the
+ * configurations of the second snapshot through this stream makes them share those structures with
+ * the first rather than hold a copy of each. Structures are interned weakly, so nothing is retained
+ * once no loaded configuration references it.
+ *
+ * <p>A shared instance may be reachable from configurations of several snapshots, so only
+ * structures that are never modified after construction are deduplicated, and only with instances
+ * that agree on all of their serialized fields. {@link IpAccessList#equals(Object)} ignores the
+ * source name and type of an ACL, so ACLs are compared on those as well: an ACL is never reported
+ * as defined by another device's structure.
+ */
+@ParametersAreNonnullByDefault
+final class DeduplicatingObjectInputStream extends ObjectInputStream {
+
+  /** Immutable types whose instances are deduplicated by equality, including all their subtypes. */
+  @VisibleForTesting
+  static final List<Class<?>> DEDUPLICATED_TYPES =
+      ImmutableList.of(
+          AclLine.class,
+          AclLineMatchExpr.class,
+          HeaderSpace.class,
+          IpSpace.class,
+          IpWildcard.class,
+          PrefixRange.class,
+          RouteFilterLine.class,
+          SubRange.class);
+
+  private static final ClassValue<Boolean> IS_DEDUPLICATED =
+      new ClassValue<Boolean>() {
+        @Override
+        protected Boolean computeValue(Class<?> type) {
+          return DEDUPLICATED_TYPES.stream().anyMatch(t -> t.isAssignableFrom(type));
+        }
+      };
+
+  private static final Interner<Object> STRUCTURES =
+      Interning.newWeakInterner("configuration structures");
+
+  private static final Interner<IpAccessList> ACLS =
+      Interning.newWeakInterner("configuration ACLs", new AclEquivalence());
+
+  DeduplicatingObjectInputStream(InputStream in) throws IOException {
+    super(in);
+    enableResolveObject(true);
+  }
+
+  @Override
+  protected @Nullable Object resolveObject(@Nullable Object obj) {
+    // Structures are resolved once fully read, so nested structures are deduplicated first and
+    // equal structures end up sharing all of their parts.
+    if (obj instanceof IpAccessList) {
+      return ACLS.intern((IpAccessList) obj);
+    }
+    return obj != null && IS_DEDUPLICATED.get(obj.getClass()) ? STRUCTURES.intern(obj) : obj;
+  }
+
+  /** Compares ACLs on their name, source name, source type, and lines. */
+  @VisibleForTesting
+  static final class AclEquivalence extends Equivalence<IpAccessList> {
+    @Override
+    protected boolean doEquivalent(IpAccessList a, IpAccessList b) {
+      return a.equals(b)
+          && Objects.equals(a.getSourceName(), b.getSourceName())
+          && Objects.equals(a.getSourceType(), b.getSourceType());
+    }
+
+    @Override
+    protected int doHash(IpAccessList acl) {
+      return Objects.hash(acl.getName(), acl.getSourceName(), acl.getSourceType(), acl.getLines());
+    }
+  }
+}
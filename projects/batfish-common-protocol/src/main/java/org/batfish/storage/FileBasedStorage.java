@@ -10,8 +10,12 @@ import com.fasterxml.jackson.core.type.TypeReference;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSortedMap;
+import com.google.common.io.ByteStreams;
 import com.google.common.io.Closer;
+import com.google.common.util.concurrent.MoreExecutors;
 import com.google.errorprone.annotations.MustBeClosed;
+import java.io.ByteArrayInputStream;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
@@ -23,10 +27,16 @@ import java.io.PushbackInputStream;
 import java.io.Serializable;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.DirectoryStream;
+import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.Base64;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -34,9 +44,14 @@ import java.util.Optional;
 import java.util.SortedMap;
 import java.util.SortedSet;
 import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.BiFunction;
-import java.util.stream.Collectors;
+import java.util.function.Function;
+import java.util.function.Predicate;
 import java.util.stream.Stream;
 import java.util.zip.GZIPInputStream;
 import javax.annotation.Nonnull;
@@ -88,7 +103,9 @@ public final class FileBasedStorage implements StorageProvider {
 
   private static final String RELPATH_COMPLETION_METADATA_FILE = "completion_metadata.json";
   private static final String RELPATH_BGP_TOPOLOGY = "bgp_topology.json";
+  private static final String RELPATH_CACHED_TOPOLOGIES_DIR = "cached_topologies";
   private static final String RELPATH_EIGRP_TOPOLOGY = "eigrp_topology.json";
+  private static final String RELPATH_INPUT_MANIFEST = "input_manifest.json";
   private static final String RELPATH_SYNTHESIZED_LAYER1_TOPOLOGY =
       "synthesized_layer1_topology.json";
   private static final String RELPATH_LAYER2_TOPOLOGY = "layer2_topology.json";
@@ -96,8 +113,15 @@ public final class FileBasedStorage implements StorageProvider {
   private static final String RELPATH_OSPF_TOPOLOGY = "ospf_topology.json";
   private static final String RELPATH_VXLAN_TOPOLOGY = "vxlan_topology.json";
 
+  /** The maximum number of files read ahead of their deserialization, per load */
+  @VisibleForTesting static final int MAX_READS_IN_FLIGHT = StorageIoExecutor.THREADS;
+
+  /** Prefix of temporary files, which no base64-encoded key starts with. */
+  private static final String TEMP_FILE_PREFIX = ".tmp-";
+
   private final BatfishLogger _logger;
   private final BiFunction<String, Integer, AtomicInteger> _newBatch;
+  private final boolean _deduplicateConfigurationStructures;
   private FileBasedStorageDirectoryProvider _d;
 
   @VisibleForTesting
@@ -112,8 +136,26 @@ public final class FileBasedStorage implements StorageProvider {
    */
   public FileBasedStorage(
       Path baseDir, BatfishLogger logger, BiFunction<String, Integer, AtomicInteger> newBatch) {
+    this(baseDir, logger, newBatch, false);
+  }
+
+  /**
+   * Create a new {@link FileBasedStorage} instance that uses the given root path and job batch
+   * provider function.
+   *
+   * @param deduplicateConfigurationStructures whether loaded configurations should share immutable
+   *     structures (e.g., ACLs and IP spaces) with equal ones of configurations loaded before and
+   *     still in use, such as those of another snapshot of the same network. See {@link
+   *     DeduplicatingObjectInputStream}.
+   */
+  public FileBasedStorage(
+      Path baseDir,
+      BatfishLogger logger,
+      BiFunction<String, Integer, AtomicInteger> newBatch,
+      boolean deduplicateConfigurationStructures) {
     _logger = logger;
     _newBatch = newBatch;
+    _deduplicateConfigurationStructures = deduplicateConfigurationStructures;
     _d = new FileBasedStorageDirectoryProvider(baseDir);
   }
 
@@ -168,7 +210,8 @@ public final class FileBasedStorage implements StorageProvider {
           "Error reading vendor-independent configs directory: '" + indepDir + "'", e);
     }
     try {
-      return deserializeObjects(namesByPath, Configuration.class);
+      return deserializeObjects(
+          namesByPath, Configuration.class, _deduplicateConfigurationStructures);
     } catch (BatfishException e) {
       return null;
     }
@@ -415,6 +458,9 @@ public final class FileBasedStorage implements StorageProvider {
 
     mkdirs(_d.getSnapshotDir(network, snapshot));
 
+    // Topologies computed from any previous configurations are stale.
+    CommonUtil.deleteDirectory(getCachedTopologiesDir(network, snapshot));
+
     // Save the convert configuration answer element.
     Path ccaePath = getConvertAnswerPath(network, snapshot);
     mkdirs(ccaePath);
@@ -433,7 +479,7 @@ public final class FileBasedStorage implements StorageProvider {
             "Serializing %s vendor-independent configuration structures for snapshot %s",
             configurations.size(), snapshot);
 
-    storeConfigurations(outputDir, batchName, configurations);
+    storeConfigurations(outputDir, batchName, configurations, getContentBlobStore(network));
   }
 
   private @Nonnull Path getConvertAnswerPath(NetworkId network, SnapshotId snapshot) {
@@ -446,8 +492,16 @@ public final class FileBasedStorage implements StorageProvider {
         .resolve(Paths.get(BfConsts.RELPATH_OUTPUT, RELPATH_SYNTHESIZED_LAYER1_TOPOLOGY));
   }
 
+  /**
+   * Serializes each configuration to its own file of {@code outputDir}. Files identical to those of
+   * other snapshots, e.g. for devices unchanged since an earlier snapshot, share their content
+   * through {@code blobs}.
+   */
   private void storeConfigurations(
-      Path outputDir, String batchName, Map<String, Configuration> configurations) {
+      Path outputDir,
+      String batchName,
+      Map<String, Configuration> configurations,
+      ContentBlobStore blobs) {
     _logger.infof("\n*** %s***\n", batchName.toUpperCase());
     AtomicInteger progressCount = _newBatch.apply(batchName, configurations.size());
 
@@ -462,6 +516,12 @@ public final class FileBasedStorage implements StorageProvider {
             e -> {
               Path currentOutputPath = outputDir.resolve(e.getKey());
               serializeObject(e.getValue(), currentOutputPath);
+              try {
+                blobs.adopt(currentOutputPath);
+              } catch (IOException ex) {
+                throw new BatfishException(
+                    "Failed to store serialized configuration: " + currentOutputPath, ex);
+              }
               progressCount.incrementAndGet();
             });
   }
@@ -492,24 +552,57 @@ public final class FileBasedStorage implements StorageProvider {
    */
   private static <S extends Serializable> S deserializeObject(Path inputFile, Class<S> outputClass)
       throws BatfishException {
+    return deserializeObject(inputFile, outputClass, false);
+  }
+
+  /**
+   * Returns a single object of the given class deserialized from the given file. Uses the {@link
+   * FileBasedStorage} default file encoding including serialization format and compression.
+   *
+   * @param deduplicate whether to replace immutable structures with equal ones already in use, see
+   *     {@link DeduplicatingObjectInputStream}
+   */
+  private static <S extends Serializable> S deserializeObject(
+      Path inputFile, Class<S> outputClass, boolean deduplicate) throws BatfishException {
+    FileInputStream fis;
+    try {
+      fis = new FileInputStream(inputFile.toFile());
+    } catch (FileNotFoundException e) {
+      throw new BatfishException(
+          String.format(
+              "Failed to deserialize object of type %s from file %s",
+              outputClass.getCanonicalName(), inputFile),
+          e);
+    }
+    return deserializeObject(fis, inputFile, outputClass, deduplicate);
+  }
+
+  /**
+   * Returns a single object of the given class deserialized from {@code input}, the content of
+   * {@code inputFile}. Closes {@code input}.
+   */
+  private static <S extends Serializable> S deserializeObject(
+      InputStream input, Path inputFile, Class<S> outputClass, boolean deduplicate)
+      throws BatfishException {
     try (Closer closer = Closer.create()) {
-      FileInputStream fis = closer.register(new FileInputStream(inputFile.toFile()));
-      PushbackInputStream pbstream = new PushbackInputStream(fis, DEFAULT_HEADER_LENGTH_BYTES);
+      closer.register(input);
+      PushbackInputStream pbstream = new PushbackInputStream(input, DEFAULT_HEADER_LENGTH_BYTES);
       Format f = detectFormat(pbstream);
-      ObjectInputStream ois;
+      InputStream decompressed;
       if (f == Format.GZIP) {
-        GZIPInputStream gis =
-            closer.register(new GZIPInputStream(pbstream, 8192 /* enlarge buffer */));
-        ois = new ObjectInputStream(gis);
+        decompressed = closer.register(new GZIPInputStream(pbstream, 8192 /* enlarge buffer */));
       } else if (f == Format.LZ4) {
-        LZ4FrameInputStream lis = closer.register(new LZ4FrameInputStream(pbstream));
-        ois = new ObjectInputStream(lis);
+        decompressed = closer.register(new LZ4FrameInputStream(pbstream));
       } else if (f == Format.JAVA_SERIALIZED) {
-        ois = new ObjectInputStream(pbstream);
+        decompressed = pbstream;
       } else {
         throw new BatfishException(
             String.format("Could not detect format of the file %s", inputFile));
       }
+      ObjectInputStream ois =
+          deduplicate
+              ? new DeduplicatingObjectInputStream(decompressed)
+              : new ObjectInputStream(decompressed);
       closer.register(ois);
       return outputClass.cast(ois.readObject());
     } catch (Exception e) {
@@ -521,29 +614,85 @@ public final class FileBasedStorage implements StorageProvider {
     }
   }
 
+  /**
+   * Deserializes the objects of the given files, by name. Files are read ahead on the storage I/O
+   * threads, so that waiting on the file system overlaps with deserializing objects already read.
+   * Each file read is held in memory until it is deserialized, so at most {@link
+   * #MAX_READS_IN_FLIGHT} files are read ahead at once: the next file is read as soon as one is
+   * deserialized.
+   */
   private <S extends Serializable> SortedMap<String, S> deserializeObjects(
-      Map<Path, String> namesByPath, Class<S> outputClass) {
+      Map<Path, String> namesByPath, Class<S> outputClass, boolean deduplicate) {
     String outputClassName = outputClass.getName();
     AtomicInteger completed =
         _newBatch.apply(
             String.format("Deserializing objects of type '%s' from files", outputClassName),
             namesByPath.size());
-    return new TreeMap<>(
-        namesByPath
-            .entrySet()
-            .parallelStream()
-            .collect(
-                Collectors.toMap(
-                    Entry::getValue,
-                    entry -> {
-                      Path inputPath = entry.getKey();
-                      String name = entry.getValue();
+    // Storage I/O threads do not wait for other reads of the pool: they read the first files
+    // themselves, and the remaining ones are read by the threads deserializing earlier files.
+    Executor readExecutor =
+        StorageIoExecutor.isIoThread() ? MoreExecutors.directExecutor() : StorageIoExecutor.get();
+    Map<String, CompletableFuture<S>> futures = new HashMap<>();
+    namesByPath.values().forEach(name -> futures.put(name, new CompletableFuture<>()));
+    Iterator<Entry<Path, String>> unread = namesByPath.entrySet().iterator();
+    Runnable readNext =
+        new Runnable() {
+          @Override
+          public void run() {
+            Entry<Path, String> next;
+            synchronized (unread) {
+              if (!unread.hasNext()) {
+                return;
+              }
+              next = unread.next();
+            }
+            Path inputPath = next.getKey();
+            String name = next.getValue();
+            CompletableFuture.supplyAsync(() -> readAllBytes(inputPath), readExecutor)
+                .thenApplyAsync(
+                    b -> {
                       _logger.debugf(
                           "Reading %s '%s' from '%s'\n", outputClassName, name, inputPath);
-                      S output = deserializeObject(inputPath, outputClass);
-                      completed.incrementAndGet();
-                      return output;
-                    })));
+                      return deserializeObject(
+                          new ByteArrayInputStream(b), inputPath, outputClass, deduplicate);
+                    },
+                    ForkJoinPool.commonPool())
+                .whenComplete(
+                    (output, t) -> {
+                      if (t == null) {
+                        completed.incrementAndGet();
+                        futures.get(name).complete(output);
+                        run();
+                      } else {
+                        // The whole load fails, so do not read the remaining files.
+                        futures.get(name).completeExceptionally(t);
+                        synchronized (unread) {
+                          unread.forEachRemaining(
+                              e -> futures.get(e.getValue()).completeExceptionally(t));
+                        }
+                      }
+                    });
+          }
+        };
+    for (int i = 0; i < MAX_READS_IN_FLIGHT; i++) {
+      readNext.run();
+    }
+    SortedMap<String, S> objects = new TreeMap<>();
+    try {
+      futures.forEach((name, future) -> objects.put(name, future.join()));
+    } catch (CompletionException e) {
+      Throwables.throwIfUnchecked(e.getCause());
+      throw new BatfishException("Failed to deserialize objects", e.getCause());
+    }
+    return objects;
+  }
+
+  private static @Nonnull byte[] readAllBytes(Path inputFile) {
+    try {
+      return Files.readAllBytes(inputFile);
+    } catch (IOException e) {
+      throw new BatfishException("Failed to read file: " + inputFile, e);
+    }
   }
 
   /**
@@ -781,12 +930,7 @@ public final class FileBasedStorage implements StorageProvider {
   public void storeNetworkObject(InputStream inputStream, NetworkId networkId, String key)
       throws IOException {
     Path objectPath = getNetworkObjectPath(networkId, key);
-    objectPath.getParent().toFile().mkdirs();
-    try {
-      FileUtils.copyInputStreamToFile(inputStream, objectPath.toFile());
-    } finally {
-      inputStream.close();
-    }
+    copyAtomically(inputStream, objectPath);
   }
 
   private @Nonnull Path getNetworkBlobPath(NetworkId networkId, String key) {
@@ -808,14 +952,34 @@ public final class FileBasedStorage implements StorageProvider {
   public void storeNetworkBlob(InputStream inputStream, NetworkId networkId, String key)
       throws IOException {
     Path objectPath = getNetworkBlobPath(networkId, key);
-    objectPath.getParent().toFile().mkdirs();
+    copyAtomically(inputStream, objectPath);
+  }
+
+  /**
+   * Copies {@code inputStream} to {@code path} and closes it. The content is written to a temporary
+   * file next to {@code path} and then moved into place, so that concurrent readers never see a
+   * partially written file, and concurrent writers of the same key do not interleave.
+   */
+  private static void copyAtomically(InputStream inputStream, Path path) throws IOException {
+    mkdirs(path.getParent());
+    Path tmpPath = Files.createTempFile(path.getParent(), TEMP_FILE_PREFIX, null);
     try {
-      FileUtils.copyInputStreamToFile(inputStream, objectPath.toFile());
+      try (InputStream in = inputStream;
+          OutputStream out = Files.newOutputStream(tmpPath)) {
+        ByteStreams.copy(in, out);
+      }
+      Files.move(
+          tmpPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
     } finally {
-      inputStream.close();
+      Files.deleteIfExists(tmpPath);
     }
   }
 
+  /** Whether {@code path} is an in-progress write of {@link #copyAtomically}. */
+  private static boolean isTempFile(Path path) {
+    return path.getFileName().toString().startsWith(TEMP_FILE_PREFIX);
+  }
+
   @Override
   public void deleteNetworkObject(NetworkId networkId, String key)
       throws FileNotFoundException, IOException {
@@ -856,12 +1020,7 @@ public final class FileBasedStorage implements StorageProvider {
       InputStream inputStream, NetworkId networkId, SnapshotId snapshotId, String key)
       throws IOException {
     Path objectPath = getSnapshotObjectPath(networkId, snapshotId, key);
-    objectPath.getParent().toFile().mkdirs();
-    try {
-      FileUtils.copyInputStreamToFile(inputStream, objectPath.toFile());
-    } finally {
-      inputStream.close();
-    }
+    copyAtomically(inputStream, objectPath);
   }
 
   @Override
@@ -895,20 +1054,98 @@ public final class FileBasedStorage implements StorageProvider {
     if (!Files.exists(objectPath)) {
       throw new FileNotFoundException(String.format("Could not load: %s", objectPath));
     }
+    return getObjectsMetadata(
+        objectPath, path -> true, path -> objectPath.relativize(path).toString());
+  }
 
-    try {
-      return Files.walk(objectPath)
-          .filter(Files::isRegularFile)
-          .map(
-              path ->
-                  new StoredObjectMetadata(
-                      objectPath.relativize(path).toString(), getObjectSize(path)))
-          .collect(ImmutableList.toImmutableList());
-    } catch (BatfishException e) {
-      throw new IOException(e);
+  @Override
+  public void storeSnapshotInputObjects(
+      Path inputDir,
+      NetworkId networkId,
+      SnapshotId snapshotId,
+      @Nullable SnapshotId baseSnapshotId)
+      throws IOException {
+    Path snapshotInputDir = _d.getSnapshotInputObjectsDir(networkId, snapshotId);
+    ContentBlobStore blobs = getContentBlobStore(networkId);
+    SortedMap<String, String> manifest = new TreeMap<>();
+    storeInputObjects(inputDir, snapshotInputDir, blobs, ImmutableSortedMap.of(), manifest);
+    if (baseSnapshotId != null) {
+      storeInputObjects(
+          _d.getSnapshotInputObjectsDir(networkId, baseSnapshotId),
+          snapshotInputDir,
+          blobs,
+          loadSnapshotInputManifest(networkId, baseSnapshotId),
+          manifest);
+    }
+    Path manifestPath = getSnapshotInputManifestPath(networkId, snapshotId);
+    mkdirs(manifestPath.getParent());
+    CommonUtil.writeFile(manifestPath, BatfishObjectMapper.writeString(manifest));
+  }
+
+  /**
+   * Stores the files under {@code srcDir} not already in {@code manifest} in {@code dstDir}, as
+   * links to blobs of {@code blobs}, and adds them to {@code manifest}. Files that are already
+   * links to the blob given by {@code knownHashes} are linked without being read.
+   */
+  private static void storeInputObjects(
+      Path srcDir,
+      Path dstDir,
+      ContentBlobStore blobs,
+      Map<String, String> knownHashes,
+      Map<String, String> manifest)
+      throws IOException {
+    List<Path> paths;
+    try (Stream<Path> walk = Files.walk(srcDir)) {
+      paths = walk.collect(ImmutableList.toImmutableList());
+    }
+    for (Path path : paths) {
+      Path relativePath = srcDir.relativize(path);
+      Path dst = dstDir.resolve(relativePath.toString());
+      if (Files.isDirectory(path)) {
+        Files.createDirectories(dst);
+        continue;
+      }
+      String key = FilenameUtils.separatorsToUnix(relativePath.toString());
+      if (manifest.containsKey(key)) {
+        // replaced by a newer file
+        continue;
+      }
+      String hash = knownHashes.get(key);
+      if (hash == null || !blobs.isBlob(path, hash) || !blobs.link(hash, dst)) {
+        Files.copy(path, dst);
+        hash = blobs.adopt(dst);
+      }
+      manifest.put(key, hash);
     }
   }
 
+  /**
+   * Returns the hash of the content of each input object of the given snapshot, by key. Returns an
+   * empty map if the snapshot inputs were stored without a manifest.
+   */
+  @VisibleForTesting
+  @Nonnull
+  SortedMap<String, String> loadSnapshotInputManifest(NetworkId networkId, SnapshotId snapshotId)
+      throws IOException {
+    Path manifestPath = getSnapshotInputManifestPath(networkId, snapshotId);
+    if (!Files.exists(manifestPath)) {
+      return ImmutableSortedMap.of();
+    }
+    return BatfishObjectMapper.mapper()
+        .readValue(
+            CommonUtil.readFile(manifestPath), new TypeReference<SortedMap<String, String>>() {});
+  }
+
+  private @Nonnull Path getSnapshotInputManifestPath(NetworkId networkId, SnapshotId snapshotId) {
+    return _d.getSnapshotDir(networkId, snapshotId).resolve(RELPATH_INPUT_MANIFEST);
+  }
+
+  @VisibleForTesting
+  @Nonnull
+  ContentBlobStore getContentBlobStore(NetworkId networkId) {
+    return new ContentBlobStore(_d.getNetworkContentBlobsDir(networkId));
+  }
+
   @Override
   public @Nonnull List<StoredObjectMetadata> getSnapshotExtendedObjectsMetadata(
       NetworkId networkId, SnapshotId snapshotId) throws IOException {
@@ -916,27 +1153,29 @@ public final class FileBasedStorage implements StorageProvider {
     if (!Files.exists(objectPath)) {
       throw new FileNotFoundException(String.format("Could not load: %s", objectPath));
     }
-
-    try {
-      return Files.walk(objectPath)
-          .filter(Files::isRegularFile)
-          .map(
-              path ->
-                  new StoredObjectMetadata(
-                      fromBase64(path.getFileName().toString()), getObjectSize(path)))
-          .collect(ImmutableList.toImmutableList());
-    } catch (BatfishException e) {
-      throw new IOException(e);
-    }
+    return getObjectsMetadata(
+        objectPath, path -> !isTempFile(path), path -> fromBase64(path.getFileName().toString()));
   }
 
-  private long getObjectSize(Path objectPath) {
-    try {
-      return Files.size(objectPath);
-    } catch (IOException e) {
-      throw new BatfishException(
-          String.format("Could not get size of object at path: %s", objectPath), e);
-    }
+  /**
+   * Returns the metadata of the regular files under {@code objectsDir} that satisfy {@code
+   * include}, keyed by {@code getKey}. Reads the attributes of each file once, while listing it.
+   */
+  private static @Nonnull List<StoredObjectMetadata> getObjectsMetadata(
+      Path objectsDir, Predicate<Path> include, Function<Path, String> getKey) throws IOException {
+    ImmutableList.Builder<StoredObjectMetadata> metadata = ImmutableList.builder();
+    Files.walkFileTree(
+        objectsDir,
+        new SimpleFileVisitor<Path>() {
+          @Override
+          public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+            if (attrs.isRegularFile() && include.test(file)) {
+              metadata.add(new StoredObjectMetadata(getKey.apply(file), attrs.size()));
+            }
+            return FileVisitResult.CONTINUE;
+          }
+        });
+    return metadata.build();
   }
 
   @VisibleForTesting
@@ -981,6 +1220,14 @@ public final class FileBasedStorage implements StorageProvider {
         .resolve(RELPATH_VXLAN_TOPOLOGY);
   }
 
+  private @Nonnull Path getCachedTopologiesDir(NetworkId networkId, SnapshotId snapshotId) {
+    return _d.getSnapshotOutputDir(networkId, snapshotId).resolve(RELPATH_CACHED_TOPOLOGIES_DIR);
+  }
+
+  private @Nonnull Path getCachedTopologyPath(NetworkSnapshot snapshot, String key) {
+    return getCachedTopologiesDir(snapshot.getNetwork(), snapshot.getSnapshot()).resolve(key);
+  }
+
   private @Nonnull Path getPojoTopologyPath(NetworkId networkId, SnapshotId snapshotId) {
     return _d.getSnapshotDir(networkId, snapshotId)
         .resolve(BfConsts.RELPATH_OUTPUT)
@@ -1161,6 +1408,43 @@ public final class FileBasedStorage implements StorageProvider {
     FileUtils.write(path.toFile(), BatfishObjectMapper.writeString(layer3Topology), UTF_8);
   }
 
+  @MustBeClosed
+  @Override
+  public @Nonnull InputStream loadCachedTopology(NetworkSnapshot networkSnapshot, String key)
+      throws FileNotFoundException, IOException {
+    Path path = getCachedTopologyPath(networkSnapshot, key);
+    if (!Files.exists(path)) {
+      throw new FileNotFoundException(String.format("Could not load: %s", path));
+    }
+    InputStream inputStream = Files.newInputStream(path);
+    try {
+      return new LZ4FrameInputStream(inputStream);
+    } catch (IOException e) {
+      inputStream.close();
+      throw e;
+    }
+  }
+
+  @Override
+  public void storeCachedTopology(
+      InputStream inputStream, NetworkSnapshot networkSnapshot, String key) throws IOException {
+    Path path = getCachedTopologyPath(networkSnapshot, key);
+    mkdirs(path.getParent());
+    // Write to a temporary file and move it into place, so that other processes sharing this
+    // storage never read a partially written topology.
+    Path tmpPath = Files.createTempFile(path.getParent(), key, ".tmp");
+    try {
+      try (InputStream in = inputStream;
+          OutputStream out = new LZ4FrameOutputStream(Files.newOutputStream(tmpPath))) {
+        ByteStreams.copy(in, out);
+      }
+      Files.move(
+          tmpPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } finally {
+      Files.deleteIfExists(tmpPath);
+    }
+  }
+
   @Override
   public void storeOspfTopology(OspfTopology ospfTopology, NetworkSnapshot networkSnapshot)
       throws IOException {
@@ -18,6 +18,7 @@ import org.batfish.identifiers.SnapshotId;
 public class FileBasedStorageDirectoryProvider {
 
   private static final String RELPATH_BLOBS = "blobs";
+  private static final String RELPATH_CONTENT_BLOBS = "content_blobs";
   private static final String RELPATH_EXTENDED = "extended";
   private static final String RELPATH_NODE_ROLES_DIR = "node_roles";
 
@@ -100,6 +101,10 @@ public class FileBasedStorageDirectoryProvider {
     return getNetworkDir(networkId).resolve(RELPATH_BLOBS);
   }
 
+  public Path getNetworkContentBlobsDir(NetworkId networkId) {
+    return getNetworkDir(networkId).resolve(RELPATH_CONTENT_BLOBS);
+  }
+
   public Path getNetworkObjectsDir(NetworkId networkId) {
     return getNetworkDir(networkId).resolve(RELPATH_EXTENDED);
   }
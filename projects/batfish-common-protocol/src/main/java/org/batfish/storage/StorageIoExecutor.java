@@ -0,0 +1,60 @@
+package org.batfish.storage;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nonnull;
+
+/**
+ * Bounded pool of threads for blocking storage I/O, shared by all storage instances of the process.
+ *
+ * <p>Storage threads mostly wait on the file system, so there are more of them than processors.
+ * They are not daemon threads, so that pending writes complete before the JVM exits normally, and
+ * expire when idle so they do not keep it alive longer than that.
+ */
+final class StorageIoExecutor {
+
+  /** A storage I/O thread */
+  private static final class IoThread extends Thread {
+    private IoThread(Runnable runnable) {
+      super(runnable);
+    }
+  }
+
+  static final int THREADS = Math.max(8, 2 * Runtime.getRuntime().availableProcessors());
+
+  private static final ThreadPoolExecutor EXECUTOR = createExecutor();
+
+  private static @Nonnull ThreadPoolExecutor createExecutor() {
+    ThreadPoolExecutor executor =
+        new ThreadPoolExecutor(
+            THREADS,
+            THREADS,
+            1,
+            TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(),
+            new ThreadFactoryBuilder()
+                .setThreadFactory(IoThread::new)
+                .setNameFormat("storage-io-%d")
+                .setDaemon(false)
+                .build());
+    executor.allowCoreThreadTimeOut(true);
+    return executor;
+  }
+
+  static @Nonnull Executor get() {
+    return EXECUTOR;
+  }
+
+  /**
+   * Returns whether the current thread is a storage I/O thread. Such threads must not wait for
+   * other tasks of the pool, since all threads could end up waiting.
+   */
+  static boolean isIoThread() {
+    return Thread.currentThread() instanceof IoThread;
+  }
+
+  private StorageIoExecutor() {}
+}
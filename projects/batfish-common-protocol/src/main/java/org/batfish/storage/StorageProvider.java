@@ -4,6 +4,7 @@ import com.google.errorprone.annotations.MustBeClosed;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Path;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -439,6 +440,24 @@ public interface StorageProvider {
   List<StoredObjectMetadata> getSnapshotInputObjectsMetadata(
       NetworkId networkId, SnapshotId snapshotId) throws IOException;
 
+  /**
+   * Stores the files under {@code inputDir} as the input objects of the given snapshot, keyed by
+   * their path relative to {@code inputDir}. If {@code baseSnapshotId} is not {@code null}, the
+   * snapshot also gets each input object of that snapshot not replaced by a file under {@code
+   * inputDir}.
+   *
+   * <p>Implementations may store each distinct content once and share it among snapshots of the
+   * network, so that inputs unchanged from the base snapshot are not copied.
+   *
+   * @throws IOException if there is an error reading or writing the objects
+   */
+  void storeSnapshotInputObjects(
+      Path inputDir,
+      NetworkId networkId,
+      SnapshotId snapshotId,
+      @Nullable SnapshotId baseSnapshotId)
+      throws IOException;
+
   /**
    * Fetch the list of keys in the given snapshot's extended objects store
    *
@@ -625,4 +644,27 @@ public interface StorageProvider {
    */
   void storeVxlanTopology(VxlanTopology vxlanTopology, NetworkSnapshot networkSnapshot)
       throws IOException;
+
+  /**
+   * Provide a stream from which the serialized topology computed from the configurations of the
+   * provided {@link NetworkSnapshot} and stored under the given key may be read.
+   *
+   * @throws FileNotFoundException if no topology is stored under the given key
+   * @throws IOException if there is an error reading the topology
+   */
+  @Nonnull
+  @MustBeClosed
+  InputStream loadCachedTopology(NetworkSnapshot networkSnapshot, String key)
+      throws FileNotFoundException, IOException;
+
+  /**
+   * Stores the serialized topology computed from the configurations of the provided {@link
+   * NetworkSnapshot} under the given key, replacing any topology stored under that key. Readers
+   * never observe a partially written topology. Cached topologies are discarded when the
+   * configurations of the snapshot are stored again.
+   *
+   * @throws IOException if there is an error writing the topology
+   */
+  void storeCachedTopology(InputStream inputStream, NetworkSnapshot networkSnapshot, String key)
+      throws IOException;
 }
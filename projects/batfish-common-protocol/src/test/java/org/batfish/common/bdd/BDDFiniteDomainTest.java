@@ -5,6 +5,7 @@ import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
 
 import com.google.common.collect.ImmutableSet;
+import net.sf.javabdd.BDD;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
@@ -59,4 +60,19 @@ public final class BDDFiniteDomainTest {
     assertThat(fd.getValueFromAssignment(fd.getConstraintForValue(2)), equalTo(2));
     assertThat(fd.getValueFromAssignment(fd.getConstraintForValue(3)), equalTo(3));
   }
+
+  @Test
+  public void testAndExistsValue() {
+    BDDFiniteDomain<Integer> fd = new BDDFiniteDomain<>(_pkt, "", ImmutableSet.of(1, 2, 3));
+    BDD dstIp = _pkt.getDstIp().value(1);
+    BDD bdd = fd.getConstraintForValue(1).and(dstIp).or(fd.getConstraintForValue(2));
+    for (int value : ImmutableSet.of(1, 2, 3)) {
+      BDD constraint = fd.getConstraintForValue(value);
+      assertThat(fd.andExistsValue(bdd, constraint), equalTo(fd.existsValue(bdd.and(constraint))));
+    }
+
+    // empty domains have no variable to quantify
+    BDDFiniteDomain<Integer> empty = new BDDFiniteDomain<>(_pkt, "empty", ImmutableSet.of());
+    assertThat(empty.andExistsValue(bdd, dstIp), equalTo(bdd.and(dstIp)));
+  }
 }
@@ -0,0 +1,119 @@
+package org.batfish.common.bdd;
+
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import net.sf.javabdd.BDD;
+import org.batfish.datamodel.Flow;
+import org.batfish.datamodel.Ip;
+import org.batfish.datamodel.Prefix;
+import org.junit.Before;
+import org.junit.Test;
+
+/** Tests of {@link BDDSampler}. */
+public final class BDDSamplerTest {
+  private BDDPacket _pkt;
+
+  @Before
+  public void setup() {
+    _pkt = new BDDPacket();
+  }
+
+  private BDD vars(BDDInteger integer) {
+    return _pkt.getFactory()
+        .makeSet(Arrays.stream(integer.getBitvec()).mapToInt(BDD::var).toArray());
+  }
+
+  @Test
+  public void testSampleEnumeratesAllAssignmentsOnce() {
+    BDDInteger dstIp = _pkt.getDstIp();
+    BDD bdd = _pkt.getDstIpSpaceToBDD().toBDD(Prefix.parse("10.0.0.0/30"));
+    // constraints on other variables are quantified out
+    BDD constrained = bdd.and(_pkt.getSrcIp().value(1));
+
+    List<Long> values =
+        new BDDSampler(vars(dstIp), new Random(0))
+            .sample(constrained)
+            .map(dstIp::satAssignmentToLong)
+            .collect(Collectors.toList());
+    long start = Ip.parse("10.0.0.0").asLong();
+    assertThat(values, containsInAnyOrder(start, start + 1, start + 2, start + 3));
+  }
+
+  @Test
+  public void testSampleZero() {
+    assertThat(
+        new BDDSampler(vars(_pkt.getDstIp()), new Random(0))
+            .sample(_pkt.getFactory().zero())
+            .count(),
+        equalTo(0L));
+  }
+
+  @Test
+  public void testSampleIsUniform() {
+    BDDInteger dscp = _pkt.getDscp();
+    // 1 assignment with value 0, and 32 assignments with the top bit set
+    BDD bdd = dscp.value(0).or(dscp.geq(32));
+    Random random = new Random(0);
+    int zeros = 0;
+    int samples = 3300;
+    for (int i = 0; i < samples; i++) {
+      BDD sample = new BDDSampler(vars(dscp), random).sample(bdd).findFirst().get();
+      assertTrue(sample.imp(bdd).isOne());
+      if (dscp.satAssignmentToLong(sample) == 0) {
+        zeros++;
+      }
+    }
+    // expect about 100. A sampler taking each branch with probability 1/2 would give about 1650.
+    assertThat(zeros, lessThan(200));
+  }
+
+  @Test
+  public void testSampleFreesInternalBdds() {
+    BDDInteger dstIp = _pkt.getDstIp();
+    BDDSampler sampler = new BDDSampler(vars(dstIp), new Random(0));
+    IpSpaceToBDD toBdd = new IpSpaceToBDD(dstIp);
+    int nodeTableSize = _pkt.getFactory().getNodeTableSize();
+    // Each iteration samples a different BDD. Leaking its nodes would fill the table many times.
+    for (int i = 0; i < 1000; i++) {
+      BDD range = toBdd.toBDD(Prefix.create(Ip.create(i << 4), 28));
+      // consumed to the end
+      sampler.sample(range).forEach(BDD::free);
+      // closed early
+      try (Stream<BDD> samples = sampler.sample(range)) {
+        samples.limit(3).forEach(BDD::free);
+      }
+      range.free();
+    }
+    assertThat(_pkt.getFactory().getNodeTableSize(), equalTo(nodeTableSize));
+  }
+
+  @Test
+  public void testSampleFlowsDistinctFields() {
+    BDD bdd =
+        _pkt.getSrcIpSpaceToBDD()
+            .toBDD(Prefix.parse("1.1.1.0/30"))
+            .and(_pkt.getDstIpSpaceToBDD().toBDD(Prefix.parse("2.2.2.0/24")));
+    List<Flow.Builder> flows =
+        _pkt.sampleFlows(bdd, new Random(0), _pkt.getSrcIp())
+            .limit(10)
+            .collect(Collectors.toList());
+    // only 4 distinct source IPs
+    assertThat(flows, hasSize(4));
+    assertThat(
+        flows.stream().map(Flow.Builder::getSrcIp).distinct().count(),
+        equalTo((long) flows.size()));
+    for (Flow.Builder flow : flows) {
+      assertTrue(Prefix.parse("2.2.2.0/24").containsIp(flow.getDstIp()));
+    }
+  }
+}
@@ -1,5 +1,6 @@
 package org.batfish.common.plugin;
 
+import java.io.FileNotFoundException;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -202,6 +203,14 @@ public class IBatfishTestAdapter implements IBatfish {
     throw new UnsupportedOperationException();
   }
 
+  @Override
+  public byte[] loadNetworkBlob(String key) throws FileNotFoundException {
+    throw new FileNotFoundException(key);
+  }
+
+  @Override
+  public void storeNetworkBlob(String key, byte[] blob) {}
+
   @Override
   public NetworkId getContainerName() {
     throw new UnsupportedOperationException();
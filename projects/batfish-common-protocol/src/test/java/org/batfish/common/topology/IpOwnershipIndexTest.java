@@ -0,0 +1,123 @@
+package org.batfish.common.topology;
+
+import static org.batfish.datamodel.matchers.IpSpaceMatchers.containsIp;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.not;
+import static org.junit.Assert.assertThat;
+
+import com.google.common.collect.ImmutableMap;
+import org.apache.commons.lang3.SerializationUtils;
+import org.batfish.common.topology.IpOwnershipIndex.Owner;
+import org.batfish.datamodel.ConcreteInterfaceAddress;
+import org.batfish.datamodel.Configuration;
+import org.batfish.datamodel.ConfigurationFormat;
+import org.batfish.datamodel.Ip;
+import org.batfish.datamodel.IpSpace;
+import org.batfish.datamodel.NetworkFactory;
+import org.batfish.datamodel.Prefix;
+import org.batfish.datamodel.Vrf;
+import org.junit.Before;
+import org.junit.Test;
+
+/** Tests of {@link IpOwnershipIndex}. */
+public final class IpOwnershipIndexTest {
+  private static final Owner I1 = new Owner("c1", "v1", "i1");
+  private static final Owner I2 = new Owner("c1", "v1", "i2");
+  private static final Owner I3 = new Owner("c2", "v2", "i3");
+
+  private IpOwners _ipOwners;
+
+  @Before
+  public void setup() {
+    NetworkFactory nf = new NetworkFactory();
+    Configuration.Builder cb =
+        nf.configurationBuilder().setConfigurationFormat(ConfigurationFormat.CISCO_IOS);
+    Configuration c1 = cb.setHostname("c1").build();
+    Configuration c2 = cb.setHostname("c2").build();
+    Vrf v1 = nf.vrfBuilder().setOwner(c1).setName("v1").build();
+    Vrf v2 = nf.vrfBuilder().setOwner(c2).setName("v2").build();
+    nf.interfaceBuilder()
+        .setOwner(c1)
+        .setVrf(v1)
+        .setName("i1")
+        .setAddresses(
+            ConcreteInterfaceAddress.parse("10.0.0.1/24"),
+            ConcreteInterfaceAddress.parse("10.0.0.2/24"))
+        .build();
+    nf.interfaceBuilder()
+        .setOwner(c1)
+        .setVrf(v1)
+        .setName("i2")
+        .setAddress(ConcreteInterfaceAddress.parse("10.0.1.1/30"))
+        .setActive(false)
+        .build();
+    nf.interfaceBuilder()
+        .setOwner(c2)
+        .setVrf(v2)
+        .setName("i3")
+        .setAddress(ConcreteInterfaceAddress.parse("10.0.0.1/16"))
+        .build();
+    _ipOwners = new IpOwners(ImmutableMap.of("c1", c1, "c2", c2));
+  }
+
+  @Test
+  public void testGetOwners() {
+    IpOwnershipIndex all = _ipOwners.getAllIpOwnershipIndex();
+    assertThat(all.getOwners(Ip.parse("10.0.0.1")), containsInAnyOrder(I1, I3));
+    assertThat(all.getOwners(Ip.parse("10.0.0.2")), containsInAnyOrder(I1));
+    assertThat(all.getOwners(Ip.parse("10.0.1.1")), containsInAnyOrder(I2));
+    assertThat(all.getOwners(Ip.parse("10.0.0.3")), empty());
+    assertThat(all.getOwners(Prefix.parse("10.0.0.0/23")), containsInAnyOrder(I1, I2, I3));
+    assertThat(all.getOwners(Prefix.parse("10.0.1.0/24")), containsInAnyOrder(I2));
+    assertThat(all.getOwners(Prefix.parse("10.0.2.0/24")), empty());
+
+    IpOwnershipIndex active = _ipOwners.getActiveIpOwnershipIndex();
+    assertThat(active.getOwners(Ip.parse("10.0.1.1")), empty());
+    assertThat(active.getOwners(Prefix.parse("10.0.0.0/23")), containsInAnyOrder(I1, I3));
+    assertThat(active.isOwnedBy(Ip.parse("10.0.0.2"), "c1", "v1"), equalTo(true));
+    assertThat(active.isOwnedBy(Ip.parse("10.0.0.2"), "c2", "v2"), equalTo(false));
+  }
+
+  @Test
+  public void testGetSubnetOwners() {
+    IpOwnershipIndex all = _ipOwners.getAllIpOwnershipIndex();
+    assertThat(all.getSubnetOwners(Ip.parse("10.0.0.200")), containsInAnyOrder(I1, I3));
+    assertThat(all.getSubnetOwners(Ip.parse("10.0.1.2")), containsInAnyOrder(I2, I3));
+    assertThat(all.getSubnetOwners(Ip.parse("10.1.0.0")), empty());
+
+    IpOwnershipIndex active = _ipOwners.getActiveIpOwnershipIndex();
+    assertThat(active.getSubnetOwners(Ip.parse("10.0.1.2")), containsInAnyOrder(I3));
+  }
+
+  @Test
+  public void testGetOwnedIpSpace() {
+    IpSpace owned = _ipOwners.getAllIpOwnershipIndex().getOwnedIpSpace();
+    assertThat(owned, containsIp(Ip.parse("10.0.0.1")));
+    assertThat(owned, containsIp(Ip.parse("10.0.0.2")));
+    assertThat(owned, containsIp(Ip.parse("10.0.1.1")));
+    assertThat(owned, not(containsIp(Ip.parse("10.0.0.0"))));
+    assertThat(owned, not(containsIp(Ip.parse("10.0.0.3"))));
+  }
+
+  @Test
+  public void testSerialization() {
+    IpOwnershipIndex index = SerializationUtils.clone(_ipOwners.getAllIpOwnershipIndex());
+    assertThat(index.getOwners(Ip.parse("10.0.0.1")), containsInAnyOrder(I1, I3));
+    assertThat(index.getSubnetOwners(Ip.parse("10.0.1.2")), containsInAnyOrder(I2, I3));
+  }
+
+  @Test
+  public void testSerializationOfIpOwnersBuildsIndexLazily() {
+    // the indexes are not serialized, but rebuilt on first use after deserialization
+    _ipOwners.getAllIpOwnershipIndex();
+    IpOwners ipOwners = SerializationUtils.clone(_ipOwners);
+    assertThat(
+        ipOwners.getAllIpOwnershipIndex().getSubnetOwners(Ip.parse("10.0.1.2")),
+        containsInAnyOrder(I2, I3));
+    assertThat(
+        ipOwners.getActiveIpOwnershipIndex().getSubnetOwners(Ip.parse("10.0.1.2")),
+        containsInAnyOrder(I3));
+  }
+}
@@ -1,11 +1,15 @@
 package org.batfish.common.topology;
 
 import static org.batfish.common.topology.Layer2Topology.fromEdges;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.sameInstance;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThat;
 
 import com.google.common.collect.ImmutableSet;
 import com.google.common.testing.EqualsTester;
 import java.io.IOException;
+import java.util.Set;
 import org.batfish.common.util.BatfishObjectMapper;
 import org.junit.Test;
 
@@ -41,4 +45,72 @@ public final class Layer2TopologyTest {
 
     assertEquals(topology, BatfishObjectMapper.clone(topology, Layer2Topology.class));
   }
+
+  @Test
+  public void testGetNodeCount() {
+    assertThat(Layer2Topology.EMPTY.getNodeCount(), equalTo(0));
+    assertThat(
+        fromEdges(ImmutableSet.of(edge("a", "b"), edge("b", "c"))).getNodeCount(), equalTo(3));
+  }
+
+  private static Layer2Edge edge(String node1, String node2) {
+    return new Layer2Edge(node1, "i", null, node2, "i", null, null);
+  }
+
+  /** Assert that the two topologies have the same nodes in the same broadcast domains. */
+  private static void assertSameDomains(
+      Layer2Topology actual, Layer2Topology expected, Set<String> nodes) {
+    for (String node1 : nodes) {
+      assertThat(
+          actual.getBroadcastDomainRepresentative(node1, "i").isPresent(),
+          equalTo(expected.getBroadcastDomainRepresentative(node1, "i").isPresent()));
+      for (String node2 : nodes) {
+        assertThat(
+            node1 + " and " + node2,
+            actual.inSameBroadcastDomain(node1, "i", node2, "i"),
+            equalTo(expected.inSameBroadcastDomain(node1, "i", node2, "i")));
+      }
+    }
+  }
+
+  @Test
+  public void testUpdateEdgesUnchanged() {
+    Set<Layer2Edge> edges = ImmutableSet.of(edge("a", "b"));
+    Layer2Topology topology = fromEdges(edges);
+    assertThat(
+        topology.updateEdges(edges, ImmutableSet.of(edge("a", "b"))), sameInstance(topology));
+  }
+
+  @Test
+  public void testUpdateEdges() {
+    Set<String> nodes = ImmutableSet.of("a", "b", "c", "d", "e", "f", "g");
+    // a-b-c, d-e, f-g
+    Set<Layer2Edge> oldEdges =
+        ImmutableSet.of(edge("a", "b"), edge("b", "c"), edge("d", "e"), edge("f", "g"));
+    Layer2Topology topology = fromEdges(oldEdges);
+
+    // split a-b-c at b-c
+    Set<Layer2Edge> split =
+        ImmutableSet.of(edge("a", "b"), edge("d", "e"), edge("f", "g"), edge("e", "d"));
+    assertSameDomains(topology.updateEdges(oldEdges, split), fromEdges(split), nodes);
+
+    // merge d-e and f-g, and connect new node h
+    Set<Layer2Edge> merged =
+        ImmutableSet.<Layer2Edge>builder()
+            .addAll(oldEdges)
+            .add(edge("e", "f"))
+            .add(edge("h", "a"))
+            .build();
+    assertSameDomains(
+        topology.updateEdges(oldEdges, merged),
+        fromEdges(merged),
+        ImmutableSet.<String>builder().addAll(nodes).add("h").build());
+
+    // split a-b-c and merge a with d-e; c becomes isolated and is dropped
+    Set<Layer2Edge> both =
+        ImmutableSet.of(edge("a", "b"), edge("d", "e"), edge("f", "g"), edge("a", "d"));
+    Layer2Topology updated = topology.updateEdges(oldEdges, both);
+    assertSameDomains(updated, fromEdges(both), nodes);
+    assertThat(updated.getBroadcastDomainRepresentative("c", "i").isPresent(), equalTo(false));
+  }
 }
@@ -0,0 +1,46 @@
+package org.batfish.common.topology;
+
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.junit.Assert.assertThat;
+
+import com.google.common.collect.ImmutableMap;
+import org.batfish.datamodel.ConcreteInterfaceAddress;
+import org.batfish.datamodel.Configuration;
+import org.batfish.datamodel.ConfigurationFormat;
+import org.batfish.datamodel.Interface;
+import org.batfish.datamodel.NetworkFactory;
+import org.batfish.datamodel.Prefix;
+import org.junit.Test;
+
+/** Tests of {@link SubnetInterfaceIndex} */
+public final class SubnetInterfaceIndexTest {
+
+  @Test
+  public void testGetCandidateInterfaces() {
+    NetworkFactory nf = new NetworkFactory();
+    Configuration c =
+        nf.configurationBuilder().setConfigurationFormat(ConfigurationFormat.CISCO_IOS).build();
+    Interface.Builder ib = nf.interfaceBuilder().setOwner(c);
+    Interface wide = ib.setAddress(ConcreteInterfaceAddress.parse("10.0.0.1/16")).build();
+    Interface wideOutside = ib.setAddress(ConcreteInterfaceAddress.parse("10.0.0.9/16")).build();
+    Interface narrow = ib.setAddress(ConcreteInterfaceAddress.parse("10.0.0.3/30")).build();
+    // a /30 that does not overlap
+    ib.setAddress(ConcreteInterfaceAddress.parse("10.0.0.5/30")).build();
+    // in a bucket containing the /30, but without an address in it
+    ib.setAddress(ConcreteInterfaceAddress.parse("10.1.0.2/8")).build();
+    // has a secondary address in the /30
+    Interface wideSecondary =
+        ib.setAddresses(
+                ConcreteInterfaceAddress.parse("10.0.5.1/16"),
+                ConcreteInterfaceAddress.parse("10.0.0.2/32"))
+            .build();
+
+    SubnetInterfaceIndex index = SubnetInterfaceIndex.create(ImmutableMap.of(c.getHostname(), c));
+    assertThat(
+        index.getCandidateInterfaces(Prefix.parse("10.0.0.0/30")),
+        containsInAnyOrder(wide, wideSecondary, narrow));
+    assertThat(
+        index.getInterfaces(Prefix.parse("10.0.0.0/16")),
+        containsInAnyOrder(wide, wideOutside, wideSecondary));
+  }
+}
@@ -23,6 +23,7 @@ import static org.hamcrest.Matchers.both;
 import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.in;
 import static org.hamcrest.Matchers.not;
 import static org.junit.Assert.assertFalse;
@@ -1513,6 +1514,34 @@ public final class TopologyUtilTest {
     assertThat(t.getEdges(), empty());
   }
 
+  @Test
+  public void testSynthesizeTopology_largeSharedSubnet() {
+    // Every node has an SVI in one /16, and a /30 link to one other node inside the same /16.
+    int numNodes = 400;
+    NetworkFactory nf = new NetworkFactory();
+    Configuration.Builder cb =
+        nf.configurationBuilder().setConfigurationFormat(ConfigurationFormat.CISCO_IOS);
+    ImmutableMap.Builder<String, Configuration> configs = ImmutableMap.builder();
+    long sviBase = Ip.parse("10.0.0.0").asLong();
+    long linkBase = Ip.parse("10.0.128.0").asLong();
+    for (int i = 0; i < numNodes; i++) {
+      Configuration c = cb.build();
+      configs.put(c.getHostname(), c);
+      nf.interfaceBuilder()
+          .setOwner(c)
+          .setAddress(ConcreteInterfaceAddress.create(Ip.create(sviBase + i + 1), 16))
+          .build();
+      nf.interfaceBuilder()
+          .setOwner(c)
+          .setAddress(
+              ConcreteInterfaceAddress.create(Ip.create(linkBase + 4 * (i / 2) + 1 + i % 2), 30))
+          .build();
+    }
+    Topology t = TopologyUtil.synthesizeL3Topology(configs.build());
+    // SVIs are all adjacent, and each link is adjacent in both directions
+    assertThat(t.getEdges(), hasSize(numNodes * (numNodes - 1) + numNodes));
+  }
+
   @Test
   public void testComputeLayer3Topology_linkLocalAddresses() {
     _cb.setConfigurationFormat(ConfigurationFormat.CISCO_IOS);
@@ -0,0 +1,87 @@
+package org.batfish.common.util;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasKey;
+import static org.hamcrest.Matchers.sameInstance;
+
+import com.google.common.base.Equivalence;
+import com.google.common.collect.Interner;
+import org.batfish.common.util.Interning.InternerStats;
+import org.batfish.datamodel.Ip;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+/** Tests of {@link Interning} */
+public class InterningTest {
+  @Rule public ExpectedException _thrown = ExpectedException.none();
+
+  @Test
+  public void testInternAndStats() {
+    Interner<String> interner = Interning.newWeakInterner("InterningTest.testInternAndStats");
+    String a = new String("a");
+    String a2 = new String("a");
+    assertThat(interner.intern(a), sameInstance(a));
+    assertThat(interner.intern(a2), sameInstance(a));
+    assertThat(interner.intern(a), sameInstance(a));
+
+    InternerStats stats = Interning.getStats().get("InterningTest.testInternAndStats");
+    assertThat(stats.getRequests(), equalTo(3L));
+    assertThat(stats.getDeduplicated(), equalTo(1L));
+    assertThat(stats.getSize(), equalTo(1L));
+
+    String b = new String("b");
+    assertThat(interner.intern(b), sameInstance(b));
+    assertThat(Interning.getStats().get("InterningTest.testInternAndStats").getSize(), equalTo(2L));
+  }
+
+  @Test
+  public void testInternWithEquivalence() {
+    // Strings of the same length are duplicates
+    Interner<String> interner =
+        Interning.newWeakInterner(
+            "InterningTest.testInternWithEquivalence",
+            Equivalence.equals().onResultOf(String::length));
+    String a = new String("a");
+    String b = new String("b");
+    String ab = new String("ab");
+    assertThat(interner.intern(a), sameInstance(a));
+    assertThat(interner.intern(b), sameInstance(a));
+    assertThat(interner.intern(ab), sameInstance(ab));
+  }
+
+  @Test
+  public void testCollectedValuesLeave() throws InterruptedException {
+    Interner<String> interner = Interning.newWeakInterner("InterningTest.testCollectedValuesLeave");
+    String kept = new String("kept");
+    interner.intern(kept);
+    interner.intern(new String("dropped"));
+    for (int i = 0;
+        i < 100 && Interning.getStats().get("InterningTest.testCollectedValuesLeave").getSize() > 1;
+        i++) {
+      System.gc();
+      Thread.sleep(10);
+    }
+    assertThat(
+        Interning.getStats().get("InterningTest.testCollectedValuesLeave").getSize(), equalTo(1L));
+    // A collected value can be interned again, as a new canonical instance
+    String dropped = new String("dropped");
+    assertThat(interner.intern(dropped), sameInstance(dropped));
+    assertThat(interner.intern(new String("kept")), sameInstance(kept));
+  }
+
+  @Test
+  public void testAttributeInternersRegistered() {
+    // force class initialization
+    Ip.parse("1.1.1.1");
+    assertThat(Interning.getStats(), hasKey("Ip"));
+  }
+
+  @Test
+  public void testDuplicateName() {
+    Interning.newWeakInterner("InterningTest.testDuplicateName");
+    _thrown.expect(IllegalStateException.class);
+    Interning.newWeakInterner("InterningTest.testDuplicateName");
+  }
+}
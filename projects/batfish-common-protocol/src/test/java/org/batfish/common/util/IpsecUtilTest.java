@@ -3,36 +3,56 @@ package org.batfish.common.util;
 import static org.batfish.common.util.IpsecUtil.getIpsecSession;
 import static org.batfish.common.util.IpsecUtil.negotiateIkePhase1Key;
 import static org.batfish.common.util.IpsecUtil.retainCompatibleTunnelEdges;
+import static org.batfish.common.util.IpsecUtil.retainReachableIpsecEdges;
 import static org.batfish.common.util.IpsecUtil.toEdgeSet;
 import static org.batfish.datamodel.ConfigurationFormat.AWS;
 import static org.batfish.datamodel.ConfigurationFormat.CISCO_IOS;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.notNullValue;
 import static org.hamcrest.Matchers.nullValue;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ImmutableSortedMap;
 import com.google.common.graph.MutableValueGraph;
 import com.google.common.graph.ValueGraphBuilder;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.SortedMap;
+import org.batfish.common.plugin.TracerouteEngine;
+import org.batfish.datamodel.ConcreteInterfaceAddress;
 import org.batfish.datamodel.Configuration;
 import org.batfish.datamodel.ConfigurationFormat;
 import org.batfish.datamodel.Edge;
+import org.batfish.datamodel.Flow;
+import org.batfish.datamodel.FlowDisposition;
 import org.batfish.datamodel.IkeKeyType;
 import org.batfish.datamodel.IkePhase1Key;
 import org.batfish.datamodel.Interface;
+import org.batfish.datamodel.Ip;
 import org.batfish.datamodel.IpsecPeerConfigId;
 import org.batfish.datamodel.IpsecPhase2Proposal;
 import org.batfish.datamodel.IpsecSession;
 import org.batfish.datamodel.IpsecStaticPeerConfig;
 import org.batfish.datamodel.NetworkFactory;
+import org.batfish.datamodel.Vrf;
 import org.batfish.datamodel.collections.NodeInterfacePair;
+import org.batfish.datamodel.flow.FirewallSessionTraceInfo;
+import org.batfish.datamodel.flow.Hop;
+import org.batfish.datamodel.flow.Trace;
+import org.batfish.datamodel.flow.TraceAndReverseFlow;
 import org.batfish.datamodel.ipsec.IpsecTopology;
+import org.batfish.datamodel.pojo.Node;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -283,4 +303,105 @@ public class IpsecUtilTest {
 
     assertThat(ipsecSessionBuilder.getNegotiatedIkeP1Key(), nullValue());
   }
+
+  /** Accepts each flow at the owner of its destination IP, and records the flows of each call. */
+  private static final class RecordingTracerouteEngine implements TracerouteEngine {
+    private final Map<Ip, String> _ipOwners;
+    private final List<Set<Flow>> _calls;
+
+    private RecordingTracerouteEngine(Map<Ip, String> ipOwners) {
+      _ipOwners = ipOwners;
+      _calls = new ArrayList<>();
+    }
+
+    @Override
+    public SortedMap<Flow, List<TraceAndReverseFlow>> computeTracesAndReverseFlows(
+        Set<Flow> flows, Set<FirewallSessionTraceInfo> sessions, boolean ignoreFilters) {
+      _calls.add(flows);
+      return flows.stream()
+          .collect(
+              ImmutableSortedMap.toImmutableSortedMap(
+                  Comparator.naturalOrder(),
+                  flow -> flow,
+                  flow -> {
+                    String receiver = _ipOwners.get(flow.getDstIp());
+                    Trace trace =
+                        new Trace(
+                            FlowDisposition.ACCEPTED,
+                            ImmutableList.of(new Hop(new Node(receiver), ImmutableList.of())));
+                    Flow reverseFlow =
+                        flow.toBuilder()
+                            .setIngressNode(receiver)
+                            .setSrcIp(flow.getDstIp())
+                            .setDstIp(flow.getSrcIp())
+                            .setSrcPort(flow.getDstPort())
+                            .setDstPort(flow.getSrcPort())
+                            .build();
+                    return ImmutableList.of(
+                        new TraceAndReverseFlow(trace, reverseFlow, ImmutableSet.of()));
+                  }));
+    }
+  }
+
+  @Test
+  public void testRetainReachableIpsecEdgesBatched() {
+    NetworkFactory nf = new NetworkFactory();
+    Configuration.Builder cb = nf.configurationBuilder().setConfigurationFormat(CISCO_IOS);
+    Configuration c1 = cb.setHostname("host1").build();
+    Configuration c2 = cb.setHostname("host2").build();
+    Vrf v1 = nf.vrfBuilder().setOwner(c1).build();
+    Vrf v2 = nf.vrfBuilder().setOwner(c2).build();
+    nf.interfaceBuilder()
+        .setName("interface1")
+        .setOwner(c1)
+        .setVrf(v1)
+        .setAddress(ConcreteInterfaceAddress.parse("1.1.1.1/24"))
+        .build();
+    nf.interfaceBuilder()
+        .setName("interface2")
+        .setOwner(c2)
+        .setVrf(v2)
+        .setAddress(ConcreteInterfaceAddress.parse("2.2.2.2/24"))
+        .build();
+    Ip ip1 = Ip.parse("1.1.1.1");
+    Ip ip2 = Ip.parse("2.2.2.2");
+    c1.setIpsecPeerConfigs(
+        ImmutableSortedMap.of(
+            "peer1",
+            IpsecStaticPeerConfig.builder()
+                .setSourceInterface("interface1")
+                .setLocalAddress(ip1)
+                .setDestinationAddress(ip2)
+                .build()));
+    c2.setIpsecPeerConfigs(
+        ImmutableSortedMap.of(
+            "peer2",
+            IpsecStaticPeerConfig.builder()
+                .setSourceInterface("interface2")
+                .setLocalAddress(ip2)
+                .setDestinationAddress(ip1)
+                .build()));
+
+    IpsecSession establishedSession =
+        IpsecSession.builder().setNegotiatedIpsecP2Proposal(new IpsecPhase2Proposal()).build();
+    MutableValueGraph<IpsecPeerConfigId, IpsecSession> graph =
+        ValueGraphBuilder.directed().allowsSelfLoops(false).build();
+    IpsecPeerConfigId peer1 = new IpsecPeerConfigId("peer1", "host1");
+    IpsecPeerConfigId peer2 = new IpsecPeerConfigId("peer2", "host2");
+    graph.putEdgeValue(peer1, peer2, establishedSession);
+    graph.putEdgeValue(peer2, peer1, establishedSession);
+
+    RecordingTracerouteEngine engine =
+        new RecordingTracerouteEngine(ImmutableMap.of(ip1, "host1", ip2, "host2"));
+    IpsecTopology reachable =
+        retainReachableIpsecEdges(
+            new IpsecTopology(graph), ImmutableMap.of("host1", c1, "host2", c2), engine);
+
+    assertThat(reachable.getGraph().edges(), hasSize(2));
+    // The negotiation and ESP flows of both directions, shared by both edges, are traced in one
+    // forward and one reverse call
+    assertThat(engine._calls, hasSize(2));
+    assertThat(engine._calls.get(0), hasSize(4));
+    assertThat(engine._calls.get(1), hasSize(4));
+  }
 }
@@ -2,12 +2,21 @@ package org.batfish.datamodel;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.sameInstance;
 
 import com.google.common.collect.ImmutableList;
+import org.apache.commons.lang3.SerializationUtils;
 import org.junit.Test;
 
 /** Tests of {@link AsPath} */
 public class AsPathTest {
+  @Test
+  public void testSerializationInterns() {
+    AsPath path = AsPath.of(ImmutableList.of(AsSet.of(1L), AsSet.confed(2L, 3L)));
+    assertThat(SerializationUtils.clone(path), sameInstance(path));
+    assertThat(SerializationUtils.clone(AsPath.empty()), sameInstance(AsPath.empty()));
+  }
+
   @Test
   public void testRemoveConfederations() {
     AsPath path = AsPath.of(AsSet.of(1L));
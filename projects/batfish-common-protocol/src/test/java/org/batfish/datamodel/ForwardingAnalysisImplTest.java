@@ -882,6 +882,44 @@ public class ForwardingAnalysisImplTest {
                     IpWildcardSetIpSpace.builder().including(IpWildcard.create(prefix)).build()))));
   }
 
+  /** Per-node components are computed in parallel, but must keep the order of the input nodes. */
+  @Test
+  public void testComputeRoutableIpsManyNodes() {
+    ImmutableMap.Builder<String, Map<String, Fib>> fibs = ImmutableMap.builder();
+    ImmutableMap.Builder<String, Map<String, IpSpace>> expected = ImmutableMap.builder();
+    for (int i = 0; i < 1000; i++) {
+      Prefix prefix = Prefix.create(Ip.create(i << 8), 24);
+      MockFib fib =
+          MockFib.builder()
+              .setFibEntries(
+                  ImmutableMap.of(
+                      Ip.ZERO,
+                      ImmutableSet.of(
+                          new FibEntry(
+                              new FibForward(Ip.ZERO, "iface"),
+                              ImmutableList.of(
+                                  StaticRoute.builder()
+                                      .setAdministrativeCost(1)
+                                      .setNetwork(prefix)
+                                      .build())))))
+              .build();
+      // Non-sorted hostnames
+      String hostname = "c" + (i * 7919 % 1000);
+      fibs.put(hostname, ImmutableMap.of("v", fib));
+      expected.put(
+          hostname,
+          ImmutableMap.of(
+              "v", IpWildcardSetIpSpace.builder().including(IpWildcard.create(prefix)).build()));
+    }
+    Map<String, Map<String, IpSpace>> result =
+        ForwardingAnalysisImpl.computeRoutableIps(fibs.build());
+
+    assertThat(result, equalTo(expected.build()));
+    assertThat(
+        ImmutableList.copyOf(result.keySet()),
+        equalTo(ImmutableList.copyOf(expected.build().keySet())));
+  }
+
   @Test
   public void testComputeRouteMatchConditions() {
     Set<AbstractRoute> routes =
@@ -1,5 +1,6 @@
 package org.batfish.datamodel.acl;
 
+import static org.batfish.datamodel.ExprAclLine.accepting;
 import static org.batfish.datamodel.ExprAclLine.acceptingHeaderSpace;
 import static org.batfish.datamodel.ExprAclLine.rejectingHeaderSpace;
 import static org.hamcrest.Matchers.equalTo;
@@ -9,11 +10,13 @@ import static org.junit.Assert.assertThat;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import org.batfish.datamodel.AclIpSpace;
 import org.batfish.datamodel.Configuration;
 import org.batfish.datamodel.ConfigurationFormat;
 import org.batfish.datamodel.ExprAclLine;
 import org.batfish.datamodel.HeaderSpace;
 import org.batfish.datamodel.IpAccessList;
+import org.batfish.datamodel.IpSpace;
 import org.batfish.datamodel.NetworkFactory;
 import org.batfish.datamodel.Prefix;
 import org.junit.Before;
@@ -233,4 +236,125 @@ public class CanonicalAclTest {
 
     assertThat(canonicalAcl1, not(equalTo(canonicalAcl2)));
   }
+
+  @Test
+  public void testContentHash() {
+    IpAccessList acl1 =
+        _aclb
+            .setName("acl1")
+            .setLines(
+                ImmutableList.of(
+                    acceptingHeaderSpace(
+                        HeaderSpace.builder()
+                            .setSrcIps(Prefix.parse("1.0.0.0/24").toIpSpace())
+                            .build())))
+            .build();
+    IpAccessList acl2 = _aclb2.setName("acl2").setLines(acl1.getLines()).build();
+    IpAccessList acl3 =
+        _aclb2
+            .setName("acl3")
+            .setLines(
+                ImmutableList.of(
+                    rejectingHeaderSpace(
+                        HeaderSpace.builder()
+                            .setSrcIps(Prefix.parse("1.0.0.0/24").toIpSpace())
+                            .build())))
+            .build();
+    String hash1 =
+        new CanonicalAcl(
+                acl1,
+                acl1,
+                ImmutableMap.of(),
+                ImmutableSet.of("iface"),
+                ImmutableSet.of(),
+                ImmutableSet.of())
+            .getContentHash();
+
+    // Same lines and interfaces, different name and original ACL
+    assertThat(
+        new CanonicalAcl(
+                acl2,
+                acl3,
+                ImmutableMap.of(),
+                ImmutableSet.of("iface"),
+                ImmutableSet.of(0),
+                ImmutableSet.of())
+            .getContentHash(),
+        equalTo(hash1));
+
+    // Different sanitized lines
+    assertThat(
+        new CanonicalAcl(
+                acl3,
+                acl1,
+                ImmutableMap.of(),
+                ImmutableSet.of("iface"),
+                ImmutableSet.of(),
+                ImmutableSet.of())
+            .getContentHash(),
+        not(equalTo(hash1)));
+
+    // Different interfaces
+    assertThat(
+        new CanonicalAcl(
+                acl1,
+                acl1,
+                ImmutableMap.of(),
+                ImmutableSet.of("iface2"),
+                ImmutableSet.of(),
+                ImmutableSet.of())
+            .getContentHash(),
+        not(equalTo(hash1)));
+
+    // Different dependencies
+    assertThat(
+        new CanonicalAcl(
+                acl1,
+                acl1,
+                ImmutableMap.of("acl3", acl3),
+                ImmutableSet.of("iface"),
+                ImmutableSet.of(),
+                ImmutableSet.of())
+            .getContentHash(),
+        not(equalTo(hash1)));
+  }
+
+  private static String contentHash(IpAccessList acl) {
+    return new CanonicalAcl(
+            acl, acl, ImmutableMap.of(), ImmutableSet.of(), ImmutableSet.of(), ImmutableSet.of())
+        .getContentHash();
+  }
+
+  @Test
+  public void testContentHashIgnoresCachedHashCodes() {
+    IpSpace ipSpace1 = AclIpSpace.permitting(Prefix.parse("1.0.0.0/24").toIpSpace()).build();
+    IpSpace ipSpace2 = AclIpSpace.permitting(Prefix.parse("1.0.0.0/24").toIpSpace()).build();
+    IpAccessList acl1 =
+        _aclb
+            .setName("acl1")
+            .setLines(
+                ImmutableList.of(
+                    acceptingHeaderSpace(HeaderSpace.builder().setSrcIps(ipSpace1).build())))
+            .build();
+    IpAccessList acl2 =
+        _aclb2
+            .setName("acl2")
+            .setLines(
+                ImmutableList.of(
+                    acceptingHeaderSpace(HeaderSpace.builder().setSrcIps(ipSpace2).build())))
+            .build();
+
+    // ipSpace1 caches its hash code, ipSpace2 does not
+    ipSpace1.hashCode();
+    assertThat(contentHash(acl1), equalTo(contentHash(acl2)));
+  }
+
+  @Test
+  public void testContentHashDistinguishesExprTypes() {
+    IpAccessList acceptAll =
+        _aclb.setName("acl").setLines(ImmutableList.of(accepting(TrueExpr.INSTANCE))).build();
+    IpAccessList acceptNone =
+        _aclb.setName("acl").setLines(ImmutableList.of(accepting(FalseExpr.INSTANCE))).build();
+    assertThat(contentHash(acceptAll), not(equalTo(contentHash(acceptNone))));
+  }
 }
@@ -0,0 +1,50 @@
+package org.batfish.datamodel.answers;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.testing.EqualsTester;
+import java.io.IOException;
+import org.apache.commons.lang3.SerializationUtils;
+import org.batfish.common.util.BatfishObjectMapper;
+import org.junit.Test;
+
+/** Tests of {@link IbdpIterationMetrics} */
+public final class IbdpIterationMetricsTest {
+
+  private static IbdpIterationMetrics metrics() {
+    return IbdpIterationMetrics.builder()
+        .setEstimatedRibBytes(ImmutableMap.of("main", 1000L))
+        .setMainRibChangesByProtocol(ImmutableMap.of("bgp", 2))
+        .setPhaseNanos(ImmutableMap.of("bgp", 100L, "init", 10L))
+        .setPolicyEvaluations(7L)
+        .setQueuedMessages(4L)
+        .build();
+  }
+
+  @Test
+  public void testEquals() {
+    IbdpIterationMetrics.Builder builder = IbdpIterationMetrics.builder();
+    new EqualsTester()
+        .addEqualityGroup(builder.build(), builder.build())
+        .addEqualityGroup(builder.setEstimatedRibBytes(ImmutableMap.of("main", 1L)).build())
+        .addEqualityGroup(builder.setMainRibChangesByProtocol(ImmutableMap.of("bgp", 1)).build())
+        .addEqualityGroup(builder.setPhaseNanos(ImmutableMap.of("bgp", 1L)).build())
+        .addEqualityGroup(builder.setPolicyEvaluations(1L).build())
+        .addEqualityGroup(builder.setQueuedMessages(1L).build())
+        .testEquals();
+  }
+
+  @Test
+  public void testJacksonSerialization() throws IOException {
+    IbdpIterationMetrics metrics = metrics();
+    assertThat(BatfishObjectMapper.clone(metrics, IbdpIterationMetrics.class), equalTo(metrics));
+  }
+
+  @Test
+  public void testJavaSerialization() {
+    IbdpIterationMetrics metrics = metrics();
+    assertThat(SerializationUtils.clone(metrics), equalTo(metrics));
+  }
+}
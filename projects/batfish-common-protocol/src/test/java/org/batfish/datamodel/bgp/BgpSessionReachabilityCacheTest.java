@@ -0,0 +1,109 @@
+package org.batfish.datamodel.bgp;
+
+import static org.batfish.datamodel.Configuration.DEFAULT_VRF_NAME;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableSortedSet;
+import java.util.Map;
+import java.util.Optional;
+import org.batfish.datamodel.BgpPeerConfigId;
+import org.batfish.datamodel.Edge;
+import org.batfish.datamodel.Fib;
+import org.batfish.datamodel.FibEntry;
+import org.batfish.datamodel.FibNullRoute;
+import org.batfish.datamodel.Interface;
+import org.batfish.datamodel.Ip;
+import org.batfish.datamodel.MockFib;
+import org.batfish.datamodel.Prefix;
+import org.batfish.datamodel.StaticRoute;
+import org.batfish.datamodel.Topology;
+import org.junit.Before;
+import org.junit.Test;
+
+/** Tests of {@link BgpSessionReachabilityCache} */
+public final class BgpSessionReachabilityCacheTest {
+  private static final String NODE1 = "n1";
+  private static final String NODE2 = "n2";
+  private static final String NODE3 = "n3";
+  private static final BgpPeerConfigId PEER1 =
+      new BgpPeerConfigId(NODE1, DEFAULT_VRF_NAME, Prefix.parse("2.2.2.2/32"), false);
+  private static final BgpPeerConfigId PEER2 =
+      new BgpPeerConfigId(NODE2, DEFAULT_VRF_NAME, Prefix.parse("1.1.1.1/32"), false);
+
+  // n1 -- n2, n3 is isolated
+  private static final Topology TOPOLOGY =
+      new Topology(ImmutableSortedSet.of(Edge.of(NODE1, "i1", NODE2, "i2")));
+
+  private static final Fib EMPTY_FIB = MockFib.builder().build();
+  private static final Fib NULL_ROUTE_FIB =
+      MockFib.builder()
+          .setFibEntries(
+              ImmutableMap.of(
+                  Ip.ZERO,
+                  ImmutableSet.of(
+                      new FibEntry(
+                          FibNullRoute.INSTANCE,
+                          ImmutableList.of(
+                              StaticRoute.builder()
+                                  .setNetwork(Prefix.ZERO)
+                                  .setNextHopInterface(Interface.NULL_INTERFACE_NAME)
+                                  .setAdministrativeCost(1)
+                                  .build())))))
+          .build();
+
+  private BgpSessionReachabilityCache _cache;
+
+  private static Map<String, Map<String, Fib>> fibs(Fib fib1, Fib fib2, Fib fib3) {
+    return ImmutableMap.of(
+        NODE1,
+        ImmutableMap.of(DEFAULT_VRF_NAME, fib1),
+        NODE2,
+        ImmutableMap.of(DEFAULT_VRF_NAME, fib2),
+        NODE3,
+        ImmutableMap.of(DEFAULT_VRF_NAME, fib3));
+  }
+
+  @Before
+  public void setup() {
+    _cache = new BgpSessionReachabilityCache();
+    _cache.update(fibs(EMPTY_FIB, EMPTY_FIB, EMPTY_FIB), TOPOLOGY);
+    // the trace only traversed n1
+    _cache.put(PEER1, PEER2, true, ImmutableSet.of(NODE1));
+  }
+
+  @Test
+  public void testGetReachability() {
+    assertThat(_cache.getReachability(PEER1, PEER2), equalTo(Optional.of(true)));
+    // directional
+    assertThat(_cache.getReachability(PEER2, PEER1), equalTo(Optional.empty()));
+  }
+
+  @Test
+  public void testUpdateKeepsVerdictsOfUnchangedNodes() {
+    _cache.update(fibs(EMPTY_FIB, EMPTY_FIB, NULL_ROUTE_FIB), TOPOLOGY);
+    assertThat(_cache.getReachability(PEER1, PEER2), equalTo(Optional.of(true)));
+  }
+
+  @Test
+  public void testUpdateEvictsVerdictsOfChangedNodes() {
+    _cache.update(fibs(NULL_ROUTE_FIB, EMPTY_FIB, EMPTY_FIB), TOPOLOGY);
+    assertThat(_cache.getReachability(PEER1, PEER2), equalTo(Optional.empty()));
+  }
+
+  @Test
+  public void testUpdateEvictsVerdictsOfChangedNeighbors() {
+    // n2 may answer ARP requests of n1
+    _cache.update(fibs(EMPTY_FIB, NULL_ROUTE_FIB, EMPTY_FIB), TOPOLOGY);
+    assertThat(_cache.getReachability(PEER1, PEER2), equalTo(Optional.empty()));
+  }
+
+  @Test
+  public void testUpdateClearsOnTopologyChange() {
+    _cache.update(fibs(EMPTY_FIB, EMPTY_FIB, EMPTY_FIB), Topology.EMPTY);
+    assertThat(_cache.size(), equalTo(0));
+  }
+}
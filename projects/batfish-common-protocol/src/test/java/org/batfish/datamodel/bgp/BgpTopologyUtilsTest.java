@@ -11,15 +11,21 @@ import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.nullValue;
 import static org.junit.Assert.assertThat;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ImmutableSortedMap;
 import com.google.common.graph.EndpointPair;
 import com.google.common.graph.ValueGraph;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.SortedMap;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import org.batfish.common.plugin.TracerouteEngine;
 import org.batfish.common.topology.Layer2Edge;
 import org.batfish.common.topology.Layer2Topology;
 import org.batfish.datamodel.BgpActivePeerConfig;
@@ -30,6 +36,8 @@ import org.batfish.datamodel.BgpSessionProperties;
 import org.batfish.datamodel.BgpUnnumberedPeerConfig;
 import org.batfish.datamodel.Configuration;
 import org.batfish.datamodel.ConfigurationFormat;
+import org.batfish.datamodel.Flow;
+import org.batfish.datamodel.FlowDisposition;
 import org.batfish.datamodel.Ip;
 import org.batfish.datamodel.LongSpace;
 import org.batfish.datamodel.NetworkFactory;
@@ -37,6 +45,11 @@ import org.batfish.datamodel.Prefix;
 import org.batfish.datamodel.Vrf;
 import org.batfish.datamodel.bgp.BgpTopologyUtils.AsPair;
 import org.batfish.datamodel.bgp.BgpTopologyUtils.ConfedSessionType;
+import org.batfish.datamodel.flow.FirewallSessionTraceInfo;
+import org.batfish.datamodel.flow.Hop;
+import org.batfish.datamodel.flow.Trace;
+import org.batfish.datamodel.flow.TraceAndReverseFlow;
+import org.batfish.datamodel.pojo.Node;
 import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.Test;
@@ -198,6 +211,85 @@ public class BgpTopologyUtilsTest {
     assertThat(edge.target().getHostname(), equalTo(NODE2));
   }
 
+  /** Accepts each flow at the owner of its destination IP, and records the flows of each call. */
+  private static final class RecordingTracerouteEngine implements TracerouteEngine {
+    private final Map<Ip, String> _ipOwners;
+    private final List<Set<Flow>> _calls;
+
+    private RecordingTracerouteEngine(Map<Ip, String> ipOwners) {
+      _ipOwners = ipOwners;
+      _calls = new ArrayList<>();
+    }
+
+    @Override
+    public SortedMap<Flow, List<TraceAndReverseFlow>> computeTracesAndReverseFlows(
+        Set<Flow> flows, Set<FirewallSessionTraceInfo> sessions, boolean ignoreFilters) {
+      _calls.add(flows);
+      return flows.stream()
+          .collect(
+              ImmutableSortedMap.toImmutableSortedMap(
+                  Comparator.naturalOrder(),
+                  flow -> flow,
+                  flow -> {
+                    String receiver = _ipOwners.get(flow.getDstIp());
+                    Trace trace =
+                        new Trace(
+                            FlowDisposition.ACCEPTED,
+                            ImmutableList.of(new Hop(new Node(receiver), ImmutableList.of())));
+                    Flow reverseFlow =
+                        flow.toBuilder()
+                            .setIngressNode(receiver)
+                            .setSrcIp(flow.getDstIp())
+                            .setDstIp(flow.getSrcIp())
+                            .setSrcPort(flow.getDstPort())
+                            .setDstPort(flow.getSrcPort())
+                            .build();
+                    return ImmutableList.of(
+                        new TraceAndReverseFlow(trace, reverseFlow, ImmutableSet.of()));
+                  }));
+    }
+  }
+
+  @Test
+  public void testInitTopologyReachabilityBatchedAndCached() {
+    Ip ip1 = Ip.parse("1.1.1.1");
+    Ip ip2 = Ip.parse("2.2.2.2");
+    BgpActivePeerConfig.Builder builder =
+        BgpActivePeerConfig.builder()
+            .setIpv4UnicastAddressFamily(Ipv4UnicastAddressFamily.builder().build());
+    _node1BgpProcess.setNeighbors(
+        ImmutableSortedMap.of(
+            ip2.toPrefix(),
+            builder.setLocalIp(ip1).setLocalAs(1L).setPeerAddress(ip2).setRemoteAs(2L).build()));
+    _node2BgpProcess.setNeighbors(
+        ImmutableSortedMap.of(
+            ip1.toPrefix(),
+            builder.setLocalIp(ip2).setLocalAs(2L).setPeerAddress(ip1).setRemoteAs(1L).build()));
+    Map<Ip, Map<String, Set<String>>> ipOwners =
+        ImmutableMap.of(
+            ip1,
+            ImmutableMap.of(NODE1, ImmutableSet.of(DEFAULT_VRF_NAME)),
+            ip2,
+            ImmutableMap.of(NODE2, ImmutableSet.of(DEFAULT_VRF_NAME)));
+    RecordingTracerouteEngine engine =
+        new RecordingTracerouteEngine(ImmutableMap.of(ip1, NODE1, ip2, NODE2));
+    BgpSessionReachabilityCache cache = new BgpSessionReachabilityCache();
+
+    ValueGraph<BgpPeerConfigId, BgpSessionProperties> bgpTopology =
+        initBgpTopology(_configs, ipOwners, false, true, engine, null, cache).getGraph();
+    assertThat(bgpTopology.edges(), hasSize(2));
+    // Both directions are checked in one forward and one reverse call
+    assertThat(engine._calls, hasSize(2));
+    assertThat(engine._calls.get(0), hasSize(2));
+    assertThat(engine._calls.get(1), hasSize(2));
+
+    // The cached verdicts are reused
+    assertThat(
+        initBgpTopology(_configs, ipOwners, false, true, engine, null, cache).getGraph(),
+        equalTo(bgpTopology));
+    assertThat(engine._calls, hasSize(2));
+  }
+
   @Test
   public void testInitTopologyBgpUnnumberedEbgp() {
     /*
@@ -0,0 +1,63 @@
+package org.batfish.storage;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.batfish.common.util.CommonUtil;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/** Tests of {@link ContentBlobStore} */
+public final class ContentBlobStoreTest {
+
+  @Rule public TemporaryFolder _folder = new TemporaryFolder();
+
+  private ContentBlobStore _blobs;
+
+  @Before
+  public void setup() throws IOException {
+    _blobs = new ContentBlobStore(_folder.newFolder("blobs").toPath());
+  }
+
+  private Path newFile(String name, String content) throws IOException {
+    Path file = _folder.newFile(name).toPath();
+    CommonUtil.writeFile(file, content);
+    return file;
+  }
+
+  @Test
+  public void testAdopt() throws IOException {
+    Path first = newFile("first", "content");
+    Path second = newFile("second", "content");
+    Path other = newFile("other", "other content");
+
+    String hash = _blobs.adopt(first);
+    assertThat(_blobs.adopt(second), equalTo(hash));
+    assertTrue(Files.isSameFile(first, second));
+    assertTrue(_blobs.isBlob(second, hash));
+    assertThat(CommonUtil.readFile(second), equalTo("content"));
+
+    assertFalse(_blobs.isBlob(other, hash));
+    _blobs.adopt(other);
+    assertFalse(Files.isSameFile(first, other));
+  }
+
+  @Test
+  public void testLink() throws IOException {
+    String hash = _blobs.adopt(newFile("file", "content"));
+    Path link = _folder.getRoot().toPath().resolve("link");
+    assertTrue(_blobs.link(hash, link));
+    assertThat(CommonUtil.readFile(link), equalTo("content"));
+
+    // no blob with that content
+    String unknownHash = ContentBlobStore.hash(newFile("other", "other"));
+    assertFalse(_blobs.link(unknownHash, link.resolveSibling("otherLink")));
+  }
+}
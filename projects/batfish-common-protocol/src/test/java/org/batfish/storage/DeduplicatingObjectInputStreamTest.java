@@ -0,0 +1,115 @@
+package org.batfish.storage;
+
+import static org.batfish.datamodel.acl.AclLineMatchExprs.and;
+import static org.batfish.datamodel.acl.AclLineMatchExprs.matchDst;
+import static org.batfish.datamodel.acl.AclLineMatchExprs.matchSrcInterface;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import org.apache.commons.lang3.SerializationUtils;
+import org.batfish.datamodel.ExprAclLine;
+import org.batfish.datamodel.HeaderSpace;
+import org.batfish.datamodel.IpAccessList;
+import org.batfish.datamodel.Prefix;
+import org.batfish.datamodel.acl.AclLineMatchExpr;
+import org.batfish.datamodel.acl.AndMatchExpr;
+import org.batfish.datamodel.acl.MatchHeaderSpace;
+import org.junit.Test;
+
+/** Tests of {@link DeduplicatingObjectInputStream} */
+public final class DeduplicatingObjectInputStreamTest {
+
+  private static IpAccessList acl(String name, String sourceName, AclLineMatchExpr match) {
+    return IpAccessList.builder()
+        .setName(name)
+        .setSourceName(sourceName)
+        .setSourceType("extended ipv4 access-list")
+        .setLines(ImmutableList.of(ExprAclLine.accepting(match)))
+        .build();
+  }
+
+  private static IpAccessList acl(String name, String srcInterface) {
+    return acl(name, name, matchSrcInterface(srcInterface));
+  }
+
+  private static Object deserialize(Serializable object, boolean deduplicate)
+      throws IOException, ClassNotFoundException {
+    ByteArrayInputStream in = new ByteArrayInputStream(SerializationUtils.serialize(object));
+    try (ObjectInputStream ois =
+        deduplicate ? new DeduplicatingObjectInputStream(in) : new ObjectInputStream(in)) {
+      return ois.readObject();
+    }
+  }
+
+  @Test
+  public void testDeduplicatesEqualStructures() throws IOException, ClassNotFoundException {
+    IpAccessList first = (IpAccessList) deserialize(acl("acl", "i1"), true);
+    IpAccessList second = (IpAccessList) deserialize(acl("acl", "i1"), true);
+    assertThat(second, sameInstance(first));
+
+    // a different ACL still shares its equal parts
+    IpAccessList renamed = (IpAccessList) deserialize(acl("other", "i1"), true);
+    assertThat(renamed.getLines().get(0), sameInstance(first.getLines().get(0)));
+  }
+
+  @Test
+  public void testAclsFromOtherSourcesAreNotShared() throws IOException, ClassNotFoundException {
+    AclLineMatchExpr match = matchSrcInterface("i2");
+    IpAccessList first = (IpAccessList) deserialize(acl("acl", "acl-on-r1", match), true);
+    // equal, but defined on another device
+    IpAccessList second = (IpAccessList) deserialize(acl("acl", "acl-on-r2", match), true);
+    assertThat(second, not(sameInstance(first)));
+    assertThat(second.getSourceName(), equalTo("acl-on-r2"));
+    assertThat(second.getLines().get(0), sameInstance(first.getLines().get(0)));
+
+    // same source name, but another source type
+    IpAccessList third =
+        (IpAccessList)
+            deserialize(
+                IpAccessList.builder()
+                    .setName("acl")
+                    .setSourceName("acl-on-r1")
+                    .setSourceType("standard ipv4 access-list")
+                    .setLines(first.getLines())
+                    .build(),
+                true);
+    assertThat(third, not(sameInstance(first)));
+    assertThat(third.getSourceType(), equalTo("standard ipv4 access-list"));
+  }
+
+  @Test
+  public void testStructuresWithHeaderSpacesAreShared() throws IOException, ClassNotFoundException {
+    AclLineMatchExpr match = and(matchDst(Prefix.parse("3.0.0.0/8")), matchSrcInterface("i3"));
+    ExprAclLine first = (ExprAclLine) deserialize(ExprAclLine.accepting(match), true);
+    ExprAclLine second = (ExprAclLine) deserialize(ExprAclLine.accepting(match), true);
+    assertThat(second, sameInstance(first));
+
+    // a different line shares its equal header space
+    ExprAclLine rejecting = (ExprAclLine) deserialize(ExprAclLine.rejecting(match), true);
+    assertThat(headerSpace(rejecting), sameInstance(headerSpace(first)));
+  }
+
+  private static HeaderSpace headerSpace(ExprAclLine line) {
+    AndMatchExpr and = (AndMatchExpr) line.getMatchCondition();
+    return and.getConjuncts().stream()
+        .filter(MatchHeaderSpace.class::isInstance)
+        .map(expr -> ((MatchHeaderSpace) expr).getHeaderspace())
+        .findFirst()
+        .get();
+  }
+
+  @Test
+  public void testNoDeduplicationWithPlainStream() throws IOException, ClassNotFoundException {
+    IpAccessList first = (IpAccessList) deserialize(acl("acl", "i4"), true);
+    IpAccessList second = (IpAccessList) deserialize(acl("acl", "i4"), false);
+    assertThat(second, equalTo(first));
+    assertThat(second.getLines().get(0), not(sameInstance(first.getLines().get(0))));
+  }
+}
@@ -1,19 +1,24 @@
 package org.batfish.storage;
 
+import static org.batfish.datamodel.acl.AclLineMatchExprs.matchSrcInterface;
 import static org.batfish.storage.FileBasedStorage.mkdirs;
 import static org.batfish.storage.FileBasedStorage.objectKeyToRelativePath;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.not;
 import static org.hamcrest.Matchers.notNullValue;
 import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
 import static org.hamcrest.io.FileMatchers.anExistingDirectory;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Sets;
 import com.google.common.io.ByteStreams;
@@ -25,6 +30,7 @@ import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -32,6 +38,7 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.CyclicBarrier;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 import org.batfish.common.BatfishException;
@@ -46,7 +53,9 @@ import org.batfish.common.util.CommonUtil;
 import org.batfish.common.util.UnzipUtility;
 import org.batfish.datamodel.Configuration;
 import org.batfish.datamodel.ConfigurationFormat;
+import org.batfish.datamodel.ExprAclLine;
 import org.batfish.datamodel.Ip;
+import org.batfish.datamodel.IpAccessList;
 import org.batfish.datamodel.answers.ConvertConfigurationAnswerElement;
 import org.batfish.datamodel.answers.MajorIssueConfig;
 import org.batfish.datamodel.answers.MinorIssueConfig;
@@ -100,6 +109,86 @@ public final class FileBasedStorageTest {
     assertThat(deserialized.keySet(), equalTo(Sets.newHashSet("node1")));
   }
 
+  /** Stores configurations of more nodes than are read ahead at once. */
+  private Map<String, Configuration> storeManyConfigurations(NetworkId network, SnapshotId snapshot)
+      throws IOException {
+    Map<String, Configuration> configs = new HashMap<>();
+    for (int i = 0; i < 2 * FileBasedStorage.MAX_READS_IN_FLIGHT + 1; i++) {
+      String name = "node" + i;
+      configs.put(name, new Configuration(name, ConfigurationFormat.CISCO_IOS));
+    }
+    _storage.storeConfigurations(
+        configs, new ConvertConfigurationAnswerElement(), Layer1Topology.EMPTY, network, snapshot);
+    return configs;
+  }
+
+  @Test
+  public void loadConfigurationsReadsAllFiles() throws IOException {
+    NetworkId network = new NetworkId("network");
+    SnapshotId snapshot = new SnapshotId("snapshot");
+    Map<String, Configuration> configs = storeManyConfigurations(network, snapshot);
+
+    assertThat(_storage.loadConfigurations(network, snapshot).keySet(), equalTo(configs.keySet()));
+  }
+
+  @Test
+  public void loadConfigurationsFailsOnCorruptFile() throws IOException {
+    NetworkId network = new NetworkId("network");
+    SnapshotId snapshot = new SnapshotId("snapshot");
+    storeManyConfigurations(network, snapshot);
+    Path corrupt;
+    try (Stream<Path> files = Files.walk(_containerDir.getParent())) {
+      corrupt =
+          files
+              .filter(
+                  path ->
+                      path.getFileName().toString().equals("node0")
+                          && path.getParent()
+                              .endsWith(BfConsts.RELPATH_VENDOR_INDEPENDENT_CONFIG_DIR))
+              .findFirst()
+              .get();
+    }
+    Files.write(corrupt, "not a configuration".getBytes(StandardCharsets.UTF_8));
+
+    assertThat(_storage.loadConfigurations(network, snapshot), nullValue());
+  }
+
+  @Test
+  public void loadConfigurationsDeduplicatesStructures() throws IOException {
+    FileBasedStorage storage =
+        new FileBasedStorage(
+            _containerDir.getParent(), _logger, (m, n) -> new AtomicInteger(), true);
+    NetworkId network = new NetworkId("network");
+    SnapshotId snapshot = new SnapshotId("snapshot");
+    SnapshotId reference = new SnapshotId("reference");
+    Configuration c = new Configuration("node1", ConfigurationFormat.CISCO_IOS);
+    IpAccessList acl =
+        IpAccessList.builder()
+            .setName("acl")
+            .setLines(ImmutableList.of(ExprAclLine.accepting(matchSrcInterface("i1"))))
+            .build();
+    c.setIpAccessLists(ImmutableMap.of(acl.getName(), acl));
+    storage.storeConfigurations(
+        ImmutableMap.of("node1", c),
+        new ConvertConfigurationAnswerElement(),
+        Layer1Topology.EMPTY,
+        network,
+        snapshot);
+    storage.storeConfigurations(
+        ImmutableMap.of("node1", c),
+        new ConvertConfigurationAnswerElement(),
+        Layer1Topology.EMPTY,
+        network,
+        reference);
+
+    Configuration loaded = storage.loadConfigurations(network, snapshot).get("node1");
+    Configuration loadedReference = storage.loadConfigurations(network, reference).get("node1");
+    assertThat(loadedReference, not(sameInstance(loaded)));
+    assertThat(
+        loadedReference.getIpAccessLists().get("acl").getLines().get(0),
+        sameInstance(loaded.getIpAccessLists().get("acl").getLines().get(0)));
+  }
+
   @Test
   public void loadMissingConfigurationsReturnsNull() {
     assertThat(
@@ -444,6 +533,34 @@ public final class FileBasedStorageTest {
             new StoredObjectMetadata(key2, content2.getBytes().length)));
   }
 
+  @Test
+  public void testStoreSnapshotObjectReplaces() throws IOException {
+    NetworkId network = new NetworkId("network");
+    SnapshotId snapshot = new SnapshotId("snapshot");
+    String key = "foo/bar";
+    String content = "new content";
+
+    _storage.storeSnapshotObject(
+        new ByteArrayInputStream("old".getBytes()), network, snapshot, key);
+    _storage.storeSnapshotObject(
+        new ByteArrayInputStream(content.getBytes()), network, snapshot, key);
+
+    try (InputStream in = _storage.loadSnapshotObject(network, snapshot, key)) {
+      assertThat(new String(ByteStreams.toByteArray(in), StandardCharsets.UTF_8), equalTo(content));
+    }
+
+    // A write in progress elsewhere is not listed
+    Path objectsDir;
+    try (Stream<Path> files = Files.walk(_containerDir.getParent())) {
+      objectsDir =
+          files.filter(Files::isRegularFile).map(Path::getParent).findFirst().orElseThrow();
+    }
+    Files.write(objectsDir.resolve(".tmp-123"), "partial".getBytes());
+    assertThat(
+        _storage.getSnapshotExtendedObjectsMetadata(network, snapshot),
+        contains(new StoredObjectMetadata(key, content.getBytes().length)));
+  }
+
   @Test
   public void testCompletionMetadataRoundtrip() throws IOException {
     NetworkId networkId = new NetworkId("network");
@@ -514,4 +631,147 @@ public final class FileBasedStorageTest {
     assertEquals(
         _storage.loadSynthesizedLayer1Topology(networkSnapshot), Optional.of(Layer1Topology.EMPTY));
   }
+
+  @Test
+  public void testStoreCachedTopologyThenLoad() throws IOException {
+    NetworkSnapshot networkSnapshot =
+        new NetworkSnapshot(new NetworkId("network"), new SnapshotId("snapshot"));
+    byte[] topology = "topology".getBytes(StandardCharsets.UTF_8);
+    _storage.storeCachedTopology(new ByteArrayInputStream(topology), networkSnapshot, "key");
+    // replaces the stored topology
+    _storage.storeCachedTopology(new ByteArrayInputStream(topology), networkSnapshot, "key");
+
+    try (InputStream inputStream = _storage.loadCachedTopology(networkSnapshot, "key")) {
+      assertThat(ByteStreams.toByteArray(inputStream), equalTo(topology));
+    }
+  }
+
+  @Test
+  public void testLoadCachedTopologyMissing() throws IOException {
+    NetworkSnapshot networkSnapshot =
+        new NetworkSnapshot(new NetworkId("network"), new SnapshotId("snapshot"));
+
+    _thrown.expect(FileNotFoundException.class);
+    try (InputStream inputStream = _storage.loadCachedTopology(networkSnapshot, "key")) {
+      assert inputStream != null; // avoid unused warning
+    }
+  }
+
+  @Test
+  public void testStoreConfigurationsDiscardsCachedTopologies() throws IOException {
+    NetworkSnapshot networkSnapshot =
+        new NetworkSnapshot(new NetworkId("network"), new SnapshotId("snapshot"));
+    _storage.storeCachedTopology(
+        new ByteArrayInputStream("topology".getBytes(StandardCharsets.UTF_8)),
+        networkSnapshot,
+        "key");
+    _storage.storeConfigurations(
+        ImmutableMap.of(),
+        new ConvertConfigurationAnswerElement(),
+        null,
+        networkSnapshot.getNetwork(),
+        networkSnapshot.getSnapshot());
+
+    _thrown.expect(FileNotFoundException.class);
+    try (InputStream inputStream = _storage.loadCachedTopology(networkSnapshot, "key")) {
+      assert inputStream != null; // avoid unused warning
+    }
+  }
+
+  private static void writeInput(Path inputDir, String key, String content) throws IOException {
+    Path path = inputDir.resolve(key);
+    mkdirs(path.getParent());
+    CommonUtil.writeFile(path, content);
+  }
+
+  @Test
+  public void testStoreSnapshotInputObjectsWithBase() throws IOException {
+    NetworkId network = new NetworkId("network");
+    SnapshotId base = new SnapshotId("base");
+    SnapshotId fork = new SnapshotId("fork");
+    Path baseInputs = _folder.newFolder("base").toPath();
+    writeInput(baseInputs, "configs/a.cfg", "a");
+    writeInput(baseInputs, "configs/b.cfg", "b");
+    mkdirs(baseInputs.resolve("hosts"));
+    _storage.storeSnapshotInputObjects(baseInputs, network, base, null);
+    Path forkInputs = _folder.newFolder("fork").toPath();
+    writeInput(forkInputs, "configs/b.cfg", "b2");
+    _storage.storeSnapshotInputObjects(forkInputs, network, fork, base);
+
+    Path baseDir = _storage.getDirectoryProvider().getSnapshotInputObjectsDir(network, base);
+    Path forkDir = _storage.getDirectoryProvider().getSnapshotInputObjectsDir(network, fork);
+    assertThat(
+        _storage.loadSnapshotInputManifest(network, fork).keySet(),
+        containsInAnyOrder("configs/a.cfg", "configs/b.cfg"));
+    // unchanged input is shared with the base snapshot
+    assertTrue(
+        Files.isSameFile(baseDir.resolve("configs/a.cfg"), forkDir.resolve("configs/a.cfg")));
+    assertThat(CommonUtil.readFile(forkDir.resolve("configs/b.cfg")), equalTo("b2"));
+    assertThat(CommonUtil.readFile(baseDir.resolve("configs/b.cfg")), equalTo("b"));
+    assertThat(forkDir.resolve("hosts").toFile(), anExistingDirectory());
+  }
+
+  @Test
+  public void testStoreSnapshotInputObjectsSharesIdenticalContent() throws IOException {
+    NetworkId network = new NetworkId("network");
+    SnapshotId snapshot1 = new SnapshotId("snapshot1");
+    SnapshotId snapshot2 = new SnapshotId("snapshot2");
+    Path inputs1 = _folder.newFolder("inputs1").toPath();
+    Path inputs2 = _folder.newFolder("inputs2").toPath();
+    writeInput(inputs1, "configs/a.cfg", "same");
+    writeInput(inputs2, "configs/a.cfg", "same");
+    writeInput(inputs2, "configs/b.cfg", "same");
+    _storage.storeSnapshotInputObjects(inputs1, network, snapshot1, null);
+    _storage.storeSnapshotInputObjects(inputs2, network, snapshot2, null);
+
+    Path dir1 = _storage.getDirectoryProvider().getSnapshotInputObjectsDir(network, snapshot1);
+    Path dir2 = _storage.getDirectoryProvider().getSnapshotInputObjectsDir(network, snapshot2);
+    assertTrue(Files.isSameFile(dir1.resolve("configs/a.cfg"), dir2.resolve("configs/a.cfg")));
+    assertTrue(Files.isSameFile(dir2.resolve("configs/a.cfg"), dir2.resolve("configs/b.cfg")));
+    assertThat(
+        _storage.loadSnapshotInputManifest(network, snapshot2).get("configs/b.cfg"),
+        equalTo(ContentBlobStore.hash(inputs1.resolve("configs/a.cfg"))));
+  }
+
+  @Test
+  public void testStoreConfigurationsSharesIdenticalFiles() throws IOException {
+    NetworkId network = new NetworkId("network");
+    SnapshotId snapshot1 = new SnapshotId("snapshot1");
+    SnapshotId snapshot2 = new SnapshotId("snapshot2");
+    Map<String, Configuration> configs =
+        ImmutableMap.of("node1", new Configuration("node1", ConfigurationFormat.CISCO_IOS));
+    _storage.storeConfigurations(
+        configs, new ConvertConfigurationAnswerElement(), null, network, snapshot1);
+    _storage.storeConfigurations(
+        configs, new ConvertConfigurationAnswerElement(), null, network, snapshot2);
+
+    assertTrue(
+        Files.isSameFile(
+            _storage
+                .getDirectoryProvider()
+                .getVendorIndependentConfigDir(network, snapshot1)
+                .resolve("node1"),
+            _storage
+                .getDirectoryProvider()
+                .getVendorIndependentConfigDir(network, snapshot2)
+                .resolve("node1")));
+    assertThat(_storage.loadConfigurations(network, snapshot2).keySet(), contains("node1"));
+  }
+
+  @Test
+  public void testGetSnapshotInputObjectsMetadata() throws IOException {
+    NetworkId network = new NetworkId("network");
+    SnapshotId snapshot = new SnapshotId("snapshot");
+    Path inputs = _folder.newFolder("inputs").toPath();
+    writeInput(inputs, "configs/a.cfg", "a");
+    writeInput(inputs, "hosts/h1.json", "host");
+    mkdirs(inputs.resolve("empty"));
+    _storage.storeSnapshotInputObjects(inputs, network, snapshot, null);
+
+    assertThat(
+        _storage.getSnapshotInputObjectsMetadata(network, snapshot),
+        containsInAnyOrder(
+            new StoredObjectMetadata(Paths.get("configs", "a.cfg").toString(), 1),
+            new StoredObjectMetadata(Paths.get("hosts", "h1.json").toString(), 4)));
+  }
 }
@@ -2,6 +2,7 @@ package org.batfish.storage;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Path;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -276,6 +277,15 @@ public class TestStorageProvider implements StorageProvider {
     throw new UnsupportedOperationException();
   }
 
+  @Override
+  public void storeSnapshotInputObjects(
+      Path inputDir,
+      NetworkId networkId,
+      SnapshotId snapshotId,
+      @Nullable SnapshotId baseSnapshotId) {
+    throw new UnsupportedOperationException();
+  }
+
   @Override
   public @Nonnull List<StoredObjectMetadata> getSnapshotExtendedObjectsMetadata(
       NetworkId networkId, SnapshotId snapshotId) {
@@ -385,4 +395,15 @@ public class TestStorageProvider implements StorageProvider {
   public void storeVxlanTopology(VxlanTopology vxlanTopology, NetworkSnapshot networkSnapshot) {
     throw new UnsupportedOperationException();
   }
+
+  @Override
+  public @Nonnull InputStream loadCachedTopology(NetworkSnapshot networkSnapshot, String key) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public void storeCachedTopology(
+      InputStream inputStream, NetworkSnapshot networkSnapshot, String key) {
+    throw new UnsupportedOperationException();
+  }
 }
@@ -1,7 +1,9 @@
 package org.batfish.bddreachability;
 
 import static org.batfish.bddreachability.BDDReachabilityUtils.backwardFixpoint;
+import static org.batfish.bddreachability.BDDReachabilityUtils.freeDistinct;
 import static org.batfish.bddreachability.BDDReachabilityUtils.getIngressLocationBdds;
+import static org.batfish.bddreachability.transition.Transitions.freeTransitResult;
 import static org.batfish.common.util.CollectionUtil.toImmutableMap;
 
 import com.google.common.collect.ImmutableMap;
@@ -9,8 +11,10 @@ import com.google.common.collect.Table;
 import io.opentracing.ActiveSpan;
 import io.opentracing.util.GlobalTracer;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -87,10 +91,16 @@ public class BDDLoopDetectionAnalysis {
       backwardFixpoint(_forwardEdgeTable, loopBDDs);
 
       /*
-       * Extract the ingress location BDDs.
+       * Extract the ingress location BDDs, and free everything else computed for this question.
        */
-      return getIngressLocationBdds(
-          loopBDDs, _ingressLocationStates, _bddPacket.getFactory().zero());
+      Map<IngressLocation, BDD> ingressLocationBdds =
+          getIngressLocationBdds(loopBDDs, _ingressLocationStates, _bddPacket.getFactory().zero());
+      Set<BDD> result = Collections.newSetFromMap(new IdentityHashMap<>());
+      result.addAll(ingressLocationBdds.values());
+      freeDistinct(
+          Stream.concat(reachableInNRounds.values().stream(), loopBDDs.values().stream())
+              .filter(bdd -> !result.contains(bdd)));
+      return ingressLocationBdds;
     }
   }
 
@@ -98,7 +108,6 @@ public class BDDLoopDetectionAnalysis {
     try (ActiveSpan span =
         GlobalTracer.get().buildSpan("BDDLoopDetectionAnalysis.propagate").startActive()) {
       assert span != null; // avoid unused warning
-      BDD zero = _bddPacket.getFactory().zero();
       Map<StateExpr, BDD> newReachableInNRounds = new HashMap<>();
       bdds.forEach(
           (source, sourceBdd) ->
@@ -106,11 +115,14 @@ public class BDDLoopDetectionAnalysis {
                   .row(source)
                   .forEach(
                       (target, transition) -> {
-                        BDD targetBdd = newReachableInNRounds.getOrDefault(target, zero);
-                        BDD newTragetBdd = targetBdd.or(transition.transitForward(sourceBdd));
-                        if (!newTragetBdd.isZero()) {
-                          newReachableInNRounds.put(target, newTragetBdd);
+                        BDD result = transition.transitForward(sourceBdd);
+                        if (result.isZero()) {
+                          freeTransitResult(result, sourceBdd);
+                          return;
                         }
+                        // Each target gets its own BDD, so that the caller can free it.
+                        newReachableInNRounds.merge(
+                            target, result == sourceBdd ? result.id() : result, BDD::orWith);
                       }));
       return newReachableInNRounds;
     }
@@ -128,43 +140,58 @@ public class BDDLoopDetectionAnalysis {
       Set<StateExpr> dirty = new HashSet<>(reachable.keySet());
 
       BDD zero = _bddPacket.getFactory().zero();
-      while (!dirty.isEmpty()) {
-        Set<StateExpr> newDirty = new HashSet<>();
-
-        dirty.forEach(
-            preState -> {
-              Map<StateExpr, Transition> preStateOutEdges = _forwardEdgeTable.row(preState);
-              if (preStateOutEdges == null) {
-                // preState has no out-edges
-                return;
-              }
-
-              BDD preStateBDD = reachable.get(preState);
-              preStateOutEdges.forEach(
-                  (postState, transition) -> {
-                    BDD result = transition.transitForward(preStateBDD);
-                    if (result.isZero()) {
-                      return;
-                    }
-
-                    // update postState BDD reverse-reachable from leaf
-                    BDD oldReach = reachable.getOrDefault(postState, zero);
-                    BDD newReach = oldReach == null ? result : oldReach.or(result);
-                    if (oldReach == null || !oldReach.equals(newReach)) {
+      try {
+        while (!dirty.isEmpty()) {
+          Set<StateExpr> newDirty = new HashSet<>();
+
+          dirty.forEach(
+              preState -> {
+                Map<StateExpr, Transition> preStateOutEdges = _forwardEdgeTable.row(preState);
+                if (preStateOutEdges == null) {
+                  // preState has no out-edges
+                  return;
+                }
+
+                BDD preStateBDD = reachable.get(preState);
+                preStateOutEdges.forEach(
+                    (postState, transition) -> {
+                      BDD result = transition.transitForward(preStateBDD);
+                      if (result.isZero()) {
+                        freeTransitResult(result, preStateBDD);
+                        return;
+                      }
+
+                      // update postState BDD reverse-reachable from leaf
+                      BDD oldReach = reachable.getOrDefault(postState, zero);
+                      BDD newReach = oldReach.or(result);
+                      freeTransitResult(result, preStateBDD);
+                      if (oldReach.equals(newReach)) {
+                        newReach.free();
+                        return;
+                      }
                       reachable.put(postState, newReach);
                       newDirty.add(postState);
-                    }
-                  });
-            });
-
-        dirty = newDirty;
-        if (dirty.contains(stateExpr)) {
-          if (reachable.get(stateExpr).andSat(bdd)) {
-            return true;
+                      // preStateBDD is still needed for its remaining edges; it is freed below.
+                      if (oldReach != zero && oldReach != preStateBDD) {
+                        oldReach.free();
+                      }
+                    });
+                if (reachable.get(preState) != preStateBDD) {
+                  preStateBDD.free();
+                }
+              });
+
+          dirty = newDirty;
+          if (dirty.contains(stateExpr)) {
+            if (reachable.get(stateExpr).andSat(bdd)) {
+              return true;
+            }
           }
         }
+        return false;
+      } finally {
+        freeDistinct(Stream.concat(reachable.values().stream(), Stream.of(zero)));
       }
-      return false;
     }
   }
 
@@ -179,7 +206,9 @@ public class BDDLoopDetectionAnalysis {
           toImmutableMap(_ingressLocationStates, Function.identity(), k -> one);
 
       for (int round = 0; !reachableInNRounds.isEmpty() && round < numRounds; round++) {
-        reachableInNRounds = propagate(reachableInNRounds);
+        Map<StateExpr, BDD> previousRound = reachableInNRounds;
+        reachableInNRounds = propagate(previousRound);
+        freeDistinct(previousRound.values().stream());
       }
       return reachableInNRounds;
     }
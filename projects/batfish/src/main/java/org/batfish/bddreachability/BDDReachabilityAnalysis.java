@@ -1,20 +1,30 @@
 package org.batfish.bddreachability;
 
 import static org.batfish.bddreachability.BDDReachabilityUtils.computeForwardEdgeTable;
+import static org.batfish.bddreachability.BDDReachabilityUtils.freeDistinct;
 import static org.batfish.bddreachability.BDDReachabilityUtils.getIngressLocationBdds;
+import static org.batfish.common.util.CollectionUtil.toImmutableMap;
+import static org.batfish.common.util.CommonUtil.forEachWithIndex;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Streams;
 import com.google.common.collect.Table;
 import io.opentracing.ActiveSpan;
 import io.opentracing.util.GlobalTracer;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Set;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 import net.sf.javabdd.BDD;
 import org.batfish.bddreachability.transition.Transition;
+import org.batfish.common.bdd.BDDInteger;
 import org.batfish.common.bdd.BDDPacket;
 import org.batfish.symbolic.IngressLocation;
 import org.batfish.symbolic.state.Query;
@@ -133,7 +143,82 @@ public class BDDReachabilityAnalysis {
 
   public Map<IngressLocation, BDD> getIngressLocationReachableBDDs() {
     Map<StateExpr, BDD> reverseReachableStates = computeReverseReachableStates();
-    return getIngressLocationBDDs(reverseReachableStates);
+    Map<IngressLocation, BDD> ingressLocationBdds = getIngressLocationBDDs(reverseReachableStates);
+    // The query headerspace belongs to the caller; the other sets were computed for this query
+    // and are not needed once its answer is extracted.
+    freeDistinct(
+        reverseReachableStates.entrySet().stream()
+            .filter(entry -> !_ingressLocationStates.contains(entry.getKey()))
+            .map(Entry::getValue)
+            .filter(bdd -> bdd != _queryHeaderSpaceBdd));
+    return ingressLocationBdds;
+  }
+
+  /**
+   * Answer many reverse reachability queries with a single backward fixpoint. Each query is given
+   * by its roots, as in {@link #computeReverseReachableStates(Map)}: e.g. the disposition states it
+   * is interested in, each constrained to the query headerspace. Returns, for each query, the
+   * packets at each ingress location that can reach one of its roots.
+   *
+   * <p>Each query is tagged with its own value of the packet's {@link BDDPacket#getQueryId() query
+   * ID variable}, which no transition constrains or erases. So the fixpoint computes the reachable
+   * sets of all queries at once, and the set for each query is recovered by restricting to its ID.
+   * When the queries share most of the graph, this is much cheaper than one fixpoint per query.
+   * Queries beyond the number of IDs the variable can represent are answered in further batches.
+   */
+  public <K> Map<K, Map<IngressLocation, BDD>> getIngressLocationReachableBDDs(
+      Map<K, Map<StateExpr, BDD>> queryRoots) {
+    try (ActiveSpan span =
+        GlobalTracer.get()
+            .buildSpan("BDDReachabilityAnalysis.getIngressLocationReachableBDDs (batch)")
+            .startActive()) {
+      assert span != null; // avoid unused warning
+      BDDInteger queryIdVar = _bddPacket.getQueryId();
+      int maxBatchSize = 1 << queryIdVar.getBitvec().length;
+      ImmutableMap.Builder<K, Map<IngressLocation, BDD>> ingressLocationBdds =
+          ImmutableMap.builder();
+      for (List<K> batch : Iterables.partition(queryRoots.keySet(), maxBatchSize)) {
+        ingressLocationBdds.putAll(getIngressLocationReachableBDDs(batch, queryRoots, queryIdVar));
+      }
+      return ingressLocationBdds.build();
+    }
+  }
+
+  /** Answer the given queries with a single backward fixpoint, tagging the i-th with ID i. */
+  private <K> Map<K, Map<IngressLocation, BDD>> getIngressLocationReachableBDDs(
+      List<K> batch, Map<K, Map<StateExpr, BDD>> queryRoots, BDDInteger queryIdVar) {
+    List<BDD> queryIds =
+        IntStream.range(0, batch.size())
+            .mapToObj(queryIdVar::value)
+            .collect(ImmutableList.toImmutableList());
+    Map<StateExpr, BDD> roots = new HashMap<>();
+    forEachWithIndex(
+        batch,
+        (i, query) ->
+            queryRoots
+                .get(query)
+                .forEach(
+                    (state, bdd) -> roots.merge(state, bdd.and(queryIds.get(i)), BDD::orWith)));
+    Map<StateExpr, BDD> taggedReachableStates = computeReverseReachableStates(roots);
+    Map<IngressLocation, BDD> taggedIngressLocationBdds =
+        getIngressLocationBDDs(taggedReachableStates);
+    ImmutableMap.Builder<K, Map<IngressLocation, BDD>> ingressLocationBdds = ImmutableMap.builder();
+    forEachWithIndex(
+        batch,
+        (i, query) ->
+            ingressLocationBdds.put(
+                query,
+                toImmutableMap(
+                    taggedIngressLocationBdds,
+                    Entry::getKey,
+                    e -> e.getValue().restrict(queryIds.get(i)))));
+    // All the tagged sets, including the roots, were computed for this batch.
+    freeDistinct(
+        Streams.concat(
+            taggedReachableStates.values().stream(),
+            taggedIngressLocationBdds.values().stream(),
+            queryIds.stream()));
+    return ingressLocationBdds.build();
   }
 
   private Map<IngressLocation, BDD> getIngressLocationBDDs(
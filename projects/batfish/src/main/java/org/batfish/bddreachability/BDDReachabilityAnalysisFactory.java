@@ -29,8 +29,10 @@ import com.google.common.collect.Streams;
 import io.opentracing.ActiveSpan;
 import io.opentracing.util.GlobalTracer;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -551,34 +553,35 @@ public final class BDDReachabilityAnalysisFactory {
   }
 
   private static Stream<Edge> generateQueryEdges(Set<FlowDisposition> actions) {
-    return actions.stream()
-        .map(
-            action -> {
-              switch (action) {
-                case ACCEPTED:
-                  return new Edge(Accept.INSTANCE, Query.INSTANCE);
-                case DENIED_IN:
-                  return new Edge(DropAclIn.INSTANCE, Query.INSTANCE);
-                case DENIED_OUT:
-                  return new Edge(DropAclOut.INSTANCE, Query.INSTANCE);
-                case LOOP:
-                  throw new BatfishException("FlowDisposition LOOP is unsupported");
-                case NEIGHBOR_UNREACHABLE:
-                  return new Edge(NeighborUnreachable.INSTANCE, Query.INSTANCE);
-                case DELIVERED_TO_SUBNET:
-                  return new Edge(DeliveredToSubnet.INSTANCE, Query.INSTANCE);
-                case EXITS_NETWORK:
-                  return new Edge(ExitsNetwork.INSTANCE, Query.INSTANCE);
-                case INSUFFICIENT_INFO:
-                  return new Edge(InsufficientInfo.INSTANCE, Query.INSTANCE);
-                case NO_ROUTE:
-                  return new Edge(DropNoRoute.INSTANCE, Query.INSTANCE);
-                case NULL_ROUTED:
-                  return new Edge(DropNullRoute.INSTANCE, Query.INSTANCE);
-                default:
-                  throw new BatfishException("Unknown FlowDisposition " + action.toString());
-              }
-            });
+    return actions.stream().map(action -> new Edge(dispositionState(action), Query.INSTANCE));
+  }
+
+  /** The state that flows with the given disposition reach. */
+  private static StateExpr dispositionState(FlowDisposition action) {
+    switch (action) {
+      case ACCEPTED:
+        return Accept.INSTANCE;
+      case DENIED_IN:
+        return DropAclIn.INSTANCE;
+      case DENIED_OUT:
+        return DropAclOut.INSTANCE;
+      case LOOP:
+        throw new BatfishException("FlowDisposition LOOP is unsupported");
+      case NEIGHBOR_UNREACHABLE:
+        return NeighborUnreachable.INSTANCE;
+      case DELIVERED_TO_SUBNET:
+        return DeliveredToSubnet.INSTANCE;
+      case EXITS_NETWORK:
+        return ExitsNetwork.INSTANCE;
+      case INSUFFICIENT_INFO:
+        return InsufficientInfo.INSTANCE;
+      case NO_ROUTE:
+        return DropNoRoute.INSTANCE;
+      case NULL_ROUTED:
+        return DropNullRoute.INSTANCE;
+      default:
+        throw new BatfishException("Unknown FlowDisposition " + action.toString());
+    }
   }
 
   private Stream<Edge> generateRootEdges_OriginateInterfaceLink_PreInInterface(
@@ -1180,11 +1183,27 @@ public final class BDDReachabilityAnalysisFactory {
   }
 
   public BDDLoopDetectionAnalysis bddLoopDetectionAnalysis(IpSpaceAssignment srcIpSpaceAssignment) {
-    Map<StateExpr, BDD> ingressLocationStates = rootConstraints(srcIpSpaceAssignment, _one);
+    return bddLoopDetectionAnalysis(rootConstraints(srcIpSpaceAssignment, _one));
+  }
+
+  private BDDLoopDetectionAnalysis bddLoopDetectionAnalysis(
+      Map<StateExpr, BDD> ingressLocationStates) {
     Stream<Edge> edges = Stream.concat(generateEdges(), generateRootEdges(ingressLocationStates));
     return new BDDLoopDetectionAnalysis(_bddPacket, edges, ingressLocationStates.keySet());
   }
 
+  /**
+   * Find the packets at each ingress location that loop. Unlike {@link
+   * #bddLoopDetectionAnalysis(IpSpaceAssignment)}, frees the BDDs computed for the query, so it may
+   * be used with a packet that outlives the query.
+   */
+  public Map<IngressLocation, BDD> detectLoops(IpSpaceAssignment srcIpSpaceAssignment) {
+    Map<StateExpr, BDD> roots = rootConstraints(srcIpSpaceAssignment, _one);
+    Map<IngressLocation, BDD> loopBdds = bddLoopDetectionAnalysis(roots).detectLoops();
+    freeQueryBdds(loopBdds.values().stream(), roots.values().stream());
+    return loopBdds;
+  }
+
   /**
    * Given a set of parameters finds a {@link Map} of {@link IngressLocation}s to {@link BDD}s while
    * including the results for {@link FlowDisposition#LOOP} if required
@@ -1216,42 +1235,51 @@ public final class BDDReachabilityAnalysisFactory {
 
       if (nonLoopActions.isEmpty()) {
         // since actions is not empty, loopIncluded must be true. Thus just detect loops
-        return bddLoopDetectionAnalysis(srcIpSpaceAssignment).detectLoops();
-      } else if (!loopIncluded) {
+        return detectLoops(srcIpSpaceAssignment);
+      }
+
+      BDD initialHeaderSpaceBdd = computeInitialHeaderSpaceBdd(initialHeaderSpace);
+      BDD finalHeaderSpaceBdd = computeFinalHeaderSpaceBdd(initialHeaderSpaceBdd);
+      Map<StateExpr, BDD> roots = rootConstraints(srcIpSpaceAssignment, initialHeaderSpaceBdd);
+      Map<IngressLocation, BDD> ingressLocationBdds;
+      if (!loopIncluded) {
         // only reachability, no loop detection
-        return bddReachabilityAnalysis(
-                srcIpSpaceAssignment,
-                initialHeaderSpace,
-                forbiddenTransitNodes,
-                requiredTransitNodes,
-                finalNodes,
-                nonLoopActions)
-            .getIngressLocationReachableBDDs();
+        ingressLocationBdds =
+            bddReachabilityAnalysis(
+                    roots,
+                    finalHeaderSpaceBdd,
+                    forbiddenTransitNodes,
+                    requiredTransitNodes,
+                    finalNodes,
+                    nonLoopActions)
+                .getIngressLocationReachableBDDs();
       } else {
         // both reachability and loop detection
-        return bddReachabilityAndLoopDetectionAnalysis(
-                srcIpSpaceAssignment,
-                initialHeaderSpace,
-                forbiddenTransitNodes,
-                requiredTransitNodes,
-                finalNodes,
-                nonLoopActions)
-            .getIngressLocationBdds();
+        ingressLocationBdds =
+            bddReachabilityAndLoopDetectionAnalysis(
+                    roots,
+                    finalHeaderSpaceBdd,
+                    forbiddenTransitNodes,
+                    requiredTransitNodes,
+                    finalNodes,
+                    nonLoopActions)
+                .getIngressLocationBdds();
       }
+      freeQueryBdds(
+          ingressLocationBdds.values().stream(),
+          Streams.concat(
+              Stream.of(initialHeaderSpaceBdd, finalHeaderSpaceBdd), roots.values().stream()));
+      return ingressLocationBdds;
     }
   }
 
   private BDDReachabilityAndLoopDetectionAnalysis bddReachabilityAndLoopDetectionAnalysis(
-      IpSpaceAssignment srcIpSpaceAssignment,
-      AclLineMatchExpr initialHeaderSpace,
+      Map<StateExpr, BDD> roots,
+      BDD finalHeaderSpaceBdd,
       Set<String> forbiddenTransitNodes,
       Set<String> requiredTransitNodes,
       Set<String> finalNodes,
       Set<FlowDisposition> actions) {
-    BDD initialHeaderSpaceBdd = computeInitialHeaderSpaceBdd(initialHeaderSpace);
-    BDD finalHeaderSpaceBdd = computeFinalHeaderSpaceBdd(initialHeaderSpaceBdd);
-    Map<StateExpr, BDD> roots = rootConstraints(srcIpSpaceAssignment, initialHeaderSpaceBdd);
-
     List<Edge> sharedEdges =
         Stream.concat(generateEdges(), generateRootEdges(roots)).collect(Collectors.toList());
 
@@ -1302,25 +1330,146 @@ public final class BDDReachabilityAnalysisFactory {
 
       Map<StateExpr, BDD> roots = rootConstraints(srcIpSpaceAssignment, initialHeaderSpaceBdd);
 
-      Stream<Edge> edgeStream =
+      return bddReachabilityAnalysis(
+          roots,
+          finalHeaderSpaceBdd,
+          forbiddenTransitNodes,
+          requiredTransitNodes,
+          finalNodes,
+          actions);
+    }
+  }
+
+  private BDDReachabilityAnalysis bddReachabilityAnalysis(
+      Map<StateExpr, BDD> roots,
+      BDD finalHeaderSpaceBdd,
+      Set<String> forbiddenTransitNodes,
+      Set<String> requiredTransitNodes,
+      Set<String> finalNodes,
+      Set<FlowDisposition> actions) {
+    Stream<Edge> edgeStream =
+        Streams.concat(
+            generateEdges(),
+            generateRootEdges(roots),
+            generateDispositionEdges(finalNodes),
+            generateQueryEdges(actions));
+    edgeStream = instrumentForbiddenTransitNodes(forbiddenTransitNodes, edgeStream);
+    edgeStream = instrumentRequiredTransitNodes(requiredTransitNodes, edgeStream);
+
+    return new BDDReachabilityAnalysis(_bddPacket, roots.keySet(), edgeStream, finalHeaderSpaceBdd);
+  }
+
+  /**
+   * Answer several reachability queries that differ only in their actions, with a single backward
+   * fixpoint over the shared graph (see {@link
+   * BDDReachabilityAnalysis#getIngressLocationReachableBDDs(Map)}), plus a single loop detection if
+   * any query includes {@link FlowDisposition#LOOP}. The result for each query is the same as that
+   * of {@link #getAllBDDs} with its actions.
+   */
+  public <K> Map<K, Map<IngressLocation, BDD>> getAllBDDs(
+      IpSpaceAssignment srcIpSpaceAssignment,
+      AclLineMatchExpr initialHeaderSpace,
+      Set<String> forbiddenTransitNodes,
+      Set<String> requiredTransitNodes,
+      Set<String> finalNodes,
+      Map<K, Set<FlowDisposition>> queryActions) {
+    checkArgument(!finalNodes.isEmpty(), "final nodes cannot be empty");
+    try (ActiveSpan span =
+        GlobalTracer.get()
+            .buildSpan("BDDReachabilityAnalysisFactory.getAllBDDs (batch)")
+            .startActive()) {
+      assert span != null; // avoid unused warning
+      BDD initialHeaderSpaceBdd = computeInitialHeaderSpaceBdd(initialHeaderSpace);
+      BDD finalHeaderSpaceBdd = computeFinalHeaderSpaceBdd(initialHeaderSpaceBdd);
+      Map<StateExpr, BDD> roots = rootConstraints(srcIpSpaceAssignment, initialHeaderSpaceBdd);
+
+      List<Edge> sharedEdges =
+          Stream.concat(generateEdges(), generateRootEdges(roots)).collect(Collectors.toList());
+
+      // No query edges: each query starts from its disposition states instead of the query state.
+      Stream<Edge> reachabilityEdges =
+          Stream.concat(sharedEdges.stream(), generateDispositionEdges(finalNodes));
+      reachabilityEdges = instrumentForbiddenTransitNodes(forbiddenTransitNodes, reachabilityEdges);
+      reachabilityEdges = instrumentRequiredTransitNodes(requiredTransitNodes, reachabilityEdges);
+      BDDReachabilityAnalysis reachabilityAnalysis =
+          new BDDReachabilityAnalysis(
+              _bddPacket, roots.keySet(), reachabilityEdges, finalHeaderSpaceBdd);
+
+      // Same constraint as the edges into the query state
+      BDD dispositionHeaderSpaceBdd =
+          requiredTransitNodes.isEmpty()
+              ? finalHeaderSpaceBdd
+              : finalHeaderSpaceBdd.and(_requiredTransitNodeBDD);
+      Map<K, Map<StateExpr, BDD>> queryRoots =
+          toImmutableMap(
+              queryActions,
+              Entry::getKey,
+              entry ->
+                  entry.getValue().stream()
+                      .filter(action -> action != LOOP)
+                      .collect(
+                          ImmutableMap.toImmutableMap(
+                              BDDReachabilityAnalysisFactory::dispositionState,
+                              action -> dispositionHeaderSpaceBdd)));
+      Map<K, Map<IngressLocation, BDD>> reachableBdds =
+          reachabilityAnalysis.getIngressLocationReachableBDDs(queryRoots);
+      Stream<BDD> queryBdds =
           Streams.concat(
-              generateEdges(),
-              generateRootEdges(roots),
-              generateDispositionEdges(finalNodes),
-              generateQueryEdges(actions));
-      edgeStream = instrumentForbiddenTransitNodes(forbiddenTransitNodes, edgeStream);
-      edgeStream = instrumentRequiredTransitNodes(requiredTransitNodes, edgeStream);
+              Stream.of(initialHeaderSpaceBdd, finalHeaderSpaceBdd, dispositionHeaderSpaceBdd),
+              roots.values().stream());
+      if (queryActions.values().stream().noneMatch(actions -> actions.contains(LOOP))) {
+        freeQueryBdds(
+            reachableBdds.values().stream().flatMap(bdds -> bdds.values().stream()), queryBdds);
+        return reachableBdds;
+      }
 
-      return new BDDReachabilityAnalysis(
-          _bddPacket, roots.keySet(), edgeStream, finalHeaderSpaceBdd);
+      Map<IngressLocation, BDD> loopBdds =
+          new BDDLoopDetectionAnalysis(_bddPacket, sharedEdges.stream(), roots.keySet())
+              .detectLoops();
+      Map<K, Map<IngressLocation, BDD>> ingressLocationBdds =
+          toImmutableMap(
+              reachableBdds,
+              Entry::getKey,
+              entry ->
+                  queryActions.get(entry.getKey()).contains(LOOP)
+                      ? toImmutableMap(
+                          entry.getValue(),
+                          Entry::getKey,
+                          e -> e.getValue().or(loopBdds.get(e.getKey())))
+                      : entry.getValue());
+      // Both maps may share their zero default across locations, so free the operands only now.
+      BDDReachabilityUtils.freeDistinct(
+          Stream.concat(
+              loopBdds.values().stream(),
+              reachableBdds.entrySet().stream()
+                  .filter(entry -> queryActions.get(entry.getKey()).contains(LOOP))
+                  .flatMap(entry -> entry.getValue().values().stream())));
+      freeQueryBdds(
+          ingressLocationBdds.values().stream().flatMap(bdds -> bdds.values().stream()), queryBdds);
+      return ingressLocationBdds;
     }
   }
 
+  /**
+   * Free the BDDs computed for a query, such as its headerspaces and root constraints, once its
+   * answer is extracted. The packet outlives the query when the factory is cached, so the nodes of
+   * these BDDs would otherwise stay in use. BDDs that are part of the answer are kept.
+   */
+  private static void freeQueryBdds(Stream<BDD> answerBdds, Stream<BDD> queryBdds) {
+    Set<BDD> answer = Collections.newSetFromMap(new IdentityHashMap<>());
+    answerBdds.forEach(answer::add);
+    BDDReachabilityUtils.freeDistinct(queryBdds.filter(bdd -> !answer.contains(bdd)));
+  }
+
+  /**
+   * Compute the space of initial headers. The result is a copy owned by the caller, since the
+   * conversion may return a BDD memoized by the packet, e.g. for an unconstrained headerspace.
+   */
   private BDD computeInitialHeaderSpaceBdd(AclLineMatchExpr initialHeaderSpace) {
     IpAccessListToBdd ipAccessListToBdd =
         new MemoizedIpAccessListToBdd(
             _bddPacket, BDDSourceManager.empty(_bddPacket), ImmutableMap.of(), ImmutableMap.of());
-    return ipAccessListToBdd.toBdd(initialHeaderSpace);
+    return ipAccessListToBdd.toBdd(initialHeaderSpace).id();
   }
 
   /**
@@ -1342,9 +1491,11 @@ public final class BDDReachabilityAnalysisFactory {
         BDD dstTransformationRange = _transformationIpRanges.get(IpField.DESTINATION);
         if (dstTransformationRange != null) {
           // dst IP is either the initial one, or one of that NAT pool IPs.
-          finalHeaderSpace = finalHeaderSpace.or(noDstIp.and(dstTransformationRange));
+          finalHeaderSpace =
+              orFree(finalHeaderSpace, initialHeaderSpaceBdd, noDstIp.and(dstTransformationRange));
         }
       }
+      noDstIp.free();
 
       BDD noSrcIp = finalHeaderSpace.exist(_sourceIpVars);
       if (!noSrcIp.equals(finalHeaderSpace)) {
@@ -1356,30 +1507,50 @@ public final class BDDReachabilityAnalysisFactory {
            * existentially quantify away the constraint. There's a performance trade-off: tighter
            * constraints prune more paths, but are more expensive to operate on.
            */
-          finalHeaderSpace = finalHeaderSpace.or(noSrcIp.and(srcNatPoolIps));
+          finalHeaderSpace =
+              orFree(finalHeaderSpace, initialHeaderSpaceBdd, noSrcIp.and(srcNatPoolIps));
         }
       }
+      noSrcIp.free();
 
       BDD noDstPort = finalHeaderSpace.exist(_dstPortVars);
       if (!noDstPort.equals(finalHeaderSpace)) {
         BDD dstTransformationRange = _transformationPortRanges.get(PortField.DESTINATION);
         if (dstTransformationRange != null) {
-          finalHeaderSpace = finalHeaderSpace.or(noDstPort.and(dstTransformationRange));
+          finalHeaderSpace =
+              orFree(
+                  finalHeaderSpace, initialHeaderSpaceBdd, noDstPort.and(dstTransformationRange));
         }
       }
+      noDstPort.free();
 
       BDD noSrcPort = finalHeaderSpace.exist(_sourcePortVars);
       if (!noSrcPort.equals(finalHeaderSpace)) {
         BDD srcNatPool = _transformationPortRanges.getOrDefault(PortField.SOURCE, _zero);
         if (!srcNatPool.isZero()) {
-          finalHeaderSpace = finalHeaderSpace.or(noSrcPort.and(srcNatPool));
+          finalHeaderSpace =
+              orFree(finalHeaderSpace, initialHeaderSpaceBdd, noSrcPort.and(srcNatPool));
         }
       }
+      noSrcPort.free();
 
       return finalHeaderSpace;
     }
   }
 
+  /**
+   * Returns {@code headerSpace or other}, freeing {@code other}, and {@code headerSpace} unless it
+   * is the caller's {@code initialHeaderSpace}.
+   */
+  private static BDD orFree(BDD headerSpace, BDD initialHeaderSpace, BDD other) {
+    BDD result = headerSpace.or(other);
+    other.free();
+    if (headerSpace != initialHeaderSpace) {
+      headerSpace.free();
+    }
+    return result;
+  }
+
   /**
    * Create a {@link BDDReachabilityAnalysis} with the given {@link BDDFirewallSessionTraceInfo
    * sessions}.
@@ -1563,8 +1734,10 @@ public final class BDDReachabilityAnalysisFactory {
 
       // convert Locations to StateExprs, and merge srcIp constraints
       Map<StateExpr, BDD> rootConstraints = new HashMap<>();
+      Set<BDD> srcIpSpaceBDDs = Collections.newSetFromMap(new IdentityHashMap<>());
       for (IpSpaceAssignment.Entry entry : srcIpSpaceAssignment.getEntries()) {
         BDD srcIpSpaceBDD = entry.getIpSpace().accept(srcIpSpaceToBDD);
+        srcIpSpaceBDDs.add(srcIpSpaceBDD);
         entry.getLocations().stream()
             .map(locationToStateExpr::visit)
             .filter(Optional::isPresent)
@@ -1573,14 +1746,21 @@ public final class BDDReachabilityAnalysisFactory {
       }
 
       // add the global initial HeaderSpace and remove unsat entries
-      Map<StateExpr, BDD> finalRootConstraints =
-          rootConstraints.entrySet().stream()
-              .map(
-                  entry ->
-                      Maps.immutableEntry(
-                          entry.getKey(), entry.getValue().and(initialHeaderSpaceBdd)))
-              .filter(entry -> !entry.getValue().isZero())
-              .collect(ImmutableMap.toImmutableMap(Entry::getKey, Entry::getValue));
+      ImmutableMap.Builder<StateExpr, BDD> finalRootConstraintsBuilder = ImmutableMap.builder();
+      rootConstraints.forEach(
+          (root, srcIpConstraint) -> {
+            BDD rootConstraint = srcIpConstraint.and(initialHeaderSpaceBdd);
+            if (rootConstraint.isZero()) {
+              rootConstraint.free();
+            } else {
+              finalRootConstraintsBuilder.put(root, rootConstraint);
+            }
+          });
+      Map<StateExpr, BDD> finalRootConstraints = finalRootConstraintsBuilder.build();
+      // The merged srcIp constraints are no longer needed. The unmerged ones may be memoized by the
+      // packet's srcIpSpaceToBDD, so they are kept.
+      BDDReachabilityUtils.freeDistinct(
+          rootConstraints.values().stream().filter(bdd -> !srcIpSpaceBDDs.contains(bdd)));
 
       // make sure there is at least one possible source
       checkArgument(
@@ -1733,6 +1913,10 @@ public final class BDDReachabilityAnalysisFactory {
     }
   }
 
+  public BDDPacket getBDDPacket() {
+    return _bddPacket;
+  }
+
   public Map<String, BDDSourceManager> getBDDSourceManagers() {
     return _bddSourceManagers;
   }
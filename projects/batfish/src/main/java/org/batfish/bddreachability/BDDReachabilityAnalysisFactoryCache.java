@@ -0,0 +1,139 @@
+package org.batfish.bddreachability;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+
+import com.google.common.annotations.VisibleForTesting;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Supplier;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import net.sf.javabdd.BDDFactory;
+import org.batfish.common.NetworkSnapshot;
+
+/**
+ * Cache of {@link BDDReachabilityAnalysisFactory factories} by snapshot, so that consecutive
+ * reachability questions on the same snapshot share the reachability graph (ACL, FIB, and NAT BDDs,
+ * and the edges built from them) and only add their own root and query edges.
+ *
+ * <p>Each factory is weighed by the memory of the BDD factory of its {@link
+ * org.batfish.common.bdd.BDDPacket}: the size of its node table plus that of its operator caches,
+ * in entries. The node table never shrinks, so this is the memory the factory holds even after the
+ * BDDs of a question are freed. Questions can grow the table of the factory they use, so the
+ * weights are recomputed on every access, and factories are evicted in least-recently-used order
+ * while the total weight exceeds the budget. A factory whose packet has outgrown the budget on its
+ * own is therefore replaced by a fresh one on its next use.
+ *
+ * <p>A cached factory and the BDDs computed from it are not thread-safe. The cache may only be
+ * shared by computations that do not run concurrently, e.g. the tasks of a single worker.
+ */
+@ParametersAreNonnullByDefault
+public final class BDDReachabilityAnalysisFactoryCache {
+
+  /**
+   * Create a cache holding factories with a total of at most {@code maxBddNodes} BDD node table and
+   * operator cache entries in their packets.
+   */
+  public static @Nonnull BDDReachabilityAnalysisFactoryCache create(long maxBddNodes) {
+    return new BDDReachabilityAnalysisFactoryCache(maxBddNodes);
+  }
+
+  private final long _maxBddNodes;
+
+  /** Factories in least-recently-used order. */
+  private final Map<Key, BDDReachabilityAnalysisFactory> _factories;
+
+  private BDDReachabilityAnalysisFactoryCache(long maxBddNodes) {
+    _maxBddNodes = maxBddNodes;
+    _factories = new LinkedHashMap<>(16, 0.75f, true);
+  }
+
+  /**
+   * Return the cached factory for the given snapshot and {@code ignoreFilters} setting, creating
+   * and caching it with {@code factorySupplier} if absent.
+   */
+  public synchronized @Nonnull BDDReachabilityAnalysisFactory get(
+      NetworkSnapshot snapshot,
+      boolean ignoreFilters,
+      Supplier<BDDReachabilityAnalysisFactory> factorySupplier) {
+    // Account for the nodes previous questions added before deciding whether to reuse a factory.
+    evictOverBudget();
+    Key key = new Key(snapshot, ignoreFilters);
+    BDDReachabilityAnalysisFactory factory = _factories.get(key);
+    if (factory == null) {
+      factory = factorySupplier.get();
+      _factories.put(key, factory);
+      evictOverBudget();
+    }
+    return factory;
+  }
+
+  /** Discard all factories for the given snapshot, e.g. because its data plane changed. */
+  public synchronized void invalidate(NetworkSnapshot snapshot) {
+    _factories.remove(new Key(snapshot, false));
+    _factories.remove(new Key(snapshot, true));
+  }
+
+  @VisibleForTesting
+  synchronized long size() {
+    return _factories.size();
+  }
+
+  /** Evict least-recently-used factories until their current total weight fits the budget. */
+  private void evictOverBudget() {
+    long totalWeight =
+        _factories.values().stream().mapToLong(BDDReachabilityAnalysisFactoryCache::weigh).sum();
+    Iterator<BDDReachabilityAnalysisFactory> leastRecentlyUsed = _factories.values().iterator();
+    while (totalWeight > _maxBddNodes && leastRecentlyUsed.hasNext()) {
+      totalWeight -= weigh(leastRecentlyUsed.next());
+      leastRecentlyUsed.remove();
+    }
+  }
+
+  /** The number of operator caches of a {@link net.sf.javabdd.JFactory}, each of the same size */
+  private static final int OPERATOR_CACHES = 7;
+
+  @VisibleForTesting
+  static long weigh(BDDReachabilityAnalysisFactory factory) {
+    BDDFactory bddFactory = factory.getBDDPacket().getFactory();
+    return bddFactory.getNodeTableSize() + (long) OPERATOR_CACHES * bddFactory.getCacheSize();
+  }
+
+  private static final class Key {
+    private final @Nonnull NetworkSnapshot _snapshot;
+    private final boolean _ignoreFilters;
+
+    private Key(NetworkSnapshot snapshot, boolean ignoreFilters) {
+      _snapshot = snapshot;
+      _ignoreFilters = ignoreFilters;
+    }
+
+    @Override
+    public boolean equals(@Nullable Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof Key)) {
+        return false;
+      }
+      Key key = (Key) o;
+      return _ignoreFilters == key._ignoreFilters && _snapshot.equals(key._snapshot);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(_snapshot, _ignoreFilters);
+    }
+
+    @Override
+    public String toString() {
+      return toStringHelper(this)
+          .add("snapshot", _snapshot)
+          .add("ignoreFilters", _ignoreFilters)
+          .toString();
+    }
+  }
+}
@@ -1,8 +1,13 @@
 package org.batfish.bddreachability;
 
+import static org.batfish.bddreachability.BDDReachabilityUtils.freeDistinct;
+
 import com.google.common.collect.ImmutableMap;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
 import java.util.stream.Stream;
 import net.sf.javabdd.BDD;
 import org.batfish.symbolic.IngressLocation;
@@ -24,9 +29,18 @@ public class BDDReachabilityAndLoopDetectionAnalysis {
   }
 
   public Map<IngressLocation, BDD> getIngressLocationBdds() {
-    return Stream.concat(
-            _reachabilityAnalysis.getIngressLocationReachableBDDs().entrySet().stream(),
-            _loopDetectionAnalysis.detectLoops().entrySet().stream())
-        .collect(ImmutableMap.toImmutableMap(Entry::getKey, Entry::getValue, BDD::or));
+    Map<IngressLocation, BDD> reachableBdds =
+        _reachabilityAnalysis.getIngressLocationReachableBDDs();
+    Map<IngressLocation, BDD> loopBdds = _loopDetectionAnalysis.detectLoops();
+    Map<IngressLocation, BDD> ingressLocationBdds =
+        Stream.concat(reachableBdds.entrySet().stream(), loopBdds.entrySet().stream())
+            .collect(ImmutableMap.toImmutableMap(Entry::getKey, Entry::getValue, BDD::or));
+    // Free the BDDs that were merged into new ones.
+    Set<BDD> result = Collections.newSetFromMap(new IdentityHashMap<>());
+    result.addAll(ingressLocationBdds.values());
+    freeDistinct(
+        Stream.concat(reachableBdds.values().stream(), loopBdds.values().stream())
+            .filter(bdd -> !result.contains(bdd)));
+    return ingressLocationBdds;
   }
 }
@@ -11,7 +11,9 @@ import com.google.common.collect.Table;
 import com.google.common.collect.Tables;
 import io.opentracing.ActiveSpan;
 import io.opentracing.util.GlobalTracer;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Map;
 import java.util.Set;
 import java.util.function.BiFunction;
@@ -44,7 +46,13 @@ public final class BDDReachabilityUtils {
             (t1, t2) -> Transitions.or(t1, t2)));
   }
 
-  /** Apply edges to the reachableSets until a fixed point is reached. */
+  /**
+   * Apply edges to the reachableSets until a fixed point is reached.
+   *
+   * <p>Intermediate BDDs are freed as soon as they are no longer needed: transition results once
+   * they are merged into a reachable set, and reachable sets computed here once they are replaced
+   * by larger ones. The BDDs initially in {@code reachableSets} are never freed.
+   */
   @VisibleForTesting
   static void fixpoint(
       Map<StateExpr, BDD> reachableSets,
@@ -54,6 +62,8 @@ public final class BDDReachabilityUtils {
         GlobalTracer.get().buildSpan("BDDReachabilityAnalysis.fixpoint").startActive()) {
       assert span != null; // avoid unused warning
       Set<StateExpr> dirtyStates = ImmutableSet.copyOf(reachableSets.keySet());
+      // The reachable sets created here rather than by the caller, which are safe to free.
+      Set<BDD> computedSets = Collections.newSetFromMap(new IdentityHashMap<>());
 
       while (!dirtyStates.isEmpty()) {
         Set<StateExpr> newDirtyStates = new HashSet<>();
@@ -71,17 +81,38 @@ public final class BDDReachabilityUtils {
                   (neighbor, edge) -> {
                     BDD result = traverse.apply(edge, dirtyStateBDD);
                     if (result.isZero()) {
+                      Transitions.freeTransitResult(result, dirtyStateBDD);
                       return;
                     }
 
                     // update neighbor's reachable set
                     BDD oldReach = reachableSets.get(neighbor);
-                    BDD newReach = oldReach == null ? result : oldReach.or(result);
-                    if (oldReach == null || !oldReach.equals(newReach)) {
+                    if (oldReach == null) {
+                      // Each reachable set gets its own BDD, so that it can be freed on its own.
+                      BDD newReach = result == dirtyStateBDD ? result.id() : result;
                       reachableSets.put(neighbor, newReach);
+                      computedSets.add(newReach);
                       newDirtyStates.add(neighbor);
+                      return;
+                    }
+                    BDD newReach = oldReach.or(result);
+                    Transitions.freeTransitResult(result, dirtyStateBDD);
+                    if (oldReach.equals(newReach)) {
+                      newReach.free();
+                      return;
+                    }
+                    reachableSets.put(neighbor, newReach);
+                    computedSets.add(newReach);
+                    newDirtyStates.add(neighbor);
+                    // dirtyStateBDD is still needed for its remaining edges; it is freed below.
+                    if (oldReach != dirtyStateBDD && computedSets.remove(oldReach)) {
+                      oldReach.free();
                     }
                   });
+              if (reachableSets.get(dirtyState) != dirtyStateBDD
+                  && computedSets.remove(dirtyStateBDD)) {
+                dirtyStateBDD.free();
+              }
             });
 
         dirtyStates = newDirtyStates;
@@ -122,6 +153,18 @@ public final class BDDReachabilityUtils {
         stateExpr -> stateReachableBdds.getOrDefault(stateExpr, zero));
   }
 
+  /**
+   * Free each of the given BDDs once, even if it occurs several times. Used to free the reachable
+   * sets computed for a question as soon as its answer is extracted: the packet is usually shared
+   * with later questions (see {@link BDDReachabilityAnalysisFactoryCache}), so leaving them
+   * allocated would grow its node table with every question. {@link #fixpoint} gives each state its
+   * own BDD, so the sets it computes are not referenced anywhere else.
+   */
+  public static void freeDistinct(Stream<BDD> bdds) {
+    Set<BDD> freed = Collections.newSetFromMap(new IdentityHashMap<>());
+    bdds.filter(freed::add).forEach(BDD::free);
+  }
+
   public static BDD computePortTransformationProtocolsBdd(BDDIpProtocol ipProtocol) {
     return AssignPortFromPool.PORT_TRANSFORMATION_PROTOCOLS.stream()
         .map(ipProtocol::value)
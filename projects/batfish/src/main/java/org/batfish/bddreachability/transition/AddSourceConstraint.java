@@ -44,6 +44,6 @@ public final class AddSourceConstraint implements Transition {
 
   @Override
   public BDD transitBackward(BDD bdd) {
-    return _mgr.existsSource(bdd.and(_sourceBdd));
+    return _mgr.andExistsSource(bdd, _sourceBdd);
   }
 }
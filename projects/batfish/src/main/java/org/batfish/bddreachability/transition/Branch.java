@@ -38,15 +38,28 @@ public final class Branch implements Transition {
 
     BDD trueOut = trueIn.isZero() ? trueIn : _trueBranch.transitForward(trueIn);
     BDD falseOut = falseIn.isZero() ? falseIn : _falseBranch.transitForward(falseIn);
+    Transitions.freeTransitResult(trueIn, trueOut);
+    Transitions.freeTransitResult(falseIn, falseOut);
 
-    return trueOut.or(falseOut);
+    BDD result = trueOut.or(falseOut);
+    trueOut.free();
+    falseOut.free();
+    return result;
   }
 
   @Override
   public BDD transitBackward(BDD bdd) {
-    BDD trueBranchIn = _guard.and(_trueBranch.transitBackward(bdd));
-    BDD falseBranchIn = _guard.less(_falseBranch.transitBackward(bdd));
-    return trueBranchIn.or(falseBranchIn);
+    BDD trueBranchOut = _trueBranch.transitBackward(bdd);
+    BDD trueBranchIn = _guard.and(trueBranchOut);
+    Transitions.freeTransitResult(trueBranchOut, bdd);
+    BDD falseBranchOut = _falseBranch.transitBackward(bdd);
+    BDD falseBranchIn = _guard.less(falseBranchOut);
+    Transitions.freeTransitResult(falseBranchOut, bdd);
+
+    BDD result = trueBranchIn.or(falseBranchIn);
+    trueBranchIn.free();
+    falseBranchIn.free();
+    return result;
   }
 
   @Override
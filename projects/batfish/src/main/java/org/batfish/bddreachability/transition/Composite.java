@@ -31,7 +31,11 @@ public final class Composite implements Transition {
   public BDD transitForward(BDD bdd) {
     BDD result = bdd;
     for (int i = 0; i < _transitions.size() && !result.isZero(); i++) {
-      result = _transitions.get(i).transitForward(result);
+      BDD next = _transitions.get(i).transitForward(result);
+      if (result != bdd) {
+        Transitions.freeTransitResult(result, next);
+      }
+      result = next;
     }
     return result;
   }
@@ -40,7 +44,11 @@ public final class Composite implements Transition {
   public BDD transitBackward(BDD bdd) {
     BDD result = bdd;
     for (int i = _transitions.size() - 1; i >= 0 && !result.isZero(); i--) {
-      result = _transitions.get(i).transitBackward(result);
+      BDD next = _transitions.get(i).transitBackward(result);
+      if (result != bdd) {
+        Transitions.freeTransitResult(result, next);
+      }
+      result = next;
     }
     return result;
   }
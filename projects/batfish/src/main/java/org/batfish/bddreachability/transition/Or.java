@@ -33,20 +33,26 @@ public final class Or implements Transition {
 
   @Override
   public BDD transitForward(BDD bdd) {
-    return bdd.getFactory()
-        .orAll(
-            _transitions.stream()
-                .map(transition -> transition.transitForward(bdd))
-                .toArray(BDD[]::new));
+    BDD[] results =
+        _transitions.stream().map(transition -> transition.transitForward(bdd)).toArray(BDD[]::new);
+    return orAllAndFree(results, bdd);
   }
 
   @Override
   public BDD transitBackward(BDD bdd) {
-    return bdd.getFactory()
-        .orAll(
-            _transitions.stream()
-                .map(transition -> transition.transitBackward(bdd))
-                .toArray(BDD[]::new));
+    BDD[] results =
+        _transitions.stream()
+            .map(transition -> transition.transitBackward(bdd))
+            .toArray(BDD[]::new);
+    return orAllAndFree(results, bdd);
+  }
+
+  private static BDD orAllAndFree(BDD[] results, BDD input) {
+    BDD result = input.getFactory().orAll(results);
+    for (BDD bdd : results) {
+      Transitions.freeTransitResult(bdd, input);
+    }
+    return result;
   }
 
   @Override
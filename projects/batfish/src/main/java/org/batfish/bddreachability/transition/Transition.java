@@ -2,7 +2,13 @@ package org.batfish.bddreachability.transition;
 
 import net.sf.javabdd.BDD;
 
-/** Bidirectional transition function */
+/**
+ * Bidirectional transition function.
+ *
+ * <p>Each direction returns either its input BDD itself or a new BDD owned by the caller, which the
+ * caller may {@link BDD#free() free} once it is no longer needed (see {@link
+ * Transitions#freeTransitResult(BDD, BDD)}). Implementations must never return a BDD they retain.
+ */
 public interface Transition {
   BDD transitForward(BDD bdd);
 
@@ -375,6 +375,16 @@ public final class Transitions {
     return mgr.isTrivial() ? IDENTITY : new RemoveSourceConstraint(mgr);
   }
 
+  /**
+   * Free {@code result}, the result of transiting {@code input} through some {@link Transition},
+   * unless the transition returned {@code input} itself.
+   */
+  public static void freeTransitResult(BDD result, BDD input) {
+    if (result != input) {
+      result.free();
+    }
+  }
+
   public static Transition reverse(Transition transition) {
     if (transition == IDENTITY || transition == ZERO || transition instanceof Constraint) {
       // transition is bijective, so is its own reverse
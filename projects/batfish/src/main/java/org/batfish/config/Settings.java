@@ -36,8 +36,12 @@ public final class Settings extends BaseSettings implements GrammarSettings {
 
   private static final String ARG_DATAPLANE_ENGINE_NAME = "dataplaneengine";
 
+  public static final String ARG_DATA_PLANE_METRICS = "dataplanemetrics";
+
   private static final String ARG_DEBUG_FLAGS = "debugflags";
 
+  private static final String ARG_DEDUPLICATE_CONFIGURATIONS = "deduplicateconfigurations";
+
   private static final String ARG_PARSE_REUSE = "parsereuse";
 
   private static final String ARG_DISABLE_Z3_SIMPLIFICATION = "nosimplify";
@@ -295,6 +299,14 @@ public final class Settings extends BaseSettings implements GrammarSettings {
     return _config.getBoolean(ARG_LOG_TEE);
   }
 
+  /**
+   * Whether configurations loaded from storage share immutable structures with equal ones of
+   * configurations already loaded, e.g. of another snapshot of the same network.
+   */
+  public boolean getDeduplicateConfigurations() {
+    return _config.getBoolean(ARG_DEDUPLICATE_CONFIGURATIONS);
+  }
+
   public int getParentPid() {
     return _config.getInt(ARG_PARENT_PID);
   }
@@ -538,6 +550,8 @@ public final class Settings extends BaseSettings implements GrammarSettings {
     setDefaultProperty(ARG_MAX_PARSE_TREE_PRINT_LENGTH, 0);
     setDefaultProperty(ARG_MAX_RUNTIME_MS, 0);
     setDefaultProperty(ARG_CHECK_BGP_REACHABILITY, true);
+    setDefaultProperty(ARG_DATA_PLANE_METRICS, false);
+    setDefaultProperty(ARG_DEDUPLICATE_CONFIGURATIONS, true);
     setDefaultProperty(ARG_NO_SHUFFLE, false);
     setDefaultProperty(BfConsts.ARG_PEDANTIC_SUPPRESS, false);
     setDefaultProperty(ARG_PARENT_PID, -1);
@@ -631,6 +645,10 @@ public final class Settings extends BaseSettings implements GrammarSettings {
 
     addBooleanOption(ARG_COORDINATOR_REGISTER, "register service with coordinator on startup");
 
+    addBooleanOption(
+        ARG_DATA_PLANE_METRICS,
+        "whether to collect and log per-iteration metrics during data plane computation");
+
     addListOption(ARG_DEBUG_FLAGS, "a list of flags to enable debugging code", "debug flags");
 
     addOption(BfConsts.ARG_DELTA_TESTRIG, "name of delta testrig", ARGNAME_NAME);
@@ -711,6 +729,10 @@ public final class Settings extends BaseSettings implements GrammarSettings {
 
     addOption(ARG_MAX_RUNTIME_MS, "maximum time (in ms) to allow a task to run", ARGNAME_NUMBER);
 
+    addBooleanOption(
+        ARG_DEDUPLICATE_CONFIGURATIONS,
+        "share immutable structures among loaded configurations of different snapshots");
+
     addBooleanOption(ARG_NO_SHUFFLE, "do not shuffle parallel jobs");
 
     addOption(ARG_PARENT_PID, "name of parent PID", ARGNAME_NUMBER);
@@ -862,6 +884,7 @@ public final class Settings extends BaseSettings implements GrammarSettings {
     getIntOptionValue(ARG_COORDINATOR_POOL_PORT);
     getBooleanOptionValue(ARG_COORDINATOR_REGISTER);
     getBooleanOptionValue(BfConsts.COMMAND_DUMP_DP);
+    getBooleanOptionValue(ARG_DATA_PLANE_METRICS);
     getStringListOptionValue(ARG_DEBUG_FLAGS);
     getStringOptionValue(BfConsts.ARG_DELTA_TESTRIG);
     getBooleanOptionValue(BfConsts.ARG_DIFFERENTIAL);
@@ -899,6 +922,7 @@ public final class Settings extends BaseSettings implements GrammarSettings {
     getStringOptionValue(ARG_SERVICE_NAME);
     getIntOptionValue(ARG_SERVICE_PORT);
     getBooleanOptionValue(ARG_NO_SHUFFLE);
+    getBooleanOptionValue(ARG_DEDUPLICATE_CONFIGURATIONS);
     getBooleanOptionValue(ARG_PARSE_REUSE);
     getStringOptionValue(BfConsts.ARG_SNAPSHOT_NAME);
     getBooleanOptionValue(BfConsts.ARG_SSL_DISABLE);
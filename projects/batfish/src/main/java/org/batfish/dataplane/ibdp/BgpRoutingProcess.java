@@ -491,6 +491,13 @@ final class BgpRoutingProcess implements RoutingProcess<BgpTopology, BgpRoute<?,
         || !_type5RoutesToSendPerNeighbor.isEmpty();
   }
 
+  @Override
+  public long getQueuedMessageCount() {
+    return IterationMetricsCollector.countQueued(_bgpv4IncomingRoutes)
+        + IterationMetricsCollector.countQueued(_evpnType3IncomingRoutes)
+        + IterationMetricsCollector.countQueued(_evpnType5IncomingRoutes);
+  }
+
   /**
    * Process all incoming BGP messages: across all neighbors, across all address families.
    *
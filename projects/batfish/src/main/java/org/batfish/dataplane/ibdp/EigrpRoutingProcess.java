@@ -250,6 +250,12 @@ final class EigrpRoutingProcess implements RoutingProcess<EigrpTopology, EigrpRo
         || !_initializationDelta.isEmpty();
   }
 
+  @Override
+  public long getQueuedMessageCount() {
+    return IterationMetricsCollector.countQueued(_incomingInternalRoutes)
+        + IterationMetricsCollector.countQueued(_incomingExternalRoutes);
+  }
+
   /**
    * Init internal routes from connected routes. For each interface prefix, construct a new internal
    * route.
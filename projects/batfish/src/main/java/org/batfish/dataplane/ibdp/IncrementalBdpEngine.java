@@ -34,6 +34,8 @@ import org.batfish.common.topology.IpOwners;
 import org.batfish.common.topology.Layer2Topology;
 import org.batfish.common.topology.TopologyUtil;
 import org.batfish.common.topology.TunnelTopology;
+import org.batfish.common.util.BatfishObjectMapper;
+import org.batfish.common.util.Interning;
 import org.batfish.datamodel.AbstractRoute;
 import org.batfish.datamodel.AnnotatedRoute;
 import org.batfish.datamodel.BgpAdvertisement;
@@ -43,7 +45,9 @@ import org.batfish.datamodel.Ip;
 import org.batfish.datamodel.IsisRoute;
 import org.batfish.datamodel.NetworkConfigurations;
 import org.batfish.datamodel.Topology;
+import org.batfish.datamodel.answers.IbdpIterationMetrics;
 import org.batfish.datamodel.answers.IncrementalBdpAnswerElement;
+import org.batfish.datamodel.bgp.BgpSessionReachabilityCache;
 import org.batfish.datamodel.bgp.BgpTopology;
 import org.batfish.datamodel.eigrp.EigrpTopology;
 import org.batfish.datamodel.eigrp.EigrpTopologyUtils;
@@ -119,6 +123,8 @@ class IncrementalBdpEngine {
        * Perform a fixed-point computation.
        */
       int topologyIterations = 0;
+      // Only sessions whose forwarding path may have changed are re-checked in later iterations
+      BgpSessionReachabilityCache bgpReachabilityCache = new BgpSessionReachabilityCache();
       TopologyContext currentTopologyContext = initialTopologyContext;
       boolean converged = false;
       while (!converged && topologyIterations++ < MAX_TOPOLOGY_ITERATIONS) {
@@ -181,6 +187,10 @@ class IncrementalBdpEngine {
               EigrpTopologyUtils.initEigrpTopology(configurations, newLayer3Topology);
 
           // Initialize BGP topology
+          bgpReachabilityCache.update(
+              partialDataplane.getFibs(),
+              currentTopologyContext.getLayer3Topology(),
+              newLayer3Topology);
           BgpTopology newBgpTopology =
               initBgpTopology(
                   configurations,
@@ -188,7 +198,8 @@ class IncrementalBdpEngine {
                   false,
                   true,
                   new TracerouteEngineImpl(partialDataplane, newLayer3Topology),
-                  initialTopologyContext.getLayer2Topology().orElse(null));
+                  initialTopologyContext.getLayer2Topology().orElse(null),
+                  bgpReachabilityCache);
           TopologyContext newTopologyContext =
               currentTopologyContext
                   .toBuilder()
@@ -236,6 +247,7 @@ class IncrementalBdpEngine {
               .setLayer3Topology(currentTopologyContext.getLayer3Topology())
               .build();
       _bfLogger.printElapsedTime();
+      _bfLogger.debugf("Attribute interning: %s\n", Interning.getStats());
       return new ComputeDataPlaneResult(answerElement, finalDataplane, currentTopologyContext);
     }
   }
@@ -254,6 +266,7 @@ class IncrementalBdpEngine {
    * @param iterationLabel iteration label (for stats tracking)
    * @param allNodes all nodes in the network (for correct neighbor referencing)
    * @param topologyContext the various network topologies
+   * @param metrics collector of metrics for the current iteration
    */
   private static void computeDependentRoutesIteration(
       Map<String, Node> nodes,
@@ -262,10 +275,12 @@ class IncrementalBdpEngine {
       Map<String, Node> allNodes,
       TopologyContext topologyContext,
       NetworkConfigurations networkConfigurations,
+      IterationMetricsCollector metrics,
       int iteration) {
     try (ActiveSpan overallSpan =
         GlobalTracer.get().buildSpan(iterationLabel + ": Compute dependent routes").startActive()) {
       assert overallSpan != null; // avoid unused warning
+      metrics.restartPhaseClock();
 
       try (ActiveSpan span =
           GlobalTracer.get().buildSpan(iterationLabel + ": Init dependent routes").startActive()) {
@@ -277,6 +292,7 @@ class IncrementalBdpEngine {
             .flatMap(n -> n.getVirtualRouters().values().parallelStream())
             .forEach(VirtualRouter::reinitForNewIteration);
       }
+      metrics.endPhase("init");
 
       // Static nextHopIp routes
       try (ActiveSpan span =
@@ -290,6 +306,7 @@ class IncrementalBdpEngine {
             .flatMap(n -> n.getVirtualRouters().values().stream())
             .forEach(VirtualRouter::activateStaticRoutes);
       }
+      metrics.endPhase("static");
 
       // Generated/aggregate routes
       try (ActiveSpan span =
@@ -303,6 +320,7 @@ class IncrementalBdpEngine {
             .flatMap(n -> n.getVirtualRouters().values().stream())
             .forEach(VirtualRouter::recomputeGeneratedRoutes);
       }
+      metrics.endPhase("generated");
 
       // EIGRP
       try (ActiveSpan span =
@@ -319,6 +337,7 @@ class IncrementalBdpEngine {
             .flatMap(n -> n.getVirtualRouters().values().stream())
             .forEach(VirtualRouter::mergeEigrpRoutesToMainRib);
       }
+      metrics.endPhase("eigrp");
 
       // Re-initialize IS-IS exports.
       try (ActiveSpan span =
@@ -332,6 +351,7 @@ class IncrementalBdpEngine {
             .flatMap(n -> n.getVirtualRouters().values().stream())
             .forEach(vr -> vr.initIsisExports(iteration, allNodes, networkConfigurations));
       }
+      metrics.endPhase("isisExports");
 
       // IS-IS route propagation
       AtomicBoolean isisChanged = new AtomicBoolean(true);
@@ -361,6 +381,7 @@ class IncrementalBdpEngine {
                   });
         }
       }
+      metrics.endPhase("isis");
 
       try (ActiveSpan span =
           GlobalTracer.get()
@@ -378,6 +399,7 @@ class IncrementalBdpEngine {
             .flatMap(n -> n.getVirtualRouters().values().stream())
             .forEach(VirtualRouter::mergeOspfRoutesToMainRib);
       }
+      metrics.endPhase("ospfExternal");
 
       computeIterationOfBgpRoutes(
           nodes,
@@ -386,6 +408,7 @@ class IncrementalBdpEngine {
           topologyContext.getBgpTopology(),
           networkConfigurations,
           iteration);
+      metrics.endPhase("bgp");
 
       try (ActiveSpan span =
           GlobalTracer.get().buildSpan(iterationLabel + ": Redistribute").startActive()) {
@@ -394,9 +417,11 @@ class IncrementalBdpEngine {
             .flatMap(n -> n.getVirtualRouters().values().stream())
             .forEach(virtualRouter -> virtualRouter.redistribute(numIterations));
       }
+      metrics.endPhase("redistribute");
 
       queueRoutesForCrossVrfLeaking(nodes, iterationLabel);
       leakAcrossVrfs(nodes, iterationLabel);
+      metrics.endPhase("crossVrfLeaking");
     }
   }
 
@@ -672,6 +697,10 @@ class IncrementalBdpEngine {
         try (ActiveSpan iterSpan =
             GlobalTracer.get().buildSpan("Iteration " + _numIterations).startActive()) {
           assert iterSpan != null; // avoid unused warning
+          IterationMetricsCollector metrics =
+              _settings.getDataPlaneMetrics()
+                  ? IterationMetricsCollector.start(nodes)
+                  : IterationMetricsCollector.DISABLED;
 
           IbdpSchedule schedule;
           try (ActiveSpan innerSpan =
@@ -680,6 +709,7 @@ class IncrementalBdpEngine {
             // Compute node schedule
             schedule = IbdpSchedule.getSchedule(_settings, currentSchedule, nodes, topologyContext);
           }
+          metrics.endPhase("schedule");
 
           // compute dependent routes for each allowable set of nodes until we cover all nodes
           int nodeSet = 0;
@@ -694,6 +724,7 @@ class IncrementalBdpEngine {
                 nodes,
                 topologyContext,
                 networkConfigurations,
+                metrics,
                 _numIterations);
             ++nodeSet;
           }
@@ -705,6 +736,17 @@ class IncrementalBdpEngine {
            * - Check for oscillations
            */
           computeIterationStatistics(nodes, ae, _numIterations);
+          if (metrics.isEnabled()) {
+            IbdpIterationMetrics iterationMetrics =
+                metrics.finish(
+                    nodes,
+                    ae.getMainRibRoutesByIteration().get(_numIterations),
+                    ae.getBgpMultipathRibRoutesByIteration().get(_numIterations));
+            ae.getIterationMetrics().put(_numIterations, iterationMetrics);
+            _bfLogger.infof(
+                "Data plane iteration %d metrics: %s\n",
+                _numIterations, BatfishObjectMapper.writeStringRuntimeError(iterationMetrics));
+          }
 
           // This hashcode uniquely identifies the iteration (i.e., network state)
           int iterationHashCode = computeIterationHashCode(nodes);
@@ -822,6 +864,11 @@ class IncrementalBdpEngine {
    * @return the number of iterations it took for internal OSPF routes to converge
    */
   private int initOspfInternalRoutes(Map<String, Node> allNodes, OspfTopology ospfTopology) {
+    try (ActiveSpan span = GlobalTracer.get().buildSpan("OSPF internal: SPF").startActive()) {
+      assert span != null; // avoid unused warning
+      OspfIntraAreaSpf.seedIntraAreaRoutes(allNodes, ospfTopology);
+    }
+    // Inter-area routes propagate below, starting from the intra-area routes seeded above
     int ospfInternalIterations = 0;
     boolean dirty = true;
 
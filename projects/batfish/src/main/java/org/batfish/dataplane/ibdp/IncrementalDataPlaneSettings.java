@@ -20,6 +20,7 @@ public class IncrementalDataPlaneSettings {
   public static final String PROP_SCHEDULE = "schedule";
   public static final String PROP_LOG_ROUTES = "logiterationroutes";
   public static final String PROP_CHECK_BGP_REACHABILITY = "checkbgpsessionreachability";
+  public static final String PROP_DATA_PLANE_METRICS = "dataplanemetrics";
 
   /**
    * Return the underlying configuration (it will be mutable).
@@ -53,6 +54,7 @@ public class IncrementalDataPlaneSettings {
     _config.setProperty(PROP_SCHEDULE, NODE_COLORED.toString());
     _config.setProperty(PROP_LOG_ROUTES, true);
     _config.setProperty(PROP_CHECK_BGP_REACHABILITY, true);
+    _config.setProperty(PROP_DATA_PLANE_METRICS, false);
   }
 
   /** Return the dataplane computation {@link Schedule} */
@@ -65,6 +67,16 @@ public class IncrementalDataPlaneSettings {
     return _config.getBoolean(PROP_CHECK_BGP_REACHABILITY);
   }
 
+  /** Whether to collect and log metrics of each dependent-routes iteration */
+  public boolean getDataPlaneMetrics() {
+    return _config.getBoolean(PROP_DATA_PLANE_METRICS);
+  }
+
+  /** Set whether to collect and log metrics of each dependent-routes iteration */
+  public void setDataPlaneMetrics(boolean dataPlaneMetrics) {
+    _config.setProperty(PROP_DATA_PLANE_METRICS, dataPlaneMetrics);
+  }
+
   /**
    * Set the dataplane computation {@link Schedule}
    *
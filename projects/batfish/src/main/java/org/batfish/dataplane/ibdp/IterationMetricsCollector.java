@@ -0,0 +1,127 @@
+package org.batfish.dataplane.ibdp;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.TreeMap;
+import javax.annotation.Nonnull;
+import javax.annotation.ParametersAreNonnullByDefault;
+import org.batfish.datamodel.answers.IbdpIterationMetrics;
+import org.batfish.datamodel.routing_policy.RoutingPolicy;
+
+/**
+ * Collects {@link IbdpIterationMetrics} for one iteration of the dependent-routes computation in
+ * {@link IncrementalBdpEngine}, if {@link IncrementalDataPlaneSettings#getDataPlaneMetrics()
+ * enabled}. A {@link #DISABLED disabled} collector ignores all calls.
+ *
+ * <p>Phase timing works like the laps of a stopwatch: {@link #endPhase(String)} attributes the time
+ * elapsed since the previous call (or since {@link #restartPhaseClock()}) to the given phase.
+ * Phases that run several times in an iteration (e.g., once per schedule color) are summed. Not
+ * thread-safe: must be called from the thread driving the iteration.
+ */
+@ParametersAreNonnullByDefault
+final class IterationMetricsCollector {
+
+  /**
+   * Rough average retained size of a route together with its RIB bookkeeping, on a 64-bit JVM with
+   * compressed references. Attributes shared between routes, such as interned AS paths, are not
+   * counted.
+   */
+  @VisibleForTesting static final long ESTIMATED_BYTES_PER_ROUTE = 200L;
+
+  @VisibleForTesting static final String RIB_BGP = "bgp";
+  @VisibleForTesting static final String RIB_MAIN = "main";
+
+  /** A collector that collects nothing, used when metrics are disabled. */
+  static final IterationMetricsCollector DISABLED = new IterationMetricsCollector(false, 0L);
+
+  /** Start collecting metrics for an iteration over the given {@code nodes}. */
+  static @Nonnull IterationMetricsCollector start(Map<String, Node> nodes) {
+    return new IterationMetricsCollector(true, countPolicyEvaluations(nodes));
+  }
+
+  private final boolean _enabled;
+  private final long _policyEvaluationsAtStart;
+  private final Map<String, Long> _phaseNanos;
+  private long _lastLap;
+
+  private IterationMetricsCollector(boolean enabled, long policyEvaluationsAtStart) {
+    _enabled = enabled;
+    _policyEvaluationsAtStart = policyEvaluationsAtStart;
+    _phaseNanos = new TreeMap<>();
+    _lastLap = enabled ? System.nanoTime() : 0L;
+  }
+
+  boolean isEnabled() {
+    return _enabled;
+  }
+
+  /** Do not attribute the time elapsed since the last phase ended to any phase. */
+  void restartPhaseClock() {
+    if (_enabled) {
+      _lastLap = System.nanoTime();
+    }
+  }
+
+  /** Attribute the time elapsed since the last phase ended to {@code phase}. */
+  void endPhase(String phase) {
+    if (!_enabled) {
+      return;
+    }
+    long now = System.nanoTime();
+    _phaseNanos.merge(phase, now - _lastLap, Long::sum);
+    _lastLap = now;
+  }
+
+  /**
+   * Complete the metrics for the iteration, whose final state is given by {@code nodes}. Main RIB
+   * changes are taken from the main RIB deltas built by each {@link VirtualRouter} during the
+   * iteration, and RIB sizes from the route counts already computed for the iteration.
+   *
+   * @param mainRibRoutes the number of routes in all main RIBs at the end of the iteration
+   * @param bgpRoutes the number of paths in all BGP RIBs at the end of the iteration
+   */
+  @Nonnull
+  IbdpIterationMetrics finish(Map<String, Node> nodes, long mainRibRoutes, long bgpRoutes) {
+    Map<String, Integer> mainRibChangesByProtocol = new TreeMap<>();
+    long queuedMessages = 0L;
+    for (Node node : nodes.values()) {
+      for (VirtualRouter vr : node.getVirtualRouters().values()) {
+        vr._mainRibRouteDeltaBuilder
+            .build()
+            .getActions()
+            .forEach(
+                action ->
+                    mainRibChangesByProtocol.merge(
+                        action.getRoute().getRoute().getProtocol().protocolName(),
+                        1,
+                        Integer::sum));
+        queuedMessages += vr.getQueuedMessageCount();
+      }
+    }
+    return IbdpIterationMetrics.builder()
+        .setEstimatedRibBytes(
+            ImmutableMap.of(
+                RIB_MAIN, mainRibRoutes * ESTIMATED_BYTES_PER_ROUTE,
+                RIB_BGP, bgpRoutes * ESTIMATED_BYTES_PER_ROUTE))
+        .setMainRibChangesByProtocol(mainRibChangesByProtocol)
+        .setPhaseNanos(_phaseNanos)
+        .setPolicyEvaluations(countPolicyEvaluations(nodes) - _policyEvaluationsAtStart)
+        .setQueuedMessages(queuedMessages)
+        .build();
+  }
+
+  /** Return the number of routes processed so far by the routing policies of the given nodes. */
+  private static long countPolicyEvaluations(Map<String, Node> nodes) {
+    return nodes.values().stream()
+        .flatMap(node -> node.getConfiguration().getRoutingPolicies().values().stream())
+        .mapToLong(RoutingPolicy::getEvaluationCount)
+        .sum();
+  }
+
+  /** Return the total number of elements in the given queues. */
+  static long countQueued(Map<?, ? extends Queue<?>> queues) {
+    return queues.values().stream().mapToLong(Queue::size).sum();
+  }
+}
@@ -0,0 +1,281 @@
+package org.batfish.dataplane.ibdp;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ListMultimap;
+import com.google.common.collect.Multimap;
+import com.google.common.collect.MultimapBuilder;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Set;
+import javax.annotation.Nonnull;
+import javax.annotation.ParametersAreNonnullByDefault;
+import org.batfish.datamodel.Ip;
+import org.batfish.datamodel.OspfIntraAreaRoute;
+import org.batfish.datamodel.Prefix;
+import org.batfish.datamodel.ospf.OspfSessionProperties;
+import org.batfish.datamodel.ospf.OspfTopology;
+import org.batfish.datamodel.ospf.OspfTopology.EdgeId;
+
+/**
+ * Computes the intra-area routes of all {@link OspfRoutingProcess OSPF processes} with a
+ * shortest-path computation per area and router, rather than by propagating routes one adjacency
+ * per iteration.
+ *
+ * <p>The computed routes are the fixed point route propagation would reach: for each prefix, a
+ * router keeps the routes of minimal metric, one per neighbor on a shortest path to a router
+ * originating the prefix. They are imported by each process as if advertised by those neighbors, so
+ * that inbound distribute lists still apply, and propagation then only has to confirm them.
+ *
+ * <p>Since the intra-area RIB ranks routes of all areas together, prefixes originated in more than
+ * one area are left to route propagation, as are areas with adjacencies that propagation would not
+ * handle as a plain shortest-path computation (e.g., zero cost links).
+ *
+ * <p>Only intra-area routes are computed here. Inter-area routes, including the summaries ABRs
+ * originate from their intra-area RIBs, and external routes are still computed by route
+ * propagation.
+ */
+@ParametersAreNonnullByDefault
+final class OspfIntraAreaSpf {
+
+  /** An adjacency over which a process receives intra-area routes from a neighbor */
+  private static final class Link {
+    /** Edge with its head at the receiving process */
+    @Nonnull private final EdgeId _edge;
+
+    @Nonnull private final OspfRoutingProcess _sender;
+
+    /** Incremental cost of the receiving interface */
+    private final long _cost;
+
+    /** Next hop IP set by the sender on advertised routes */
+    @Nonnull private final Ip _nextHopIp;
+
+    private Link(EdgeId edge, OspfRoutingProcess sender, long cost, Ip nextHopIp) {
+      _edge = edge;
+      _sender = sender;
+      _cost = cost;
+      _nextHopIp = nextHopIp;
+    }
+  }
+
+  /** A process reached by the shortest-path computation, at a given distance */
+  private static final class Reached {
+    @Nonnull private final OspfRoutingProcess _process;
+    private final long _distance;
+
+    private Reached(OspfRoutingProcess process, long distance) {
+      _process = process;
+      _distance = distance;
+    }
+  }
+
+  /** Incoming links of each process, by area */
+  @Nonnull private final Map<OspfRoutingProcess, ListMultimap<Long, Link>> _links;
+
+  /** Prefixes to compute routes for, by area */
+  @Nonnull private final Map<Long, List<Prefix>> _prefixesByArea;
+
+  /** Best routes originated for each prefix, by originating process */
+  @Nonnull private final Map<Prefix, Map<OspfRoutingProcess, OspfIntraAreaRoute>> _origins;
+
+  private OspfIntraAreaSpf(
+      Map<OspfRoutingProcess, ListMultimap<Long, Link>> links,
+      Map<Long, List<Prefix>> prefixesByArea,
+      Map<Prefix, Map<OspfRoutingProcess, OspfIntraAreaRoute>> origins) {
+    _links = links;
+    _prefixesByArea = prefixesByArea;
+    _origins = origins;
+  }
+
+  /**
+   * Compute the intra-area routes of all OSPF processes of {@code allNodes} and seed them into the
+   * processes. Must be called after the processes are initialized and before route propagation.
+   */
+  static void seedIntraAreaRoutes(Map<String, Node> allNodes, OspfTopology topology) {
+    List<OspfRoutingProcess> processes =
+        allNodes.values().stream()
+            .flatMap(n -> n.getVirtualRouters().values().stream())
+            .flatMap(vr -> vr.getOspfProcesses().values().stream())
+            .collect(toImmutableList());
+    if (processes.size() < 2) {
+      return;
+    }
+
+    // Link-state database: incoming links of each process, computed once
+    Set<Long> excludedAreas = new HashSet<>();
+    Map<OspfRoutingProcess, ListMultimap<Long, Link>> links = new IdentityHashMap<>();
+    for (OspfRoutingProcess process : processes) {
+      ListMultimap<Long, Link> processLinks = ArrayListMultimap.create();
+      process
+          .getIncomingEdgeStream(topology)
+          .forEach(
+              edge -> {
+                // Routes are sent with the session as seen from the sender
+                Optional<OspfSessionProperties> session = topology.getSession(edge.reverse());
+                OspfRoutingProcess sender =
+                    OspfRoutingProcess.getNeighborProcess(edge.getTail(), allNodes);
+                if (!session.isPresent() || sender == null) {
+                  return;
+                }
+                long area = session.get().getArea();
+                long cost = process.getIncrementalCost(edge.getHead().getInterfaceName(), false);
+                if (session.get().getIpLink() == null || !sender.hasArea(area) || cost <= 0) {
+                  excludedAreas.add(area);
+                  return;
+                }
+                processLinks.put(
+                    area, new Link(edge, sender, cost, session.get().getIpLink().getIp2()));
+              });
+      links.put(process, processLinks);
+    }
+
+    // Routes originated by each process, before any are seeded
+    Map<Prefix, Map<OspfRoutingProcess, OspfIntraAreaRoute>> origins = new HashMap<>();
+    Map<Prefix, Long> areaByPrefix = new HashMap<>();
+    Set<Prefix> multiAreaPrefixes = new HashSet<>();
+    for (OspfRoutingProcess process : processes) {
+      for (OspfIntraAreaRoute route : process.getIntraAreaRoutes()) {
+        Prefix prefix = route.getNetwork();
+        Long area = areaByPrefix.putIfAbsent(prefix, route.getArea());
+        if (area != null && area != route.getArea()) {
+          multiAreaPrefixes.add(prefix);
+        }
+        origins
+            .computeIfAbsent(prefix, p -> new IdentityHashMap<>())
+            .merge(process, route, (r1, r2) -> r1.getMetric() <= r2.getMetric() ? r1 : r2);
+      }
+    }
+    Map<Long, List<Prefix>> prefixesByArea = new HashMap<>();
+    areaByPrefix.forEach(
+        (prefix, area) -> {
+          if (!multiAreaPrefixes.contains(prefix) && !excludedAreas.contains(area)) {
+            prefixesByArea.computeIfAbsent(area, a -> new ArrayList<>()).add(prefix);
+          }
+        });
+    if (prefixesByArea.isEmpty()) {
+      return;
+    }
+
+    OspfIntraAreaSpf spf = new OspfIntraAreaSpf(links, prefixesByArea, origins);
+    processes
+        .parallelStream()
+        .forEach(process -> process.seedIntraAreaRoutes(spf.computeRoutes(process)));
+  }
+
+  /**
+   * Compute the intra-area routes {@code process} learns from its neighbors, as advertised by them,
+   * by incoming edge.
+   */
+  @Nonnull
+  private Multimap<EdgeId, OspfIntraAreaRoute> computeRoutes(OspfRoutingProcess process) {
+    ListMultimap<EdgeId, OspfIntraAreaRoute> routes =
+        MultimapBuilder.treeKeys().arrayListValues().build();
+    _prefixesByArea.forEach(
+        (area, prefixes) -> {
+          if (!_links.get(process).containsKey(area)) {
+            // no neighbors to learn routes from
+            return;
+          }
+          Map<OspfRoutingProcess, Long> distances = new IdentityHashMap<>();
+          Map<OspfRoutingProcess, Set<Link>> firstLinks = new IdentityHashMap<>();
+          computeShortestPaths(process, area, distances, firstLinks);
+          for (Prefix prefix : prefixes) {
+            addRoutes(prefix, area, distances, firstLinks, routes);
+          }
+        });
+    return routes;
+  }
+
+  /**
+   * Compute the distance from every process of {@code area} to {@code root}, along with the links
+   * into {@code root} that start a shortest path.
+   */
+  private void computeShortestPaths(
+      OspfRoutingProcess root,
+      long area,
+      Map<OspfRoutingProcess, Long> distances,
+      Map<OspfRoutingProcess, Set<Link>> firstLinks) {
+    Set<OspfRoutingProcess> done = Collections.newSetFromMap(new IdentityHashMap<>());
+    PriorityQueue<Reached> queue =
+        new PriorityQueue<>(Comparator.comparingLong(reached -> reached._distance));
+    distances.put(root, 0L);
+    firstLinks.put(root, new HashSet<>());
+    queue.add(new Reached(root, 0L));
+    while (!queue.isEmpty()) {
+      Reached reached = queue.remove();
+      OspfRoutingProcess process = reached._process;
+      if (!done.add(process)) {
+        continue;
+      }
+      for (Link link : _links.get(process).get(area)) {
+        long distance = reached._distance + link._cost;
+        Set<Link> via = process == root ? Collections.singleton(link) : firstLinks.get(process);
+        Long known = distances.get(link._sender);
+        if (known == null || distance < known) {
+          distances.put(link._sender, distance);
+          firstLinks.put(link._sender, new HashSet<>(via));
+          queue.add(new Reached(link._sender, distance));
+        } else if (distance == known) {
+          // Costs are positive, so the sender is not done yet
+          firstLinks.get(link._sender).addAll(via);
+        }
+      }
+    }
+  }
+
+  /** Add the routes for {@code prefix} learned over each link starting a shortest path. */
+  private void addRoutes(
+      Prefix prefix,
+      long area,
+      Map<OspfRoutingProcess, Long> distances,
+      Map<OspfRoutingProcess, Set<Link>> firstLinks,
+      ListMultimap<EdgeId, OspfIntraAreaRoute> routes) {
+    long best = Long.MAX_VALUE;
+    List<OspfRoutingProcess> bestOrigins = new ArrayList<>();
+    for (Map.Entry<OspfRoutingProcess, OspfIntraAreaRoute> origin :
+        _origins.get(prefix).entrySet()) {
+      Long distance = distances.get(origin.getKey());
+      if (distance == null) {
+        continue;
+      }
+      long metric = origin.getValue().getMetric() + distance;
+      if (metric < best) {
+        best = metric;
+        bestOrigins.clear();
+      }
+      if (metric == best) {
+        bestOrigins.add(origin.getKey());
+      }
+    }
+    Map<Link, OspfIntraAreaRoute> templates = new LinkedHashMap<>();
+    for (OspfRoutingProcess origin : bestOrigins) {
+      // Routes originated by the root itself are already in its RIB
+      firstLinks
+          .get(origin)
+          .forEach(link -> templates.putIfAbsent(link, _origins.get(prefix).get(origin)));
+    }
+    for (Map.Entry<Link, OspfIntraAreaRoute> entry : templates.entrySet()) {
+      Link link = entry.getKey();
+      assert entry.getValue().getArea() == area;
+      routes.put(
+          link._edge,
+          entry
+              .getValue()
+              .toBuilder()
+              .setNextHopIp(link._nextHopIp)
+              .setMetric(best - link._cost)
+              .build());
+    }
+  }
+}
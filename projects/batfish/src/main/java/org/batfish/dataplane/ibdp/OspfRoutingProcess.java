@@ -7,6 +7,7 @@ import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ImmutableSortedMap;
+import com.google.common.collect.Multimap;
 import com.google.common.collect.Streams;
 import java.util.Collection;
 import java.util.Comparator;
@@ -314,6 +315,14 @@ final class OspfRoutingProcess implements RoutingProcess<OspfTopology, OspfRoute
         || !_type2IncomingRoutes.values().stream().allMatch(Queue::isEmpty);
   }
 
+  @Override
+  public long getQueuedMessageCount() {
+    return IterationMetricsCollector.countQueued(_intraAreaIncomingRoutes)
+        + IterationMetricsCollector.countQueued(_interAreaIncomingRoutes)
+        + IterationMetricsCollector.countQueued(_type1IncomingRoutes)
+        + IterationMetricsCollector.countQueued(_type2IncomingRoutes);
+  }
+
   /** Initialize intra-area routes based on available interfaces. */
   private void initializeIntraAreaRoutes() {
     RibDelta.Builder<OspfIntraAreaRoute> deltaBuilder = RibDelta.builder();
@@ -322,6 +331,44 @@ final class OspfRoutingProcess implements RoutingProcess<OspfTopology, OspfRoute
     _changeset.from(RibDelta.importRibDelta(_ospfRib, _initializationDelta));
   }
 
+  /**
+   * Import intra-area routes computed by {@link OspfIntraAreaSpf} ahead of route propagation, as if
+   * each had been advertised on its incoming edge. The resulting changes are advertised to
+   * neighbors along with the routes created during initialization.
+   *
+   * @param routes the routes as advertised by the neighbor, by incoming edge
+   */
+  void seedIntraAreaRoutes(Multimap<EdgeId, OspfIntraAreaRoute> routes) {
+    RibDelta.Builder<OspfIntraAreaRoute> deltaBuilder = RibDelta.builder();
+    routes
+        .asMap()
+        .forEach(
+            (edgeId, edgeRoutes) -> {
+              String ifaceName = edgeId.getHead().getInterfaceName();
+              long incrementalCost = getIncrementalCost(ifaceName, false);
+              edgeRoutes.forEach(
+                  route ->
+                      deltaBuilder.from(
+                          importIntraAreaRoute(
+                              new RouteAdvertisement<>(route), ifaceName, incrementalCost)));
+            });
+    RibDelta<OspfIntraAreaRoute> delta = deltaBuilder.build();
+    _initializationDelta =
+        RibDelta.<OspfIntraAreaRoute>builder().from(_initializationDelta).from(delta).build();
+    _changeset.from(RibDelta.importRibDelta(_ospfRib, delta));
+  }
+
+  /** Return the routes currently in the intra-area RIB */
+  @Nonnull
+  Set<OspfIntraAreaRoute> getIntraAreaRoutes() {
+    return _intraAreaRib.getTypedRoutes();
+  }
+
+  /** Check whether this process has configuration for the given area */
+  boolean hasArea(long areaNumber) {
+    return _process.getAreas().containsKey(areaNumber);
+  }
+
   /**
    * Initialize intra-area routes based on available interfaces in each OSPF area.
    *
@@ -413,7 +460,7 @@ final class OspfRoutingProcess implements RoutingProcess<OspfTopology, OspfRoute
    * OspfNeighborId}
    */
   @Nullable
-  private static OspfRoutingProcess getNeighborProcess(
+  static OspfRoutingProcess getNeighborProcess(
       OspfNeighborConfigId ospfNeighborId, Map<String, Node> allNodes) {
     return allNodes
         .get(ospfNeighborId.getHostname())
@@ -425,7 +472,7 @@ final class OspfRoutingProcess implements RoutingProcess<OspfTopology, OspfRoute
 
   /** Return the stream of incoming edges, for all neighbors that belong to this process. */
   @Nonnull
-  private Stream<EdgeId> getIncomingEdgeStream(OspfTopology topology) {
+  Stream<EdgeId> getIncomingEdgeStream(OspfTopology topology) {
     return _process.getOspfNeighborConfigs().keySet().stream()
         .flatMap(ospfNeighborConfigId -> topology.incomingEdges(ospfNeighborConfigId).stream());
   }
@@ -556,21 +603,30 @@ final class OspfRoutingProcess implements RoutingProcess<OspfTopology, OspfRoute
           String ifaceName = edgeId.getHead().getInterfaceName();
           long incrementalCost = getIncrementalCost(ifaceName, false);
           while (!queue.isEmpty()) {
-            RouteAdvertisement<OspfIntraAreaRoute> routeAdvertisement = queue.remove();
-            OspfIntraAreaRoute.Builder ospfRouteBuilder =
-                transformIntraAreaRouteOnImport(routeAdvertisement.getRoute(), incrementalCost);
-
-            applyDistributeList(_c, _vrfName, ifaceName, ospfRouteBuilder);
-
-            intraAreaDelta.from(
-                processRouteAdvertisement(
-                    routeAdvertisement.toBuilder().setRoute(ospfRouteBuilder.build()).build(),
-                    _intraAreaRib));
+            intraAreaDelta.from(importIntraAreaRoute(queue.remove(), ifaceName, incrementalCost));
           }
         });
     return intraAreaDelta.build();
   }
 
+  /**
+   * Transform an intra-area route advertisement arriving on interface {@code ifaceName} and merge
+   * it into (or withdraw it from) the intra-area RIB.
+   */
+  @Nonnull
+  private RibDelta<OspfIntraAreaRoute> importIntraAreaRoute(
+      RouteAdvertisement<OspfIntraAreaRoute> routeAdvertisement,
+      String ifaceName,
+      long incrementalCost) {
+    OspfIntraAreaRoute.Builder ospfRouteBuilder =
+        transformIntraAreaRouteOnImport(routeAdvertisement.getRoute(), incrementalCost);
+
+    applyDistributeList(_c, _vrfName, ifaceName, ospfRouteBuilder);
+
+    return processRouteAdvertisement(
+        routeAdvertisement.toBuilder().setRoute(ospfRouteBuilder.build()).build(), _intraAreaRib);
+  }
+
   /**
    * Transform intra-area routes on import.
    *
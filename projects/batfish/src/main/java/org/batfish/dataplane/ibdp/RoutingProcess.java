@@ -65,4 +65,7 @@ public interface RoutingProcess<T, R extends AbstractRouteDecorator> {
    * {@link RibDelta deltas}
    */
   boolean isDirty();
+
+  /** Returns the number of route advertisements received from neighbors but not yet processed */
+  long getQueuedMessageCount();
 }
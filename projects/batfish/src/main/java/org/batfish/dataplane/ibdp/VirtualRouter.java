@@ -1869,6 +1869,27 @@ public class VirtualRouter implements Serializable {
     return _bgpRoutingProcess == null ? 0 : _bgpRoutingProcess._bgpv4Rib.getTypedRoutes().size();
   }
 
+  /**
+   * Get the number of route advertisements queued at this VirtualRouter and its routing processes,
+   * but not yet processed. To be used during dataplane computation only
+   */
+  long getQueuedMessageCount() {
+    long count = _bgpRoutingProcess == null ? 0L : _bgpRoutingProcess.getQueuedMessageCount();
+    for (OspfRoutingProcess process : _ospfProcesses.values()) {
+      count += process.getQueuedMessageCount();
+    }
+    for (EigrpRoutingProcess process : _eigrpProcesses.values()) {
+      count += process.getQueuedMessageCount();
+    }
+    if (_crossVrfIncomingRoutes != null) {
+      count += IterationMetricsCollector.countQueued(_crossVrfIncomingRoutes);
+    }
+    if (_isisIncomingRoutes != null) {
+      count += IterationMetricsCollector.countQueued(_isisIncomingRoutes);
+    }
+    return count;
+  }
+
   /** Convenience method to get the VirtualRouter's hostname */
   String getHostname() {
     return _c.getHostname();
@@ -1,7 +1,10 @@
 package org.batfish.dataplane.rib;
 
 import com.google.common.collect.ImmutableSet;
-import com.google.common.collect.LinkedHashMultimap;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import javax.annotation.Nonnull;
@@ -26,6 +29,8 @@ import org.batfish.dataplane.rib.RouteAdvertisement.Reason;
 @ParametersAreNonnullByDefault
 public abstract class AbstractRib<R extends AbstractRouteDecorator> implements GenericRib<R> {
 
+  private static final int EXPECTED_BACKUP_ROUTES_PER_PREFIX = 2;
+
   /** Root of our prefix trie */
   private final RibTree<R> _tree;
 
@@ -35,12 +40,15 @@ public abstract class AbstractRib<R extends AbstractRouteDecorator> implements G
   /**
    * Keep a (insert ordered) set of alternative routes. Used to update the RIB if best routes are
    * withdrawn.
+   *
+   * <p>Most prefixes have one or a few alternatives, so each set starts with room for {@link
+   * #EXPECTED_BACKUP_ROUTES_PER_PREFIX} routes, and is dropped once empty.
    */
-  @Nullable protected final LinkedHashMultimap<Prefix, R> _backupRoutes;
+  @Nullable private final Map<Prefix, Set<R>> _backupRoutes;
 
   protected AbstractRib(boolean withBackupRoutes) {
     _allRoutes = ImmutableSet.of();
-    _backupRoutes = withBackupRoutes ? LinkedHashMultimap.create() : null;
+    _backupRoutes = withBackupRoutes ? new HashMap<>() : null;
     _tree = new RibTree<>(this);
   }
 
@@ -115,10 +123,28 @@ public abstract class AbstractRib<R extends AbstractRouteDecorator> implements G
    */
   private void addBackupRoute(R route) {
     if (_backupRoutes != null) {
-      _backupRoutes.put(route.getNetwork(), route);
+      _backupRoutes
+          .computeIfAbsent(
+              route.getNetwork(), prefix -> new LinkedHashSet<>(EXPECTED_BACKUP_ROUTES_PER_PREFIX))
+          .add(route);
     }
   }
 
+  /**
+   * Returns whether this RIB keeps backup routes. If so, a route removed from the RIB is replaced
+   * by the backup routes for its prefix.
+   */
+  final boolean hasBackupRoutes() {
+    return _backupRoutes != null;
+  }
+
+  /** Returns the backup routes for the given prefix, in insertion order. */
+  @Nonnull
+  final Set<R> getBackupRoutes(Prefix prefix) {
+    Set<R> routes = _backupRoutes == null ? null : _backupRoutes.get(prefix);
+    return routes == null ? ImmutableSet.of() : Collections.unmodifiableSet(routes);
+  }
+
   /** Clear all routes from the RIB */
   public final void clear() {
     _tree.clear();
@@ -154,8 +180,8 @@ public abstract class AbstractRib<R extends AbstractRouteDecorator> implements G
   private void removeBackupRoute(R route) {
     if (_backupRoutes != null) {
       Set<R> routes = _backupRoutes.get(route.getNetwork());
-      if (routes != null) {
-        routes.remove(route);
+      if (routes != null && routes.remove(route) && routes.isEmpty()) {
+        _backupRoutes.remove(route.getNetwork());
       }
     }
   }
@@ -50,7 +50,10 @@ public abstract class BgpRib<R extends BgpRoute<?, ?>> extends AbstractRib<R> {
    * age. It's incremented each time a route is merged into the RIB.
    */
   protected long _logicalClock;
-  /** Map to keep track when routes were merged in. */
+  /**
+   * Map to keep track when routes were merged in. Only populated with the {@link
+   * BgpTieBreaker#ARRIVAL_ORDER} tie breaker, the only one that reads it.
+   */
   protected Map<R, Long> _logicalArrivalTime;
 
   protected BgpRib(
@@ -132,7 +135,9 @@ public abstract class BgpRib<R extends BgpRoute<?, ?>> extends AbstractRib<R> {
   @Override
   public RibDelta<R> mergeRouteGetDelta(R route) {
     RibDelta<R> delta = super.mergeRouteGetDelta(route);
-    _logicalArrivalTime.put(route, _logicalClock);
+    if (_tieBreaker == BgpTieBreaker.ARRIVAL_ORDER) {
+      _logicalArrivalTime.put(route, _logicalClock);
+    }
     _logicalClock++;
     if (!delta.isEmpty()) {
       delta.getPrefixes().forEach(this::selectBestPath);
@@ -154,6 +159,9 @@ public abstract class BgpRib<R extends BgpRoute<?, ?>> extends AbstractRib<R> {
                   _logicalArrivalTime.remove(a.getRoute());
                 }
               });
+    } else if (!containsRoute(route)) {
+      // A withdrawn backup route: it is no longer anywhere in this RIB
+      _logicalArrivalTime.remove(route);
     }
     return delta;
   }
@@ -48,8 +48,8 @@ final class RibTree<R extends AbstractRouteDecorator> implements Serializable {
 
     Builder<R> b = RibDelta.builder();
     b.remove(route, reason);
-    if (_root.get(route.getNetwork()).isEmpty() && _owner._backupRoutes != null) {
-      Set<? extends R> backups = _owner._backupRoutes.get(route.getNetwork());
+    if (_root.get(route.getNetwork()).isEmpty() && _owner.hasBackupRoutes()) {
+      Set<R> backups = _owner.getBackupRoutes(route.getNetwork());
       if (backups.isEmpty()) {
         return b.build();
       }
@@ -8,6 +8,7 @@ import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.util.regex.Pattern.CASE_INSENSITIVE;
 import static java.util.stream.Collectors.toMap;
 import static org.batfish.bddreachability.BDDMultipathInconsistency.computeMultipathInconsistencies;
+import static org.batfish.bddreachability.BDDReachabilityUtils.freeDistinct;
 import static org.batfish.common.runtime.SnapshotRuntimeData.EMPTY_SNAPSHOT_RUNTIME_DATA;
 import static org.batfish.common.util.CommonUtil.detectCharset;
 import static org.batfish.common.util.CompletionMetadataUtils.getFilterNames;
@@ -85,9 +86,9 @@ import org.antlr.v4.runtime.tree.ParseTreeWalker;
 import org.apache.commons.configuration2.ImmutableConfiguration;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.SerializationUtils;
-import org.batfish.bddreachability.BDDLoopDetectionAnalysis;
 import org.batfish.bddreachability.BDDReachabilityAnalysis;
 import org.batfish.bddreachability.BDDReachabilityAnalysisFactory;
+import org.batfish.bddreachability.BDDReachabilityAnalysisFactoryCache;
 import org.batfish.bddreachability.BidirectionalReachabilityAnalysis;
 import org.batfish.bddreachability.IpsRoutedOutInterfacesFactory;
 import org.batfish.common.Answerer;
@@ -224,6 +225,7 @@ import org.batfish.storage.FileBasedStorage;
 import org.batfish.storage.StorageProvider;
 import org.batfish.symbolic.IngressLocation;
 import org.batfish.topology.TopologyProviderImpl;
+import org.batfish.topology.TopologyStore;
 import org.batfish.vendor.VendorConfiguration;
 import org.batfish.version.BatfishVersion;
 import org.codehaus.jettison.json.JSONException;
@@ -456,6 +458,8 @@ public class Batfish extends PluginConsumer implements IBatfish {
 
   private SortedMap<BgpTableFormat, BgpTablePlugin> _bgpTablePlugins;
 
+  private final BDDReachabilityAnalysisFactoryCache _cachedBddReachabilityAnalysisFactories;
+
   private final Cache<NetworkSnapshot, SortedMap<String, Configuration>> _cachedConfigurations;
 
   private final Cache<NetworkSnapshot, DataPlane> _cachedDataPlanes;
@@ -463,6 +467,8 @@ public class Batfish extends PluginConsumer implements IBatfish {
   private final Map<NetworkSnapshot, SortedMap<String, BgpAdvertisementsByVrf>>
       _cachedEnvironmentBgpTables;
 
+  private final TopologyStore _cachedTopologies;
+
   private TestrigSettings _deltaTestrigSettings;
 
   private Set<ExternalBgpAdvertisementPlugin> _externalBgpAdvertisementPlugins;
@@ -488,13 +494,17 @@ public class Batfish extends PluginConsumer implements IBatfish {
       Cache<NetworkSnapshot, SortedMap<String, Configuration>> cachedConfigurations,
       Cache<NetworkSnapshot, DataPlane> cachedDataPlanes,
       Map<NetworkSnapshot, SortedMap<String, BgpAdvertisementsByVrf>> cachedEnvironmentBgpTables,
+      BDDReachabilityAnalysisFactoryCache cachedBddReachabilityAnalysisFactories,
+      TopologyStore cachedTopologies,
       @Nullable StorageProvider alternateStorageProvider,
       @Nullable IdResolver alternateIdResolver) {
     _settings = settings;
     _bgpTablePlugins = new TreeMap<>();
+    _cachedBddReachabilityAnalysisFactories = cachedBddReachabilityAnalysisFactories;
     _cachedConfigurations = cachedConfigurations;
     _cachedDataPlanes = cachedDataPlanes;
     _cachedEnvironmentBgpTables = cachedEnvironmentBgpTables;
+    _cachedTopologies = cachedTopologies;
     _externalBgpAdvertisementPlugins = new TreeSet<>();
     initLocalSettings(settings);
     _logger = _settings.getLogger();
@@ -504,12 +514,16 @@ public class Batfish extends PluginConsumer implements IBatfish {
     _storage =
         alternateStorageProvider != null
             ? alternateStorageProvider
-            : new FileBasedStorage(_settings.getStorageBase(), _logger, this::newBatch);
+            : new FileBasedStorage(
+                _settings.getStorageBase(),
+                _logger,
+                this::newBatch,
+                _settings.getDeduplicateConfigurations());
     _idResolver =
         alternateIdResolver != null
             ? alternateIdResolver
             : new FileBasedIdResolver(_settings.getStorageBase());
-    _topologyProvider = new TopologyProviderImpl(this, _storage);
+    _topologyProvider = new TopologyProviderImpl(this, _storage, _cachedTopologies);
     loadPlugins();
   }
 
@@ -768,6 +782,7 @@ public class Batfish extends PluginConsumer implements IBatfish {
    */
   private void saveDataPlane(NetworkSnapshot snapshot, ComputeDataPlaneResult result) {
     _cachedDataPlanes.put(snapshot, result._dataPlane);
+    _cachedBddReachabilityAnalysisFactories.invalidate(snapshot);
 
     _logger.resetTimer();
     newBatch("Writing data plane to disk", 0);
@@ -2103,6 +2118,18 @@ public class Batfish extends PluginConsumer implements IBatfish {
         getZones(configurations));
   }
 
+  @Override
+  public byte[] loadNetworkBlob(String key) throws FileNotFoundException, IOException {
+    try (InputStream in = _storage.loadNetworkBlob(getContainerName(), key)) {
+      return IOUtils.toByteArray(in);
+    }
+  }
+
+  @Override
+  public void storeNetworkBlob(String key, byte[] blob) throws IOException {
+    _storage.storeNetworkBlob(new ByteArrayInputStream(blob), getContainerName(), key);
+  }
+
   @Override
   public String getSnapshotInputObject(NetworkSnapshot snapshot, String key)
       throws FileNotFoundException, IOException {
@@ -2400,6 +2427,7 @@ public class Batfish extends PluginConsumer implements IBatfish {
         } catch (IOException e) {
           throw new BatfishException("Could not store vendor independent configs to disk: %s", e);
         }
+        _cachedTopologies.invalidate(snapshot);
       }
 
       try (ActiveSpan ppSpan =
@@ -2843,10 +2871,10 @@ public class Batfish extends PluginConsumer implements IBatfish {
           params.getSrcNatted() == SrcNattedConstraint.UNCONSTRAINED,
           "Requiring or forbidding Source NAT is currently unsupported");
 
-      BDDPacket pkt = new BDDPacket();
       boolean ignoreFilters = params.getIgnoreFilters();
       BDDReachabilityAnalysisFactory bddReachabilityAnalysisFactory =
-          getBddReachabilityAnalysisFactory(snapshot, pkt, ignoreFilters);
+          getBddReachabilityAnalysisFactory(snapshot, ignoreFilters);
+      BDDPacket pkt = bddReachabilityAnalysisFactory.getBDDPacket();
 
       Map<IngressLocation, BDD> reachableBDDs =
           bddReachabilityAnalysisFactory.getAllBDDs(
@@ -2883,6 +2911,8 @@ public class Batfish extends PluginConsumer implements IBatfish {
                     return Stream.of(flow.build());
                   })
               .collect(ImmutableSet.toImmutableSet());
+      // The factory and its packet outlive this question; its BDDs do not.
+      freeDistinct(reachableBDDs.values().stream());
 
       return new TraceWrapperAsAnswerElement(buildFlows(snapshot, flows, ignoreFilters));
     }
@@ -2892,42 +2922,44 @@ public class Batfish extends PluginConsumer implements IBatfish {
   public Set<Flow> bddLoopDetection(NetworkSnapshot snapshot) {
     try (ActiveSpan span = GlobalTracer.get().buildSpan("bddLoopDetection").startActive()) {
       assert span != null; // avoid unused warning
-      BDDPacket pkt = new BDDPacket();
       // TODO add ignoreFilters parameter
       boolean ignoreFilters = false;
       BDDReachabilityAnalysisFactory bddReachabilityAnalysisFactory =
-          getBddReachabilityAnalysisFactory(snapshot, pkt, ignoreFilters);
-      BDDLoopDetectionAnalysis analysis =
-          bddReachabilityAnalysisFactory.bddLoopDetectionAnalysis(
+          getBddReachabilityAnalysisFactory(snapshot, ignoreFilters);
+      BDDPacket pkt = bddReachabilityAnalysisFactory.getBDDPacket();
+      Map<IngressLocation, BDD> loopBDDs =
+          bddReachabilityAnalysisFactory.detectLoops(
               getAllSourcesInferFromLocationIpSpaceAssignment(snapshot));
-      Map<IngressLocation, BDD> loopBDDs = analysis.detectLoops();
 
       try (ActiveSpan span1 =
           GlobalTracer.get().buildSpan("bddLoopDetection.computeResultFlows").startActive()) {
         assert span1 != null; // avoid unused warning
-        return loopBDDs.entrySet().stream()
-            .map(
-                entry ->
-                    pkt.getFlow(entry.getValue())
-                        .map(
-                            fb -> {
-                              IngressLocation loc = entry.getKey();
-                              fb.setIngressNode(loc.getNode());
-                              switch (loc.getType()) {
-                                case INTERFACE_LINK:
-                                  fb.setIngressInterface(loc.getInterface());
-                                  break;
-                                case VRF:
-                                  fb.setIngressVrf(loc.getVrf());
-                                  break;
-                                default:
-                                  throw new BatfishException(
-                                      "Unknown Location Type: " + loc.getType());
-                              }
-                              return fb.build();
-                            }))
-            .flatMap(optional -> optional.map(Stream::of).orElse(Stream.empty()))
-            .collect(ImmutableSet.toImmutableSet());
+        Set<Flow> flows =
+            loopBDDs.entrySet().stream()
+                .map(
+                    entry ->
+                        pkt.getFlow(entry.getValue())
+                            .map(
+                                fb -> {
+                                  IngressLocation loc = entry.getKey();
+                                  fb.setIngressNode(loc.getNode());
+                                  switch (loc.getType()) {
+                                    case INTERFACE_LINK:
+                                      fb.setIngressInterface(loc.getInterface());
+                                      break;
+                                    case VRF:
+                                      fb.setIngressVrf(loc.getVrf());
+                                      break;
+                                    default:
+                                      throw new BatfishException(
+                                          "Unknown Location Type: " + loc.getType());
+                                  }
+                                  return fb.build();
+                                }))
+                .flatMap(optional -> optional.map(Stream::of).orElse(Stream.empty()))
+                .collect(ImmutableSet.toImmutableSet());
+        freeDistinct(loopBDDs.values().stream());
+        return flows;
       }
     }
   }
@@ -2937,11 +2969,11 @@ public class Batfish extends PluginConsumer implements IBatfish {
       NetworkSnapshot snapshot, MultipathConsistencyParameters parameters) {
     try (ActiveSpan span = GlobalTracer.get().buildSpan("bddMultipathConsistency").startActive()) {
       assert span != null; // avoid unused warning
-      BDDPacket pkt = new BDDPacket();
       // TODO add ignoreFilters parameter
       boolean ignoreFilters = false;
       BDDReachabilityAnalysisFactory bddReachabilityAnalysisFactory =
-          getBddReachabilityAnalysisFactory(snapshot, pkt, ignoreFilters);
+          getBddReachabilityAnalysisFactory(snapshot, ignoreFilters);
+      BDDPacket pkt = bddReachabilityAnalysisFactory.getBDDPacket();
       IpSpaceAssignment srcIpSpaceAssignment = parameters.getSrcIpSpaceAssignment();
       Set<String> finalNodes = parameters.getFinalNodes();
       Set<FlowDisposition> failureDispositions =
@@ -2960,24 +2992,22 @@ public class Batfish extends PluginConsumer implements IBatfish {
               FlowDisposition.EXITS_NETWORK);
       Set<String> forbiddenTransitNodes = parameters.getForbiddenTransitNodes();
       Set<String> requiredTransitNodes = parameters.getRequiredTransitNodes();
-      Map<IngressLocation, BDD> successBdds =
+      // Both queries share the graph, so answer them with one fixpoint.
+      Map<Boolean, Map<IngressLocation, BDD>> bddsBySuccess =
           bddReachabilityAnalysisFactory.getAllBDDs(
               srcIpSpaceAssignment,
               parameters.getHeaderSpace(),
               forbiddenTransitNodes,
               requiredTransitNodes,
               finalNodes,
-              successDispositions);
-      Map<IngressLocation, BDD> failureBdds =
-          bddReachabilityAnalysisFactory.getAllBDDs(
-              srcIpSpaceAssignment,
-              parameters.getHeaderSpace(),
-              forbiddenTransitNodes,
-              requiredTransitNodes,
-              finalNodes,
-              failureDispositions);
+              ImmutableMap.of(true, successDispositions, false, failureDispositions));
+      Map<IngressLocation, BDD> successBdds = bddsBySuccess.get(true);
+      Map<IngressLocation, BDD> failureBdds = bddsBySuccess.get(false);
 
-      return ImmutableSet.copyOf(computeMultipathInconsistencies(pkt, successBdds, failureBdds));
+      Set<Flow> flows =
+          ImmutableSet.copyOf(computeMultipathInconsistencies(pkt, successBdds, failureBdds));
+      freeDistinct(Stream.concat(successBdds.values().stream(), failureBdds.values().stream()));
+      return flows;
     }
   }
 
@@ -2993,6 +3023,21 @@ public class Batfish extends PluginConsumer implements IBatfish {
     return InferFromLocationIpSpaceSpecifier.INSTANCE.resolve(locations, specifierContext);
   }
 
+  /**
+   * Get the {@link BDDReachabilityAnalysisFactory} for the given snapshot, reusing the one built by
+   * a previous question if it is still cached. The factory's {@link
+   * BDDReachabilityAnalysisFactory#getBDDPacket() packet} must be used for all BDDs that interact
+   * with the analysis.
+   */
+  @Nonnull
+  private BDDReachabilityAnalysisFactory getBddReachabilityAnalysisFactory(
+      NetworkSnapshot snapshot, boolean ignoreFilters) {
+    return _cachedBddReachabilityAnalysisFactories.get(
+        snapshot,
+        ignoreFilters,
+        () -> getBddReachabilityAnalysisFactory(snapshot, new BDDPacket(), ignoreFilters));
+  }
+
   @Nonnull
   private BDDReachabilityAnalysisFactory getBddReachabilityAnalysisFactory(
       NetworkSnapshot snapshot, BDDPacket pkt, boolean ignoreFilters) {
@@ -44,6 +44,7 @@ import javax.ws.rs.core.Response;
 import javax.ws.rs.core.UriBuilder;
 import org.apache.commons.collections4.map.LRUMap;
 import org.apache.commons.lang3.SystemUtils;
+import org.batfish.bddreachability.BDDReachabilityAnalysisFactoryCache;
 import org.batfish.common.BatfishException;
 import org.batfish.common.BatfishLogger;
 import org.batfish.common.BfConsts;
@@ -62,6 +63,7 @@ import org.batfish.datamodel.DataPlane;
 import org.batfish.datamodel.answers.Answer;
 import org.batfish.datamodel.answers.AnswerStatus;
 import org.batfish.datamodel.collections.BgpAdvertisementsByVrf;
+import org.batfish.topology.TopologyStore;
 import org.batfish.version.BatfishVersion;
 import org.codehaus.jettison.json.JSONArray;
 import org.glassfish.grizzly.http.server.HttpServer;
@@ -116,6 +118,9 @@ public class Driver {
 
   private static ConcurrentMap<String, Task> _taskLog;
 
+  private static final BDDReachabilityAnalysisFactoryCache
+      CACHED_BDD_REACHABILITY_ANALYSIS_FACTORIES = buildBddReachabilityAnalysisFactoryCache();
+
   private static final Cache<NetworkSnapshot, DataPlane> CACHED_DATA_PLANES = buildDataPlaneCache();
 
   private static final Map<NetworkSnapshot, SortedMap<String, BgpAdvertisementsByVrf>>
@@ -124,6 +129,8 @@ public class Driver {
   private static final Cache<NetworkSnapshot, SortedMap<String, Configuration>> CACHED_TESTRIGS =
       buildTestrigCache();
 
+  private static final TopologyStore CACHED_TOPOLOGIES = buildTopologyStore();
+
   private static final int COORDINATOR_CHECK_INTERVAL_MS = 1 * 60 * 1000; // 1 min
 
   private static final int COORDINATOR_POLL_TIMEOUT_MS = 30 * 1000; // 30 secs
@@ -134,15 +141,32 @@ public class Driver {
 
   static Logger httpServerLogger = Logger.getLogger(HttpServer.class.getName());
 
+  /**
+   * Total number of BDD node table and operator cache entries of cached reachability analysis
+   * factories. A node table entry takes 20 bytes, and an operator cache entry about 40.
+   */
+  private static final long MAX_CACHED_BDD_REACHABILITY_NODES = 50_000_000L;
+
   private static final int MAX_CACHED_DATA_PLANES = 2;
 
   private static final int MAX_CACHED_ENVIRONMENT_BGP_TABLES = 4;
 
   private static final int MAX_CACHED_TESTRIGS = 5;
 
+  /** Total serialized size of the topologies kept in memory, across all snapshots. */
+  private static final long MAX_CACHED_TOPOLOGY_BYTES = 1L << 30;
+
   static Logger networkListenerLogger =
       Logger.getLogger("org.glassfish.grizzly.http.server.NetworkListener");
 
+  private static BDDReachabilityAnalysisFactoryCache buildBddReachabilityAnalysisFactoryCache() {
+    return BDDReachabilityAnalysisFactoryCache.create(MAX_CACHED_BDD_REACHABILITY_NODES);
+  }
+
+  private static TopologyStore buildTopologyStore() {
+    return TopologyStore.create(MAX_CACHED_TOPOLOGY_BYTES);
+  }
+
   private static Cache<NetworkSnapshot, DataPlane> buildDataPlaneCache() {
     return CacheBuilder.newBuilder().softValues().maximumSize(MAX_CACHED_DATA_PLANES).build();
   }
@@ -530,6 +554,8 @@ public class Driver {
               CACHED_TESTRIGS,
               CACHED_DATA_PLANES,
               CACHED_ENVIRONMENT_BGP_TABLES,
+              CACHED_BDD_REACHABILITY_ANALYSIS_FACTORIES,
+              CACHED_TOPOLOGIES,
               null,
               null);
 
@@ -1,14 +1,16 @@
 package org.batfish.topology;
 
-import com.google.common.cache.CacheBuilder;
-import com.google.common.cache.CacheLoader;
-import com.google.common.cache.LoadingCache;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableSet;
 import io.opentracing.ActiveSpan;
 import io.opentracing.util.GlobalTracer;
 import java.io.IOException;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
 import javax.annotation.Nonnull;
 import javax.annotation.ParametersAreNonnullByDefault;
 import org.batfish.common.BatfishException;
@@ -16,12 +18,16 @@ import org.batfish.common.NetworkSnapshot;
 import org.batfish.common.plugin.IBatfish;
 import org.batfish.common.topology.IpOwners;
 import org.batfish.common.topology.Layer1Topology;
+import org.batfish.common.topology.Layer2Edge;
 import org.batfish.common.topology.Layer2Topology;
 import org.batfish.common.topology.TopologyProvider;
 import org.batfish.common.topology.TopologyUtil;
 import org.batfish.common.topology.TunnelTopology;
+import org.batfish.common.util.BatfishObjectMapper;
 import org.batfish.datamodel.Configuration;
+import org.batfish.datamodel.Edge;
 import org.batfish.datamodel.NetworkConfigurations;
+import org.batfish.datamodel.SnapshotMetadata;
 import org.batfish.datamodel.Topology;
 import org.batfish.datamodel.bgp.BgpTopology;
 import org.batfish.datamodel.ipsec.IpsecTopology;
@@ -30,49 +36,55 @@ import org.batfish.datamodel.ospf.OspfTopologyUtils;
 import org.batfish.datamodel.vxlan.VxlanTopology;
 import org.batfish.datamodel.vxlan.VxlanTopologyUtils;
 import org.batfish.storage.StorageProvider;
+import org.batfish.topology.TopologyStore.Codec;
+import org.batfish.topology.TopologyStore.Kind;
 
 @ParametersAreNonnullByDefault
 public final class TopologyProviderImpl implements TopologyProvider {
-  /** Create a new topology provider for a given instance of {@link IBatfish} */
-  public TopologyProviderImpl(IBatfish batfish, StorageProvider storage) {
+  /**
+   * Create a new topology provider for a given instance of {@link IBatfish}, which keeps initial
+   * topologies in {@code topologies}.
+   */
+  public TopologyProviderImpl(IBatfish batfish, StorageProvider storage, TopologyStore topologies) {
     _batfish = batfish;
     _storage = storage;
+    _topologies = topologies;
   }
 
   @Override
   public IpOwners getIpOwners(NetworkSnapshot snapshot) {
-    return _ipOwners.getUnchecked(snapshot);
+    return get(snapshot, IP_OWNERS, this::computeIpOwners);
   }
 
   @Override
   public Optional<Layer1Topology> getLayer1LogicalTopology(NetworkSnapshot networkSnapshot) {
-    return _layer1LogicalTopologies.getUnchecked(networkSnapshot);
+    return get(networkSnapshot, LAYER1_LOGICAL, this::computeLayer1LogicalTopology);
   }
 
   @Override
   public Optional<Layer1Topology> getLayer1PhysicalTopology(NetworkSnapshot networkSnapshot) {
-    return _layer1PhysicalTopologies.getUnchecked(networkSnapshot);
+    return get(networkSnapshot, LAYER1_PHYSICAL, this::computeLayer1PhysicalTopology);
   }
 
   @Override
   @Nonnull
   public IpsecTopology getInitialIpsecTopology(NetworkSnapshot networkSnapshot) {
-    return _initialIpsecTopologies.getUnchecked(networkSnapshot);
+    return get(networkSnapshot, INITIAL_IPSEC, this::computeInitialIpsecTopology);
   }
 
   @Override
   public Optional<Layer2Topology> getInitialLayer2Topology(NetworkSnapshot networkSnapshot) {
-    return _initialLayer2Topologies.getUnchecked(networkSnapshot);
+    return get(networkSnapshot, INITIAL_LAYER2, this::computeInitialLayer2Topology);
   }
 
   @Override
   public Topology getInitialLayer3Topology(NetworkSnapshot networkSnapshot) {
-    return _initialLayer3Topologies.getUnchecked(networkSnapshot);
+    return get(networkSnapshot, INITIAL_LAYER3, this::computeInitialLayer3Topology);
   }
 
   @Override
   public OspfTopology getInitialOspfTopology(NetworkSnapshot networkSnapshot) {
-    return _initialOspfTopologies.getUnchecked(networkSnapshot);
+    return get(networkSnapshot, INITIAL_OSPF, this::computeInitialOspfTopology);
   }
 
   @Override
@@ -82,7 +94,7 @@ public final class TopologyProviderImpl implements TopologyProvider {
 
   @Override
   public Optional<Layer1Topology> getRawLayer1PhysicalTopology(NetworkSnapshot networkSnapshot) {
-    return _rawLayer1PhysicalTopologies.getUnchecked(networkSnapshot);
+    return get(networkSnapshot, RAW_LAYER1_PHYSICAL, this::computeRawLayer1PhysicalTopology);
   }
 
   @Override
@@ -101,12 +113,12 @@ public final class TopologyProviderImpl implements TopologyProvider {
 
   @Override
   public Topology getRawLayer3Topology(NetworkSnapshot networkSnapshot) {
-    return _rawLayer3Topologies.getUnchecked(networkSnapshot);
+    return get(networkSnapshot, RAW_LAYER3, this::computeRawLayer3Topology);
   }
 
   @Override
   public VxlanTopology getInitialVxlanTopology(NetworkSnapshot snapshot) {
-    return _initialVxlanTopologies.getUnchecked(snapshot);
+    return get(snapshot, INITIAL_VXLAN, this::computeVxlanTopology);
   }
 
   @Override
@@ -148,79 +160,133 @@ public final class TopologyProviderImpl implements TopologyProvider {
   @Nonnull
   @Override
   public TunnelTopology getInitialTunnelTopology(NetworkSnapshot snapshot) {
-    return _initialTunnelTopologies.getUnchecked(snapshot);
+    return get(snapshot, INITIAL_TUNNEL, this::computeInitialTunnelTopology);
   }
 
   ///////////////////////////////////////////////////////////////////////////////////////////////
   // PRIVATE IMPLEMENTATION
   ///////////////////////////////////////////////////////////////////////////////////////////////
 
-  /**
-   * The maximum number of different snapshots for which any specific topology will be cached. Note
-   * that the set of snapshots for any given topology will not be the same.
+  /*
+   * Estimated sizes of the elements of each topology, used to weigh computed topologies in the
+   * store without serializing them.
    */
-  private static final int MAX_CACHED_SNAPSHOTS = 3;
-
-  private final IBatfish _batfish;
-  private final StorageProvider _storage;
+  private static final int ESTIMATED_BYTES_PER_EDGE = 256;
+  private static final int ESTIMATED_BYTES_PER_LAYER2_NODE = 256;
+  private static final int ESTIMATED_BYTES_PER_OSPF_EDGE = 1024;
+  private static final int ESTIMATED_BYTES_PER_IPSEC_EDGE = 2048;
+  private static final int ESTIMATED_BYTES_PER_OWNED_INTERFACE = 1024;
+
+  private static int estimatedBytes(int bytesPerElement, int elements) {
+    return bytesPerElement * (elements + 1);
+  }
 
-  // NOTE: only the "raw" or "initial" versions of topologies are cached. This choice was made to
+  // NOTE: only the "raw" or "initial" versions of topologies are stored. This choice was made to
   // ease developer iteration on BDP: if the dataplane is re-generated (presumably, via a call to
   // generate_dataplane), the backend will not cache dataplane-derived topologies.
 
-  private final LoadingCache<NetworkSnapshot, IpOwners> _ipOwners =
-      CacheBuilder.newBuilder()
-          .maximumSize(MAX_CACHED_SNAPSHOTS)
-          .build(CacheLoader.from(this::computeIpOwners));
-
-  private final LoadingCache<NetworkSnapshot, Optional<Layer1Topology>> _layer1LogicalTopologies =
-      CacheBuilder.newBuilder()
-          .maximumSize(MAX_CACHED_SNAPSHOTS)
-          .build(CacheLoader.from(this::computeLayer1LogicalTopology));
-  private final LoadingCache<NetworkSnapshot, Optional<Layer1Topology>>
-      _rawLayer1PhysicalTopologies =
-          CacheBuilder.newBuilder()
-              .maximumSize(MAX_CACHED_SNAPSHOTS)
-              .build(CacheLoader.from(this::computeRawLayer1PhysicalTopology));
-  private final LoadingCache<NetworkSnapshot, Optional<Layer1Topology>> _layer1PhysicalTopologies =
-      CacheBuilder.newBuilder()
-          .maximumSize(MAX_CACHED_SNAPSHOTS)
-          .build(CacheLoader.from(this::computeLayer1PhysicalTopology));
-
-  private final LoadingCache<NetworkSnapshot, Optional<Layer2Topology>> _initialLayer2Topologies =
-      CacheBuilder.newBuilder()
-          .maximumSize(MAX_CACHED_SNAPSHOTS)
-          .softValues()
-          .build(CacheLoader.from(this::computeInitialLayer2Topology));
-
-  private final LoadingCache<NetworkSnapshot, Topology> _rawLayer3Topologies =
-      CacheBuilder.newBuilder()
-          .maximumSize(MAX_CACHED_SNAPSHOTS)
-          .build(CacheLoader.from(this::computeRawLayer3Topology));
-
-  private final LoadingCache<NetworkSnapshot, Topology> _initialLayer3Topologies =
-      CacheBuilder.newBuilder()
-          .maximumSize(MAX_CACHED_SNAPSHOTS)
-          .build(CacheLoader.from(this::computeInitialLayer3Topology));
-
-  private final LoadingCache<NetworkSnapshot, OspfTopology> _initialOspfTopologies =
-      CacheBuilder.newBuilder()
-          .maximumSize(MAX_CACHED_SNAPSHOTS)
-          .build(CacheLoader.from(this::computeInitialOspfTopology));
-
-  private final LoadingCache<NetworkSnapshot, IpsecTopology> _initialIpsecTopologies =
-      CacheBuilder.newBuilder()
-          .maximumSize(MAX_CACHED_SNAPSHOTS)
-          .build(CacheLoader.from(this::computeInitialIpsecTopology));
-  private final LoadingCache<NetworkSnapshot, TunnelTopology> _initialTunnelTopologies =
-      CacheBuilder.newBuilder()
-          .maximumSize(MAX_CACHED_SNAPSHOTS)
-          .build(CacheLoader.from(this::computeInitialTunnelTopology));
-
-  private final LoadingCache<NetworkSnapshot, VxlanTopology> _initialVxlanTopologies =
-      CacheBuilder.newBuilder()
-          .maximumSize(MAX_CACHED_SNAPSHOTS)
-          .build(CacheLoader.from(this::computeVxlanTopology));
+  private static final Kind<IpOwners> IP_OWNERS =
+      Kind.serialized(
+          "ip_owners",
+          IpOwners.class,
+          ipOwners ->
+              estimatedBytes(
+                  ESTIMATED_BYTES_PER_OWNED_INTERFACE,
+                  ipOwners.getAllInterfaceHostIps().values().stream().mapToInt(Map::size).sum()));
+  private static final Kind<Optional<Layer1Topology>> LAYER1_LOGICAL =
+      layer1Kind("layer1_logical_topology.json");
+  private static final Kind<Optional<Layer1Topology>> RAW_LAYER1_PHYSICAL =
+      layer1Kind("raw_layer1_physical_topology.json");
+  private static final Kind<Optional<Layer1Topology>> LAYER1_PHYSICAL =
+      layer1Kind("layer1_physical_topology.json");
+  private static final Kind<Optional<Layer2Topology>> INITIAL_LAYER2 =
+      Kind.optionalJson(
+          "initial_layer2_topology.json",
+          Layer2Topology.class,
+          layer2 -> estimatedBytes(ESTIMATED_BYTES_PER_LAYER2_NODE, layer2.getNodeCount()));
+  private static final Kind<Set<Layer2Edge>> INITIAL_LAYER2_EDGES =
+      Kind.persisted(
+          "initial_layer2_edges.json",
+          new Layer2EdgesCodec(),
+          edges -> estimatedBytes(ESTIMATED_BYTES_PER_EDGE, edges.size()));
+  private static final Kind<Topology> RAW_LAYER3 = layer3Kind("raw_layer3_topology.json");
+  private static final Kind<Topology> INITIAL_LAYER3 = layer3Kind("initial_layer3_topology.json");
+  private static final Kind<OspfTopology> INITIAL_OSPF =
+      Kind.json(
+          "initial_ospf_topology.json",
+          OspfTopology.class,
+          ospf -> estimatedBytes(ESTIMATED_BYTES_PER_OSPF_EDGE, ospf.getGraph().edges().size()));
+  private static final Kind<IpsecTopology> INITIAL_IPSEC =
+      Kind.inMemory(
+          "initial_ipsec_topology",
+          ipsec -> estimatedBytes(ESTIMATED_BYTES_PER_IPSEC_EDGE, ipsec.getGraph().edges().size()));
+  private static final Kind<TunnelTopology> INITIAL_TUNNEL =
+      Kind.persisted(
+          "initial_tunnel_topology.json",
+          new TunnelTopologyCodec(),
+          tunnel -> estimatedBytes(ESTIMATED_BYTES_PER_EDGE, tunnel.getGraph().edges().size()));
+  private static final Kind<VxlanTopology> INITIAL_VXLAN =
+      Kind.json(
+          "initial_vxlan_topology.json",
+          VxlanTopology.class,
+          vxlan -> estimatedBytes(ESTIMATED_BYTES_PER_EDGE, vxlan.getGraph().edges().size()));
+
+  private static @Nonnull Kind<Optional<Layer1Topology>> layer1Kind(String name) {
+    return Kind.optionalJson(
+        name,
+        Layer1Topology.class,
+        layer1 -> estimatedBytes(ESTIMATED_BYTES_PER_EDGE, layer1.getGraph().edges().size()));
+  }
+
+  private static @Nonnull Kind<Topology> layer3Kind(String name) {
+    return Kind.json(
+        name,
+        Topology.class,
+        layer3 -> estimatedBytes(ESTIMATED_BYTES_PER_EDGE, layer3.getEdges().size()));
+  }
+
+  /** Persists a {@link TunnelTopology} as the JSON of its edges. */
+  @VisibleForTesting
+  static final class TunnelTopologyCodec implements Codec<TunnelTopology> {
+    @Override
+    public @Nonnull byte[] encode(TunnelTopology topology) throws IOException {
+      return BatfishObjectMapper.writer().writeValueAsBytes(topology.asEdgeSet());
+    }
+
+    @Override
+    public @Nonnull TunnelTopology decode(byte[] bytes) throws IOException {
+      List<Edge> edges =
+          BatfishObjectMapper.mapper().readValue(bytes, new TypeReference<List<Edge>>() {});
+      TunnelTopology.Builder builder = TunnelTopology.builder();
+      edges.forEach(edge -> builder.add(edge.getTail(), edge.getHead()));
+      return builder.build();
+    }
+  }
+
+  /** Persists a set of {@link Layer2Edge}s as JSON. */
+  @VisibleForTesting
+  static final class Layer2EdgesCodec implements Codec<Set<Layer2Edge>> {
+    @Override
+    public @Nonnull byte[] encode(Set<Layer2Edge> edges) throws IOException {
+      return BatfishObjectMapper.writer().writeValueAsBytes(edges);
+    }
+
+    @Override
+    public @Nonnull Set<Layer2Edge> decode(byte[] bytes) throws IOException {
+      List<Layer2Edge> edges =
+          BatfishObjectMapper.mapper().readValue(bytes, new TypeReference<List<Layer2Edge>>() {});
+      return ImmutableSet.copyOf(edges);
+    }
+  }
+
+  private final IBatfish _batfish;
+  private final StorageProvider _storage;
+  private final TopologyStore _topologies;
+
+  private @Nonnull <T> T get(
+      NetworkSnapshot snapshot, Kind<T> kind, Function<NetworkSnapshot, T> computer) {
+    return _topologies.get(snapshot, kind, _storage, () -> computer.apply(snapshot));
+  }
 
   private @Nonnull IpOwners computeIpOwners(NetworkSnapshot snapshot) {
     try (ActiveSpan span =
@@ -282,11 +348,57 @@ public final class TopologyProviderImpl implements TopologyProvider {
       return getLayer1LogicalTopology(networkSnapshot)
           .map(
               layer1LogicalTopology ->
-                  TopologyUtil.computeLayer2Topology(
-                      layer1LogicalTopology,
-                      VxlanTopology.EMPTY,
-                      _batfish.loadConfigurations(networkSnapshot)));
+                  computeInitialLayer2Topology(networkSnapshot, layer1LogicalTopology));
+    }
+  }
+
+  /**
+   * Computes the initial {@link Layer2Topology} of a snapshot with the given layer-1 logical
+   * topology. The topology of a forked snapshot is updated from that of its parent if the parent's
+   * is already computed, since a fork typically changes only a few layer-2 edges.
+   */
+  private @Nonnull Layer2Topology computeInitialLayer2Topology(
+      NetworkSnapshot networkSnapshot, Layer1Topology layer1LogicalTopology) {
+    Set<Layer2Edge> edges =
+        get(
+            networkSnapshot,
+            INITIAL_LAYER2_EDGES,
+            snapshot ->
+                TopologyUtil.computeLayer2Edges(
+                    layer1LogicalTopology,
+                    VxlanTopology.EMPTY,
+                    _batfish.loadConfigurations(snapshot)));
+    Optional<NetworkSnapshot> parent = getParentSnapshot(networkSnapshot);
+    if (parent.isPresent()) {
+      Optional<Layer2Topology> parentTopology =
+          _topologies
+              .getIfPresent(parent.get(), INITIAL_LAYER2, _storage)
+              .flatMap(Function.identity());
+      Optional<Set<Layer2Edge>> parentEdges =
+          _topologies.getIfPresent(parent.get(), INITIAL_LAYER2_EDGES, _storage);
+      if (parentTopology.isPresent() && parentEdges.isPresent()) {
+        return parentTopology.get().updateEdges(parentEdges.get(), edges);
+      }
+    }
+    return Layer2Topology.fromEdges(edges);
+  }
+
+  /** Returns the snapshot {@code networkSnapshot} was forked from, if any. */
+  private @Nonnull Optional<NetworkSnapshot> getParentSnapshot(NetworkSnapshot networkSnapshot) {
+    SnapshotMetadata metadata;
+    try {
+      metadata =
+          BatfishObjectMapper.mapper()
+              .readValue(
+                  _storage.loadSnapshotMetadata(
+                      networkSnapshot.getNetwork(), networkSnapshot.getSnapshot()),
+                  SnapshotMetadata.class);
+    } catch (IOException e) {
+      // e.g. no metadata, as for snapshots not created through the coordinator
+      return Optional.empty();
     }
+    return Optional.ofNullable(metadata.getParentSnapshotId())
+        .map(parentId -> new NetworkSnapshot(networkSnapshot.getNetwork(), parentId));
   }
 
   private Topology computeInitialLayer3Topology(NetworkSnapshot networkSnapshot) {
@@ -0,0 +1,321 @@
+package org.batfish.topology;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.io.ByteStreams;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import org.batfish.common.BatfishException;
+import org.batfish.common.NetworkSnapshot;
+import org.batfish.common.util.BatfishObjectMapper;
+import org.batfish.storage.StorageProvider;
+import org.batfish.version.BatfishVersion;
+
+/**
+ * Store of the topologies computed from the configurations of each snapshot, shared by the {@link
+ * TopologyProviderImpl topology providers} of all tasks of a worker.
+ *
+ * <p>Topologies are kept in memory, each weighed by the size of its stored form if it was loaded
+ * from storage, or else by the estimate of its kind, and are evicted in least-recently-used order
+ * once the total weight exceeds the budget. Topologies of a {@link Kind#persisted persisted} kind
+ * are also written to the storage of their snapshot under a key including the Batfish version, so
+ * that a topology evicted from memory, or computed by another worker of the same version sharing
+ * the storage, is loaded rather than recomputed.
+ */
+@ParametersAreNonnullByDefault
+public final class TopologyStore {
+
+  /** Serializes topologies of some type to bytes and back. */
+  public interface Codec<T> {
+    @Nonnull
+    byte[] encode(T topology) throws IOException;
+
+    @Nonnull
+    T decode(byte[] bytes) throws IOException;
+  }
+
+  /**
+   * A kind of topology, identified by a name unique within the store. Each kind estimates the size
+   * of its topologies, used to weigh the ones computed rather than loaded from storage.
+   */
+  public static final class Kind<T> {
+
+    /** A kind of topology persisted with the given {@code codec}. */
+    public static @Nonnull <T> Kind<T> persisted(
+        String name, Codec<T> codec, ToIntFunction<? super T> estimatedBytes) {
+      return new Kind<>(name, codec, estimatedBytes);
+    }
+
+    /** A kind of topology persisted as the JSON of {@code type}. */
+    public static @Nonnull <T> Kind<T> json(
+        String name, Class<T> type, ToIntFunction<? super T> estimatedBytes) {
+      return persisted(
+          name,
+          new Codec<T>() {
+            @Override
+            public @Nonnull byte[] encode(T topology) throws IOException {
+              return BatfishObjectMapper.writer().writeValueAsBytes(topology);
+            }
+
+            @Override
+            public @Nonnull T decode(byte[] bytes) throws IOException {
+              return BatfishObjectMapper.mapper().readValue(bytes, type);
+            }
+          },
+          estimatedBytes);
+    }
+
+    /** A kind of optional topology persisted as the JSON of {@code type}, or JSON null. */
+    public static @Nonnull <T> Kind<Optional<T>> optionalJson(
+        String name, Class<T> type, ToIntFunction<? super T> estimatedBytes) {
+      return persisted(
+          name,
+          new Codec<Optional<T>>() {
+            @Override
+            public @Nonnull byte[] encode(Optional<T> topology) throws IOException {
+              return BatfishObjectMapper.writer().writeValueAsBytes(topology.orElse(null));
+            }
+
+            @Override
+            public @Nonnull Optional<T> decode(byte[] bytes) throws IOException {
+              return Optional.ofNullable(BatfishObjectMapper.mapper().readValue(bytes, type));
+            }
+          },
+          topology ->
+              topology.isPresent() ? estimatedBytes.applyAsInt(topology.get()) : JSON_NULL_BYTES);
+    }
+
+    /** A kind of topology persisted with Java serialization, for types without a JSON form. */
+    public static @Nonnull <T extends Serializable> Kind<T> serialized(
+        String name, Class<T> type, ToIntFunction<? super T> estimatedBytes) {
+      return persisted(
+          name,
+          new Codec<T>() {
+            @Override
+            public @Nonnull byte[] encode(T topology) throws IOException {
+              ByteArrayOutputStream out = new ByteArrayOutputStream();
+              try (ObjectOutputStream oos = new ObjectOutputStream(out)) {
+                oos.writeObject(topology);
+              }
+              return out.toByteArray();
+            }
+
+            @Override
+            public @Nonnull T decode(byte[] bytes) throws IOException {
+              try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+                return type.cast(ois.readObject());
+              } catch (ClassNotFoundException | ClassCastException e) {
+                throw new IOException("Could not deserialize " + type.getSimpleName(), e);
+              }
+            }
+          },
+          estimatedBytes);
+    }
+
+    /** A kind of topology that cannot be serialized and is only kept in memory. */
+    public static @Nonnull <T> Kind<T> inMemory(
+        String name, ToIntFunction<? super T> estimatedBytes) {
+      return new Kind<>(name, null, estimatedBytes);
+    }
+
+    private final @Nonnull String _name;
+    private final @Nullable Codec<T> _codec;
+    private final @Nonnull ToIntFunction<? super T> _estimatedBytes;
+
+    private Kind(String name, @Nullable Codec<T> codec, ToIntFunction<? super T> estimatedBytes) {
+      _name = name;
+      _codec = codec;
+      _estimatedBytes = estimatedBytes;
+    }
+
+    public @Nonnull String getName() {
+      return _name;
+    }
+
+    @Override
+    public String toString() {
+      return toStringHelper(this).add("name", _name).toString();
+    }
+  }
+
+  /** Size of the JSON {@code null} stored for an absent optional topology. */
+  private static final int JSON_NULL_BYTES = 4;
+
+  /** Create a store holding topologies with a total of at most {@code maxBytes} in memory. */
+  public static @Nonnull TopologyStore create(long maxBytes) {
+    return new TopologyStore(
+        CacheBuilder.newBuilder()
+            .softValues()
+            .maximumWeight(maxBytes)
+            .<Key, Entry>weigher((key, entry) -> entry._weight)
+            .build());
+  }
+
+  private final Cache<Key, Entry> _topologies;
+
+  private TopologyStore(Cache<Key, Entry> topologies) {
+    _topologies = topologies;
+  }
+
+  /**
+   * Return the topology of the given kind for the given snapshot. If it is not in memory, it is
+   * loaded from {@code storage}, or else computed with {@code computer} and written to {@code
+   * storage}. Concurrent requests for the same topology wait for a single computation.
+   */
+  public @Nonnull <T> T get(
+      NetworkSnapshot snapshot, Kind<T> kind, StorageProvider storage, Supplier<T> computer) {
+    Key key = new Key(snapshot, kind._name);
+    try {
+      Entry entry = _topologies.get(key, () -> load(snapshot, kind, storage, computer));
+      @SuppressWarnings("unchecked")
+      T topology = (T) entry._topology;
+      return topology;
+    } catch (ExecutionException e) {
+      throw new BatfishException(
+          String.format("Could not store %s topology for snapshot %s", kind._name, snapshot),
+          e.getCause());
+    } catch (UncheckedExecutionException e) {
+      Throwables.throwIfUnchecked(e.getCause());
+      throw e;
+    }
+  }
+
+  /**
+   * Return the topology of the given kind for the given snapshot if it is in memory or in {@code
+   * storage}, without computing it.
+   */
+  public @Nonnull <T> Optional<T> getIfPresent(
+      NetworkSnapshot snapshot, Kind<T> kind, StorageProvider storage) {
+    Key key = new Key(snapshot, kind._name);
+    Entry entry = _topologies.getIfPresent(key);
+    if (entry == null) {
+      entry = loadStored(snapshot, kind, storage);
+      if (entry == null) {
+        return Optional.empty();
+      }
+      _topologies.put(key, entry);
+    }
+    @SuppressWarnings("unchecked")
+    T topology = (T) entry._topology;
+    return Optional.of(topology);
+  }
+
+  /**
+   * Discard the in-memory topologies of the given snapshot, e.g. because its configurations
+   * changed. Persisted copies are discarded by the storage when the configurations are stored.
+   */
+  public void invalidate(NetworkSnapshot snapshot) {
+    _topologies.asMap().keySet().removeIf(key -> key._snapshot.equals(snapshot));
+  }
+
+  @VisibleForTesting
+  long size() {
+    return _topologies.size();
+  }
+
+  /**
+   * The key under which topologies of the given kind are stored. It includes the Batfish version,
+   * since topologies stored by another version may have been computed differently.
+   */
+  @VisibleForTesting
+  static @Nonnull String storageKey(Kind<?> kind) {
+    return String.format("%s_%s", BatfishVersion.getVersionStatic(), kind._name);
+  }
+
+  private static @Nonnull <T> Entry load(
+      NetworkSnapshot snapshot, Kind<T> kind, StorageProvider storage, Supplier<T> computer)
+      throws IOException {
+    Codec<T> codec = kind._codec;
+    if (codec == null) {
+      T topology = computer.get();
+      return new Entry(topology, kind._estimatedBytes.applyAsInt(topology));
+    }
+    Entry stored = loadStored(snapshot, kind, storage);
+    if (stored != null) {
+      return stored;
+    }
+    // Not stored yet, or unreadable. Recompute it and replace the stored copy.
+    T topology = computer.get();
+    storage.storeCachedTopology(
+        new ByteArrayInputStream(codec.encode(topology)), snapshot, storageKey(kind));
+    return new Entry(topology, kind._estimatedBytes.applyAsInt(topology));
+  }
+
+  /**
+   * Load the stored topology of the given kind for the given snapshot, or return null if it is not
+   * persisted, not stored, or unreadable.
+   */
+  private static @Nullable <T> Entry loadStored(
+      NetworkSnapshot snapshot, Kind<T> kind, StorageProvider storage) {
+    Codec<T> codec = kind._codec;
+    if (codec == null) {
+      return null;
+    }
+    try (InputStream inputStream = storage.loadCachedTopology(snapshot, storageKey(kind))) {
+      byte[] bytes = ByteStreams.toByteArray(inputStream);
+      return new Entry(codec.decode(bytes), bytes.length);
+    } catch (IOException e) {
+      return null;
+    }
+  }
+
+  private static final class Entry {
+    private final @Nonnull Object _topology;
+    private final int _weight;
+
+    private Entry(Object topology, int weight) {
+      _topology = topology;
+      _weight = weight;
+    }
+  }
+
+  private static final class Key {
+    private final @Nonnull NetworkSnapshot _snapshot;
+    private final @Nonnull String _kind;
+
+    private Key(NetworkSnapshot snapshot, String kind) {
+      _snapshot = snapshot;
+      _kind = kind;
+    }
+
+    @Override
+    public boolean equals(@Nullable Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof Key)) {
+        return false;
+      }
+      Key key = (Key) o;
+      return _snapshot.equals(key._snapshot) && _kind.equals(key._kind);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(_snapshot, _kind);
+    }
+
+    @Override
+    public String toString() {
+      return toStringHelper(this).add("snapshot", _snapshot).add("kind", _kind).toString();
+    }
+  }
+}
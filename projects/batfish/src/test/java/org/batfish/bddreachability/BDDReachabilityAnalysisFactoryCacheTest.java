@@ -0,0 +1,199 @@
+package org.batfish.bddreachability;
+
+import static org.batfish.datamodel.FlowDisposition.ACCEPTED;
+import static org.batfish.datamodel.FlowDisposition.LOOP;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableSortedSet;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import net.sf.javabdd.BDD;
+import org.batfish.common.NetworkSnapshot;
+import org.batfish.common.bdd.BDDPacket;
+import org.batfish.common.util.TracePruner;
+import org.batfish.datamodel.Configuration;
+import org.batfish.datamodel.DataPlane;
+import org.batfish.datamodel.Flow;
+import org.batfish.datamodel.FlowDisposition;
+import org.batfish.datamodel.acl.AclLineMatchExprs;
+import org.batfish.datamodel.flow.TraceWrapperAsAnswerElement;
+import org.batfish.identifiers.NetworkId;
+import org.batfish.identifiers.SnapshotId;
+import org.batfish.main.Batfish;
+import org.batfish.main.BatfishTestUtils;
+import org.batfish.question.ReachabilityParameters;
+import org.batfish.question.multipath.MultipathConsistencyParameters;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/** Tests of {@link BDDReachabilityAnalysisFactoryCache} */
+public final class BDDReachabilityAnalysisFactoryCacheTest {
+  @Rule public TemporaryFolder temp = new TemporaryFolder();
+
+  private static final NetworkSnapshot SNAPSHOT_1 =
+      new NetworkSnapshot(new NetworkId("network"), new SnapshotId("snapshot1"));
+  private static final NetworkSnapshot SNAPSHOT_2 =
+      new NetworkSnapshot(new NetworkId("network"), new SnapshotId("snapshot2"));
+
+  private TestNetwork _net;
+  private DataPlane _dataPlane;
+  private AtomicInteger _factoriesCreated;
+
+  @Before
+  public void setup() throws IOException {
+    _net = new TestNetwork();
+    Batfish batfish = BatfishTestUtils.getBatfish(_net._configs, temp);
+    batfish.computeDataPlane(batfish.getSnapshot());
+    _dataPlane = batfish.loadDataPlane(batfish.getSnapshot());
+    _factoriesCreated = new AtomicInteger();
+  }
+
+  private Supplier<BDDReachabilityAnalysisFactory> factorySupplier(boolean ignoreFilters) {
+    return () -> {
+      _factoriesCreated.incrementAndGet();
+      return new BDDReachabilityAnalysisFactory(
+          new BDDPacket(),
+          _net._configs,
+          _dataPlane.getForwardingAnalysis(),
+          new IpsRoutedOutInterfacesFactory(_dataPlane.getFibs()),
+          ignoreFilters,
+          false);
+    };
+  }
+
+  @Test
+  public void testGet() {
+    BDDReachabilityAnalysisFactoryCache cache =
+        BDDReachabilityAnalysisFactoryCache.create(Long.MAX_VALUE);
+    BDDReachabilityAnalysisFactory factory = cache.get(SNAPSHOT_1, false, factorySupplier(false));
+
+    // reused for the same snapshot and ignoreFilters
+    assertThat(cache.get(SNAPSHOT_1, false, factorySupplier(false)), sameInstance(factory));
+    assertThat(_factoriesCreated.get(), equalTo(1));
+
+    // not reused for a different snapshot or ignoreFilters
+    assertThat(cache.get(SNAPSHOT_1, true, factorySupplier(true)), not(sameInstance(factory)));
+    assertThat(cache.get(SNAPSHOT_2, false, factorySupplier(false)), not(sameInstance(factory)));
+    assertThat(_factoriesCreated.get(), equalTo(3));
+    assertThat(cache.size(), equalTo(3L));
+  }
+
+  @Test
+  public void testInvalidate() {
+    BDDReachabilityAnalysisFactoryCache cache =
+        BDDReachabilityAnalysisFactoryCache.create(Long.MAX_VALUE);
+    cache.get(SNAPSHOT_1, false, factorySupplier(false));
+    cache.get(SNAPSHOT_1, true, factorySupplier(true));
+    cache.get(SNAPSHOT_2, false, factorySupplier(false));
+
+    cache.invalidate(SNAPSHOT_1);
+    assertThat(cache.size(), equalTo(1L));
+    cache.get(SNAPSHOT_2, false, factorySupplier(false));
+    assertThat(_factoriesCreated.get(), equalTo(3));
+  }
+
+  @Test
+  public void testMemoryBudget() {
+    // Too small to hold any factory
+    BDDReachabilityAnalysisFactoryCache cache = BDDReachabilityAnalysisFactoryCache.create(1L);
+    cache.get(SNAPSHOT_1, false, factorySupplier(false));
+    cache.get(SNAPSHOT_1, false, factorySupplier(false));
+    assertThat(_factoriesCreated.get(), equalTo(2));
+    assertThat(cache.size(), equalTo(0L));
+  }
+
+  @Test
+  public void testReweighOnAccess() {
+    long initialWeight = BDDReachabilityAnalysisFactoryCache.weigh(factorySupplier(false).get());
+    _factoriesCreated.set(0);
+    BDDReachabilityAnalysisFactoryCache cache =
+        BDDReachabilityAnalysisFactoryCache.create(2 * initialWeight);
+    BDDReachabilityAnalysisFactory factory = cache.get(SNAPSHOT_1, false, factorySupplier(false));
+    assertThat(cache.get(SNAPSHOT_1, false, factorySupplier(false)), sameInstance(factory));
+
+    // Questions keep BDDs in the cached packet alive, e.g. until they are answered, growing its
+    // node table
+    BDDPacket pkt = factory.getBDDPacket();
+    List<BDD> questionBdds = new ArrayList<>();
+    for (long ip = 0;
+        BDDReachabilityAnalysisFactoryCache.weigh(factory) <= 2 * initialWeight;
+        ip++) {
+      questionBdds.add(pkt.getDstIp().value(ip));
+    }
+
+    // The node table does not shrink once they are freed, so the grown factory is replaced by a
+    // fresh one
+    questionBdds.forEach(BDD::free);
+    assertThat(cache.get(SNAPSHOT_1, false, factorySupplier(false)), not(sameInstance(factory)));
+    assertThat(_factoriesCreated.get(), equalTo(2));
+    assertThat(cache.size(), equalTo(1L));
+  }
+
+  private static Set<Flow> reachableFlows(
+      Batfish batfish, NetworkSnapshot snapshot, FlowDisposition action) {
+    return ((TraceWrapperAsAnswerElement)
+            batfish.bddSingleReachability(
+                snapshot,
+                ReachabilityParameters.builder().setActions(ImmutableSortedSet.of(action)).build()))
+        .getFlowTraces()
+        .keySet();
+  }
+
+  private static Set<Flow> multipathInconsistentFlows(Batfish batfish, NetworkSnapshot snapshot) {
+    return batfish.bddMultipathConsistency(
+        snapshot,
+        new MultipathConsistencyParameters(
+            AclLineMatchExprs.TRUE,
+            batfish.getAllSourcesInferFromLocationIpSpaceAssignment(snapshot),
+            batfish.loadConfigurations(snapshot).keySet(),
+            ImmutableSet.of(),
+            TracePruner.DEFAULT_MAX_TRACES,
+            ImmutableSet.of()));
+  }
+
+  /**
+   * Questions answered with the cached factory free their results once answered. Check that this
+   * does not free BDDs the factory keeps, by answering different questions back to back with one
+   * cached factory, and comparing with the answers from a fresh factory for each question.
+   */
+  @Test
+  public void testQuestionsShareCachedFactory() throws IOException {
+    SortedMap<String, Configuration> configs = MPIWithLoopNetwork.testMPIWithLoopNetwork();
+    List<Function<Batfish, Set<Flow>>> questions =
+        ImmutableList.of(
+            batfish -> reachableFlows(batfish, batfish.getSnapshot(), ACCEPTED),
+            batfish -> batfish.bddLoopDetection(batfish.getSnapshot()),
+            batfish -> multipathInconsistentFlows(batfish, batfish.getSnapshot()),
+            batfish -> reachableFlows(batfish, batfish.getSnapshot(), LOOP));
+
+    List<Set<Flow>> expected = new ArrayList<>();
+    for (Function<Batfish, Set<Flow>> question : questions) {
+      Batfish batfish = BatfishTestUtils.getBatfish(configs, temp);
+      batfish.computeDataPlane(batfish.getSnapshot());
+      expected.add(question.apply(batfish));
+    }
+    expected.forEach(flows -> assertThat(flows, not(empty())));
+
+    Batfish batfish = BatfishTestUtils.getBatfish(configs, temp);
+    batfish.computeDataPlane(batfish.getSnapshot());
+    for (int round = 0; round < 2; round++) {
+      for (int i = 0; i < questions.size(); i++) {
+        assertThat(questions.get(i).apply(batfish), equalTo(expected.get(i)));
+      }
+    }
+  }
+}
@@ -432,7 +432,7 @@ public final class BDDReachabilityAnalysisFactoryTest {
             .setSourceLocationSpecifier(AllInterfacesLocationSpecifier.INSTANCE)
             .setActions(ImmutableSortedSet.of(FlowDisposition.LOOP))
             .setFinalNodesSpecifier(AllNodesNodeSpecifier.INSTANCE)
-            .setHeaderSpace(new HeaderSpace())
+            .setHeaderSpace(HeaderSpace.builder().build())
             .build();
 
     AnswerElement answer =
@@ -2,16 +2,20 @@ package org.batfish.bddreachability;
 
 import static org.batfish.bddreachability.BDDReachabilityUtils.computeForwardEdgeTable;
 import static org.batfish.bddreachability.BDDReachabilityUtils.fixpoint;
+import static org.batfish.bddreachability.BDDReachabilityUtils.getIngressLocationBdds;
 import static org.batfish.bddreachability.BDDReachabilityUtils.toIngressLocation;
 import static org.batfish.bddreachability.TestNetwork.DST_PREFIX_1;
 import static org.batfish.bddreachability.TestNetwork.DST_PREFIX_2;
 import static org.batfish.bddreachability.TestNetwork.LINK_1_NETWORK;
 import static org.batfish.bddreachability.TestNetwork.LINK_2_NETWORK;
 import static org.batfish.bddreachability.TestNetwork.POST_SOURCE_NAT_ACL_DEST_PORT;
+import static org.batfish.bddreachability.transition.Transitions.IDENTITY;
+import static org.batfish.bddreachability.transition.Transitions.constraint;
 import static org.batfish.common.bdd.BDDMatchers.intersects;
 import static org.batfish.common.bdd.BDDMatchers.isOne;
 import static org.batfish.common.bdd.BDDMatchers.isZero;
 import static org.batfish.datamodel.Configuration.DEFAULT_VRF_NAME;
+import static org.batfish.datamodel.acl.AclLineMatchExprs.matchDst;
 import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.not;
@@ -22,13 +26,17 @@ import static org.junit.Assert.assertThat;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
 import com.google.common.collect.Table;
 import com.google.common.collect.Tables;
 import java.io.IOException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 import net.sf.javabdd.BDD;
 import org.batfish.bddreachability.transition.Transition;
@@ -37,6 +45,7 @@ import org.batfish.common.bdd.BDDOps;
 import org.batfish.common.bdd.BDDPacket;
 import org.batfish.common.bdd.IpSpaceToBDD;
 import org.batfish.datamodel.DataPlane;
+import org.batfish.datamodel.FlowDisposition;
 import org.batfish.datamodel.Ip;
 import org.batfish.datamodel.IpProtocol;
 import org.batfish.datamodel.UniverseIpSpace;
@@ -44,6 +53,7 @@ import org.batfish.main.Batfish;
 import org.batfish.main.BatfishTestUtils;
 import org.batfish.specifier.InterfaceLocation;
 import org.batfish.specifier.IpSpaceAssignment;
+import org.batfish.symbolic.IngressLocation;
 import org.batfish.symbolic.state.Accept;
 import org.batfish.symbolic.state.DropNoRoute;
 import org.batfish.symbolic.state.NodeAccept;
@@ -484,6 +494,119 @@ public final class BDDReachabilityAnalysisTest {
         equalTo(ImmutableMap.of(toIngressLocation(originateVrf), pkt.getFactory().zero())));
   }
 
+  @Test
+  public void testBatchIngressLocationReachableBDDs() {
+    BDD one = PKT.getFactory().one();
+    Map<String, Map<StateExpr, BDD>> queryRoots =
+        ImmutableMap.of(
+            "acceptedAtDst",
+            ImmutableMap.of(_dstNodeAccept, one),
+            "acceptedAtDstIface1",
+            ImmutableMap.of(_dstNodeAccept, _dstIface1IpBDD),
+            "acceptedOrNoRoute",
+            ImmutableMap.of(
+                _srcNodeAccept,
+                one,
+                new NodeDropNoRoute(_srcName),
+                one,
+                new NodeDropNoRoute(_dstName),
+                one));
+
+    Map<String, Map<IngressLocation, BDD>> batchResult =
+        _graph.getIngressLocationReachableBDDs(queryRoots);
+
+    // Same as answering each query with its own fixpoint
+    assertThat(batchResult.keySet(), equalTo(queryRoots.keySet()));
+    queryRoots.forEach(
+        (query, roots) ->
+            assertThat(
+                batchResult.get(query),
+                equalTo(
+                    getIngressLocationBdds(
+                        _graph.computeReverseReachableStates(roots),
+                        _graph.getIngressLocationStates(),
+                        PKT.getFactory().zero()))));
+    assertThat(
+        Iterables.getOnlyElement(batchResult.get("acceptedAtDst").values()),
+        intersects(_dstIface1IpBDD));
+  }
+
+  @Test
+  public void testBatchIngressLocationReachableBDDsReusesQueryId() {
+    // More queries than one batch can tag
+    Map<Integer, Map<StateExpr, BDD>> queryRoots =
+        IntStream.range(0, 300)
+            .boxed()
+            .collect(
+                ImmutableMap.toImmutableMap(
+                    Function.identity(),
+                    i -> ImmutableMap.of(_dstNodeAccept, dstIpBDD(Ip.create(i)))));
+    Map<Integer, Map<IngressLocation, BDD>> batchResult =
+        _graph.getIngressLocationReachableBDDs(queryRoots);
+    int varNum = PKT.getFactory().varNum();
+
+    assertThat(batchResult.keySet(), equalTo(queryRoots.keySet()));
+    for (int i : ImmutableList.of(0, 255, 256, 299)) {
+      assertThat(
+          batchResult.get(i),
+          equalTo(
+              getIngressLocationBdds(
+                  _graph.computeReverseReachableStates(queryRoots.get(i)),
+                  _graph.getIngressLocationStates(),
+                  PKT.getFactory().zero())));
+    }
+
+    // Later batches do not allocate more variables
+    _graph.getIngressLocationReachableBDDs(queryRoots);
+    assertThat(PKT.getFactory().varNum(), equalTo(varNum));
+  }
+
+  @Test
+  public void testBatchGetAllBDDs() {
+    IpSpaceAssignment assignment =
+        IpSpaceAssignment.builder()
+            .assign(
+                new InterfaceLocation(_net._srcNode.getHostname(), _net._link1Src.getName()),
+                UniverseIpSpace.INSTANCE)
+            .build();
+    Set<FlowDisposition> success = ImmutableSet.of(FlowDisposition.ACCEPTED);
+    Set<FlowDisposition> failure =
+        ImmutableSet.of(FlowDisposition.NO_ROUTE, FlowDisposition.NULL_ROUTED);
+    Set<FlowDisposition> loop = ImmutableSet.of(FlowDisposition.LOOP, FlowDisposition.NO_ROUTE);
+    Map<String, Set<FlowDisposition>> queries =
+        ImmutableMap.of("success", success, "failure", failure, "loop", loop);
+    for (Set<String> requiredTransitNodes :
+        ImmutableList.<Set<String>>of(ImmutableSet.of(), ImmutableSet.of(_srcName))) {
+      Map<String, Map<IngressLocation, BDD>> batchResult =
+          _graphFactory.getAllBDDs(
+              assignment,
+              matchDst(UniverseIpSpace.INSTANCE),
+              ImmutableSet.of(),
+              requiredTransitNodes,
+              _net._configs.keySet(),
+              queries);
+      queries.forEach(
+          (query, actions) ->
+              assertThat(
+                  batchResult.get(query),
+                  equalTo(
+                      _graphFactory.getAllBDDs(
+                          assignment,
+                          matchDst(UniverseIpSpace.INSTANCE),
+                          ImmutableSet.of(),
+                          requiredTransitNodes,
+                          _net._configs.keySet(),
+                          actions))));
+    }
+  }
+
+  @Test
+  public void testBatchIngressLocationReachableBDDsEmpty() {
+    assertThat(
+        _graph.getIngressLocationReachableBDDs(ImmutableMap.<String, Map<StateExpr, BDD>>of()),
+        equalTo(ImmutableMap.of()));
+  }
+
   @Test
   public void testFixpoint() {
     StateExpr a = new NodeAccept("A");
@@ -545,4 +668,73 @@ public final class BDDReachabilityAnalysisTest {
                   c, start)));
     }
   }
+
+  @Test
+  public void testFixpointFreesOnlyIntermediateBdds() {
+    StateExpr a = new NodeAccept("A");
+    StateExpr b = new NodeAccept("B");
+    StateExpr c = new NodeAccept("C");
+
+    BDD start = PKT.getSrcPort().value(1);
+    BDD other = PKT.getDstPort().value(2);
+    BDD bddBC = PKT.getSrcIp().value(1);
+    BDD bddCB = PKT.getDstIp().value(1);
+
+    // b's and c's reachable sets are replaced by larger ones, and b has a self loop
+    Table<StateExpr, StateExpr, Transition> forwardEdges =
+        computeForwardEdgeTable(
+            ImmutableList.of(
+                new Edge(a, b, IDENTITY),
+                new Edge(b, b, IDENTITY),
+                new Edge(b, c, constraint(bddBC)),
+                new Edge(c, b, constraint(bddCB))));
+
+    Map<StateExpr, BDD> forwardReachability = new HashMap<>();
+    forwardReachability.put(a, start);
+    forwardReachability.put(c, other);
+    fixpoint(forwardReachability, forwardEdges, Transition::transitForward);
+    assertThat(
+        forwardReachability,
+        equalTo(
+            ImmutableMap.of(
+                a, start, //
+                b, start.or(other.and(bddCB)),
+                c, other.or(start.and(bddBC)))));
+
+    // the roots and edge constraints are not freed
+    assertThat(start, equalTo(PKT.getSrcPort().value(1)));
+    assertThat(other, equalTo(PKT.getDstPort().value(2)));
+    assertThat(bddBC.and(bddCB).isZero(), equalTo(false));
+  }
+
+  @Test
+  public void testFixpointDoesNotGrowNodeTable() {
+    // A fresh packet, so that the node table only holds what this test builds
+    BDDPacket pkt = new BDDPacket();
+    StateExpr a = new NodeAccept("A");
+    StateExpr b = new NodeAccept("B");
+    StateExpr c = new NodeAccept("C");
+    StateExpr d = new NodeAccept("D");
+    // b's and c's reachable sets are replaced by larger ones, and b has a self loop
+    Table<StateExpr, StateExpr, Transition> forwardEdges =
+        computeForwardEdgeTable(
+            ImmutableList.of(
+                new Edge(a, b, IDENTITY),
+                new Edge(d, b, IDENTITY),
+                new Edge(b, b, IDENTITY),
+                new Edge(b, c, constraint(pkt.getSrcIp().value(1))),
+                new Edge(c, b, constraint(pkt.getDstIp().value(1)))));
+
+    int nodeTableSize = pkt.getFactory().getNodeTableSize();
+    // Each run reaches different sets. Leaking any of them would fill the table many times over.
+    for (int i = 0; i < 2000; i++) {
+      Map<StateExpr, BDD> forwardReachability = new HashMap<>();
+      forwardReachability.put(a, pkt.getSrcPort().value(i));
+      forwardReachability.put(d, pkt.getDstPort().value(i));
+      fixpoint(forwardReachability, forwardEdges, Transition::transitForward);
+      assertThat(forwardReachability.keySet(), containsInAnyOrder(a, b, c, d));
+      forwardReachability.values().forEach(BDD::free);
+    }
+    assertThat(pkt.getFactory().getNodeTableSize(), equalTo(nodeTableSize));
+  }
 }
@@ -43,4 +43,22 @@ public class CompositeTest {
     assertThat(transition.transitForward(ONE), equalTo(bdd1));
     assertThat(transition.transitBackward(ONE), equalTo(bdd1));
   }
+
+  @Test
+  public void testCompositeFreesOnlyIntermediates() {
+    BDD bdd1 = dstIp("1.2.3.4");
+    BDD bdd2 = srcIp("5.6.7.8");
+    BDD input = dstIp("1.2.3.4").or(dstIp("1.2.3.5"));
+
+    Transition transition =
+        new Composite(new Constraint(bdd1), Identity.INSTANCE, new Constraint(bdd2));
+    assertThat(transition.transitForward(input), equalTo(bdd1.and(bdd2)));
+    assertThat(transition.transitBackward(input), equalTo(bdd1.and(bdd2)));
+
+    // An identity-only composition returns its input, which is not freed
+    transition = new Composite(Identity.INSTANCE, Identity.INSTANCE);
+    assertThat(transition.transitForward(input), equalTo(input));
+    assertThat(input, equalTo(dstIp("1.2.3.4").or(dstIp("1.2.3.5"))));
+    assertThat(bdd1, equalTo(dstIp("1.2.3.4")));
+  }
 }
@@ -3,9 +3,13 @@ package org.batfish.dataplane.ibdp;
 import static org.batfish.datamodel.Configuration.DEFAULT_VRF_NAME;
 import static org.batfish.datamodel.ExprAclLine.REJECT_ALL;
 import static org.batfish.datamodel.matchers.AbstractRouteDecoratorMatchers.hasPrefix;
+import static org.hamcrest.Matchers.anEmptyMap;
 import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.hasItems;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.in;
 import static org.hamcrest.Matchers.not;
@@ -31,11 +35,14 @@ import java.util.Set;
 import java.util.SortedMap;
 import java.util.TreeMap;
 import java.util.stream.Collectors;
+import javax.annotation.Nonnull;
 import org.apache.commons.lang3.SerializationUtils;
 import org.batfish.common.BatfishLogger;
 import org.batfish.common.NetworkSnapshot;
 import org.batfish.common.plugin.DataPlanePlugin;
 import org.batfish.common.plugin.DataPlanePlugin.ComputeDataPlaneResult;
+import org.batfish.common.topology.TopologyUtil;
+import org.batfish.common.util.BatfishObjectMapper;
 import org.batfish.datamodel.AbstractRoute;
 import org.batfish.datamodel.AnnotatedRoute;
 import org.batfish.datamodel.BgpActivePeerConfig;
@@ -64,6 +71,8 @@ import org.batfish.datamodel.Topology;
 import org.batfish.datamodel.UniverseIpSpace;
 import org.batfish.datamodel.Vrf;
 import org.batfish.datamodel.acl.AclLineMatchExprs;
+import org.batfish.datamodel.answers.IbdpIterationMetrics;
+import org.batfish.datamodel.answers.IncrementalBdpAnswerElement;
 import org.batfish.datamodel.bgp.BgpTopologyUtils;
 import org.batfish.datamodel.bgp.Ipv4UnicastAddressFamily;
 import org.batfish.datamodel.isis.IsisInterfaceLevelSettings;
@@ -404,6 +413,63 @@ public class IncrementalDataPlanePluginTest {
         dp._dataPlane.getRibs().get(hostname).get(DEFAULT_VRF_NAME).getRoutes(), contains(sr));
   }
 
+  private static @Nonnull IncrementalBdpAnswerElement computeWithMetrics(
+      SortedMap<String, Configuration> configs, boolean metrics) {
+    IncrementalDataPlaneSettings settings = new IncrementalDataPlaneSettings();
+    settings.setDataPlaneMetrics(metrics);
+    IncrementalBdpEngine engine =
+        new IncrementalBdpEngine(settings, new BatfishLogger(BatfishLogger.LEVELSTR_OUTPUT, false));
+    return (IncrementalBdpAnswerElement)
+        engine.computeDataPlane(
+                configs,
+                TopologyContext.builder()
+                    .setLayer3Topology(TopologyUtil.synthesizeL3Topology(configs))
+                    .build(),
+                ImmutableSet.of())
+            ._answerElement;
+  }
+
+  @Test
+  public void testIterationMetricsDisabledByDefault() throws IOException {
+    assertFalse(new IncrementalDataPlaneSettings().getDataPlaneMetrics());
+    IncrementalBdpAnswerElement ae = computeWithMetrics(generateNetworkWithDuplicates(), false);
+    assertThat(ae.getIterationMetrics(), anEmptyMap());
+  }
+
+  @Test
+  public void testIterationMetrics() throws IOException {
+    SortedMap<String, Configuration> configs = generateNetworkWithDuplicates();
+    // A generated route whose policy is evaluated on the connected routes of the core
+    Configuration core = configs.get(CORE_NAME);
+    core.getDefaultVrf()
+        .setGeneratedRoutes(
+            ImmutableSortedSet.of(
+                GeneratedRoute.builder()
+                    .setNetwork(Prefix.parse("1.1.0.0/16"))
+                    .setGenerationPolicy(_epb.setOwner(core).build().getName())
+                    .build()));
+    IncrementalBdpAnswerElement ae = computeWithMetrics(configs, true);
+
+    SortedMap<Integer, IbdpIterationMetrics> metrics = ae.getIterationMetrics();
+    assertThat(metrics.size(), equalTo(ae.getDependentRoutesIterations()));
+    assertThat(
+        metrics.values().stream().mapToLong(IbdpIterationMetrics::getPolicyEvaluations).sum(),
+        greaterThan(0L));
+    IbdpIterationMetrics last = metrics.get(metrics.lastKey());
+    assertThat(last.getPhaseNanos().keySet(), hasItems("schedule", "init", "bgp"));
+    assertThat(
+        last.getEstimatedRibBytes().get(IterationMetricsCollector.RIB_MAIN),
+        equalTo(
+            ae.getMainRibRoutesByIteration().get(metrics.lastKey())
+                * IterationMetricsCollector.ESTIMATED_BYTES_PER_ROUTE));
+    // The data plane converged, so nothing changed or is left to process
+    assertThat(last.getMainRibChangesByProtocol(), anEmptyMap());
+    assertThat(last.getQueuedMessages(), equalTo(0L));
+
+    // Metrics include wall time, so they are kept out of the serialized answer
+    assertThat(BatfishObjectMapper.writeString(ae), not(containsString("phaseNanos")));
+  }
+
   @Test
   public void testBgpNeighborReachability() throws IOException {
     // Only connect one neighbor (n2) to core router
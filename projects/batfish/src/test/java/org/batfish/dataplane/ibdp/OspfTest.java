@@ -7,6 +7,8 @@ import static org.batfish.datamodel.RoutingProtocol.OSPF_IA;
 import static org.batfish.datamodel.ospf.OspfTopologyUtils.computeOspfTopology;
 import static org.batfish.dataplane.ibdp.TestUtils.assertNoRoute;
 import static org.batfish.dataplane.ibdp.TestUtils.assertRoute;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.junit.Assert.assertThat;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSortedMap;
@@ -16,6 +18,7 @@ import java.util.List;
 import java.util.Set;
 import java.util.SortedMap;
 import org.batfish.common.BatfishLogger;
+import org.batfish.common.plugin.DataPlanePlugin.ComputeDataPlaneResult;
 import org.batfish.common.topology.TopologyUtil;
 import org.batfish.datamodel.AbstractRoute;
 import org.batfish.datamodel.ConcreteInterfaceAddress;
@@ -33,6 +36,7 @@ import org.batfish.datamodel.RoutingProtocol;
 import org.batfish.datamodel.StaticRoute;
 import org.batfish.datamodel.Topology;
 import org.batfish.datamodel.Vrf;
+import org.batfish.datamodel.answers.IncrementalBdpAnswerElement;
 import org.batfish.datamodel.ospf.NssaSettings;
 import org.batfish.datamodel.ospf.OspfArea;
 import org.batfish.datamodel.ospf.OspfDefaultOriginateType;
@@ -1010,6 +1014,93 @@ public class OspfTest {
     assertNoRoute(routesWithSummaries, "r3", Prefix.parse("10.10.10.10/32"));
   }
 
+  /**
+   * Compute the data plane of a ring of {@code numRouters} routers in a single OSPF area, each with
+   * a passive loopback 1.1.1.i/32, and with router i connected to router i+1 on 10.0.i.0/24.
+   */
+  private static ComputeDataPlaneResult computeOspfRingDataPlane(int numRouters) {
+    NetworkFactory nf = new NetworkFactory();
+    Configuration.Builder cb =
+        nf.configurationBuilder().setConfigurationFormat(ConfigurationFormat.CISCO_IOS);
+    Vrf.Builder vb = nf.vrfBuilder().setName(Configuration.DEFAULT_VRF_NAME);
+    ImmutableSortedMap.Builder<String, Configuration> configurations =
+        ImmutableSortedMap.naturalOrder();
+    for (int i = 1; i <= numRouters; i++) {
+      Configuration c = cb.setHostname("r" + i).build();
+      Vrf vrf = vb.setOwner(c).build();
+      OspfProcess process =
+          nf.ospfProcessBuilder()
+              .setVrf(vrf)
+              .setProcessId("1")
+              .setRouterId(Ip.parse("1.1.1." + i))
+              .build();
+      OspfArea area = nf.ospfAreaBuilder().setNumber(0L).setOspfProcess(process).build();
+      Interface loopback =
+          nf.interfaceBuilder()
+              .setOwner(c)
+              .setVrf(vrf)
+              .setName("Loopback0")
+              .setAddress(ConcreteInterfaceAddress.parse("1.1.1." + i + "/32"))
+              .setOspfSettings(baseOspfSettings().setAreaName(0L).setPassive(true).build())
+              .build();
+      area.addInterface(loopback.getName());
+      int previous = i == 1 ? numRouters : i - 1;
+      Interface toPrevious =
+          nf.interfaceBuilder()
+              .setOwner(c)
+              .setVrf(vrf)
+              .setName("Ethernet0")
+              .setAddress(ConcreteInterfaceAddress.parse("10.0." + previous + ".2/24"))
+              .setOspfSettings(baseOspfSettings().setAreaName(0L).build())
+              .build();
+      area.addInterface(toPrevious.getName());
+      Interface toNext =
+          nf.interfaceBuilder()
+              .setOwner(c)
+              .setVrf(vrf)
+              .setName("Ethernet1")
+              .setAddress(ConcreteInterfaceAddress.parse("10.0." + i + ".1/24"))
+              .setOspfSettings(baseOspfSettings().setAreaName(0L).build())
+              .build();
+      area.addInterface(toNext.getName());
+      configurations.put(c.getHostname(), c);
+    }
+    SortedMap<String, Configuration> configs = configurations.build();
+    OspfTopologyUtils.initNeighborConfigs(NetworkConfigurations.of(configs));
+    Topology topology = TopologyUtil.synthesizeL3Topology(configs);
+    return new IncrementalBdpEngine(
+            new IncrementalDataPlaneSettings(),
+            new BatfishLogger(BatfishLogger.LEVELSTR_OUTPUT, false))
+        .computeDataPlane(
+            configs,
+            TopologyContext.builder()
+                .setLayer3Topology(topology)
+                .setOspfTopology(computeOspfTopology(NetworkConfigurations.of(configs), topology))
+                .build(),
+            Collections.emptySet());
+  }
+
+  @Test
+  public void testOspfIntraAreaRoutesInRing() {
+    ComputeDataPlaneResult result = computeOspfRingDataPlane(20);
+    SortedMap<String, SortedMap<String, Set<AbstractRoute>>> routes =
+        IncrementalBdpEngine.getRoutes((IncrementalDataPlane) result._dataPlane);
+
+    // Loopback of r1 is 1 hop away from r2 and r20, and 10 hops away both ways from r11
+    Prefix r1Loopback = Prefix.parse("1.1.1.1/32");
+    assertRoute(routes, OSPF, "r2", r1Loopback, 2L, Ip.parse("10.0.1.1"));
+    assertRoute(routes, OSPF, "r20", r1Loopback, 2L, Ip.parse("10.0.20.2"));
+    assertRoute(routes, OSPF, "r11", r1Loopback, 11L, Ip.parse("10.0.10.1"));
+    assertRoute(routes, OSPF, "r11", r1Loopback, 11L, Ip.parse("10.0.11.2"));
+    // 10.0.19.0/24 is originated by r19 and r20, the latter being closer to r4
+    assertRoute(routes, OSPF, "r4", Prefix.parse("10.0.19.0/24"), 5L);
+
+    // Routes are computed up front rather than propagated one hop per iteration
+    assertThat(
+        ((IncrementalBdpAnswerElement) result._answerElement).getOspfInternalIterations(),
+        lessThanOrEqualTo(2));
+  }
+
   @Rule public TemporaryFolder _folder = new TemporaryFolder();
 
   @Test
@@ -517,4 +517,35 @@ public class AbstractRibTest {
         contains(
             new RouteAdvertisement<>(route2, Reason.WITHDRAW), new RouteAdvertisement<>(route1)));
   }
+
+  @Test
+  public void testBackupRoutesInsertionOrdered() {
+    Bgpv4Rib rib =
+        new Bgpv4Rib(
+            null, BgpTieBreaker.ROUTER_ID, 1, MultipathEquivalentAsPathMatchMode.EXACT_PATH, true);
+    Bgpv4Route.Builder routeBuilder =
+        new Bgpv4Route.Builder()
+            .setNetwork(Prefix.ZERO)
+            .setOriginType(OriginType.INCOMPLETE)
+            .setOriginatorIp(Ip.parse("1.1.1.1"))
+            .setProtocol(RoutingProtocol.IBGP)
+            .setReceivedFromIp(Ip.parse("1.1.1.1"));
+    Bgpv4Route route1 = routeBuilder.setLocalPreference(1).build();
+    Bgpv4Route route2 = routeBuilder.setLocalPreference(2).build();
+    Bgpv4Route route3 = routeBuilder.setLocalPreference(3).build();
+
+    rib.mergeRoute(route2);
+    rib.mergeRoute(route1);
+    rib.mergeRoute(route3);
+    // Merging a known route again keeps its position
+    rib.mergeRoute(route2);
+    assertThat(rib.getBackupRoutes(Prefix.ZERO), contains(route2, route1, route3));
+
+    rib.removeRoute(route1);
+    assertThat(rib.getBackupRoutes(Prefix.ZERO), contains(route2, route3));
+    rib.removeRoute(route2);
+    rib.removeRoute(route3);
+    assertThat(rib.getBackupRoutes(Prefix.ZERO), empty());
+    assertThat(rib.getTypedRoutes(), empty());
+  }
 }
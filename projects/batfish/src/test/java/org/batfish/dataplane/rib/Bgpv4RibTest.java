@@ -438,6 +438,23 @@ public class Bgpv4RibTest {
     assertThat(_bestPathRib.getRoutes(), contains(bestPath));
   }
 
+  @Test
+  public void testArrivalTimesOnlyKeptForArrivalOrder() {
+    _bestPathRib.mergeRoute(_rb.build());
+    assertThat(_bestPathRib._logicalArrivalTime.entrySet(), hasSize(0));
+
+    _bestPathRib = new Bgpv4Rib(null, BgpTieBreaker.ARRIVAL_ORDER, 1, null, true);
+    Bgpv4Route best = _rb.setLocalPreference(200).build();
+    Bgpv4Route backup = _rb.setLocalPreference(100).build();
+    _bestPathRib.mergeRoute(best);
+    _bestPathRib.mergeRoute(backup);
+    assertThat(_bestPathRib._logicalArrivalTime.keySet(), equalTo(ImmutableSet.of(best, backup)));
+
+    // Withdrawing the backup, which never made it into the RIB, forgets its arrival time too
+    _bestPathRib.removeRoute(backup);
+    assertThat(_bestPathRib._logicalArrivalTime.keySet(), equalTo(ImmutableSet.of(best)));
+  }
+
   //////////////////////////////////////////////////////////////////////////////////
 
   // NOTE: Tests below are old and may be somewhat hard to comprehend.
@@ -13,6 +13,7 @@ import java.util.TreeMap;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import org.apache.commons.collections4.map.LRUMap;
+import org.batfish.bddreachability.BDDReachabilityAnalysisFactoryCache;
 import org.batfish.common.BatfishLogger;
 import org.batfish.common.BfConsts;
 import org.batfish.common.NetworkSnapshot;
@@ -31,6 +32,7 @@ import org.batfish.identifiers.NetworkId;
 import org.batfish.identifiers.SnapshotId;
 import org.batfish.main.Batfish.TestrigSettings;
 import org.batfish.storage.StorageProvider;
+import org.batfish.topology.TopologyStore;
 import org.junit.rules.TemporaryFolder;
 
 public class BatfishTestUtils {
@@ -56,6 +58,14 @@ public class BatfishTestUtils {
     return Collections.synchronizedMap(new LRUMap<>(4));
   }
 
+  private static BDDReachabilityAnalysisFactoryCache makeBddReachabilityAnalysisFactoryCache() {
+    return BDDReachabilityAnalysisFactoryCache.create(10_000_000L);
+  }
+
+  private static TopologyStore makeTopologyStore() {
+    return TopologyStore.create(100_000_000L);
+  }
+
   private static Cache<NetworkSnapshot, DataPlane> makeDataPlaneCache() {
     return CacheBuilder.newBuilder().softValues().maximumSize(2).build();
   }
@@ -80,6 +90,8 @@ public class BatfishTestUtils {
             testrigs,
             makeDataPlaneCache(),
             makeEnvBgpCache(),
+            makeBddReachabilityAnalysisFactoryCache(),
+            makeTopologyStore(),
             null,
             new TestFileBasedIdResolver(settings.getStorageBase()));
     if (!configurations.isEmpty()) {
@@ -113,6 +125,8 @@ public class BatfishTestUtils {
             testrigs,
             makeDataPlaneCache(),
             makeEnvBgpCache(),
+            makeBddReachabilityAnalysisFactoryCache(),
+            makeTopologyStore(),
             null,
             new TestFileBasedIdResolver(settings.getStorageBase()));
     batfish.getSettings().setDiffQuestion(true);
@@ -172,6 +186,8 @@ public class BatfishTestUtils {
             makeTestrigCache(),
             makeDataPlaneCache(),
             makeEnvBgpCache(),
+            makeBddReachabilityAnalysisFactoryCache(),
+            makeTopologyStore(),
             null,
             new TestFileBasedIdResolver(settings.getStorageBase()));
     TestrigSettings snapshotTr = batfish.getSnapshotTestrigSettings();
@@ -240,6 +256,8 @@ public class BatfishTestUtils {
             makeTestrigCache(),
             makeDataPlaneCache(),
             makeEnvBgpCache(),
+            makeBddReachabilityAnalysisFactoryCache(),
+            makeTopologyStore(),
             storageProvider,
             idResolver);
     registerDataPlanePlugins(batfish);
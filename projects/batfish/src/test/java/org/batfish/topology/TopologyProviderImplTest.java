@@ -0,0 +1,39 @@
+package org.batfish.topology;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+import com.google.common.collect.ImmutableSet;
+import java.io.IOException;
+import java.util.Set;
+import org.batfish.common.topology.Layer2Edge;
+import org.batfish.common.topology.TunnelTopology;
+import org.batfish.datamodel.collections.NodeInterfacePair;
+import org.batfish.topology.TopologyProviderImpl.Layer2EdgesCodec;
+import org.batfish.topology.TopologyProviderImpl.TunnelTopologyCodec;
+import org.junit.Test;
+
+/** Tests of {@link TopologyProviderImpl} */
+public final class TopologyProviderImplTest {
+
+  @Test
+  public void testTunnelTopologyCodecRoundTrip() throws IOException {
+    TunnelTopology topology =
+        TunnelTopology.builder()
+            .add(NodeInterfacePair.of("n1", "t1"), NodeInterfacePair.of("n2", "t2"))
+            .add(NodeInterfacePair.of("n2", "t2"), NodeInterfacePair.of("n3", "t3"))
+            .build();
+    TunnelTopologyCodec codec = new TunnelTopologyCodec();
+    assertThat(codec.decode(codec.encode(topology)), equalTo(topology));
+  }
+
+  @Test
+  public void testLayer2EdgesCodecRoundTrip() throws IOException {
+    Set<Layer2Edge> edges =
+        ImmutableSet.of(
+            new Layer2Edge("n1", "i1", null, "n2", "i2", 2, null),
+            new Layer2Edge("n2", "i2", 2, "n1", "i1", null, 3));
+    Layer2EdgesCodec codec = new Layer2EdgesCodec();
+    assertThat(codec.decode(codec.encode(edges)), equalTo(edges));
+  }
+}
@@ -0,0 +1,205 @@
+package org.batfish.topology;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.junit.Assert.assertThat;
+
+import com.google.common.collect.ImmutableSortedSet;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.batfish.common.BatfishLogger;
+import org.batfish.common.NetworkSnapshot;
+import org.batfish.common.topology.Layer1Edge;
+import org.batfish.common.topology.Layer1Topology;
+import org.batfish.common.util.BatfishObjectMapper;
+import org.batfish.datamodel.Edge;
+import org.batfish.datamodel.Topology;
+import org.batfish.identifiers.NetworkId;
+import org.batfish.identifiers.SnapshotId;
+import org.batfish.storage.FileBasedStorage;
+import org.batfish.storage.StorageProvider;
+import org.batfish.topology.TopologyStore.Kind;
+import org.batfish.version.BatfishVersion;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/** Tests of {@link TopologyStore} */
+public final class TopologyStoreTest {
+  @Rule public TemporaryFolder _folder = new TemporaryFolder();
+
+  private static final NetworkSnapshot SNAPSHOT =
+      new NetworkSnapshot(new NetworkId("network"), new SnapshotId("snapshot"));
+  private static final NetworkSnapshot OTHER_SNAPSHOT =
+      new NetworkSnapshot(new NetworkId("network"), new SnapshotId("other"));
+
+  private static final Kind<Topology> LAYER3 =
+      Kind.json("layer3.json", Topology.class, topology -> topology.getEdges().size());
+  private static final Kind<Optional<Layer1Topology>> LAYER1 =
+      Kind.optionalJson(
+          "layer1.json", Layer1Topology.class, topology -> topology.getGraph().edges().size());
+  private static final Kind<String> IN_MEMORY = Kind.inMemory("in_memory", String::length);
+
+  private static final Topology TOPOLOGY =
+      new Topology(ImmutableSortedSet.of(Edge.of("n1", "i1", "n2", "i2")));
+
+  private StorageProvider _storage;
+  private AtomicInteger _computations;
+
+  @Before
+  public void setup() throws IOException {
+    _storage =
+        new FileBasedStorage(
+            _folder.newFolder().toPath(),
+            new BatfishLogger(BatfishLogger.LEVELSTR_DEBUG, false),
+            (m, n) -> new AtomicInteger());
+    _computations = new AtomicInteger();
+  }
+
+  private <T> T compute(T topology) {
+    _computations.incrementAndGet();
+    return topology;
+  }
+
+  @Test
+  public void testGetComputesOnce() {
+    TopologyStore store = TopologyStore.create(1_000_000L);
+    assertThat(store.get(SNAPSHOT, LAYER3, _storage, () -> compute(TOPOLOGY)), equalTo(TOPOLOGY));
+    assertThat(store.get(SNAPSHOT, LAYER3, _storage, () -> compute(TOPOLOGY)), equalTo(TOPOLOGY));
+    assertThat(_computations.get(), equalTo(1));
+  }
+
+  @Test
+  public void testGetLoadsFromStorage() {
+    TopologyStore.create(1_000_000L).get(SNAPSHOT, LAYER3, _storage, () -> compute(TOPOLOGY));
+    // e.g. another worker sharing the storage
+    TopologyStore otherStore = TopologyStore.create(1_000_000L);
+    assertThat(
+        otherStore.get(SNAPSHOT, LAYER3, _storage, () -> compute(Topology.EMPTY)),
+        equalTo(TOPOLOGY));
+    assertThat(_computations.get(), equalTo(1));
+  }
+
+  @Test
+  public void testGetOptional() {
+    Layer1Topology layer1 =
+        new Layer1Topology(ImmutableSortedSet.of(new Layer1Edge("n1", "i1", "n2", "i2")));
+    TopologyStore.create(1_000_000L).get(SNAPSHOT, LAYER1, _storage, Optional::empty);
+    TopologyStore.create(1_000_000L)
+        .get(OTHER_SNAPSHOT, LAYER1, _storage, () -> Optional.of(layer1));
+
+    TopologyStore otherStore = TopologyStore.create(1_000_000L);
+    assertThat(
+        otherStore.get(SNAPSHOT, LAYER1, _storage, () -> compute(Optional.of(layer1))),
+        equalTo(Optional.empty()));
+    assertThat(
+        otherStore.get(OTHER_SNAPSHOT, LAYER1, _storage, () -> compute(Optional.empty())),
+        equalTo(Optional.of(layer1)));
+    assertThat(_computations.get(), equalTo(0));
+  }
+
+  @Test
+  public void testGetInMemoryIsNotStored() {
+    TopologyStore.create(1_000_000L).get(SNAPSHOT, IN_MEMORY, _storage, () -> compute("a"));
+    TopologyStore.create(1_000_000L).get(SNAPSHOT, IN_MEMORY, _storage, () -> compute("a"));
+    assertThat(_computations.get(), equalTo(2));
+  }
+
+  @Test
+  public void testGetReplacesUnreadableStoredTopology() throws IOException {
+    _storage.storeCachedTopology(
+        new ByteArrayInputStream("garbage".getBytes(StandardCharsets.UTF_8)),
+        SNAPSHOT,
+        TopologyStore.storageKey(LAYER3));
+    assertThat(
+        TopologyStore.create(1_000_000L).get(SNAPSHOT, LAYER3, _storage, () -> compute(TOPOLOGY)),
+        equalTo(TOPOLOGY));
+    assertThat(
+        TopologyStore.create(1_000_000L)
+            .get(SNAPSHOT, LAYER3, _storage, () -> compute(Topology.EMPTY)),
+        equalTo(TOPOLOGY));
+    assertThat(_computations.get(), equalTo(1));
+  }
+
+  @Test
+  public void testGetIgnoresTopologyStoredByOtherVersion() throws IOException {
+    // e.g. stored by a version whose storage key did not include the version
+    _storage.storeCachedTopology(
+        new ByteArrayInputStream(BatfishObjectMapper.writer().writeValueAsBytes(TOPOLOGY)),
+        SNAPSHOT,
+        LAYER3.getName());
+    assertThat(
+        TopologyStore.create(1_000_000L)
+            .get(SNAPSHOT, LAYER3, _storage, () -> compute(Topology.EMPTY)),
+        equalTo(Topology.EMPTY));
+    assertThat(_computations.get(), equalTo(1));
+  }
+
+  @Test
+  public void testStorageKeyIncludesVersion() {
+    assertThat(TopologyStore.storageKey(LAYER3), containsString(BatfishVersion.getVersionStatic()));
+  }
+
+  @Test
+  public void testEvictionByStoredSize() {
+    TopologyStore.create(1_000_000L).get(SNAPSHOT, LAYER3, _storage, () -> TOPOLOGY);
+    TopologyStore.create(1_000_000L).get(OTHER_SNAPSHOT, LAYER3, _storage, () -> TOPOLOGY);
+    // the estimate of the kind is a single byte, but the stored JSON leaves no room for two
+    TopologyStore store = TopologyStore.create(100L);
+    store.get(SNAPSHOT, LAYER3, _storage, () -> compute(TOPOLOGY));
+    store.get(OTHER_SNAPSHOT, LAYER3, _storage, () -> compute(TOPOLOGY));
+    assertThat(store.size(), lessThanOrEqualTo(1L));
+    assertThat(_computations.get(), equalTo(0));
+  }
+
+  @Test
+  public void testGetIfPresent() {
+    TopologyStore store = TopologyStore.create(1_000_000L);
+    assertThat(store.getIfPresent(SNAPSHOT, LAYER3, _storage), equalTo(Optional.empty()));
+    store.get(SNAPSHOT, LAYER3, _storage, () -> TOPOLOGY);
+    assertThat(store.getIfPresent(SNAPSHOT, LAYER3, _storage), equalTo(Optional.of(TOPOLOGY)));
+    // loaded from storage
+    assertThat(
+        TopologyStore.create(1_000_000L).getIfPresent(SNAPSHOT, LAYER3, _storage),
+        equalTo(Optional.of(TOPOLOGY)));
+    // not stored
+    store.get(SNAPSHOT, IN_MEMORY, _storage, () -> "a");
+    assertThat(store.getIfPresent(SNAPSHOT, IN_MEMORY, _storage), equalTo(Optional.of("a")));
+    assertThat(
+        TopologyStore.create(1_000_000L).getIfPresent(SNAPSHOT, IN_MEMORY, _storage),
+        equalTo(Optional.empty()));
+  }
+
+  @Test
+  public void testEvictionByWeight() {
+    // no room for two strings of length 60
+    TopologyStore store = TopologyStore.create(100L);
+    String large = new String(new char[60]);
+    store.get(SNAPSHOT, IN_MEMORY, _storage, () -> large);
+    store.get(OTHER_SNAPSHOT, IN_MEMORY, _storage, () -> large);
+    assertThat(store.size(), lessThanOrEqualTo(1L));
+
+    // many small topologies fit
+    store = TopologyStore.create(100L);
+    for (int i = 0; i < 10; i++) {
+      NetworkSnapshot snapshot =
+          new NetworkSnapshot(new NetworkId("network"), new SnapshotId("snapshot" + i));
+      store.get(snapshot, IN_MEMORY, _storage, () -> "a");
+    }
+    assertThat(store.size(), equalTo(10L));
+  }
+
+  @Test
+  public void testInvalidate() {
+    TopologyStore store = TopologyStore.create(1_000_000L);
+    store.get(SNAPSHOT, IN_MEMORY, _storage, () -> "a");
+    store.get(OTHER_SNAPSHOT, IN_MEMORY, _storage, () -> "a");
+    store.invalidate(SNAPSHOT);
+    assertThat(store.size(), equalTo(1L));
+  }
+}
@@ -490,6 +490,18 @@ public abstract class BDD {
    */
   public abstract BDD exist(BDD var);
 
+  /**
+   * Existential quantification followed by conjunction. Calculates (exists var. this) AND that in a
+   * single pass, rather than the two of {@code exist(var).and(that)}. Unlike {@link #relprod(BDD,
+   * BDD)}, the variables in var are only quantified out of this BDD, so that may constrain them to
+   * new values.
+   *
+   * @param var BDD containing the variables to be existentially quantified
+   * @param that the BDD to 'and' with after quantification
+   * @return the result of the quantification and conjunction
+   */
+  public abstract BDD existAnd(BDD var, BDD that);
+
   /**
    * Universal quantification of variables. Removes all occurrences of this BDD in variables in the
    * set var by universal quantification.
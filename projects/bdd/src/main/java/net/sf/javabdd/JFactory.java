@@ -194,6 +194,14 @@ public final class JFactory extends BDDFactory {
       return makeBDD(bdd_exist(x, y));
     }
 
+    @Override
+    public BDD existAnd(BDD var, BDD that) {
+      int x = _index;
+      int y = ((BDDImpl) var)._index;
+      int z = ((BDDImpl) that)._index;
+      return makeBDD(bdd_existAnd(x, y, z));
+    }
+
     @Override
     public BDD forAll(BDD var) {
       int x = _index;
@@ -2533,6 +2541,120 @@ public final class JFactory extends BDDFactory {
     return res;
   }
 
+  /**
+   * Low bits of {@link #appexid} for {@link #bdd_existAnd}. {@link #bdd_appex}, {@link #bdd_appall}
+   * and {@link #bdd_appuni} use {@code (appexop << 1) | 0} or {@code (appexop << 1) | 1}, which is
+   * at most {@code (bddop_invimp << 1) | 1}, so existAnd results are never mistaken for theirs.
+   */
+  private static final int APPEXID_EXISTAND = 0x1F;
+
+  private int bdd_existAnd(int r, int var, int that) {
+    CHECK(r);
+    CHECK(var);
+    CHECK(that);
+
+    if (var < 2) /* Empty set */ {
+      return bdd_apply(r, that, bddop_and);
+    }
+    if (varset2vartable(var) < 0) {
+      return BDDZERO;
+    }
+
+    if (applycache == null) {
+      applycache = BddCacheI_init(cachesize);
+    }
+    if (appexcache == null) {
+      appexcache = BddCacheI_init(cachesize);
+    }
+    if (quantcache == null) {
+      quantcache = BddCacheI_init(cachesize);
+    }
+    applyop = bddop_or;
+    // Shares the quantcache with bdd_exist. The appexcache entries need their own id.
+    quantid = (var << 3) | CACHEID_EXIST; /* FIXME: range */
+    appexid = (var << 5) | APPEXID_EXISTAND; /* FIXME: range! */
+
+    INITREF();
+    int res = existAnd_rec(r, that);
+    checkresize();
+
+    return res;
+  }
+
+  /** Computes (exists quantvarset. l) AND r. */
+  private int existAnd_rec(int l, int r) {
+    BddCacheDataI entry;
+    int res;
+
+    if (l == BDDZERO || r == BDDZERO) {
+      return BDDZERO;
+    } else if (l == BDDONE) {
+      return r;
+    } else if (r == BDDONE) {
+      return quant_rec(l);
+    }
+
+    int LEVEL_l = LEVEL(l);
+    int LEVEL_r = LEVEL(r);
+    if (LEVEL_l > quantlast) {
+      // nothing to quantify out of l
+      applyop = bddop_and;
+      res = and_rec(l, r);
+      applyop = bddop_or;
+      return res;
+    }
+
+    entry = BddCache_lookupI(appexcache, APPEXHASH(l, r, bddop_and));
+    if (entry.a == l && entry.b == r && entry.c == appexid) {
+      if (CACHESTATS) {
+        cachestats.opHit++;
+      }
+      return entry.res;
+    }
+    if (CACHESTATS) {
+      cachestats.opMiss++;
+    }
+
+    int level = Math.min(LEVEL_l, LEVEL_r);
+    int l0 = LEVEL_l == level ? LOW(l) : l;
+    int l1 = LEVEL_l == level ? HIGH(l) : l;
+    int r0 = LEVEL_r == level ? LOW(r) : r;
+    int r1 = LEVEL_r == level ? HIGH(r) : r;
+    if (!INVARSET(level) || LEVEL_l != level) {
+      // l does not branch on a quantified variable here: recurse on both cofactors
+      PUSHREF(existAnd_rec(l0, r0));
+      PUSHREF(existAnd_rec(l1, r1));
+      res = bdd_makenode(level, READREF(2), READREF(1));
+      POPREF(2);
+    } else if (LEVEL_r != level) {
+      // l branches on a quantified variable r does not mention: quantify it out
+      PUSHREF(existAnd_rec(l0, r));
+      PUSHREF(existAnd_rec(l1, r));
+      res = or_rec(READREF(2), READREF(1));
+      POPREF(2);
+    } else {
+      // both branch on a quantified variable: quantify it out of l, and let r set its value
+      PUSHREF(existAnd_rec(l0, r0));
+      PUSHREF(existAnd_rec(l1, r0));
+      PUSHREF(or_rec(READREF(2), READREF(1)));
+      PUSHREF(existAnd_rec(l0, r1));
+      PUSHREF(existAnd_rec(l1, r1));
+      PUSHREF(or_rec(READREF(2), READREF(1)));
+      res = bdd_makenode(level, READREF(4), READREF(1));
+      POPREF(6);
+    }
+
+    if (CACHESTATS && entry.a != -1) {
+      cachestats.opOverwrite++;
+    }
+    entry.a = l;
+    entry.b = r;
+    entry.c = appexid;
+    entry.res = res;
+
+    return res;
+  }
+
   private int bdd_forall(int r, int var) {
     CHECK(r);
     CHECK(var);
@@ -7,6 +7,7 @@ import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
 
 import java.util.Arrays;
+import java.util.List;
 import org.junit.Test;
 
 /** Tests of {@link JFactory}. */
@@ -446,4 +447,54 @@ public class JFactoryTest {
     int[] a4 = {1};
     assertEquals(JFactory.dedupSorted(a4), a4);
   }
+
+  /** Returns (x_0 <=> y_0) & ... & (x_n-1 <=> y_n-1), where x_i is var i and y_i is var n + i. */
+  private BDD pairwiseEqual(int n) {
+    BDD result = _factory.one();
+    for (int i = 0; i < n; i++) {
+      result = result.and(_factory.ithVar(i).biimp(_factory.ithVar(n + i)));
+    }
+    return result;
+  }
+
+  @Test
+  public void testExistAnd() {
+    _factory.setVarNum(8);
+    BDD f = pairwiseEqual(4).or(_factory.ithVar(1).and(_factory.nithVar(6)));
+    BDD x0 = _factory.ithVar(0);
+    BDD x2 = _factory.ithVar(2);
+    BDD y3 = _factory.ithVar(7);
+    List<BDD> vars =
+        Arrays.asList(
+            _factory.one(),
+            _factory.makeSet(new int[] {0}),
+            _factory.makeSet(new int[] {0, 2, 5}),
+            _factory.makeSet(new int[] {4, 5, 6, 7}));
+    List<BDD> values =
+        Arrays.asList(_factory.zero(), _factory.one(), x0, x0.and(x2.not()), x0.or(y3), f.not(), f);
+    for (BDD var : vars) {
+      for (BDD value : values) {
+        assertThat(f.existAnd(var, value), equalTo(f.exist(var).and(value)));
+        assertThat(value.existAnd(var, f), equalTo(value.exist(var).and(f)));
+      }
+    }
+  }
+
+  @Test
+  public void testExistAndCacheIsNotSharedWithApplyAllOrApplyUni() {
+    _factory.setVarNum(3);
+    BDD x0 = _factory.ithVar(0);
+    BDD x1 = _factory.ithVar(1);
+    BDD x2 = _factory.ithVar(2);
+    BDD f = x0.or(x1);
+    BDD g = x1.or(x2);
+    BDD var = _factory.makeSet(new int[] {0});
+
+    // Each operation on the same operands and variables must not hit the others' cache entries
+    assertThat(f.existAnd(var, g), equalTo(g));
+    assertThat(f.applyAll(g, BDDFactory.and, var), equalTo(x1));
+    assertThat(f.existAnd(var, g), equalTo(g));
+    assertThat(f.applyUni(g, BDDFactory.and, var), equalTo(x1.not().and(x2)));
+    assertThat(f.existAnd(var, g), equalTo(g));
+  }
 }
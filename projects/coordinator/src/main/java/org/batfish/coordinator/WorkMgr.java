@@ -1616,6 +1616,11 @@ public class WorkMgr extends AbstractCoordinator {
     initSnapshot(networkName, snapshotName, srcDir, autoAnalyze, null);
   }
 
+  /**
+   * Initializes a new snapshot from the files under {@code srcDir}. If {@code parentSnapshotId} is
+   * not {@code null}, those files are added to the inputs of the parent snapshot, replacing inputs
+   * with the same path.
+   */
   public void initSnapshot(
       String networkName,
       String snapshotName,
@@ -1623,7 +1628,9 @@ public class WorkMgr extends AbstractCoordinator {
       boolean autoAnalyze,
       @Nullable SnapshotId parentSnapshotId) {
     Path subDir = getSnapshotSubdir(srcDir);
-    validateSnapshotDir(subDir);
+    if (parentSnapshotId == null) {
+      validateSnapshotDir(subDir);
+    }
 
     // If interface blacklist was provided, delete it and copy contents into runtime data
     List<NodeInterfacePair> ifaceBlacklist =
@@ -1659,8 +1666,6 @@ public class WorkMgr extends AbstractCoordinator {
       throw metadataError;
     }
 
-    Path srcTestrigDir = testrigDir.resolve(Paths.get(BfConsts.RELPATH_INPUT));
-
     // things look ok, now make the move
     boolean bgpTables = false;
     boolean roleData = false;
@@ -1683,17 +1688,12 @@ public class WorkMgr extends AbstractCoordinator {
           }
         }
       }
-      // Copy everything over
-      Path dstPath = srcTestrigDir.resolve(subFile.getFileName());
-      try {
-        if (Files.isDirectory(subFile)) {
-          FileUtils.copyDirectory(subFile.toFile(), dstPath.toFile());
-        } else {
-          FileUtils.copyFile(subFile.toFile(), dstPath.toFile());
-        }
-      } catch (IOException e) {
-        throw new BatfishException("Failed to copy: '" + subFile + "' to: '" + dstPath + "'", e);
-      }
+    }
+    // Store everything, sharing files unchanged from other snapshots
+    try {
+      _storage.storeSnapshotInputObjects(subDir, networkId, snapshotId, parentSnapshotId);
+    } catch (IOException e) {
+      throw new BatfishException("Failed to store inputs of snapshot: '" + snapshotName + "'", e);
     }
     _logger.infof(
         "Environment data for snapshot:%s; bgpTables:%s, nodeRoles:%s referenceBooks:%s\n",
@@ -1801,7 +1801,8 @@ public class WorkMgr extends AbstractCoordinator {
     Path baseSnapshotDir =
         networkDir.resolve(Paths.get(BfConsts.RELPATH_SNAPSHOTS_DIR, baseSnapshotId.getId()));
 
-    // Copy baseSnapshot so initSnapshot will see a properly formatted upload
+    // Only files that differ from baseSnapshot are staged, initSnapshot takes the rest from it.
+    // Start with copies of the files modified below.
     Path baseSnapshotInputsDir = baseSnapshotDir.resolve(Paths.get(BfConsts.RELPATH_INPUT));
     Path newSnapshotInputsDir =
         CommonUtil.createTempDirectory("files_to_add").resolve(Paths.get(BfConsts.RELPATH_INPUT));
@@ -1809,10 +1810,16 @@ public class WorkMgr extends AbstractCoordinator {
       throw new BatfishException("Failed to create directory: '" + newSnapshotInputsDir + "'");
     }
     if (baseSnapshotInputsDir.toFile().exists()) {
-      FileUtils.copyDirectory(baseSnapshotInputsDir.toFile(), newSnapshotInputsDir.toFile());
-      _logger.infof(
-          "Copied snapshot from: %s to new snapshot: %s in network: %s\n",
-          baseSnapshotInputsDir, newSnapshotInputsDir, networkName);
+      for (String modifiedFile :
+          ImmutableList.of(
+              BfConsts.RELPATH_RUNTIME_DATA_FILE,
+              BfConsts.RELPATH_EDGE_BLACKLIST_FILE,
+              BfConsts.RELPATH_NODE_BLACKLIST_FILE)) {
+        Path baseFile = baseSnapshotInputsDir.resolve(modifiedFile);
+        if (Files.exists(baseFile)) {
+          Files.copy(baseFile, newSnapshotInputsDir.resolve(modifiedFile));
+        }
+      }
     } else {
       throw new IllegalArgumentException(
           String.format(
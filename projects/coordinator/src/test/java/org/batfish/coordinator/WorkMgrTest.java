@@ -1140,6 +1140,34 @@ public final class WorkMgrTest {
     assertThat(readFileContents, equalTo(fileContentsNew));
   }
 
+  @Test
+  public void testForkSnapshotSharesUnchangedInputs() throws Exception {
+    String networkName = "network";
+    String snapshotBaseName = "snapshotBase";
+    String snapshotNewName = "snapshotNew";
+
+    _manager.initNetwork(networkName, null);
+    uploadTestSnapshot(networkName, snapshotBaseName, "unchanged", "contents");
+    byte[] zipFile = createSnapshotZip(snapshotNewName, "added", "new");
+    _manager.forkSnapshot(
+        networkName,
+        new ForkSnapshotBean(
+            snapshotBaseName, snapshotNewName, null, null, null, null, null, null, zipFile));
+
+    // The unchanged file is shared with the base snapshot rather than copied
+    Path baseConfigs =
+        _manager
+            .getdirSnapshot(networkName, snapshotBaseName)
+            .resolve(Paths.get(BfConsts.RELPATH_INPUT, BfConsts.RELPATH_CONFIGURATIONS_DIR));
+    Path newConfigs =
+        _manager
+            .getdirSnapshot(networkName, snapshotNewName)
+            .resolve(Paths.get(BfConsts.RELPATH_INPUT, BfConsts.RELPATH_CONFIGURATIONS_DIR));
+    assertTrue(Files.isSameFile(baseConfigs.resolve("unchanged"), newConfigs.resolve("unchanged")));
+    assertThat(readSnapshotConfig(networkName, snapshotNewName, "added"), equalTo("new"));
+    assertFalse(Files.exists(baseConfigs.resolve("added")));
+  }
+
   private byte[] createSnapshotZip(String snapshot, String fileName, String fileContents)
       throws IOException {
     Path zipPath = WorkMgrTestUtils.createSnapshotZip(snapshot, fileName, fileContents, _folder);
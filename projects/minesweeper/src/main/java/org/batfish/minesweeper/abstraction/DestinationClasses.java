@@ -97,7 +97,7 @@ public class DestinationClasses {
    */
   private void addCatchAllCase(
       List<Prefix> dstIps, List<Prefix> notDstIps, Map<Set<String>, List<Prefix>> destinationMap) {
-    HeaderSpace catchAll = createHeaderSpace(dstIps);
+    HeaderSpace.Builder catchAll = createHeaderSpace(dstIps);
 
     catchAll.setNotDstIps(
         Stream.concat(
@@ -109,18 +109,18 @@ public class DestinationClasses {
       copyAllButDestinationIp(catchAll, _headerspace);
     }
     if (!catchAll.getNotDstIps().equals(catchAll.getDstIps())) {
-      _headerspaceMap.put(new HashSet<>(), new Tuple<>(catchAll, new Tuple<>(null, true)));
+      _headerspaceMap.put(new HashSet<>(), new Tuple<>(catchAll.build(), new Tuple<>(null, true)));
     }
   }
 
   private void buildHeaderSpaceEcs(Map<Set<String>, List<Prefix>> destinationMap) {
     destinationMap.forEach(
         (devices, prefixes) -> {
-          HeaderSpace h = createHeaderSpace(prefixes);
+          HeaderSpace.Builder h = createHeaderSpace(prefixes);
           if (_headerspace != null) {
             copyAllButDestinationIp(h, _headerspace);
           }
-          _headerspaceMap.put(devices, new Tuple<>(h, new Tuple<>(prefixes, false)));
+          _headerspaceMap.put(devices, new Tuple<>(h.build(), new Tuple<>(prefixes, false)));
         });
   }
 
@@ -183,7 +183,7 @@ public class DestinationClasses {
     }
   }
 
-  private void copyAllButDestinationIp(HeaderSpace h1, HeaderSpace h2) {
+  private void copyAllButDestinationIp(HeaderSpace.Builder h1, HeaderSpace h2) {
     h1.setDscps(h2.getDscps());
     h1.setDstPorts(h2.getDstPorts());
     h1.setNotDstPorts(h2.getNotDstPorts());
@@ -241,12 +241,11 @@ public class DestinationClasses {
   }
 
   /*
-   * Convert a collection of prefixes over destination IP in to a headerspace
+   * Convert a collection of prefixes over destination IP in to a headerspace builder
    */
-  private HeaderSpace createHeaderSpace(List<Prefix> prefixes) {
-    HeaderSpace h = new HeaderSpace();
-    h.setDstIps(prefixes.stream().map(IpWildcard::create).collect(Collectors.toSet()));
-    return h;
+  private HeaderSpace.Builder createHeaderSpace(List<Prefix> prefixes) {
+    return HeaderSpace.builder()
+        .setDstIps(prefixes.stream().map(IpWildcard::create).collect(Collectors.toSet()));
   }
 
   public IBatfish getBatfish() {
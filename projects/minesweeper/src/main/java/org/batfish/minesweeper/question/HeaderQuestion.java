@@ -10,7 +10,6 @@ import java.util.EnumSet;
 import java.util.List;
 import java.util.Set;
 import java.util.SortedSet;
-import java.util.TreeSet;
 import org.batfish.common.BatfishException;
 import org.batfish.datamodel.FlowDisposition;
 import org.batfish.datamodel.HeaderSpace;
@@ -88,7 +87,7 @@ public class HeaderQuestion extends Question {
 
   public HeaderQuestion() {
     _actions = EnumSet.of(FlowDisposition.ACCEPTED);
-    _headerSpace = new HeaderSpace();
+    _headerSpace = HeaderSpace.builder().build();
     _failures = 0;
     _nodeFailures = 0;
     _fullModel = false;
@@ -305,82 +304,82 @@ public class HeaderQuestion extends Question {
 
   @JsonProperty(PROP_NOT_DST_IPS)
   public void setNotDstIps(Set<IpWildcard> notDstIps) {
-    _headerSpace.setNotDstIps(new TreeSet<>(notDstIps));
+    _headerSpace = _headerSpace.toBuilder().setNotDstIps(notDstIps).build();
   }
 
   @JsonProperty(PROP_NOT_DST_PORTS)
   public void setNotDstPorts(Set<SubRange> notDstPorts) {
-    _headerSpace.setNotDstPorts(new TreeSet<>(notDstPorts));
+    _headerSpace = _headerSpace.toBuilder().setNotDstPorts(notDstPorts).build();
   }
 
   @JsonProperty(PROP_NOT_ICMP_CODES)
   public void setNotIcmpCodes(Set<SubRange> notIcmpCodes) {
-    _headerSpace.setNotIcmpCodes(new TreeSet<>(notIcmpCodes));
+    _headerSpace = _headerSpace.toBuilder().setNotIcmpCodes(notIcmpCodes).build();
   }
 
   @JsonProperty(PROP_NOT_ICMP_TYPES)
   public void setNotIcmpTypes(Set<SubRange> notIcmpType) {
-    _headerSpace.setNotIcmpTypes(new TreeSet<>(notIcmpType));
+    _headerSpace = _headerSpace.toBuilder().setNotIcmpTypes(notIcmpType).build();
   }
 
   @JsonProperty(PROP_NOT_IP_PROTOCOLS)
   public void setNotIpProtocols(Set<IpProtocol> notIpProtocols) {
-    _headerSpace.setNotIpProtocols(new TreeSet<>(notIpProtocols));
+    _headerSpace = _headerSpace.toBuilder().setNotIpProtocols(notIpProtocols).build();
   }
 
   @JsonProperty(PROP_NOT_SRC_IPS)
   public void setNotSrcIps(Set<IpWildcard> notSrcIps) {
-    _headerSpace.setNotSrcIps(new TreeSet<>(notSrcIps));
+    _headerSpace = _headerSpace.toBuilder().setNotSrcIps(notSrcIps).build();
   }
 
   @JsonProperty(PROP_NOT_SRC_PORTS)
   public void setNotSrcPortRange(Set<SubRange> notSrcPorts) {
-    _headerSpace.setNotSrcPorts(new TreeSet<>(notSrcPorts));
+    _headerSpace = _headerSpace.toBuilder().setNotSrcPorts(notSrcPorts).build();
   }
 
   @JsonProperty(PROP_SRC_IPS)
   public void setSrcIps(Set<IpWildcard> srcIps) {
-    _headerSpace.setSrcIps(new TreeSet<>(srcIps));
+    _headerSpace = _headerSpace.toBuilder().setSrcIps(srcIps).build();
   }
 
   @JsonProperty(PROP_SRC_OR_DST_IPS)
   public void setSrcOrDstIps(Set<IpWildcard> srcOrDstIps) {
-    _headerSpace.setSrcOrDstIps(new TreeSet<>(srcOrDstIps));
+    _headerSpace = _headerSpace.toBuilder().setSrcOrDstIps(srcOrDstIps).build();
   }
 
   @JsonProperty(PROP_SRC_OR_DST_PORTS)
   public void setSrcOrDstPorts(Set<SubRange> srcOrDstPorts) {
-    _headerSpace.setSrcOrDstPorts(new TreeSet<>(srcOrDstPorts));
+    _headerSpace = _headerSpace.toBuilder().setSrcOrDstPorts(srcOrDstPorts).build();
   }
 
   @JsonProperty(PROP_SRC_PORTS)
   public void setSrcPorts(Set<SubRange> srcPorts) {
-    _headerSpace.setSrcPorts(new TreeSet<>(srcPorts));
+    _headerSpace = _headerSpace.toBuilder().setSrcPorts(srcPorts).build();
   }
 
   @JsonProperty(PROP_DST_IPS)
   public void setDstIps(Set<IpWildcard> dstIps) {
-    _headerSpace.setDstIps(new TreeSet<>(dstIps));
+    _headerSpace = _headerSpace.toBuilder().setDstIps(dstIps).build();
   }
 
   @JsonProperty(PROP_DST_PORTS)
   public void setDstPorts(Set<SubRange> dstPorts) {
-    _headerSpace.setDstPorts(new TreeSet<>(dstPorts));
+    _headerSpace = _headerSpace.toBuilder().setDstPorts(dstPorts).build();
   }
 
   @JsonProperty(PROP_ICMP_CODES)
   public void setIcmpCodes(Set<SubRange> icmpCodes) {
-    _headerSpace.setIcmpCodes(new TreeSet<>(icmpCodes));
+    _headerSpace = _headerSpace.toBuilder().setIcmpCodes(icmpCodes).build();
   }
 
   @JsonProperty(PROP_ICMP_TYPES)
   public void setIcmpTypes(Set<SubRange> icmpTypes) {
-    _headerSpace.setIcmpTypes(new TreeSet<>(icmpTypes));
+    _headerSpace = _headerSpace.toBuilder().setIcmpTypes(icmpTypes).build();
   }
 
   @JsonProperty(PROP_IP_PROTOCOLS)
   public void setIpProtocols(Set<IpProtocol> ipProtocols) {
-    _headerSpace.setIpProtocols(new TreeSet<>(ipProtocols));
+    _headerSpace = _headerSpace.toBuilder().setIpProtocols(ipProtocols).build();
   }
 
   @JsonProperty(PROP_FAILURES)
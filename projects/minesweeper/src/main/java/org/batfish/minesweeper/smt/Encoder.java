@@ -1,5 +1,6 @@
 package org.batfish.minesweeper.smt;
 
+import com.google.common.collect.ImmutableList;
 import com.microsoft.z3.ArithExpr;
 import com.microsoft.z3.BitVecExpr;
 import com.microsoft.z3.BoolExpr;
@@ -250,22 +251,15 @@ public class Encoder {
           ibgpRouters.add(pair);
 
           // Create a control plane slice only for this ip
-          HeaderSpace hs = new HeaderSpace();
-
-          // Make sure messages are sent to this destination IP
-          SortedSet<IpWildcard> ips = new TreeSet<>();
-          ips.add(IpWildcard.create(n.getLocalIp()));
-          hs.setDstIps(ips);
-
-          // Make sure messages use TCP port 179
-          SortedSet<SubRange> dstPorts = new TreeSet<>();
-          dstPorts.add(SubRange.singleton(179));
-          hs.setDstPorts(dstPorts);
-
-          // Make sure messages use the TCP protocol
-          SortedSet<IpProtocol> protocols = new TreeSet<>();
-          protocols.add(IpProtocol.TCP);
-          hs.setIpProtocols(protocols);
+          HeaderSpace hs =
+              HeaderSpace.builder()
+                  // Make sure messages are sent to this destination IP
+                  .setDstIps(ImmutableList.of(IpWildcard.create(n.getLocalIp())))
+                  // Make sure messages use TCP port 179
+                  .setDstPorts(SubRange.singleton(179))
+                  // Make sure messages use the TCP protocol
+                  .setIpProtocols(IpProtocol.TCP)
+                  .build();
 
           // TODO: create domains once
           Graph gNew = new Graph(g.getBatfish(), g.getSnapshot(), null, g.getDomain(router));
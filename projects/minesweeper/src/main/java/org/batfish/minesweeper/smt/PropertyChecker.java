@@ -95,7 +95,7 @@ public class PropertyChecker {
     }
 
     // Infer relevant destination IP headerspace from interfaces
-    HeaderSpace headerSpace = q.getHeaderSpace();
+    HeaderSpace.Builder headerSpace = q.getHeaderSpace().toBuilder();
     for (GraphEdge ge : destPorts) {
       // If there is an external interface, then
       // it can be any prefix, so we leave it unconstrained
@@ -126,6 +126,7 @@ public class PropertyChecker {
         }
       }
     }
+    q.setHeaderSpace(headerSpace.build());
   }
 
   private BoolExpr equal(Encoder e, Configuration conf, SymbolicRoute r1, SymbolicRoute r2) {
@@ -861,7 +862,7 @@ public class PropertyChecker {
     for (Prefix prefix : prefixes) {
       pfxs.add(IpWildcard.create(prefix));
     }
-    q.getHeaderSpace().setDstIps(pfxs);
+    q.setHeaderSpace(q.getHeaderSpace().toBuilder().setDstIps(pfxs).build());
 
     // Collect all routers that use static routes as a
     // potential node along a loop
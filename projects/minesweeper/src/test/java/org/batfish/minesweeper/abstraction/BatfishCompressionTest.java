@@ -280,7 +280,7 @@ public class BatfishCompressionTest {
   public void testCompressionFibs_compressibleNetwork() throws IOException {
     DataPlane origDataPlane = getDataPlane(compressibleNetwork());
     SortedMap<String, Configuration> compressedConfigs =
-        compressNetwork(compressibleNetwork(), new HeaderSpace());
+        compressNetwork(compressibleNetwork(), HeaderSpace.builder().build());
     DataPlane compressedDataPlane = getDataPlane(compressedConfigs);
     SortedMap<String, SortedMap<String, GenericRib<AnnotatedRoute<AbstractRoute>>>> origRibs =
         origDataPlane.getRibs();
@@ -377,7 +377,7 @@ public class BatfishCompressionTest {
   public void testCompressionFibs_simpleNetwork() throws IOException {
     DataPlane origDataPlane = getDataPlane(simpleNetwork());
     SortedMap<String, Configuration> compressedConfigs =
-        compressNetwork(simpleNetwork(), new HeaderSpace());
+        compressNetwork(simpleNetwork(), HeaderSpace.builder().build());
     DataPlane compressedDataPlane = getDataPlane(compressedConfigs);
     SortedMap<String, SortedMap<String, GenericRib<AnnotatedRoute<AbstractRoute>>>> origRibs =
         origDataPlane.getRibs();
@@ -3,13 +3,17 @@ package org.batfish.question;
 import static org.batfish.datamodel.acl.SourcesReferencedByIpAccessLists.SOURCE_ORIGINATING_FROM_DEVICE;
 import static org.batfish.datamodel.acl.SourcesReferencedByIpAccessLists.referencedSources;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMultimap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Multimap;
 import com.google.common.collect.Sets;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.BiFunction;
 import net.sf.javabdd.BDD;
 import org.batfish.common.bdd.BDDPacket;
 import org.batfish.common.bdd.BDDSourceManager;
@@ -152,4 +156,32 @@ public final class FilterQuestionUtils {
         .map(locationToSource::visit)
         .collect(ImmutableSet.toImmutableSet());
   }
+
+  /**
+   * Apply {@code function} to every element of {@code inputs} in parallel, and return the results
+   * in input order.
+   *
+   * <p>BDD factories are not thread-safe, so the inputs are split into contiguous partitions, each
+   * processed by a single thread with its own {@link BDDPacket}. Results must not contain BDDs.
+   */
+  public static <T, R> List<R> mapInParallelWithBddPackets(
+      List<T> inputs, BiFunction<BDDPacket, T, R> function) {
+    if (inputs.isEmpty()) {
+      return ImmutableList.of();
+    }
+    // Use more partitions than threads, so that a few large inputs do not leave threads idle.
+    int numPartitions = Math.min(inputs.size(), 4 * Runtime.getRuntime().availableProcessors());
+    int partitionSize = (inputs.size() + numPartitions - 1) / numPartitions;
+    return Lists.partition(inputs, partitionSize)
+        .parallelStream()
+        .flatMap(
+            partition -> {
+              BDDPacket pkt = new BDDPacket();
+              return partition.stream()
+                  .map(input -> function.apply(pkt, input))
+                  .collect(ImmutableList.toImmutableList())
+                  .stream();
+            })
+        .collect(ImmutableList.toImmutableList());
+  }
 }
@@ -2,6 +2,7 @@ package org.batfish.question.comparefilters;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static org.batfish.question.FilterQuestionUtils.getSpecifiedFilters;
+import static org.batfish.question.FilterQuestionUtils.mapInParallelWithBddPackets;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableList;
@@ -88,17 +89,20 @@ public class CompareFiltersAnswerer extends Answerer {
             currentFilters,
             entry -> referenceFilters.containsEntry(entry.getKey(), entry.getValue()));
 
-    BDDPacket bddPacket = new BDDPacket();
+    // Filters are independent, so compare them in parallel
     Multiset<Row> rows =
-        commonFilters.entries().stream()
-            .flatMap(
-                entry ->
+        mapInParallelWithBddPackets(
+                ImmutableList.copyOf(commonFilters.entries()),
+                (bddPacket, entry) ->
                     compareFilter(
-                        entry.getKey(),
-                        entry.getValue(),
-                        bddPacket,
-                        currentContext,
-                        referenceContext))
+                            entry.getKey(),
+                            entry.getValue(),
+                            bddPacket,
+                            currentContext,
+                            referenceContext)
+                        .collect(ImmutableList.toImmutableList()))
+            .stream()
+            .flatMap(List::stream)
             .map(filterDifference -> toRow(filterDifference, currentContext, referenceContext))
             .collect(ImmutableMultiset.toImmutableMultiset());
 
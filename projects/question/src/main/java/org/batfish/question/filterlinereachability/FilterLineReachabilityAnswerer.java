@@ -1,6 +1,7 @@
 package org.batfish.question.filterlinereachability;
 
 import static com.google.common.base.MoreObjects.firstNonNull;
+import static org.batfish.question.FilterQuestionUtils.mapInParallelWithBddPackets;
 import static org.batfish.question.filterlinereachability.FilterLineReachabilityRows.createMetadata;
 import static org.batfish.question.filterlinereachability.FilterLineReachabilityUtils.getReferencedAcls;
 import static org.batfish.question.filterlinereachability.FilterLineReachabilityUtils.getReferencedInterfaces;
@@ -12,6 +13,8 @@ import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ImmutableSortedSet;
 import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.Map;
@@ -71,7 +74,7 @@ public class FilterLineReachabilityAnswerer extends Answerer {
 
     SortedMap<String, Configuration> configurations = _batfish.loadConfigurations(snapshot);
     List<AclSpecs> aclSpecs = getAclSpecs(configurations, specifiedAcls, answerRows);
-    answerAclReachability(aclSpecs, answerRows);
+    answerAclReachability(aclSpecs, answerRows, _batfish);
     TableAnswerElement answer = new TableAnswerElement(createMetadata(question));
     answer.postProcessAnswer(question, answerRows.getRows());
     return answer;
@@ -540,16 +543,15 @@ public class FilterLineReachabilityAnswerer extends Answerer {
     return answerLines.build();
   }
 
-  private static void answerAclReachabilityLine(
-      AclSpecs aclSpec, BDDPacket bddPacket, FilterLineReachabilityRows answerRows) {
+  /** Returns the lines of {@code acl} that no packet can reach, in increasing line order. */
+  @VisibleForTesting
+  static List<UnreachableLine> computeUnreachableLines(CanonicalAcl acl, BDDPacket bddPacket) {
     BDDFactory bddFactory = bddPacket.getFactory();
-    BDDSourceManager sourceMgr =
-        BDDSourceManager.forInterfaces(bddPacket, aclSpec.acl.getInterfaces());
+    BDDSourceManager sourceMgr = BDDSourceManager.forInterfaces(bddPacket, acl.getInterfaces());
     IpAccessListToBdd ipAccessListToBdd =
-        new IpAccessListToBddImpl(
-            bddPacket, sourceMgr, aclSpec.acl.getDependencies(), ImmutableMap.of());
+        new IpAccessListToBddImpl(bddPacket, sourceMgr, acl.getDependencies(), ImmutableMap.of());
 
-    IpAccessList ipAcl = aclSpec.acl.getSanitizedAcl();
+    IpAccessList ipAcl = acl.getSanitizedAcl();
     List<AclLine> lines = ipAcl.getLines();
 
     /* Convert every line to a BDD. */
@@ -560,6 +562,7 @@ public class FilterLineReachabilityAnswerer extends Answerer {
             .collect(Collectors.toList());
 
     /* Pass over BDDs to classify each as unmatchable, unreachable, or (implicitly) reachable. */
+    ImmutableList.Builder<UnreachableLine> unreachableLines = ImmutableList.builder();
     BDD unmatchedPackets = bddFactory.one(); // The packets that are not yet matched by the ACL.
     ListIterator<BDD> lineIt = ipLineToBDDMap.listIterator();
     ActionGetter actionGetter = new ActionGetter(false);
@@ -568,25 +571,63 @@ public class FilterLineReachabilityAnswerer extends Answerer {
       BDD lineBDD = lineIt.next();
       if (lineBDD.isZero()) {
         // This line is unmatchable
-        answerRows.addUnreachableLine(aclSpec, lineNum, true, ImmutableSortedSet.of());
+        unreachableLines.add(new UnreachableLine(lineNum, true, ImmutableSortedSet.of()));
       } else if (unmatchedPackets.isZero() || !lineBDD.andSat(unmatchedPackets)) {
         // No unmatched packets in the ACL match this line, so this line is unreachable.
         List<LineAction> actions =
             lines.stream().map(actionGetter::visit).collect(Collectors.toList());
         SortedSet<Integer> blockingLines =
             findBlockingLinesForLine(lineNum, actions, ipLineToBDDMap);
-        answerRows.addUnreachableLine(aclSpec, lineNum, false, blockingLines);
+        unreachableLines.add(new UnreachableLine(lineNum, false, blockingLines));
       }
       unmatchedPackets = unmatchedPackets.diff(lineBDD);
     }
+    return unreachableLines.build();
   }
 
+  /**
+   * Adds the unreachable lines of each ACL to {@code answerRows}, reusing the results computed for
+   * identical ACLs in any snapshot of the network. Since {@link HeaderSpaceSanitizer} inlines named
+   * IP spaces into the sanitized ACL, changes to those IP spaces change the content hash.
+   */
   private static void answerAclReachability(
-      List<AclSpecs> aclSpecs, FilterLineReachabilityRows answerRows) {
-    BDDPacket bddPacket = new BDDPacket();
-
+      List<AclSpecs> aclSpecs, FilterLineReachabilityRows answerRows, IBatfish batfish) {
+    UnreachableLinesCache cache =
+        UnreachableLinesCache.load(batfish, UnreachableLinesCache.DEFAULT_MAX_ACLS);
+    Map<String, List<UnreachableLine>> unreachableLinesByHash = new HashMap<>();
+    Map<String, CanonicalAcl> uncachedAcls = new LinkedHashMap<>();
+    List<String> aclHashes = new ArrayList<>(aclSpecs.size());
     for (AclSpecs aclSpec : aclSpecs) {
-      answerAclReachabilityLine(aclSpec, bddPacket, answerRows);
+      String hash = aclSpec.acl.getContentHash();
+      aclHashes.add(hash);
+      List<UnreachableLine> cached = cache.get(hash);
+      if (cached != null) {
+        unreachableLinesByHash.put(hash, cached);
+      } else {
+        uncachedAcls.putIfAbsent(hash, aclSpec.acl);
+      }
+    }
+
+    if (!uncachedAcls.isEmpty()) {
+      // Canonical ACLs are independent, so analyze them in parallel
+      List<String> hashes = ImmutableList.copyOf(uncachedAcls.keySet());
+      List<List<UnreachableLine>> computed =
+          mapInParallelWithBddPackets(
+              ImmutableList.copyOf(uncachedAcls.values()),
+              (bddPacket, acl) -> computeUnreachableLines(acl, bddPacket));
+      for (int i = 0; i < hashes.size(); i++) {
+        unreachableLinesByHash.put(hashes.get(i), computed.get(i));
+        cache.put(hashes.get(i), computed.get(i));
+      }
+      cache.store(batfish);
+    }
+
+    for (int i = 0; i < aclSpecs.size(); i++) {
+      AclSpecs aclSpec = aclSpecs.get(i);
+      for (UnreachableLine line : unreachableLinesByHash.get(aclHashes.get(i))) {
+        answerRows.addUnreachableLine(
+            aclSpec, line.getLineNumber(), line.isUnmatchable(), line.getBlockingLines());
+      }
     }
   }
 }
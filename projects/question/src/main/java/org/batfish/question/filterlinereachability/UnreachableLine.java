@@ -0,0 +1,74 @@
+package org.batfish.question.filterlinereachability;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+
+import com.google.common.collect.ImmutableSortedSet;
+import java.io.Serializable;
+import java.util.Objects;
+import java.util.SortedSet;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import org.batfish.datamodel.acl.CanonicalAcl;
+
+/**
+ * A line of a {@link CanonicalAcl} that no packet can reach. Depends only on the sanitized lines,
+ * dependencies, and interfaces of the ACL, so results can be reused for any ACL with the same
+ * {@link CanonicalAcl#getContentHash() content hash}.
+ */
+@ParametersAreNonnullByDefault
+final class UnreachableLine implements Serializable {
+
+  private final int _lineNumber;
+  private final boolean _unmatchable;
+  private final @Nonnull SortedSet<Integer> _blockingLines;
+
+  UnreachableLine(int lineNumber, boolean unmatchable, SortedSet<Integer> blockingLines) {
+    _lineNumber = lineNumber;
+    _unmatchable = unmatchable;
+    _blockingLines = ImmutableSortedSet.copyOf(blockingLines);
+  }
+
+  int getLineNumber() {
+    return _lineNumber;
+  }
+
+  /** Whether the line matches no packets at all, regardless of the lines before it */
+  boolean isUnmatchable() {
+    return _unmatchable;
+  }
+
+  /** Earlier lines that together match all packets matched by this line */
+  @Nonnull
+  SortedSet<Integer> getBlockingLines() {
+    return _blockingLines;
+  }
+
+  @Override
+  public boolean equals(@Nullable Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof UnreachableLine)) {
+      return false;
+    }
+    UnreachableLine that = (UnreachableLine) o;
+    return _lineNumber == that._lineNumber
+        && _unmatchable == that._unmatchable
+        && _blockingLines.equals(that._blockingLines);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(_lineNumber, _unmatchable, _blockingLines);
+  }
+
+  @Override
+  public String toString() {
+    return toStringHelper(this)
+        .add("lineNumber", _lineNumber)
+        .add("unmatchable", _unmatchable)
+        .add("blockingLines", _blockingLines)
+        .toString();
+  }
+}
@@ -0,0 +1,110 @@
+package org.batfish.question.filterlinereachability;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Throwables;
+import java.io.FileNotFoundException;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import org.apache.commons.lang3.SerializationUtils;
+import org.batfish.common.plugin.IBatfish;
+import org.batfish.datamodel.acl.CanonicalAcl;
+import org.batfish.version.BatfishVersion;
+
+/**
+ * The {@link UnreachableLine unreachable lines} of the {@link CanonicalAcl ACLs} analyzed in any
+ * snapshot of a network, by {@link CanonicalAcl#getContentHash() content hash}.
+ *
+ * <p>The cache is stored as a single network blob, so its storage is bounded: it holds the ACLs
+ * used most recently, up to a maximum number, and is discarded when loaded by another Batfish
+ * version.
+ */
+@ParametersAreNonnullByDefault
+final class UnreachableLinesCache implements Serializable {
+
+  /** Key of the network blob holding the cache */
+  @VisibleForTesting static final String KEY = "filterLineReachability";
+
+  /** Default maximum number of ACLs in the cache */
+  @VisibleForTesting static final int DEFAULT_MAX_ACLS = 10_000;
+
+  /**
+   * Load the cache of the network of {@link IBatfish#getSnapshot() the current snapshot}, or return
+   * an empty cache if there is none for this Batfish version.
+   */
+  static @Nonnull UnreachableLinesCache load(IBatfish batfish, int maxAcls) {
+    String version = BatfishVersion.getVersionStatic();
+    try {
+      UnreachableLinesCache cache = SerializationUtils.deserialize(batfish.loadNetworkBlob(KEY));
+      if (cache._version.equals(version)) {
+        return new UnreachableLinesCache(version, maxAcls, cache._linesByHash);
+      }
+    } catch (FileNotFoundException e) {
+      // not cached yet
+    } catch (Exception e) {
+      batfish
+          .getLogger()
+          .warnf("Error loading cached unreachable lines: %s", Throwables.getStackTraceAsString(e));
+    }
+    return new UnreachableLinesCache(version, maxAcls, new LinkedHashMap<>());
+  }
+
+  private final @Nonnull String _version;
+  private final int _maxAcls;
+  // In access order, least recently used first
+  private final @Nonnull LinkedHashMap<String, List<UnreachableLine>> _linesByHash;
+
+  @VisibleForTesting
+  UnreachableLinesCache(
+      String version, int maxAcls, LinkedHashMap<String, List<UnreachableLine>> linesByHash) {
+    _version = version;
+    _maxAcls = maxAcls;
+    _linesByHash = new LinkedHashMap<>(16, 0.75f, true);
+    _linesByHash.putAll(linesByHash);
+    evict();
+  }
+
+  /** Return the unreachable lines of the ACL with the given content hash, if cached. */
+  @Nullable
+  List<UnreachableLine> get(String contentHash) {
+    return _linesByHash.get(contentHash);
+  }
+
+  /**
+   * Cache the unreachable lines of the ACL with the given content hash, evicting the least recently
+   * used ACLs beyond the maximum.
+   */
+  void put(String contentHash, List<UnreachableLine> unreachableLines) {
+    _linesByHash.put(contentHash, new ArrayList<>(unreachableLines));
+    evict();
+  }
+
+  @VisibleForTesting
+  int size() {
+    return _linesByHash.size();
+  }
+
+  /** Store the cache as the network blob, replacing the one loaded. */
+  void store(IBatfish batfish) {
+    try {
+      batfish.storeNetworkBlob(KEY, SerializationUtils.serialize(this));
+    } catch (Exception e) {
+      batfish
+          .getLogger()
+          .warnf("Error caching unreachable lines: %s", Throwables.getStackTraceAsString(e));
+    }
+  }
+
+  private void evict() {
+    Iterator<String> leastRecentlyUsed = _linesByHash.keySet().iterator();
+    for (int excess = _linesByHash.size() - _maxAcls; excess > 0; excess--) {
+      leastRecentlyUsed.next();
+      leastRecentlyUsed.remove();
+    }
+  }
+}
@@ -4,6 +4,7 @@ import static com.google.common.base.Preconditions.checkState;
 import static org.batfish.datamodel.acl.SourcesReferencedByIpAccessLists.referencedSources;
 import static org.batfish.question.FilterQuestionUtils.differentialBDDSourceManager;
 import static org.batfish.question.FilterQuestionUtils.getFlow;
+import static org.batfish.question.FilterQuestionUtils.mapInParallelWithBddPackets;
 import static org.batfish.question.FilterQuestionUtils.resolveSources;
 import static org.batfish.question.testfilters.TestFiltersAnswerer.COL_FILTER_NAME;
 import static org.batfish.question.testfilters.TestFiltersAnswerer.COL_NODE;
@@ -20,6 +21,7 @@ import com.google.common.collect.Sets;
 import com.google.common.collect.Sets.SetView;
 import com.google.common.collect.Streams;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -27,6 +29,7 @@ import java.util.Set;
 import java.util.SortedMap;
 import java.util.function.BiFunction;
 import java.util.function.Function;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 import javax.annotation.Nullable;
 import net.sf.javabdd.BDD;
@@ -65,6 +68,7 @@ import org.batfish.question.SearchFiltersParameters;
 import org.batfish.question.testfilters.TestFiltersAnswerer;
 import org.batfish.question.testfilters.TestFiltersQuestion;
 import org.batfish.specifier.FilterSpecifier;
+import org.batfish.specifier.LocationSpecifier;
 import org.batfish.specifier.SpecifierContext;
 
 /** Answerer for SearchFiltersQuestion */
@@ -247,23 +251,50 @@ public final class SearchFiltersAnswerer extends Answerer {
     /*
      * For each query ACL, try to get a flow. If one exists, run traceFilter on that flow.
      * Concatenate the answers for all flows into one big table.
+     *
+     * The query ACLs are independent, so the BDD analysis runs in parallel. Everything that needs
+     * the IBatfish instance is resolved beforehand.
      */
     Map<String, Configuration> configurations = _batfish.loadConfigurations(snapshot);
-    for (Triple<String, String, IpAccessList> triple : acls) {
-      String hostname = triple.getLeft();
-      String aclname = triple.getMiddle();
-      Configuration node = configurations.get(hostname);
-      IpAccessList acl = triple.getRight();
-      Optional<SearchFiltersResult> optionalResult;
-      optionalResult =
-          reachFilter(snapshot, _batfish, node, acl, question.toSearchFiltersParameters());
-      optionalResult.ifPresent(
-          result ->
-              rows.add(
-                  toSearchFiltersRow(
-                      result.getHeaderSpaceDescription().orElse(null),
-                      testFiltersRow(snapshot, hostname, aclname, result.getExampleFlow()),
-                      question.getGenerateExplanations())));
+    SearchFiltersParameters parameters = question.toSearchFiltersParameters();
+    SpecifierContext specifierContext = _batfish.specifierContext(snapshot);
+    HeaderSpace headerSpace = parameters.resolveHeaderspace(specifierContext);
+    Map<String, Set<String>> activeSourcesByNode = new HashMap<>();
+    List<Set<String>> activeSources =
+        acls.stream()
+            .map(
+                triple ->
+                    activeSourcesByNode.computeIfAbsent(
+                        triple.getLeft(),
+                        hostname ->
+                            activeSources(
+                                specifierContext,
+                                configurations.get(hostname),
+                                parameters.getStartLocationSpecifier())))
+            .collect(ImmutableList.toImmutableList());
+    List<Optional<SearchFiltersResult>> results =
+        mapInParallelWithBddPackets(
+            IntStream.range(0, acls.size()).boxed().collect(ImmutableList.toImmutableList()),
+            (bddPacket, i) ->
+                reachFilter(
+                    bddPacket,
+                    configurations.get(acls.get(i).getLeft()),
+                    acls.get(i).getRight(),
+                    activeSources.get(i),
+                    headerSpace,
+                    parameters.getGenerateExplanations()));
+    for (int i = 0; i < acls.size(); i++) {
+      String hostname = acls.get(i).getLeft();
+      String aclname = acls.get(i).getMiddle();
+      results
+          .get(i)
+          .ifPresent(
+              result ->
+                  rows.add(
+                      toSearchFiltersRow(
+                          result.getHeaderSpaceDescription().orElse(null),
+                          testFiltersRow(snapshot, hostname, aclname, result.getExampleFlow()),
+                          question.getGenerateExplanations())));
     }
 
     _tableAnswerElement =
@@ -417,22 +448,45 @@ public final class SearchFiltersAnswerer extends Answerer {
       Configuration node,
       IpAccessList acl,
       SearchFiltersParameters parameters) {
-    BDDPacket bddPacket = new BDDPacket();
-
     SpecifierContext specifierContext = batfish.specifierContext(snapshot);
+    return reachFilter(
+        new BDDPacket(),
+        node,
+        acl,
+        activeSources(specifierContext, node, parameters.getStartLocationSpecifier()),
+        parameters.resolveHeaderspace(specifierContext),
+        parameters.getGenerateExplanations());
+  }
 
+  /** Return the active sources of {@code node} specified by {@code startLocationSpecifier}. */
+  private static Set<String> activeSources(
+      SpecifierContext specifierContext,
+      Configuration node,
+      LocationSpecifier startLocationSpecifier) {
     Set<String> inactiveIfaces =
         Sets.difference(node.getAllInterfaces().keySet(), node.activeInterfaceNames());
-    Set<String> activeSources =
+    return ImmutableSet.copyOf(
         Sets.difference(
-            resolveSources(
-                specifierContext, parameters.getStartLocationSpecifier(), node.getHostname()),
-            inactiveIfaces);
+            resolveSources(specifierContext, startLocationSpecifier, node.getHostname()),
+            inactiveIfaces));
+  }
+
+  /**
+   * Find a flow permitted by {@code acl} from one of {@code activeSources}, in the given {@link
+   * HeaderSpace}. Does not use {@link IBatfish}, so it is safe to call in parallel with different
+   * {@link BDDPacket packets}.
+   */
+  private static Optional<SearchFiltersResult> reachFilter(
+      BDDPacket bddPacket,
+      Configuration node,
+      IpAccessList acl,
+      Set<String> activeSources,
+      HeaderSpace headerSpace,
+      boolean generateExplanations) {
     Set<String> referencedSources = referencedSources(node.getIpAccessLists(), acl);
 
     BDDSourceManager mgr = BDDSourceManager.forSources(bddPacket, activeSources, referencedSources);
 
-    HeaderSpace headerSpace = parameters.resolveHeaderspace(specifierContext);
     BDD headerSpaceBDD = new HeaderSpaceToBDD(bddPacket, node.getIpSpaces()).toBDD(headerSpace);
     BDD bdd =
         IpAccessListToBdd.toBDD(bddPacket, acl, node.getIpAccessLists(), node.getIpSpaces(), mgr)
@@ -444,7 +498,7 @@ public final class SearchFiltersAnswerer extends Answerer {
             flow ->
                 new SearchFiltersResult(
                     flow,
-                    parameters.getGenerateExplanations()
+                    generateExplanations
                         ? AclExplainer.explain(
                             bddPacket,
                             mgr,
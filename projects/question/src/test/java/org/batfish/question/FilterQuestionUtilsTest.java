@@ -0,0 +1,53 @@
+package org.batfish.question;
+
+import static org.batfish.question.FilterQuestionUtils.mapInParallelWithBddPackets;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.batfish.common.bdd.BDDPacket;
+import org.junit.Test;
+
+/** Tests of {@link FilterQuestionUtils}. */
+public final class FilterQuestionUtilsTest {
+
+  @Test
+  public void testMapInParallelWithBddPacketsEmpty() {
+    assertThat(mapInParallelWithBddPackets(ImmutableList.<Integer>of(), (pkt, i) -> i), empty());
+  }
+
+  @Test
+  public void testMapInParallelWithBddPacketsPreservesOrder() {
+    List<Integer> inputs =
+        IntStream.range(0, 1000).boxed().collect(ImmutableList.toImmutableList());
+    // Each input round-trips through a BDD built with the packet it was given.
+    List<Long> results =
+        mapInParallelWithBddPackets(
+            inputs, (pkt, i) -> pkt.getDstIp().getValueSatisfying(pkt.getDstIp().value(i)).get());
+    assertThat(
+        results, equalTo(inputs.stream().map(Integer::longValue).collect(Collectors.toList())));
+  }
+
+  @Test
+  public void testMapInParallelWithBddPacketsSharesPacketsWithinPartition() {
+    int numInputs = 1000;
+    Map<BDDPacket, Boolean> packets = Collections.synchronizedMap(new IdentityHashMap<>());
+    mapInParallelWithBddPackets(
+        IntStream.range(0, numInputs).boxed().collect(ImmutableList.toImmutableList()),
+        (pkt, i) -> {
+          packets.put(pkt, true);
+          return i;
+        });
+    // One packet per partition, of which there are at most 4 per available processor.
+    int maxPartitions = 4 * Runtime.getRuntime().availableProcessors();
+    int partitionSize = (numInputs + maxPartitions - 1) / maxPartitions;
+    assertThat(packets.size(), equalTo((numInputs + partitionSize - 1) / partitionSize));
+  }
+}
@@ -23,8 +23,12 @@ import com.google.common.collect.ImmutableMultiset;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ImmutableSortedMap;
 import com.google.common.collect.Multiset;
+import java.io.FileNotFoundException;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.SortedMap;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 import org.batfish.common.NetworkSnapshot;
 import org.batfish.common.plugin.IBatfish;
@@ -155,6 +159,71 @@ public class FilterLineReachabilityTest {
     assertThat(answer.getRows().getData(), equalTo(expected));
   }
 
+  @Test
+  public void testUnreachableLinesCachedAcrossSnapshots() {
+    List<AclLine> lines =
+        ImmutableList.of(
+            acceptingHeaderSpace(
+                HeaderSpace.builder().setSrcIps(Prefix.parse("1.0.0.0/8").toIpSpace()).build()),
+            acceptingHeaderSpace(
+                HeaderSpace.builder().setSrcIps(Prefix.parse("1.2.0.0/16").toIpSpace()).build()));
+    _aclb.setLines(lines).setName("acl").build();
+    Map<String, byte[]> blobs = new HashMap<>();
+    AtomicInteger stores = new AtomicInteger();
+    IBatfish batfish =
+        new IBatfishTestAdapter() {
+          @Override
+          public SortedMap<String, Configuration> loadConfigurations(NetworkSnapshot snapshot) {
+            return ImmutableSortedMap.of(_c1.getHostname(), _c1, _c2.getHostname(), _c2);
+          }
+
+          @Override
+          public byte[] loadNetworkBlob(String key) throws FileNotFoundException {
+            byte[] blob = blobs.get(key);
+            if (blob == null) {
+              throw new FileNotFoundException(key);
+            }
+            return blob;
+          }
+
+          @Override
+          public void storeNetworkBlob(String key, byte[] blob) {
+            stores.incrementAndGet();
+            blobs.put(key, blob);
+          }
+        };
+    FilterLineReachabilityQuestion question = new FilterLineReachabilityQuestion();
+    Multiset<Row> firstAnswer =
+        new FilterLineReachabilityAnswerer(question, batfish)
+            .answer(batfish.getSnapshot())
+            .getRows()
+            .getData();
+    assertThat(firstAnswer.size(), equalTo(1));
+    assertThat(stores.get(), equalTo(1));
+
+    // The same ACL on another node is answered from the cache
+    _c1.getIpAccessLists().clear();
+    _aclb.setOwner(_c2).setLines(lines).setName("acl").build();
+    Multiset<Row> secondAnswer =
+        new FilterLineReachabilityAnswerer(question, batfish)
+            .answer(batfish.getSnapshot())
+            .getRows()
+            .getData();
+    assertThat(stores.get(), equalTo(1));
+    assertThat(
+        secondAnswer,
+        equalTo(
+            ImmutableMultiset.of(
+                Row.builder(COLUMN_METADATA)
+                    .put(COL_SOURCES, ImmutableList.of(_c2.getHostname() + ": acl"))
+                    .put(COL_UNREACHABLE_LINE, lines.get(1).toString())
+                    .put(COL_UNREACHABLE_LINE_ACTION, LineAction.PERMIT)
+                    .put(COL_BLOCKING_LINES, ImmutableList.of(lines.get(0).toString()))
+                    .put(COL_DIFF_ACTION, false)
+                    .put(COL_REASON, BLOCKING_LINES)
+                    .build())));
+  }
+
   @Test
   public void testCycleAppearsOnce() {
     // acl1 permits anything acl2 permits... twice
@@ -0,0 +1,104 @@
+package org.batfish.question.filterlinereachability;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSortedSet;
+import java.io.FileNotFoundException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.commons.lang3.SerializationUtils;
+import org.batfish.common.BatfishLogger;
+import org.batfish.common.plugin.IBatfish;
+import org.batfish.common.plugin.IBatfishTestAdapter;
+import org.batfish.version.BatfishVersion;
+import org.junit.Test;
+
+/** Tests of {@link UnreachableLinesCache} */
+public final class UnreachableLinesCacheTest {
+
+  private static final List<UnreachableLine> LINES =
+      ImmutableList.of(new UnreachableLine(1, true, ImmutableSortedSet.of()));
+
+  private static class BlobBatfish extends IBatfishTestAdapter {
+    private final Map<String, byte[]> _blobs = new HashMap<>();
+
+    @Override
+    public byte[] loadNetworkBlob(String key) throws FileNotFoundException {
+      byte[] blob = _blobs.get(key);
+      if (blob == null) {
+        throw new FileNotFoundException(key);
+      }
+      return blob;
+    }
+
+    @Override
+    public void storeNetworkBlob(String key, byte[] blob) {
+      _blobs.put(key, blob);
+    }
+  }
+
+  @Test
+  public void testStoreAndLoad() {
+    IBatfish batfish = new BlobBatfish();
+    UnreachableLinesCache cache = UnreachableLinesCache.load(batfish, 10);
+    assertThat(cache.size(), equalTo(0));
+    cache.put("a", LINES);
+    cache.store(batfish);
+
+    UnreachableLinesCache loaded = UnreachableLinesCache.load(batfish, 10);
+    assertThat(loaded.get("a"), equalTo(LINES));
+    assertThat(loaded.get("b"), nullValue());
+  }
+
+  @Test
+  public void testEvictsLeastRecentlyUsed() {
+    IBatfish batfish = new BlobBatfish();
+    UnreachableLinesCache cache = UnreachableLinesCache.load(batfish, 2);
+    cache.put("a", LINES);
+    cache.put("b", LINES);
+    cache.get("a");
+    cache.put("c", LINES);
+    assertThat(cache.size(), equalTo(2));
+    assertThat(cache.get("b"), nullValue());
+    assertThat(cache.get("a"), equalTo(LINES));
+    assertThat(cache.get("c"), equalTo(LINES));
+
+    // The order of use is kept in storage, and a smaller maximum applies when loading
+    cache.store(batfish);
+    UnreachableLinesCache loaded = UnreachableLinesCache.load(batfish, 1);
+    assertThat(loaded.size(), equalTo(1));
+    assertThat(loaded.get("c"), equalTo(LINES));
+  }
+
+  @Test
+  public void testDiscardedForOtherVersion() {
+    IBatfish batfish = new BlobBatfish();
+    LinkedHashMap<String, List<UnreachableLine>> linesByHash = new LinkedHashMap<>();
+    linesByHash.put("a", LINES);
+    new UnreachableLinesCache(BatfishVersion.getVersionStatic() + "-other", 10, linesByHash)
+        .store(batfish);
+    assertThat(UnreachableLinesCache.load(batfish, 10).size(), equalTo(0));
+  }
+
+  @Test
+  public void testDiscardedIfUnreadable() {
+    IBatfish batfish =
+        new BlobBatfish() {
+          @Override
+          public byte[] loadNetworkBlob(String key) {
+            return SerializationUtils.serialize("not a cache");
+          }
+
+          @Override
+          public BatfishLogger getLogger() {
+            return new BatfishLogger(BatfishLogger.LEVELSTR_FATAL, false);
+          }
+        };
+    assertThat(UnreachableLinesCache.load(batfish, 10).size(), equalTo(0));
+  }
+}
@@ -539,7 +539,7 @@ public final class SearchFiltersTest {
             .toBuilder()
             .setDestinationIpSpaceSpecifier(new ConstantIpSpaceSpecifier(constraintIp.toIpSpace()))
             .setSourceIpSpaceSpecifier(new ConstantIpSpaceSpecifier(UniverseIpSpace.INSTANCE))
-            .setHeaderSpace(new HeaderSpace())
+            .setHeaderSpace(HeaderSpace.builder().build())
             .build();
     Optional<SearchFiltersResult> result =
         reachFilter(_batfish.getSnapshot(), _batfish, _config, ACCEPT_ALL_ACL, params);
@@ -554,7 +554,7 @@ public final class SearchFiltersTest {
             .toBuilder()
             .setDestinationIpSpaceSpecifier(new ConstantIpSpaceSpecifier(UniverseIpSpace.INSTANCE))
             .setSourceIpSpaceSpecifier(new ConstantIpSpaceSpecifier(constraintIp.toIpSpace()))
-            .setHeaderSpace(new HeaderSpace())
+            .setHeaderSpace(HeaderSpace.builder().build())
             .build();
     Optional<SearchFiltersResult> result =
         reachFilter(_batfish.getSnapshot(), _batfish, _config, ACCEPT_ALL_ACL, params);
@@ -563,10 +563,12 @@ public final class SearchFiltersTest {
 
   @Test
   public void testReachFilter_DENY_ALL_portConstraints() {
-    HeaderSpace hs = new HeaderSpace();
-    hs.setSrcPorts(ImmutableList.of(SubRange.singleton(1111)));
-    hs.setDstPorts(ImmutableList.of(SubRange.singleton(2222)));
-    hs.setIpProtocols(ImmutableList.of(IpProtocol.TCP));
+    HeaderSpace hs =
+        HeaderSpace.builder()
+            .setSrcPorts(SubRange.singleton(1111))
+            .setDstPorts(SubRange.singleton(2222))
+            .setIpProtocols(IpProtocol.TCP)
+            .build();
     SearchFiltersParameters params =
         _allLocationsParams
             .toBuilder()